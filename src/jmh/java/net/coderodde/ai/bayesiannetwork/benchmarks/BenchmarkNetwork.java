@@ -0,0 +1,196 @@
+package net.coderodde.ai.bayesiannetwork.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import net.coderodde.ai.bayesiannetwork.BulkNetworkLoader;
+import net.coderodde.ai.bayesiannetwork.DirectedGraphNode;
+import net.coderodde.ai.bayesiannetwork.NetworkGenerator;
+import net.coderodde.ai.bayesiannetwork.ProbabilityMap;
+
+/**
+ * This class builds the networks the benchmarks run on as scripts of 
+ * {@code new} and {@code connect} commands, and loads them the way the 
+ * {@code load} command does. The nodes are named {@code n0}, {@code n1} and
+ * so on, the root being {@code n0}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class BenchmarkNetwork {
+
+    /**
+     * Lists the shapes of the benchmark networks.
+     */
+    public enum Shape {
+
+        /**
+         * A path of nodes, each the parent of the next one.
+         */
+        CHAIN,
+
+        /**
+         * A complete binary tree in breadth first order.
+         */
+        TREE,
+
+        /**
+         * A single node with all the other nodes as its parents.
+         */
+        FAN_IN,
+
+        /**
+         * A random network like {@code mega.txt} made by the 
+         * {@link NetworkGenerator}: each node has between one and four 
+         * parents, in levels of four nodes on average.
+         */
+        RANDOM
+    }
+
+    /**
+     * The seed of the random networks, fixed for reproducible results.
+     */
+    private static final long SEED = 13L;
+
+    private static final int MAXIMUM_RANDOM_PARENTS = 4;
+
+    private static final int RANDOM_LEVEL_SIZE = 4;
+
+    private final Map<String, DirectedGraphNode> nodeMap = new TreeMap<>();
+    private final ProbabilityMap<DirectedGraphNode> probabilityMap =
+            new ProbabilityMap<>();
+    private final String script;
+
+    /**
+     * Builds and loads a network.
+     * 
+     * @param shape         the shape of the network.
+     * @param numberOfNodes the number of nodes in the network.
+     */
+    public BenchmarkNetwork(Shape shape, int numberOfNodes) {
+        this.script = createScript(shape, numberOfNodes);
+
+        try {
+            if (!load(script, nodeMap, probabilityMap)) {
+                throw new IllegalStateException(
+                        "The benchmark network is invalid.");
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Loads a script into a network.
+     * 
+     * @param script         the script.
+     * @param nodeMap        the map mapping the node names to the nodes.
+     * @param probabilityMap the map mapping each node to its probability.
+     * @return {@code true} if the script was valid.
+     * @throws IOException never in practice.
+     */
+    public static boolean load(String script,
+                               Map<String, DirectedGraphNode> nodeMap,
+                               ProbabilityMap<DirectedGraphNode> 
+                                       probabilityMap) throws IOException {
+        BulkNetworkLoader loader = 
+                new BulkNetworkLoader(nodeMap, probabilityMap);
+        return loader.load(new StringReader(script));
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public List<DirectedGraphNode> getNodeList() {
+        return new ArrayList<>(nodeMap.values());
+    }
+
+    public ProbabilityMap<DirectedGraphNode> getProbabilityMap() {
+        return probabilityMap;
+    }
+
+    public DirectedGraphNode getNode(String name) {
+        return nodeMap.get(name);
+    }
+
+    /**
+     * Returns the root of the network, which has no parents.
+     * 
+     * @return the first node.
+     */
+    public DirectedGraphNode getFirstNode() {
+        return nodeMap.get("n0");
+    }
+
+    /**
+     * Returns the node created last, deepest in the network.
+     * 
+     * @return the last node.
+     */
+    public DirectedGraphNode getLastNode() {
+        return nodeMap.get("n" + (nodeMap.size() - 1));
+    }
+
+    private static String createScript(Shape shape, int numberOfNodes) {
+        if (numberOfNodes < 2) {
+            throw new IllegalArgumentException(
+                    "A benchmark network needs at least 2 nodes.");
+        }
+
+        if (shape == Shape.RANDOM) {
+            return createRandomScript(numberOfNodes);
+        }
+
+        StringBuilder sb = new StringBuilder();
+
+        for (int node = 0; node < numberOfNodes; ++node) {
+            sb.append("new n").append(node).append(" 0.5\n");
+        }
+
+        for (int node = 1; node < numberOfNodes; ++node) {
+            switch (shape) {
+                case CHAIN:
+                    connect(sb, node - 1, node);
+                    break;
+
+                case TREE:
+                    connect(sb, (node - 1) / 2, node);
+                    break;
+
+                default:
+                    // The last node is the child of all the others.
+                    connect(sb, node - 1, numberOfNodes - 1);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static String createRandomScript(int numberOfNodes) {
+        NetworkGenerator generator = new NetworkGenerator();
+        generator.setNumberOfNodes(numberOfNodes);
+        generator.setDepth(Math.max(2, numberOfNodes / RANDOM_LEVEL_SIZE));
+        generator.setMaximumFanIn(MAXIMUM_RANDOM_PARENTS);
+        generator.setSeed(SEED);
+        StringWriter writer = new StringWriter();
+
+        try {
+            generator.writeScript(writer);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        return writer.toString();
+    }
+
+    private static void connect(StringBuilder sb, int tail, int head) {
+        sb.append("connect n").append(tail)
+          .append(" to n").append(head).append('\n');
+    }
+}
@@ -0,0 +1,78 @@
+package net.coderodde.ai.bayesiannetwork.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.ai.bayesiannetwork.ArithmeticCircuit;
+import net.coderodde.ai.bayesiannetwork.BayesNetworkClassifier;
+import net.coderodde.ai.bayesiannetwork.ClassificationResult;
+import net.coderodde.ai.bayesiannetwork.CompilationOptions;
+import net.coderodde.ai.bayesiannetwork.DirectedGraphNode;
+import net.coderodde.ai.bayesiannetwork.ProbabilityMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the compilation of a network by both engines: the enumeration of 
+ * the system states and the arithmetic circuit. The sizes are kept small, as
+ * a fan-in network of {@code n} nodes has {@code 2^(n - 1)} states; see
+ * {@link MegaCompilationBenchmark} for a network as large as 
+ * {@code mega.txt}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompilationBenchmark {
+
+    @Param({"CHAIN", "TREE", "FAN_IN", "RANDOM"})
+    public BenchmarkNetwork.Shape shape;
+
+    @Param({"12", "20"})
+    public int size;
+
+    @Param({"HEAP", "OFF_HEAP", "COMPRESSED"})
+    public CompilationOptions.Storage storage;
+
+    private List<DirectedGraphNode> nodeList;
+    private ProbabilityMap<DirectedGraphNode> probabilityMap;
+    private final CompilationOptions options = new CompilationOptions();
+
+    @Setup
+    public void setUp() {
+        BenchmarkNetwork network = new BenchmarkNetwork(shape, size);
+        nodeList = network.getNodeList();
+        probabilityMap = network.getProbabilityMap();
+        options.setStorage(storage);
+    }
+
+    @Benchmark
+    public int classify() {
+        ClassificationResult result = 
+                BayesNetworkClassifier.classify(nodeList, 
+                                                probabilityMap, 
+                                                options);
+        int numberOfStates = result.getNumberOfStates();
+        result.release();
+        return numberOfStates;
+    }
+
+    @Benchmark
+    public ArithmeticCircuit compileCircuit() {
+        return ArithmeticCircuit.compile(nodeList, probabilityMap);
+    }
+}
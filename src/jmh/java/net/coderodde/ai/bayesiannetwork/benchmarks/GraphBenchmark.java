@@ -0,0 +1,57 @@
+package net.coderodde.ai.bayesiannetwork.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.ai.bayesiannetwork.DirectedGraphNode;
+import net.coderodde.ai.bayesiannetwork.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the graph traversals run before each compilation: finding the 
+ * connected component and checking it for cycles.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+
+    @Param({"CHAIN", "TREE", "FAN_IN", "RANDOM"})
+    public BenchmarkNetwork.Shape shape;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private DirectedGraphNode start;
+
+    @Setup
+    public void setUp() {
+        start = new BenchmarkNetwork(shape, size).getFirstNode();
+    }
+
+    @Benchmark
+    public List<DirectedGraphNode> findEntireGraph() {
+        return Utils.findEntireGraph(start);
+    }
+
+    @Benchmark
+    public boolean graphIsAcyclic() {
+        return Utils.graphIsAcyclic(start);
+    }
+}
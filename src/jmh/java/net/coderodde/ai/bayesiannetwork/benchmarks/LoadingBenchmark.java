@@ -0,0 +1,56 @@
+package net.coderodde.ai.bayesiannetwork.benchmarks;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.ai.bayesiannetwork.DirectedGraphNode;
+import net.coderodde.ai.bayesiannetwork.ProbabilityMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures loading a script of {@code new} and {@code connect} commands, as
+ * the {@code load} command does, validation included.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadingBenchmark {
+
+    @Param({"CHAIN", "TREE", "FAN_IN", "RANDOM"})
+    public BenchmarkNetwork.Shape shape;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private String script;
+
+    @Setup
+    public void setUp() {
+        script = new BenchmarkNetwork(shape, size).getScript();
+    }
+
+    @Benchmark
+    public Map<String, DirectedGraphNode> load() throws IOException {
+        Map<String, DirectedGraphNode> nodeMap = new TreeMap<>();
+        BenchmarkNetwork.load(script, nodeMap, new ProbabilityMap<>());
+        return nodeMap;
+    }
+}
@@ -0,0 +1,85 @@
+package net.coderodde.ai.bayesiannetwork.benchmarks;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.ai.bayesiannetwork.ArithmeticCircuit;
+import net.coderodde.ai.bayesiannetwork.BayesNetworkClassifier;
+import net.coderodde.ai.bayesiannetwork.ClassificationResult;
+import net.coderodde.ai.bayesiannetwork.CompilationOptions;
+import net.coderodde.ai.bayesiannetwork.DirectedGraphNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the query {@code p(last | first)} against a network compiled by
+ * both engines, the last node being the deepest one.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+    @Param({"CHAIN", "TREE", "FAN_IN", "RANDOM"})
+    public BenchmarkNetwork.Shape shape;
+
+    @Param({"12", "20"})
+    public int size;
+
+    @Param({"HEAP"})
+    public CompilationOptions.Storage storage;
+
+    private ClassificationResult result;
+    private ArithmeticCircuit circuit;
+    private Map<DirectedGraphNode, Boolean> posterioriVariableMap;
+    private Map<DirectedGraphNode, Boolean> aprioriVariableMap;
+
+    @Setup
+    public void setUp() {
+        BenchmarkNetwork network = new BenchmarkNetwork(shape, size);
+        CompilationOptions options = new CompilationOptions();
+        options.setStorage(storage);
+        result = BayesNetworkClassifier.classify(network.getNodeList(),
+                                                 network.getProbabilityMap(),
+                                                 options);
+        circuit = ArithmeticCircuit.compile(network.getNodeList(),
+                                            network.getProbabilityMap());
+        posterioriVariableMap = 
+                Collections.singletonMap(network.getLastNode(), true);
+        aprioriVariableMap = new HashMap<>();
+        aprioriVariableMap.put(network.getFirstNode(), true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        result.release();
+    }
+
+    @Benchmark
+    public double queryStates() {
+        return result.query(posterioriVariableMap, aprioriVariableMap);
+    }
+
+    @Benchmark
+    public double queryCircuit() {
+        return circuit.query(posterioriVariableMap, aprioriVariableMap);
+    }
+}
@@ -1,29 +1,39 @@
 package net.coderodde.ai.bayesiannetwork;
 
-import java.util.Arrays;
-
 public abstract class AbstractExecutableCommand {
 
-    private static final String SPLIT_REGEX = "\\s+";
-    
     /**
      * Executes a command.
-     * 
+     *
      * @param command the text used to invoke this program.
      */
     public abstract void execute(String command);
-    
+
+    /**
+     * Executes a command already split into tokens. The commands run in bulk
+     * override this for reading the tokens in place, the rest split the text
+     * again.
+     *
+     * @param command the text used to invoke this program.
+     * @param lexer   the lexer holding the tokens of {@code command}.
+     */
+    public void execute(String command, CommandLexer lexer) {
+        execute(command);
+    }
+
+    /**
+     * Tells whether the command can be repeated from its text alone. The 
+     * commands reading files cannot, since the files may have changed since.
+     * The edit journal records the text of the repeatable commands modifying
+     * the network, and takes a snapshot of the network after the rest.
+     *
+     * @return {@code true} if the command is repeatable.
+     */
+    public boolean isRepeatable() {
+        return true;
+    }
+
     protected static String[] splitToTokens(String text) {
-        String[] tokens = text.split(SPLIT_REGEX);
-        
-        if (tokens.length == 0) {
-            System.out.println("tokens.length == 0");
-        }
-        
-        if (tokens[0].isEmpty()) {
-            return Arrays.copyOfRange(tokens, 1, tokens.length);
-        }
-        
-        return tokens;
+        return new CommandLexer().reset(text).toArray();
     }
 }
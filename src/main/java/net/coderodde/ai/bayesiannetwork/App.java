@@ -1,28 +1,65 @@
 package net.coderodde.ai.bayesiannetwork;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
 import java.util.TreeMap;
-import static net.coderodde.ai.bayesiannetwork.BayesNetworkClassifier.classify;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import static net.coderodde.ai.bayesiannetwork.Utils.error;
 import static net.coderodde.ai.bayesiannetwork.Utils.findEntireGraph;
 import net.coderodde.ai.bayesiannetwork.commands.ArcQueryExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.BatchExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.CancelExecutableCommand;
 import net.coderodde.ai.bayesiannetwork.commands.ChangeDirectoryExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.CompileExecutableCommand;
 import net.coderodde.ai.bayesiannetwork.commands.ConnectNodePairExecutableCommand;
 import net.coderodde.ai.bayesiannetwork.commands.CreateNewNodeExecutableCommand;
 import net.coderodde.ai.bayesiannetwork.commands.DeleteNodeExecutableCommand;
 import net.coderodde.ai.bayesiannetwork.commands.DisconnectNodePairExecutableCommand;
 import net.coderodde.ai.bayesiannetwork.commands.EchoExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.EngineExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.ExplainExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.ExportExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.GenerateExecutableCommand;
 import net.coderodde.ai.bayesiannetwork.commands.HelpExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.JournalExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.LimitExecutableCommand;
 import net.coderodde.ai.bayesiannetwork.commands.ListFilesExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.LoadBifExecutableCommand;
 import net.coderodde.ai.bayesiannetwork.commands.LoadFileExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.MarginalsExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.MetricsExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.OpenExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.PlanExecutableCommand;
 import net.coderodde.ai.bayesiannetwork.commands.PrintNodesExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.PruneExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.SaveExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.StatsExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.commands.StorageExecutableCommand;
 
 /**
  * This class implements a console program for working on Bayes networks.
@@ -37,6 +74,17 @@ public final class App {
      * Defines the token denoting a line comment.
      */
     public static final String COMMENT_BEGIN_TEXT = "#";
+
+    /**
+     * The size of the buffer for writing the system state list.
+     */
+    private static final int LIST_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The number of queries a thread takes at a time when answering a query
+     * file in parallel.
+     */
+    private static final int BATCH_CHUNK_SIZE = 256;
     
     /**
      * This map maps each node name to its representation.
@@ -46,8 +94,23 @@ public final class App {
     /**
      * Maps command names to their respective handlers.
      */
-    private final Map<String, AbstractExecutableCommand> commandMap =
-            new HashMap<>();
+    private final CommandTable commandTable = new CommandTable();
+
+    /**
+     * The lexers free for the commands of each thread. A command may handle
+     * further commands, like 'load' does, so a thread uses a lexer per 
+     * nesting level.
+     */
+    private final ThreadLocal<Deque<CommandLexer>> freeLexers = 
+            ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * Lets the commands of the server mode other than the queries and the 
+     * state lists modify and compile the network one at a time. The queries 
+     * and the state lists do not take it, as they read an immutable version
+     * of the network.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
 
     /**
      * This map maps each node to its probability.
@@ -56,15 +119,75 @@ public final class App {
             new ProbabilityMap<>();
 
     /**
-     * Indicates whether the state of the graph was changed after last
-     * compilation.
+     * The options used for compiling the network.
+     */
+    private final CompilationOptions compilationOptions =
+            new CompilationOptions();
+
+    /**
+     * The last compiled version of the network, which answers the queries. 
+     * It is up to date if compiled after the last modification.
+     */
+    private final AtomicReference<NetworkVersion> version = 
+            new AtomicReference<>();
+
+    /**
+     * If set to {@code true}, an outdated version keeps answering the 
+     * concurrent queries until the next version is compiled. Otherwise it is
+     * discarded before the compilation, leaving the memory to the next one.
+     */
+    private boolean serving;
+
+    /**
+     * The number of modifications each thread has made to the network and 
+     * expects to see in the answers to its queries.
+     */
+    private final ThreadLocal<Long> ownModificationCount = 
+            ThreadLocal.withInitial(() -> 0L);
+
+    /**
+     * The enumeration of the system states running in the background, or 
+     * {@code null} if none is pending.
+     */
+    private FutureTask<ClassificationResult> pendingCompilation;
+
+    /**
+     * The number of modifications the pending enumeration was started after.
+     */
+    private long pendingModificationCount;
+
+    /**
+     * The progress of the last enumeration of the system states, or 
+     * {@code null} if none has been started.
+     */
+    private volatile CompilationProgress compilationProgress;
+
+    /**
+     * The metrics of the queries answered.
+     */
+    private final QueryMetrics queryMetrics = new QueryMetrics();
+
+    /**
+     * The server of the query metrics, or {@code null} if they are not 
+     * served.
+     */
+    private MetricsServer metricsServer;
+
+    /**
+     * The journal of the modifying commands, or {@code null} if journaling is
+     * off.
      */
-    private boolean stateModified = true;
+    private EditJournal journal;
 
     /**
-     * Caches the last classification result for queries.
+     * The number of modifications to the network and the options so far.
      */
-    private ClassificationResult result;
+    private volatile long modificationCount;
+
+    /**
+     * The number of modifications recorded in the journal so far.
+     */
+    private long journaledModificationCount;
 
     /**
      * The scanner for reading the commands.
@@ -94,21 +217,39 @@ public final class App {
     private App(String[] fileNameArray) {
         this.fileNameArray = fileNameArray;
 
-        commandMap.put("new",        new CreateNewNodeExecutableCommand(this));
-        commandMap.put("del",        new DeleteNodeExecutableCommand(this));
-        commandMap.put("is",         new ArcQueryExecutableCommand(this));
-        commandMap.put("disconnect", new DisconnectNodePairExecutableCommand(
-                                         this));
+        commandTable.put("new",        new CreateNewNodeExecutableCommand(this));
+        commandTable.put("del",        new DeleteNodeExecutableCommand(this));
+        commandTable.put("is",         new ArcQueryExecutableCommand(this));
+        commandTable.put("disconnect", new DisconnectNodePairExecutableCommand(
+                                           this));
         
-        commandMap.put("connect",    new ConnectNodePairExecutableCommand(
-                                         this));
+        commandTable.put("connect",    new ConnectNodePairExecutableCommand(
+                                           this));
         
-        commandMap.put("echo",       new EchoExecutableCommand());
-        commandMap.put("help",       new HelpExecutableCommand());
-        commandMap.put("print",      new PrintNodesExecutableCommand(this));
-        commandMap.put("ls",         new ListFilesExecutableCommand());
-        commandMap.put("cd",         new ChangeDirectoryExecutableCommand());
-        commandMap.put("load",       new LoadFileExecutableCommand(this));
+        commandTable.put("echo",       new EchoExecutableCommand());
+        commandTable.put("help",       new HelpExecutableCommand());
+        commandTable.put("print",      new PrintNodesExecutableCommand(this));
+        commandTable.put("ls",         new ListFilesExecutableCommand());
+        commandTable.put("cd",         new ChangeDirectoryExecutableCommand());
+        commandTable.put("load",       new LoadFileExecutableCommand(this));
+        commandTable.put("prune",      new PruneExecutableCommand(this));
+        commandTable.put("plan",       new PlanExecutableCommand(this));
+        commandTable.put("engine",     new EngineExecutableCommand(this));
+        commandTable.put("marginals",  new MarginalsExecutableCommand(this));
+        commandTable.put("save",       new SaveExecutableCommand(this));
+        commandTable.put("open",       new OpenExecutableCommand(this));
+        commandTable.put("storage",    new StorageExecutableCommand(this));
+        commandTable.put("export",     new ExportExecutableCommand(this));
+        commandTable.put("load-bif",   new LoadBifExecutableCommand(this));
+        commandTable.put("journal",    new JournalExecutableCommand(this));
+        commandTable.put("compile",    new CompileExecutableCommand(this));
+        commandTable.put("cancel",     new CancelExecutableCommand(this));
+        commandTable.put("limit",      new LimitExecutableCommand(this));
+        commandTable.put("generate",   new GenerateExecutableCommand(this));
+        commandTable.put("stats",      new StatsExecutableCommand(this));
+        commandTable.put("metrics",    new MetricsExecutableCommand(this));
+        commandTable.put("explain",    new ExplainExecutableCommand(this));
+        commandTable.put("batch",      new BatchExecutableCommand(this));
 
         if (fileNameArray.length > 0) {
             String fileName = fileNameArray[0];
@@ -139,8 +280,55 @@ public final class App {
         return probabilityMap;
     }
     
+    public CompilationOptions getCompilationOptions() {
+        return compilationOptions;
+    }
+    
+    /**
+     * Marks the network or the compilation options modified, so that the 
+     * compiled version of the network is outdated.
+     * 
+     * @param stateModified whether modified.
+     */
     public void setModificationState(boolean stateModified) {
-        this.stateModified = stateModified;
+        if (stateModified) {
+            ++modificationCount;
+        }
+    }
+
+    /**
+     * Returns the journal of the modifying commands.
+     * 
+     * @return the journal, or {@code null} if journaling is off.
+     */
+    public EditJournal getJournal() {
+        return journal;
+    }
+
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    /**
+     * Returns the server of the query metrics.
+     * 
+     * @return the server, or {@code null} if the metrics are not served.
+     */
+    public MetricsServer getMetricsServer() {
+        return metricsServer;
+    }
+
+    /**
+     * Replaces the server of the query metrics, closing the previous one.
+     * 
+     * @param metricsServer the new server, or {@code null} for none.
+     */
+    public void setMetricsServer(MetricsServer metricsServer) {
+        if (this.metricsServer != null) {
+            this.metricsServer.close();
+        }
+
+        this.metricsServer = metricsServer;
     }
 
     private boolean promptAllowed() {
@@ -188,6 +376,7 @@ public final class App {
             }
 
             if (command.equals("quit")) {
+                closeJournal();
                 System.out.println("Bye!");
                 return;
             }
@@ -197,241 +386,1604 @@ public final class App {
     }
 
     public void handleCommand(String command) {
-        // Obtain whitespace delimited tokens.
-        String[] words = command.split("\\s+");
-
-        if (commandMap.containsKey(words[0])) {
-            commandMap.get(words[0]).execute(command);
-        } else if (words[0].equals("list")) {
-            handleList(true);
-        } else if (words[0].equals(COMMENT_BEGIN_TEXT)) {
-            // A comment. Do nothing.
-        } else if (handleQuery(command)) {
-            // Once here, the command was recognized as a query. Do not go
-            // to 'handlePrintNode'.
-        } else {
-            // No match whatsoever, possibly the user wants to query a node 
-            // information.
-            handlePrintNode(words);
+        CommandLexer lexer = borrowLexer();
+
+        try {
+            handleCommand(command, lexer.reset(command));
+        } finally {
+            returnLexer(lexer);
         }
     }
-    
+
     /**
-     * Handles the command for listing the system states.
+     * Handles a command of one of many concurrent clients. The queries and 
+     * the state lists only read a compiled version of the network, and run
+     * concurrently with each other and with the rest of the commands, which
+     * run one at a time. A query is answered by the last compiled version if
+     * it is up to date, or if another command is busy modifying or 
+     * compiling the network meanwhile. Yet a client always sees its own 
+     * modifications.
      * 
-     * @param showList whether to show the actual state list after successful
-     *                 compilation.
+     * @param command the command.
      */
-    private void handleList(boolean showList) {
-        if (stateModified) {
-            List<DirectedGraphNode> network = new ArrayList<>(nodeMap.values());
+    public void handleConcurrentCommand(String command) {
+        if (isQueryOrList(command)) {
+            NetworkVersion current = acquireVersion();
 
-            if (network.isEmpty()) {
-                error("You have no nodes.");
-                return;
+            if (current != null) {
+                try {
+                    if (canAnswer(current, command)) {
+                        CommandLexer lexer = borrowLexer();
+
+                        try {
+                            answer(command, lexer.reset(command), current);
+                        } finally {
+                            returnLexer(lexer);
+                        }
+
+                        return;
+                    }
+                } finally {
+                    current.release();
+                }
             }
+        }
 
-            List<DirectedGraphNode> component = findEntireGraph(network.get(0));
+        lock.lock();
 
-            if (component.size() < network.size()) {
-                error("The graph is not connected.");
-                return; 
+        try {
+            long count = modificationCount;
+            handleCommand(command);
+
+            if (modificationCount != count) {
+                ownModificationCount.set(modificationCount);
             }
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            try {
-                long startTime = System.currentTimeMillis();
-                result = BayesNetworkClassifier.classify(network, 
-                                                         probabilityMap);
-                long endTime = System.currentTimeMillis();
-                stateModified = false;
-
-                System.out.println("Compiled the graph in " + 
-                                  (endTime - startTime) + " milliseconds.");
-                if (Math.abs(1.0 - result.getSumOfProbabilities()) > 0.0001) {
-                    throw new IllegalStateException(
-                    "The sum of probabilities over all possible states does " + 
-                    "not sum to 1.0");
-                }
+    private static boolean isQueryOrList(String command) {
+        return command.startsWith("p(") || 
+               command.startsWith("list") && 
+               (command.length() == 4 || 
+                CommandLexer.isWhitespace(command.charAt(4)));
+    }
 
-                System.out.println("Number of possible states: " +
-                                   result.getNumberOfStates());
-            } catch (Exception ex) {
-                error(ex.getMessage());
-                return;
+    /**
+     * Acquires the last compiled version of the network for reading.
+     * 
+     * @return the version, or {@code null} if none is compiled.
+     */
+    private NetworkVersion acquireVersion() {
+        while (true) {
+            NetworkVersion current = version.get();
+
+            if (current == null || current.acquire()) {
+                return current;
             }
+
+            // Retired meanwhile, so a newer version is published already.
+        }
+    }
+
+    /**
+     * Tells whether a query or a state list may be answered by a version 
+     * without waiting for the compilation of a newer one.
+     * 
+     * @param current the version.
+     * @param command the query or the state list command.
+     * @return {@code true} if the version may answer the command.
+     */
+    private boolean canAnswer(NetworkVersion current, String command) {
+        if (command.startsWith("p(") ? current.getEngine() == null :
+                                       current.getResult() == null) {
+            return false;
+        }
+
+        if (current.getModificationCount() == modificationCount) {
+            return true;
         }
 
-        if (result == null) {
-            error("No network built yet.");
-        } else if (showList) {
-            System.out.print(result);
+        if (current.getModificationCount() < ownModificationCount.get()) {
+            return false;
         }
+
+        // Outdated. Answer right away if another command holds the lock, 
+        // otherwise compile the next version.
+        return lock.isLocked();
     }
 
-    private Map<DirectedGraphNode, Boolean> 
-        loadVariableMap(String command) {
-        String[] variableStrings = command.split(",");
-        Map<DirectedGraphNode, Boolean> map = new HashMap<>();
+    private CommandLexer borrowLexer() {
+        Deque<CommandLexer> lexers = freeLexers.get();
+        return lexers.isEmpty() ? new CommandLexer() : lexers.pop();
+    }
 
-        for (int i = 0; i < variableStrings.length; ++i) {
-            variableStrings[i] = variableStrings[i].trim();
-            boolean negate = false;
-            String varName;
+    private void returnLexer(CommandLexer lexer) {
+        freeLexers.get().push(lexer);
+    }
 
-            if (variableStrings[i].startsWith("not ")) {
-                negate = true;
-                varName = variableStrings[i].substring(4);
-            } else {
-                varName = variableStrings[i];
+    /**
+     * Executes the commands in the files, skipping the rest of a file after
+     * 'quit'.
+     * 
+     * @param fileNames the names of the files.
+     * @return {@code false} if some file cannot be read.
+     */
+    private boolean executeFiles(String[] fileNames) {
+        for (String fileName : fileNames) {
+            List<String> commands;
+
+            try {
+                commands = Files.readAllLines(new File(fileName).toPath());
+            } catch (IOException ex) {
+                error("Cannot access file \"" + fileName + "\".");
+                return false;
             }
 
-            if (!nodeMap.containsKey(varName)) {
-                error("No node \"" + varName + "\".");
-                return null;
-            } 
+            for (String command : commands) {
+                if (command.isEmpty() || command.startsWith("#")) {
+                    continue;
+                }
+
+                if (command.equals("quit")) {
+                    break;
+                }
 
-            map.put(nodeMap.get(varName), !negate);
+                handleCommand(command);
+            }
         }
 
-        return map;
+        return true;
     }
 
     /**
-     * Handles the commands for making queries on the network.
+     * Answers a query or a state list command by a compiled version of the
+     * network.
      * 
      * @param command the command.
-     * @return {@code true} if command prefix is that of query commands.
+     * @param lexer   the lexer holding the tokens of the command.
+     * @param current the version.
      */
-    private boolean handleQuery(String command) {
-        if (!command.startsWith("p(")) {
-            return false;
+    private void answer(String command, 
+                        CommandLexer lexer, 
+                        NetworkVersion current) {
+        if (lexer.tokenEquals(0, "list")) {
+            handleList(lexer, current);
+        } else {
+            handleQuery(command, current);
         }
+    }
 
-        if (stateModified) {
-            handleList(false);
+    private void handleCommand(String command, CommandLexer lexer) {
+        if (lexer.size() == 0) {
+            // Only whitespace.
+            return;
+        }
 
-            if (stateModified) {
-                // If 'handleList' could not update the state, we have a problem
-                // with the graph: it is either disconnected or contains cycles.
-                return true;
-            }
+        AbstractExecutableCommand executableCommand = 
+                commandTable.get(lexer, 0);
+
+        if (executableCommand != null) {
+            executableCommand.execute(command, lexer);
+            journalModifications(command, executableCommand);
+        } else if (lexer.tokenEquals(0, "list")) {
+            handleList(lexer, null);
+        } else if (lexer.tokenEquals(0, COMMENT_BEGIN_TEXT)) {
+            // A comment. Do nothing.
+        } else if (handleQuery(command, null)) {
+            // Once here, the command was recognized as a query. Do not go
+            // to 'handlePrintNode'.
+        } else {
+            // No match whatsoever, possibly the user wants to query a node 
+            // information.
+            handlePrintNode(lexer);
+        }
+    }
+    
+    /**
+     * Records a command in the journal if it modified the network. The
+     * modifications made by the commands it handled in turn, like the rows of
+     * a loaded file, are journaled already. A command that cannot be
+     * repeated from its text is followed by a checkpoint instead.
+     * 
+     * @param command           the command.
+     * @param executableCommand the handler of the command.
+     */
+    private void journalModifications(
+            String command, 
+            AbstractExecutableCommand executableCommand) {
+        if (journal == null || 
+                journaledModificationCount == modificationCount) {
+            return;
         }
 
-        if (!command.endsWith(")")) {
-            error("No trailing \")\".");
-            return true;
+        journaledModificationCount = modificationCount;
+
+        try {
+            if (executableCommand.isRepeatable()) {
+                journal.append(command);
+
+                if (!journal.isCheckpointDue()) {
+                    return;
+                }
+            }
+
+            checkpointJournal();
+        } catch (IOException ex) {
+            abandonJournal(ex);
         }
+    }
 
-        String innerContent = command.substring(2, command.length() - 1).trim();
-        String[] parts = innerContent.split("\\|");
+    private void abandonJournal(IOException ex) {
+        error("Cannot write the journal in \"" + journal.getDirectory() + 
+              "\": " + ex.getMessage() + " Journaling is off.");
 
-        if (parts.length != 2) {
-            error("No single delimeter bar |");
-            return true;
+        try {
+            journal.close();
+        } catch (IOException closeException) {
+            // Reported already.
         }
 
-        Map<DirectedGraphNode, Boolean> posterioriVariables =
-                loadVariableMap(parts[0]);
-        Map<DirectedGraphNode, Boolean> aprioriVariables = 
-                loadVariableMap(parts[1]);
+        journal = null;
+    }
+
+    /**
+     * Starts journaling into a directory. If the directory holds a journal,
+     * the network is first replaced with the one recovered from it: the 
+     * snapshot is loaded, and the journaled commands after it are repeated.
+     * Otherwise the current network becomes the first snapshot.
+     * 
+     * @param directory the journal directory.
+     * @return the state recovered from the directory.
+     * @throws IOException if the journal cannot be read or written.
+     */
+    public EditJournal.Recovery openJournal(Path directory) 
+            throws IOException {
+        closeJournal();
+
+        EditJournal.Recovery recovery = EditJournal.open(directory);
 
         try {
-            if (stateModified) {
-                try {
-                    result = classify(new ArrayList<>(nodeMap.values()), 
-                                      probabilityMap);
+            if (!recovery.isNew()) {
+                recover(recovery);
+            }
 
-                    if (result != null) {
-                        stateModified = false;
-                    }
-                } catch (Exception ex) {
-                    error(ex.getMessage());
-                    return true;
-                }
+            journal = recovery.getJournal();
+            journaledModificationCount = modificationCount;
+
+            if (recovery.isNew() || !recovery.getRecords().isEmpty()) {
+                // Spare the next recovery from repeating the commands.
+                checkpointJournal();
             }
 
-            System.out.println(result.query(posterioriVariables, 
-                                            aprioriVariables));
-        } catch (Exception ex) {
-            error(ex.getMessage());
-            return true;
+            return recovery;
+        } catch (IOException | RuntimeException ex) {
+            recovery.getJournal().close();
+            journal = null;
+            throw ex;
         }
+    }
 
-        return true;
+    private void recover(EditJournal.Recovery recovery) throws IOException {
+        if (recovery.getResultPath() != null) {
+            openSnapshot(ResultSnapshot.open(recovery.getResultPath()));
+        } else {
+            replaceNetwork(recovery.getNodeList(), 
+                           recovery.getProbabilityMap());
+            publish(null);
+            setModificationState(true);
+        }
+
+        // The options of the result may differ from the current ones only
+        // by the engine and the storage, which do not change the result.
+        recovery.restoreOptions(compilationOptions);
+
+        if (recovery.getRecords().isEmpty()) {
+            return;
+        }
+
+        // The commands succeeded before, so their output is not repeated.
+        // Only this thread is silenced, as the clients of the server may be
+        // printing at the same time.
+        ThreadLocalOutputStream out = 
+                ThreadLocalOutputStream.getStandardOutput();
+        OutputStream target = out.setTarget(ThreadLocalOutputStream.DISCARD);
+
+        try {
+            for (String command : recovery.getRecords()) {
+                handleCommand(command);
+            }
+        } finally {
+            out.setTarget(target);
+        }
     }
 
     /**
-     * Handles the command for printing a node information.
+     * Writes a snapshot of the network into the journal directory, together
+     * with the compiled result if it is up to date, and empties the journal.
      * 
-     * @param words the array of tokens.
+     * @throws IOException if writing fails.
      */
-    private void handlePrintNode(String[] words) {
-        if (words.length > 1 && !words[1].startsWith("#")) {
-            error("Bad command.");
+    public void checkpointJournal() throws IOException {
+        NetworkVersion current = version.get();
+        journal.checkpoint(new ArrayList<>(nodeMap.values()), 
+                           probabilityMap, 
+                           compilationOptions, 
+                           isUpToDate(current) ? current.getResult() : null);
+    }
+
+    /**
+     * Writes the journaled commands to the disk and stops journaling.
+     */
+    public void closeJournal() {
+        if (journal == null) {
             return;
         }
 
-        if (!nodeMap.containsKey(words[0])) {
-            error("\"" + words[0] + "\": no such node.");
-            return;
+        try {
+            journal.close();
+        } catch (IOException ex) {
+            error("Cannot write the journal in \"" + journal.getDirectory() +
+                  "\": " + ex.getMessage());
         }
 
-        DirectedGraphNode node = nodeMap.get(words[0]);
-        StringBuilder sb = new StringBuilder();
-        int i = 0;
+        journal = null;
+    }
 
-        // Get parent node names.
-        for (DirectedGraphNode parent : node.parents()) {
-            sb.append(parent.getName());
+    /**
+     * Handles the command for listing the system states: all of them, a page
+     * of them or the most probable ones. The states are written through a 
+     * buffer, so that the whole list is never held in memory.
+     * 
+     * @param lexer   the lexer holding the tokens of the command.
+     * @param current the version of the network to list the states of, or
+     *                {@code null} for the up to date version compiled if 
+     *                needed.
+     */
+    private void handleList(CommandLexer lexer, NetworkVersion current) {
+        int numberOfArguments = 0;
 
-            if (i++ < node.parents().size() - 1) {
-                sb.append(", ");
+        while (numberOfArguments + 1 < lexer.size() && 
+                !lexer.isComment(numberOfArguments + 1)) {
+            ++numberOfArguments;
+        }
+
+        int offset = 0;
+        int limit = Integer.MAX_VALUE;
+        int top = -1;
+
+        try {
+            if (numberOfArguments == 2 && lexer.tokenEquals(1, "top")) {
+                top = parseCount(lexer.getToken(2));
+            } else if (numberOfArguments == 2) {
+                offset = parseCount(lexer.getToken(1));
+                limit = parseCount(lexer.getToken(2));
+            } else if (numberOfArguments != 0) {
+                error("Bad format. Must be 'list', 'list <offset> <limit>' " +
+                      "or 'list top <k>'.");
+                return;
             }
+        } catch (IllegalArgumentException ex) {
+            error(ex.getMessage());
+            return;
         }
 
-        String parentListString = sb.toString();
+        if (current == null) {
+            if (!compileIfNeeded()) {
+                return;
+            }
 
-        sb.delete(0, sb.length());
-        i = 0;
+            current = version.get();
+        }
 
-        // Get child node names.
-        for (DirectedGraphNode child : node.children()) {
-            sb.append(child.getName());
+        ClassificationResult result = current.getResult();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(System.out),
+                                           LIST_BUFFER_SIZE);
 
-            if (i++ < node.children().size() - 1) {
-                sb.append(", ");
+        try {
+            if (top >= 0) {
+                result.writeMostProbableStates(writer, top);
+            } else {
+                result.writeStates(writer, offset, limit);
             }
+
+            // Do not close System.out.
+            writer.flush();
+        } catch (IOException ex) {
+            error("Cannot write the states: " + ex.getMessage());
         }
+    }
 
-        String childListString = sb.toString();
+    private static int parseCount(String text) {
+        int count;
 
-        System.out.println(
-                "\"" + words[0] + "\", probability " + 
-                probabilityMap.get(node) + ", parents: <" + parentListString +
-                ">, children: <" + childListString + ">");
+        try {
+            count = Integer.parseInt(text);
+        } catch (NumberFormatException ex) {
+            count = -1;
+        }
+
+        if (count < 0) {
+            throw new IllegalArgumentException(
+                    "\"" + text + "\" is not a non-negative integer.");
+        }
+
+        return count;
     }
 
     /**
-     * Returns {@code true} if at least one of the input strings is "-h".
+     * Compiles the system states unless they are compiled already.
      * 
-     * @param args the strings to check.
-     * @return {@code true} if at least one of the strings is "-h".
+     * @return {@code true} if the states are compiled.
      */
-    private static boolean hasHelpFlag(String[] args) {
-        for (String argument : args) {
-            if (argument.trim().equals("-h")) {
-                return true;
+    private boolean compileIfNeeded() {
+        discardOutdatedVersion();
+        NetworkVersion current = version.get();
+
+        if (!isUpToDate(current) || current.getResult() == null) {
+            CompilationPlan plan = planCompilation();
+
+            if (plan == null || !compileStates(plan)) {
+                return false;
             }
         }
 
-        return false;
+        return true;
     }
 
-    public static void main(String[] args) {
+    private boolean isUpToDate(NetworkVersion current) {
+        return current != null && 
+               current.getModificationCount() == modificationCount;
+    }
+
+    /**
+     * Discards the compiled version of the network if outdated, unless it
+     * keeps answering the concurrent queries until the next one is compiled.
+     * Cancels the pending enumeration if outdated.
+     */
+    private void discardOutdatedVersion() {
+        if (pendingCompilation != null && !isCompilationPending()) {
+            cancelCompilation();
+        }
+
+        if (!serving && !isUpToDate(version.get())) {
+            publish(null);
+        }
+    }
+
+    /**
+     * Returns the compiled version of the network if up to date, or else a 
+     * new version of the network with nothing compiled, to be extended with
+     * the compiled structures.
+     * 
+     * @return the version.
+     */
+    private NetworkVersion upToDateVersion() {
+        NetworkVersion current = version.get();
+        return isUpToDate(current) ? current : 
+                                     NetworkVersion.of(modificationCount, 
+                                                       nodeMap);
+    }
+
+    /**
+     * Publishes a version of the network for the queries, and retires the 
+     * previous one, which is freed once its concurrent queries finish.
+     * 
+     * @param newVersion the new version, or {@code null}.
+     */
+    private void publish(NetworkVersion newVersion) {
+        NetworkVersion previous = version.getAndSet(newVersion);
+
+        if (previous != null && previous != newVersion) {
+            previous.retire(newVersion);
+        }
+    }
+
+    /**
+     * Checks that the network can be compiled and predicts the cost of the
+     * compilation.
+     * 
+     * @return the compilation plan, or {@code null} if the network cannot be
+     *         compiled.
+     */
+    private CompilationPlan planCompilation() {
+        List<DirectedGraphNode> network = new ArrayList<>(nodeMap.values());
+
+        if (network.isEmpty()) {
+            error("You have no nodes.");
+            return null;
+        }
+
+        List<DirectedGraphNode> component = findEntireGraph(network.get(0));
+
+        if (component.size() < network.size()) {
+            error("The graph is not connected.");
+            return null; 
+        }
+
+        try {
+            return CompilationPlanner.plan(network, 
+                                           probabilityMap, 
+                                           compilationOptions);
+        } catch (Exception ex) {
+            error(ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Enumerates the system states of the network, waiting for the pending 
+     * enumeration if it is up to date.
+     * 
+     * @param plan the compilation plan.
+     * @return {@code true} if the compilation succeeded.
+     */
+    private boolean compileStates(CompilationPlan plan) {
+        if (!isCompilationPending() && !startCompilation(plan)) {
+            return false;
+        }
+
+        return finishCompilation();
+    }
+
+    /**
+     * Checks whether the system states of the network are compiled and up to 
+     * date.
+     * 
+     * @return {@code true} if the states are compiled.
+     */
+    public boolean isCompiled() {
+        NetworkVersion current = version.get();
+        return isUpToDate(current) && current.getResult() != null;
+    }
+
+    /**
+     * Starts enumerating the system states of the network in the background,
+     * unless they are compiled or being compiled already. A finished 
+     * enumeration is taken over for answering the queries.
+     * 
+     * @return {@code true} if the states are compiled or being compiled.
+     */
+    public boolean startCompilation() {
+        discardOutdatedVersion();
+
+        if (isCompiled()) {
+            return true;
+        }
+
+        if (isCompilationPending()) {
+            return !pendingCompilation.isDone() || finishCompilation();
+        }
+
+        CompilationPlan plan = planCompilation();
+        return plan != null && startCompilation(plan);
+    }
+
+    /**
+     * Returns the progress of the last enumeration of the system states.
+     * 
+     * @return the progress, or {@code null} if no enumeration has been 
+     *         started.
+     */
+    public CompilationProgress getCompilationProgress() {
+        return compilationProgress;
+    }
+
+    /**
+     * Cancels the pending enumeration of the system states, waiting for it to
+     * stop, and frees its result if it has finished meanwhile.
+     * 
+     * @return the progress of the cancelled enumeration, or {@code null} if
+     *         none was pending.
+     */
+    public CompilationProgress cancelCompilation() {
+        FutureTask<ClassificationResult> task = pendingCompilation;
+
+        if (task == null) {
+            return null;
+        }
+
+        pendingCompilation = null;
+        compilationProgress.cancel();
+        boolean interrupted = false;
+
+        while (true) {
+            try {
+                task.get().release();
+                break;
+            } catch (ExecutionException ex) {
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        return compilationProgress;
+    }
+
+    private boolean isCompilationPending() {
+        return pendingCompilation != null && 
+               pendingModificationCount == modificationCount;
+    }
+
+    /**
+     * Cancels the pending enumeration, if any, and starts a new one in the 
+     * background. The network is read before returning, so that it may be
+     * modified during the enumeration.
+     * 
+     * @param plan the compilation plan.
+     * @return {@code true} if the enumeration started.
+     */
+    private boolean startCompilation(CompilationPlan plan) {
+        if (!plan.isEnumerationFeasible()) {
+            error("The network is too large to compile within " + 
+                  "the available memory. Consider 'prune'.");
+            System.out.println(plan);
+            return false;
+        }
+
+        cancelCompilation();
+        CompilationProgress progress = new CompilationProgress();
+        BayesNetworkClassifier classifier;
+
+        try {
+            classifier = BayesNetworkClassifier.prepare(
+                    new ArrayList<>(nodeMap.values()), 
+                    probabilityMap,
+                    compilationOptions);
+        } catch (Exception ex) {
+            error(ex.getMessage());
+            return false;
+        }
+
+        FutureTask<ClassificationResult> task = 
+                new FutureTask<>(() -> classifier.classify(progress));
+        Thread thread = new Thread(task, "compilation");
+        thread.setDaemon(true);
+        pendingCompilation = task;
+        pendingModificationCount = modificationCount;
+        compilationProgress = progress;
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Waits for the pending enumeration and publishes its result.
+     * 
+     * @return {@code true} if the enumeration succeeded.
+     */
+    private boolean finishCompilation() {
+        ClassificationResult result;
+
+        try {
+            result = pendingCompilation.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            error("Interrupted while waiting for the compilation.");
+            return false;
+        } catch (ExecutionException ex) {
+            pendingCompilation = null;
+            error(ex.getCause().getMessage());
+            return false;
+        }
+
+        pendingCompilation = null;
+
+        try {
+            System.out.println("Compiled the graph in " + 
+                               compilationProgress.getDuration() + 
+                               " milliseconds.");
+            if (Math.abs(1.0 - result.getSumOfProbabilities()
+                             - result.getDiscardedProbabilityMass()) 
+                    > 0.0001) {
+                throw new IllegalStateException(
+                "The sum of probabilities over all possible states does " + 
+                "not sum to 1.0");
+            }
+
+            System.out.println("Number of possible states: " +
+                               result.getNumberOfStates());
+
+            if (result.getDiscardedProbabilityMass() > 0.0) {
+                System.out.println("Discarded probability mass: " + 
+                                   result.getDiscardedProbabilityMass());
+            }
+
+            publish(upToDateVersion().withResult(result));
+            return true;
+        } catch (Exception ex) {
+            result.release();
+            error(ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Compiles the network into an arithmetic circuit.
+     * 
+     * @return {@code true} if the compilation succeeded.
+     */
+    private boolean compileCircuit() {
+        try {
+            long startTime = System.currentTimeMillis();
+            ArithmeticCircuit circuit = ArithmeticCircuit.compile(
+                    new ArrayList<>(nodeMap.values()), 
+                    probabilityMap);
+            long endTime = System.currentTimeMillis();
+
+            System.out.println("Compiled the arithmetic circuit in " + 
+                              (endTime - startTime) + " milliseconds.");
+            System.out.println("Circuit size: " + 
+                               circuit.getNumberOfNodes() + " nodes, " + 
+                               circuit.getNumberOfEdges() + " edges.");
+            publish(upToDateVersion().withCircuit(circuit));
+            return true;
+        } catch (Exception ex) {
+            error(ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Makes sure the engine for answering queries is chosen and its data 
+     * structure is compiled.
+     * 
+     * @return {@code true} if queries can be answered.
+     */
+    private boolean prepareQueryEngine() {
+        discardOutdatedVersion();
+        NetworkVersion current = version.get();
+
+        if (isUpToDate(current) && current.getEngine() != null) {
+            return true;
+        }
+
+        CompilationPlan plan = planCompilation();
+
+        if (plan == null) {
+            return false;
+        }
+
+        switch (plan.getEngine()) {
+            case ENUMERATION:
+                if ((!isUpToDate(current) || current.getResult() == null) && 
+                        !compileStates(plan)) {
+                    return false;
+                }
+
+                break;
+
+            case CIRCUIT:
+                if (!compileCircuit()) {
+                    return false;
+                }
+
+                break;
+
+            default:
+                error("The network is too large to compile within " + 
+                      "the available memory. Consider 'prune'.");
+                System.out.println(plan);
+                return false;
+        }
+
+        publish(version.get().withEngine(plan.getEngine()));
+        return true;
+    }
+
+    /**
+     * Returns the arithmetic circuit of the network compiling it if needed.
+     * 
+     * @return the arithmetic circuit, or {@code null} if it cannot be 
+     *         compiled.
+     */
+    public ArithmeticCircuit getCircuit() {
+        discardOutdatedVersion();
+        NetworkVersion current = version.get();
+
+        if (isUpToDate(current) && current.getCircuit() != null) {
+            return current.getCircuit();
+        }
+
+        if (planCompilation() == null || !compileCircuit()) {
+            return null;
+        }
+
+        return version.get().getCircuit();
+    }
+
+    /**
+     * Returns the classification result of the network compiling it if 
+     * needed.
+     * 
+     * @return the classification result, or {@code null} if it cannot be 
+     *         compiled.
+     */
+    public ClassificationResult getResult() {
+        return compileIfNeeded() ? version.get().getResult() : null;
+    }
+
+    /**
+     * Replaces the current network and its compiled result with the ones 
+     * loaded from a snapshot.
+     * 
+     * @param snapshot the snapshot.
+     */
+    public void openSnapshot(ResultSnapshot snapshot) {
+        replaceNetwork(snapshot.getNodeList(), snapshot.getProbabilityMap());
+        snapshot.restoreOptions(compilationOptions);
+        setModificationState(true);
+        publish(NetworkVersion.of(modificationCount, nodeMap)
+                              .withResult(snapshot.getResult())
+                              .withEngine(CompilationPlan.Engine.ENUMERATION));
+    }
+
+    private void replaceNetwork(
+            List<DirectedGraphNode> nodeList,
+            ProbabilityMap<DirectedGraphNode> newProbabilityMap) {
+        for (DirectedGraphNode node : nodeMap.values()) {
+            probabilityMap.remove(node);
+        }
+
+        nodeMap.clear();
+
+        for (DirectedGraphNode node : nodeList) {
+            nodeMap.put(node.getName(), node);
+            probabilityMap.put(node, newProbabilityMap.get(node));
+        }
+    }
+
+    /**
+     * Parses a comma separated list of variables, each optionally preceded by
+     * "not".
+     * 
+     * @param command the text to parse.
+     * @return the map mapping each variable to its state, or {@code null} if 
+     *         some variable does not exist.
+     */
+    public Map<DirectedGraphNode, Boolean> 
+        loadVariableMap(String command) {
+        return loadVariableMap(nodeMap, command, 0, command.length());
+    }
+
+    /**
+     * Parses a comma separated list of variables within a part of a text. As
+     * {@code String.split}, ignores the trailing empty variables unless the
+     * list is empty.
+     * 
+     * @param nodes the map mapping the node names to the nodes.
+     * @param text  the text holding the list.
+     * @param begin the index of the first character of the list.
+     * @param end   the index past the last character of the list.
+     * @return the map mapping each variable to its state, or {@code null} if 
+     *         some variable does not exist.
+     */
+    private static Map<DirectedGraphNode, Boolean> 
+        loadVariableMap(Map<String, DirectedGraphNode> nodes,
+                        String text, 
+                        int begin, 
+                        int end) {
+        try {
+            return parseVariableMap(nodes, text, begin, end);
+        } catch (IllegalArgumentException ex) {
+            error(ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Parses a comma separated list of variables within a part of a text as
+     * {@link #loadVariableMap(Map, String, int, int) loadVariableMap} does.
+     * 
+     * @param nodes the map mapping the node names to the nodes.
+     * @param text  the text holding the list.
+     * @param begin the index of the first character of the list.
+     * @param end   the index past the last character of the list.
+     * @return the map mapping each variable to its state.
+     * @throws IllegalArgumentException if some variable does not exist.
+     */
+    private static Map<DirectedGraphNode, Boolean> 
+        parseVariableMap(Map<String, DirectedGraphNode> nodes,
+                         String text, 
+                         int begin, 
+                         int end) {
+        Map<DirectedGraphNode, Boolean> map = new HashMap<>();
+
+        if (begin < end) {
+            while (end > begin && text.charAt(end - 1) == ',') {
+                --end;
+            }
+
+            if (begin == end) {
+                return map;
+            }
+        }
+
+        while (true) {
+            int comma = text.indexOf(',', begin);
+            int variableEnd = comma < 0 || comma > end ? end : comma;
+            int variableBegin = begin;
+
+            // Trim as String.trim() does.
+            while (variableBegin < variableEnd && 
+                    text.charAt(variableBegin) <= ' ') {
+                ++variableBegin;
+            }
+
+            while (variableEnd > variableBegin && 
+                    text.charAt(variableEnd - 1) <= ' ') {
+                --variableEnd;
+            }
+
+            boolean negate = text.startsWith("not ", variableBegin) &&
+                             variableBegin + 4 <= variableEnd;
+
+            if (negate) {
+                variableBegin += 4;
+            }
+
+            String varName = text.substring(variableBegin, variableEnd);
+            DirectedGraphNode node = nodes.get(varName);
+
+            if (node == null) {
+                throw new IllegalArgumentException(
+                        "No node \"" + varName + "\".");
+            } 
+
+            map.put(node, !negate);
+
+            if (comma < 0 || comma >= end) {
+                return map;
+            }
+
+            begin = comma + 1;
+        }
+    }
+
+    /**
+     * Handles the commands for making queries on the network.
+     * 
+     * @param command the command.
+     * @param current the version of the network to query, or {@code null} 
+     *                for the up to date version compiled if needed.
+     * @return {@code true} if command prefix is that of query commands.
+     */
+    private boolean handleQuery(String command, NetworkVersion current) {
+        if (!command.startsWith("p(")) {
+            return false;
+        }
+
+        if (current == null) {
+            NetworkVersion previous = version.get();
+            boolean compiled = isUpToDate(previous) && 
+                               previous.getEngine() != null;
+
+            if (!prepareQueryEngine()) {
+                // We have a problem with the graph: it is either 
+                // disconnected, contains cycles or is too large.
+                queryMetrics.recordError();
+                return true;
+            }
+
+            queryMetrics.recordCompiledVersion(compiled);
+            current = version.get();
+        } else {
+            queryMetrics.recordCompiledVersion(true);
+        }
+
+        long startTime = System.nanoTime();
+        QueryVariables variables;
+
+        try {
+            variables = parseQuery(command, current.getNodeMap());
+        } catch (IllegalArgumentException ex) {
+            queryMetrics.recordError();
+            error(ex.getMessage());
+            return true;
+        }
+
+        try {
+            System.out.println(evaluateQuery(current, variables, startTime));
+        } catch (Exception ex) {
+            queryMetrics.recordError();
+            error(ex.getMessage());
+        }
+
+        return true;
+    }
+
+    /**
+     * Evaluates a query by a compiled version of the network, recording it 
+     * in the query metrics. May be called from several threads at once.
+     * 
+     * @param current   the version of the network.
+     * @param variables the variables of the query.
+     * @param startTime the {@code System.nanoTime()} the query started at.
+     * @return the text of the answer.
+     */
+    private String evaluateQuery(NetworkVersion current, 
+                                 QueryVariables variables,
+                                 long startTime) {
+        Map<DirectedGraphNode, Boolean> posterioriVariables = 
+                variables.posteriori;
+        Map<DirectedGraphNode, Boolean> aprioriVariables = variables.apriori;
+
+        if (current.getEngine() == CompilationPlan.Engine.CIRCUIT) {
+            double probability = 
+                    current.getCircuit().query(posterioriVariables,
+                                               aprioriVariables);
+            queryMetrics.recordQuery(CompilationPlan.Engine.CIRCUIT,
+                                     System.nanoTime() - startTime,
+                                     0L);
+            return Double.toString(probability);
+        }
+
+        ClassificationResult result = current.getResult();
+
+        if (result.getDiscardedProbabilityMass() > 0.0) {
+            double[] answer = result.queryWithBounds(posterioriVariables,
+                                                     aprioriVariables);
+            queryMetrics.recordQuery(CompilationPlan.Engine.ENUMERATION,
+                                     System.nanoTime() - startTime,
+                                     result.getNumberOfStates());
+            return answer[0] + " (error bound: [" + 
+                   answer[1] + ", " + answer[2] + "])";
+        }
+
+        double probability = result.query(posterioriVariables, 
+                                          aprioriVariables);
+        queryMetrics.recordQuery(CompilationPlan.Engine.ENUMERATION,
+                                 System.nanoTime() - startTime,
+                                 result.getNumberOfStates());
+        return Double.toString(probability);
+    }
+
+    /**
+     * Answers the queries of a file in parallel, printing the answers and the
+     * errors in the order of the queries, as if the queries were commands. 
+     * The file may hold only queries, empty lines and comment lines, so 
+     * that all the queries are answered by the same compiled version of the 
+     * network. The queries are parsed before any is answered.
+     * 
+     * @param path            the path of the file.
+     * @param numberOfThreads the number of threads answering the queries.
+     */
+    public void answerQueryFile(Path path, int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException(
+                    "The number of threads must be at least 1, was " + 
+                    numberOfThreads + ".");
+        }
+
+        long startTime = System.currentTimeMillis();
+        List<String> queries = new ArrayList<>();
+
+        try {
+            int lineNumber = 0;
+
+            for (String line : Files.readAllLines(path)) {
+                ++lineNumber;
+
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                if (line.equals("quit")) {
+                    break;
+                }
+
+                if (!line.startsWith("p(")) {
+                    error("Line " + lineNumber + " of \"" + path + "\" is " + 
+                          "not a query. Use 'load' for the other commands.");
+                    return;
+                }
+
+                queries.add(line);
+            }
+        } catch (IOException ex) {
+            error("Cannot access file \"" + path + "\".");
+            return;
+        }
+
+        if (queries.isEmpty() || !prepareQueryEngine()) {
+            return;
+        }
+
+        NetworkVersion current = acquireVersion();
+        String[] answers = new String[queries.size()];
+        String[] errors = new String[queries.size()];
+
+        try {
+            QueryVariables[] variables = new QueryVariables[queries.size()];
+
+            for (int i = 0; i < variables.length; ++i) {
+                try {
+                    variables[i] = parseQuery(queries.get(i), 
+                                              current.getNodeMap());
+                } catch (IllegalArgumentException ex) {
+                    queryMetrics.recordError();
+                    errors[i] = ex.getMessage();
+                }
+            }
+
+            numberOfThreads = Math.min(numberOfThreads, 
+                                       (variables.length + 
+                                        BATCH_CHUNK_SIZE - 1) / 
+                                       BATCH_CHUNK_SIZE);
+            answerQueries(current, variables, answers, errors, 
+                          numberOfThreads);
+        } finally {
+            current.release();
+        }
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(System.out),
+                                           LIST_BUFFER_SIZE);
+
+        try {
+            for (int i = 0; i < answers.length; ++i) {
+                if (errors[i] != null) {
+                    writer.flush();
+                    error(errors[i]);
+                } else {
+                    writer.write(answers[i]);
+                    writer.write(System.lineSeparator());
+                }
+            }
+
+            // Do not close System.out.
+            writer.flush();
+        } catch (IOException ex) {
+            error("Cannot write the answers: " + ex.getMessage());
+            return;
+        }
+
+        System.out.println("Answered " + answers.length + " queries in " + 
+                           (System.currentTimeMillis() - startTime) + 
+                           " milliseconds using " + numberOfThreads + 
+                           (numberOfThreads == 1 ? " thread." : " threads."));
+    }
+
+    /**
+     * Answers the parsed queries by threads taking chunks of consecutive 
+     * queries until none are left.
+     * 
+     * @param current         the version of the network.
+     * @param variables       the variables of each query, {@code null} for
+     *                        the malformed queries.
+     * @param answers         the array for the answers.
+     * @param errors          the array for the error messages.
+     * @param numberOfThreads the number of threads.
+     */
+    private void answerQueries(NetworkVersion current,
+                               QueryVariables[] variables,
+                               String[] answers,
+                               String[] errors,
+                               int numberOfThreads) {
+        AtomicInteger nextChunk = new AtomicInteger();
+        Runnable worker = () -> {
+            int begin;
+
+            while ((begin = nextChunk.getAndAdd(BATCH_CHUNK_SIZE)) < 
+                    variables.length) {
+                int end = Math.min(begin + BATCH_CHUNK_SIZE, variables.length);
+
+                for (int i = begin; i < end; ++i) {
+                    if (variables[i] == null) {
+                        continue;
+                    }
+
+                    try {
+                        answers[i] = evaluateQuery(current, 
+                                                   variables[i], 
+                                                   System.nanoTime());
+                    } catch (Exception ex) {
+                        queryMetrics.recordError();
+                        errors[i] = ex.getMessage();
+                    }
+                }
+            }
+        };
+
+        if (numberOfThreads == 1) {
+            worker.run();
+            return;
+        }
+
+        ExecutorService executor = 
+                Executors.newFixedThreadPool(numberOfThreads, (runnable) -> {
+                    Thread thread = new Thread(runnable, "query-batch");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        List<Future<?>> futures = new ArrayList<>(numberOfThreads);
+
+        try {
+            for (int i = 0; i < numberOfThreads; ++i) {
+                futures.add(executor.submit(worker));
+            }
+
+            // Waiting for the threads also makes their answers visible.
+            for (Future<?> future : futures) {
+                waitFor(future);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void waitFor(Future<?> future) {
+        boolean interrupted = false;
+
+        while (true) {
+            try {
+                future.get();
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException(ex.getCause());
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Answers a query as it would be answered as a command, describing how.
+     * The query is counted in the query metrics once, with the time taken to
+     * parse and answer it. Its scanned states include those counted for the
+     * explanation.
+     * 
+     * @param query the query {@code p(A, ... | B, ...)}.
+     * @return the explanation, or {@code null} if the query failed, which 
+     *         has been reported.
+     */
+    public QueryExplanation explainQuery(String query) {
+        if (!query.startsWith("p(")) {
+            error("Not a query: \"" + query + "\".");
+            return null;
+        }
+
+        QueryExplanation explanation = new QueryExplanation();
+        NetworkVersion previous = version.get();
+        explanation.compiled = isUpToDate(previous) && 
+                               previous.getEngine() != null;
+
+        long startTime = System.nanoTime();
+
+        if (!prepareQueryEngine()) {
+            queryMetrics.recordError();
+            return null;
+        }
+
+        queryMetrics.recordCompiledVersion(explanation.compiled);
+        NetworkVersion current = version.get();
+        explanation.prepareNanos = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        QueryVariables variables;
+
+        try {
+            variables = parseQuery(query, current.getNodeMap());
+        } catch (IllegalArgumentException ex) {
+            queryMetrics.recordError();
+            error(ex.getMessage());
+            return null;
+        }
+
+        explanation.parseNanos = System.nanoTime() - startTime;
+
+        explanation.engine = current.getEngine();
+
+        try {
+            startTime = System.nanoTime();
+
+            if (current.getEngine() == CompilationPlan.Engine.CIRCUIT) {
+                ArithmeticCircuit circuit = current.getCircuit();
+                explanation.probability = 
+                        circuit.query(variables.posteriori, 
+                                      variables.apriori);
+                explanation.evaluateNanos = System.nanoTime() - startTime;
+                explanation.evidenceProbability = 
+                        circuit.evaluate(variables.apriori);
+                explanation.numberOfEvaluatedCircuitNodes = 
+                        circuit.countEvaluatedNodes(variables.apriori);
+
+                // No second pass if the evidence is impossible.
+                if (explanation.evidenceProbability != 0.0) {
+                    Map<DirectedGraphNode, Boolean> jointVariables = 
+                            new HashMap<>(variables.apriori);
+                    jointVariables.putAll(variables.posteriori);
+                    explanation.numberOfEvaluatedCircuitNodes += 
+                            circuit.countEvaluatedNodes(jointVariables);
+                }
+
+                explanation.numberOfCircuitNodes = circuit.getNumberOfNodes();
+                explanation.numberOfCircuitEdges = circuit.getNumberOfEdges();
+                explanation.eliminationOrder = circuit.getEliminationOrder();
+                queryMetrics.recordQuery(CompilationPlan.Engine.CIRCUIT,
+                                         explanation.parseNanos + 
+                                         explanation.evaluateNanos,
+                                         0L);
+            } else {
+                ClassificationResult result = current.getResult();
+
+                if (result.getDiscardedProbabilityMass() > 0.0) {
+                    double[] answer = 
+                            result.queryWithBounds(variables.posteriori, 
+                                                   variables.apriori);
+                    explanation.probability = answer[0];
+                    explanation.bounds = 
+                            new double[]{ answer[1], answer[2] };
+                } else {
+                    explanation.probability = 
+                            result.query(variables.posteriori, 
+                                         variables.apriori);
+                }
+
+                explanation.evaluateNanos = System.nanoTime() - startTime;
+
+                int[] counts = result.countMatchingStates(variables.posteriori,
+                                                          variables.apriori);
+                explanation.numberOfStates = result.getNumberOfStates();
+                explanation.numberOfMatchingStates = counts[0];
+                explanation.numberOfMatchingEvidenceStates = counts[1];
+
+                // Once for the answer and once for counting the states.
+                queryMetrics.recordQuery(CompilationPlan.Engine.ENUMERATION,
+                                         explanation.parseNanos + 
+                                         explanation.evaluateNanos,
+                                         2L * explanation.numberOfStates);
+            }
+        } catch (Exception ex) {
+            queryMetrics.recordError();
+            error(ex.getMessage());
+            return null;
+        }
+
+        explanation.numberOfNodes = current.getNodeMap().size();
+        explanation.numberOfRelevantNodes = 
+                countAncestors(variables.posteriori, variables.apriori);
+        return explanation;
+    }
+
+    /**
+     * Counts the nodes of two variable maps and their ancestors.
+     */
+    private static int countAncestors(
+            Map<DirectedGraphNode, Boolean> posterioriVariables,
+            Map<DirectedGraphNode, Boolean> aprioriVariables) {
+        Set<DirectedGraphNode> visited = new HashSet<>();
+        Deque<DirectedGraphNode> stack = new ArrayDeque<>();
+
+        stack.addAll(posterioriVariables.keySet());
+        stack.addAll(aprioriVariables.keySet());
+
+        while (!stack.isEmpty()) {
+            DirectedGraphNode node = stack.pop();
+
+            if (visited.add(node)) {
+                stack.addAll(node.parents());
+            }
+        }
+
+        return visited.size();
+    }
+
+    /**
+     * The variables of a query and their states.
+     */
+    private static final class QueryVariables {
+
+        final Map<DirectedGraphNode, Boolean> posteriori;
+        final Map<DirectedGraphNode, Boolean> apriori;
+
+        QueryVariables(Map<DirectedGraphNode, Boolean> posteriori,
+                       Map<DirectedGraphNode, Boolean> apriori) {
+            this.posteriori = posteriori;
+            this.apriori = apriori;
+        }
+    }
+
+    /**
+     * Parses the variable lists of a query {@code p(A, ... | B, ...)}.
+     * 
+     * @param command the query.
+     * @param nodes   the map mapping the node names to the nodes.
+     * @return the variables.
+     * @throws IllegalArgumentException if the query is malformed or some 
+     *                                  variable does not exist.
+     */
+    private static QueryVariables parseQuery(
+            String command, 
+            Map<String, DirectedGraphNode> nodes) {
+        if (!command.endsWith(")")) {
+            throw new IllegalArgumentException("No trailing \")\".");
+        }
+
+        // The trimmed content between the parentheses.
+        int begin = 2;
+        int end = Math.max(begin, command.length() - 1);
+
+        while (begin < end && command.charAt(begin) <= ' ') {
+            ++begin;
+        }
+
+        while (end > begin && command.charAt(end - 1) <= ' ') {
+            --end;
+        }
+
+        // As String.split, ignore the trailing empty parts.
+        int partsEnd = end;
+
+        while (partsEnd > begin && command.charAt(partsEnd - 1) == '|') {
+            --partsEnd;
+        }
+
+        int bar = command.indexOf('|', begin);
+
+        if (bar < 0 || bar >= partsEnd || 
+                command.indexOf('|', bar + 1) < partsEnd && 
+                command.indexOf('|', bar + 1) >= 0) {
+            throw new IllegalArgumentException("No single delimeter bar |");
+        }
+
+        return new QueryVariables(
+                parseVariableMap(nodes, command, begin, bar),
+                parseVariableMap(nodes, command, bar + 1, partsEnd));
+    }
+
+    /**
+     * Handles the command for printing a node information.
+     * 
+     * @param lexer the lexer holding the tokens.
+     */
+    private void handlePrintNode(CommandLexer lexer) {
+        if (lexer.size() > 1 && !lexer.isComment(1)) {
+            error("Bad command.");
+            return;
+        }
+
+        String name = lexer.getToken(0);
+
+        if (!nodeMap.containsKey(name)) {
+            error("\"" + name + "\": no such node.");
+            return;
+        }
+
+        DirectedGraphNode node = nodeMap.get(name);
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+
+        // Get parent node names.
+        for (DirectedGraphNode parent : node.parents()) {
+            sb.append(parent.getName());
+
+            if (i++ < node.parents().size() - 1) {
+                sb.append(", ");
+            }
+        }
+
+        String parentListString = sb.toString();
+
+        sb.delete(0, sb.length());
+        i = 0;
+
+        // Get child node names.
+        for (DirectedGraphNode child : node.children()) {
+            sb.append(child.getName());
+
+            if (i++ < node.children().size() - 1) {
+                sb.append(", ");
+            }
+        }
+
+        String childListString = sb.toString();
+
+        System.out.println(
+                "\"" + name + "\", probability " + 
+                probabilityMap.get(node) + ", parents: <" + parentListString +
+                ">, children: <" + childListString + ">");
+    }
+
+    /**
+     * Returns {@code true} if at least one of the input strings is "-h".
+     * 
+     * @param args the strings to check.
+     * @return {@code true} if at least one of the strings is "-h".
+     */
+    private static boolean hasHelpFlag(String[] args) {
+        for (String argument : args) {
+            if (argument.trim().equals("-h")) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Loads the network from the files and answers the commands of the 
+     * clients connecting to a local port, until the process is terminated.
+     * 
+     * @param args the port followed by the file names.
+     */
+    private static void serve(String[] args) {
+        int port;
+
+        try {
+            port = args.length > 0 ? Integer.parseInt(args[0]) : -1;
+        } catch (NumberFormatException ex) {
+            port = -1;
+        }
+
+        if (port < 0 || port > 65535) {
+            error("Bad format. Must be '--serve <port> [FILE1 ... FILEN]'.");
+            System.exit(1);
+        }
+
+        App app = new App(new String[0]);
+
+        if (!app.executeFiles(Arrays.copyOfRange(args, 1, args.length))) {
+            System.exit(1);
+        }
+
+        app.serving = true;
+
+        try {
+            new QueryServer(app).serve(port);
+        } catch (IOException ex) {
+            error("Cannot serve on port " + port + ": " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Generates a network as the command 'generate' does, writing the script
+     * to the standard output unless the arguments name a file.
+     * 
+     * @param args the arguments of the command 'generate'.
+     */
+    private static void generate(String[] args) {
+        StringBuilder command = new StringBuilder("generate");
+
+        for (String argument : args) {
+            command.append(' ').append(argument);
+        }
+
+        if (!Arrays.asList(args).contains("into")) {
+            command.append(" into -");
+        }
+
+        new App(new String[0]).handleCommand(command.toString());
+    }
+
+    public static void main(String[] args) {
         
         if (hasHelpFlag(args)) {
             System.out.println(
-                    "java -jar <PROGRAM.jar> [-h] [FILE1 FILE2 ... FILEN]");
+                    "java -jar <PROGRAM.jar> [-h] [--serve PORT] " +
+                    "[FILE1 FILE2 ... FILEN]");
+            System.out.println(
+                    "java -jar <PROGRAM.jar> --generate NODES [OPTIONS] " +
+                    "(see 'help generate')");
+            return;
+        }
+
+        if (args.length > 0 && args[0].equals("--serve")) {
+            serve(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        if (args.length > 0 && args[0].equals("--generate")) {
+            generate(Arrays.copyOfRange(args, 1, args.length));
             return;
         }
 
@@ -0,0 +1,692 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This class implements an arithmetic circuit computing the network
+ * polynomial of a Bayes network. The leaves of the circuit are the evidence
+ * indicators and the network parameters, and its inner nodes are sums and
+ * products. Evaluating the circuit under evidence yields the probability of
+ * the evidence, and a backward pass yields the derivatives with respect to
+ * all the leaves, which in turn give the posterior marginals of all nodes and
+ * the sensitivities of the probability of evidence to all node probabilities.
+ * Both passes take time linear in the size of the circuit.
+ * <p>
+ * The values of the nodes without evidence are computed once. Observing a
+ * node zeroes the indicator of its other state, so the probabilities of
+ * evidence are computed by reevaluating only the ancestors of the zeroed
+ * indicators. They are a small part of the circuit of a narrow network such
+ * as a tree, yet may be most of the circuit of a dense one, which is then
+ * evaluated whole. A query takes time linear in the size of the circuit at
+ * worst.
+ * <p>
+ * The circuit is stored in flat arrays with children listed before their
+ * parents, and is never modified after compilation, so it can be queried
+ * from several threads at once.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class ArithmeticCircuit {
+
+    static final byte CONSTANT  = 0;
+    static final byte INDICATOR = 1;
+    static final byte PARAMETER = 2;
+    static final byte PRODUCT   = 3;
+    static final byte SUM       = 4;
+
+    /**
+     * Denotes a variable that is not part of the evidence.
+     */
+    private static final byte UNOBSERVED = -1;
+
+    /**
+     * The largest fraction of the circuit edges followed to reevaluate the
+     * nodes affected by evidence one by one. Beyond it, evaluating the whole
+     * circuit in order is faster.
+     */
+    private static final double MAXIMUM_AFFECTED_EDGE_FRACTION = 0.125;
+
+    private final IndexedNetwork network;
+    private final Map<DirectedGraphNode, Integer> indexMap;
+
+    /**
+     * The type of each circuit node.
+     */
+    private final byte[] nodeType;
+
+    /**
+     * The children of the node {@code i} are
+     * {@code children[childOffset[i]], ...,
+     * children[childOffset[i + 1] - 1]}.
+     */
+    private final int[] childOffset;
+    private final int[] children;
+
+    /**
+     * The parents of the node {@code i} are
+     * {@code parents[parentOffset[i]], ...,
+     * parents[parentOffset[i + 1] - 1]}.
+     */
+    private final int[] parentOffset;
+    private final int[] parents;
+
+    /**
+     * The values of constant and parameter leaves.
+     */
+    private final double[] leafValue;
+
+    /**
+     * {@code indicators[2 * i + s]} is the indicator leaf of the network node
+     * {@code i} being in the state {@code s}.
+     */
+    private final int[] indicators;
+
+    /**
+     * {@code parameters[2 * i + s]} is the leaf holding the probability of
+     * the network node {@code i} being in the state {@code s} given that all
+     * its parents are on.
+     */
+    private final int[] parameters;
+
+    private final int root;
+    private final int maximumFanIn;
+
+    /**
+     * The largest number of edges followed to reevaluate the nodes affected
+     * by evidence one by one.
+     */
+    private final long maximumAffectedEdges;
+
+    /**
+     * The network nodes in the order they were eliminated in, or 
+     * {@code null} if the circuit was built by sweeping the levels.
+     */
+    private final int[] eliminationOrder;
+
+    /**
+     * The values of the nodes with no evidence, that is, with all the
+     * indicators set to one.
+     */
+    private final double[] priorValues;
+
+    /**
+     * The workspaces of the evaluations not running at the moment.
+     */
+    private final Queue<Workspace> workspaces = 
+            new ConcurrentLinkedQueue<>();
+
+    ArithmeticCircuit(IndexedNetwork network,
+                      byte[] nodeType,
+                      int[] childOffset,
+                      int[] children,
+                      double[] leafValue,
+                      int[] indicators,
+                      int[] parameters,
+                      int root,
+                      int[] eliminationOrder) {
+        this.network = network;
+        this.nodeType = nodeType;
+        this.childOffset = childOffset;
+        this.children = children;
+        this.leafValue = leafValue;
+        this.indicators = indicators;
+        this.parameters = parameters;
+        this.root = root;
+        this.eliminationOrder = eliminationOrder;
+        this.indexMap = new HashMap<>(network.getNumberOfNodes());
+
+        for (int i = 0; i < network.getNumberOfNodes(); ++i) {
+            indexMap.put(network.getNode(i), i);
+        }
+
+        int maximumFanIn = 0;
+
+        for (int i = 0; i < nodeType.length; ++i) {
+            maximumFanIn = Math.max(maximumFanIn,
+                                    childOffset[i + 1] - childOffset[i]);
+        }
+
+        this.maximumFanIn = maximumFanIn;
+        this.maximumAffectedEdges = 
+                (long) (children.length * MAXIMUM_AFFECTED_EDGE_FRACTION);
+        this.parentOffset = new int[nodeType.length + 1];
+        this.parents = new int[children.length];
+
+        for (int child : children) {
+            ++parentOffset[child + 1];
+        }
+
+        for (int i = 0; i < nodeType.length; ++i) {
+            parentOffset[i + 1] += parentOffset[i];
+        }
+
+        int[] nextParent = Arrays.copyOf(parentOffset, nodeType.length);
+
+        for (int i = 0; i < nodeType.length; ++i) {
+            for (int j = childOffset[i]; j < childOffset[i + 1]; ++j) {
+                parents[nextParent[children[j]]++] = i;
+            }
+        }
+
+        byte[] states = new byte[network.getNumberOfNodes()];
+        Arrays.fill(states, UNOBSERVED);
+        this.priorValues = new double[nodeType.length];
+        evaluate(states, priorValues);
+    }
+
+    /**
+     * Compiles the network into an arithmetic circuit.
+     *
+     * @param network        the list of (some) nodes of a network to compile.
+     * @param probabilityMap the map mapping each node to its probability.
+     * @return the arithmetic circuit.
+     */
+    public static ArithmeticCircuit
+        compile(List<DirectedGraphNode> network,
+                ProbabilityMap<DirectedGraphNode> probabilityMap) {
+        Objects.requireNonNull(network, "The input network is null.");
+        Objects.requireNonNull(probabilityMap,
+                               "The input probability map is null.");
+
+        if (network.isEmpty()) {
+            throw new IllegalArgumentException("The input network is empty.");
+        }
+
+        if (!Utils.graphIsAcyclic(network.get(0))) {
+            throw new IllegalArgumentException(
+                    "The current network contains cycles.");
+        }
+
+        IndexedNetwork indexedNetwork =
+                new IndexedNetwork(Utils.findEntireGraph(network.get(0)),
+                                   probabilityMap);
+
+        return new ArithmeticCircuitCompiler(indexedNetwork).compile();
+    }
+
+    /**
+     * Computes the probability of the evidence.
+     *
+     * @param evidence the map mapping each observed node to its state.
+     * @return the probability of evidence.
+     */
+    public double evaluate(Map<DirectedGraphNode, Boolean> evidence) {
+        Objects.requireNonNull(evidence, "The evidence map is null.");
+        Workspace workspace = acquireWorkspace();
+
+        try {
+            return evaluateEvidence(loadEvidence(evidence, null), workspace);
+        } finally {
+            workspaces.add(workspace);
+        }
+    }
+
+    /**
+     * Computes the probability of posteriori variables given the apriori
+     * variables.
+     *
+     * @param posterioriVariableMap a map mapping each posteriori variable to
+     *                              its state.
+     * @param aprioriVariableMap    a map mapping each apriori variable to its
+     *                              state.
+     * @return the probability of expression.
+     */
+    public double query(Map<DirectedGraphNode, Boolean> posterioriVariableMap,
+                        Map<DirectedGraphNode, Boolean> aprioriVariableMap) {
+        Objects.requireNonNull(posterioriVariableMap,
+                               "The posteriori variable map is null.");
+        Objects.requireNonNull(aprioriVariableMap,
+                               "The apriori variable map is null.");
+
+        for (DirectedGraphNode node : posterioriVariableMap.keySet()) {
+            if (aprioriVariableMap.containsKey(node)) {
+                throw new IllegalArgumentException(
+                        "Posteriori and apriori variable lists have a " +
+                        "common variable.");
+            }
+        }
+
+        byte[] evidence = loadEvidence(aprioriVariableMap, null);
+        byte[] jointEvidence = loadEvidence(posterioriVariableMap, evidence);
+        Workspace workspace = acquireWorkspace();
+
+        try {
+            double aprioriProbability = evaluateEvidence(evidence, workspace);
+
+            if (aprioriProbability == 0.0) {
+                return 0.0;
+            }
+
+            return evaluateEvidence(jointEvidence, workspace) / 
+                   aprioriProbability;
+        } finally {
+            workspaces.add(workspace);
+        }
+    }
+
+    /**
+     * Computes the posterior probability of each node being on given the
+     * evidence. The observed nodes get the probability 1 or 0 according to
+     * their observed state.
+     *
+     * @param evidence the map mapping each observed node to its state.
+     * @return the map mapping each node to its posterior probability, or an
+     *         empty map if the evidence is impossible.
+     */
+    public Map<DirectedGraphNode, Double>
+        computePosteriorMarginals(Map<DirectedGraphNode, Boolean> evidence) {
+        Objects.requireNonNull(evidence, "The evidence map is null.");
+        byte[] states = loadEvidence(evidence, null);
+        double[] values = new double[nodeType.length];
+        double[] derivatives = new double[nodeType.length];
+        Map<DirectedGraphNode, Double> map = new LinkedHashMap<>();
+
+        evaluate(states, values);
+
+        double probabilityOfEvidence = values[root];
+
+        if (probabilityOfEvidence == 0.0) {
+            return map;
+        }
+
+        differentiate(values, derivatives);
+
+        for (int i = 0; i < network.getNumberOfNodes(); ++i) {
+            double probability;
+
+            if (states[i] == UNOBSERVED) {
+                // The derivative with respect to the indicator of a state is
+                // the joint probability of the state and the evidence.
+                probability = derivatives[indicators[2 * i + 1]] /
+                              probabilityOfEvidence;
+            } else {
+                probability = states[i];
+            }
+
+            map.put(network.getNode(i), probability);
+        }
+
+        return map;
+    }
+
+    /**
+     * Computes the partial derivative of the probability of evidence with
+     * respect to the probability of each node.
+     *
+     * @param evidence the map mapping each observed node to its state.
+     * @return the map mapping each node to the derivative.
+     */
+    public Map<DirectedGraphNode, Double>
+        computeSensitivities(Map<DirectedGraphNode, Boolean> evidence) {
+        Objects.requireNonNull(evidence, "The evidence map is null.");
+        double[] values = new double[nodeType.length];
+        double[] derivatives = new double[nodeType.length];
+        Map<DirectedGraphNode, Double> map = new LinkedHashMap<>();
+
+        evaluate(loadEvidence(evidence, null), values);
+        differentiate(values, derivatives);
+
+        for (int i = 0; i < network.getNumberOfNodes(); ++i) {
+            // The probability p of a node appears as the parameters p and
+            // 1 - p of its two states.
+            map.put(network.getNode(i),
+                    derivatives[parameters[2 * i + 1]] -
+                    derivatives[parameters[2 * i]]);
+        }
+
+        return map;
+    }
+
+    public int getNumberOfNodes() {
+        return nodeType.length;
+    }
+
+    public int getNumberOfEdges() {
+        return children.length;
+    }
+
+    /**
+     * Returns the list of network nodes in the circuit.
+     *
+     * @return the node list.
+     */
+    public List<DirectedGraphNode> getNodeList() {
+        return network.getNodeList();
+    }
+
+    /**
+     * Returns the network nodes in the order the variable elimination 
+     * eliminated them in. The auxiliary variables of the nodes with several
+     * parents are left out.
+     *
+     * @return the node list, or {@code null} if the circuit was built by 
+     *         sweeping the levels of the network.
+     */
+    List<DirectedGraphNode> getEliminationOrder() {
+        if (eliminationOrder == null) {
+            return null;
+        }
+
+        List<DirectedGraphNode> nodes = 
+                new ArrayList<>(eliminationOrder.length);
+
+        for (int node : eliminationOrder) {
+            nodes.add(network.getNode(node));
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Returns the number of the circuit nodes evaluated to compute the 
+     * probability of evidence: the ancestors of the indicators the evidence
+     * zeroes, the indicators included, or all the nodes if reevaluating 
+     * only those would follow too many edges.
+     *
+     * @param evidence the map mapping each observed node to its state.
+     * @return the number of nodes.
+     */
+    int countEvaluatedNodes(Map<DirectedGraphNode, Boolean> evidence) {
+        Workspace workspace = acquireWorkspace();
+
+        try {
+            int size = collectAffectedNodes(loadEvidence(evidence, null), 
+                                            workspace,
+                                            maximumAffectedEdges);
+            return size < 0 ? getNumberOfNodes() : size;
+        } finally {
+            workspaces.add(workspace);
+        }
+    }
+
+    /**
+     * Converts the evidence map to the array of node states.
+     *
+     * @param evidence the map mapping each observed node to its state.
+     * @param base     the states to add the evidence to, or {@code null}.
+     * @return the array of node states.
+     */
+    private byte[] loadEvidence(Map<DirectedGraphNode, Boolean> evidence,
+                                byte[] base) {
+        byte[] states = new byte[network.getNumberOfNodes()];
+
+        if (base == null) {
+            Arrays.fill(states, UNOBSERVED);
+        } else {
+            System.arraycopy(base, 0, states, 0, states.length);
+        }
+
+        for (Map.Entry<DirectedGraphNode, Boolean> entry
+                : evidence.entrySet()) {
+            Integer index = indexMap.get(entry.getKey());
+
+            if (index == null) {
+                throw new IllegalArgumentException(
+                        "The node " + entry.getKey() + " is not in the " +
+                        "circuit.");
+            }
+
+            states[index] = entry.getValue() ? (byte) 1 : (byte) 0;
+        }
+
+        return states;
+    }
+
+    private Workspace acquireWorkspace() {
+        Workspace workspace = workspaces.poll();
+        return workspace != null ? workspace 
+                                 : new Workspace(nodeType.length);
+    }
+
+    /**
+     * Computes the probability of evidence by reevaluating the nodes whose
+     * values differ from those without evidence, bottom-up.
+     *
+     * @param states    the states of the network nodes.
+     * @param workspace the workspace of the evaluation.
+     * @return the probability of evidence.
+     */
+    private double evaluateEvidence(byte[] states, Workspace workspace) {
+        int size = collectAffectedNodes(states, 
+                                        workspace, 
+                                        maximumAffectedEdges);
+
+        if (size < 0) {
+            evaluate(states, workspace.values);
+            return workspace.values[root];
+        }
+
+        return evaluateAffectedNodes(workspace, size);
+    }
+
+    /**
+     * Reevaluates the nodes listed by {@code collectAffectedNodes} 
+     * bottom-up.
+     *
+     * @param workspace the workspace of the evaluation.
+     * @param size      the number of the nodes listed.
+     * @return the probability of evidence.
+     */
+    private double evaluateAffectedNodes(Workspace workspace, int size) {
+        int[] affected = workspace.affected;
+        int[] marks = workspace.marks;
+        int mark = workspace.mark;
+        double[] values = workspace.values;
+
+        // The children precede their parents.
+        Arrays.sort(affected, 0, size);
+
+        for (int k = 0; k < size; ++k) {
+            int i = affected[k];
+
+            if (nodeType[i] == PRODUCT) {
+                double value = 1.0;
+
+                for (int j = childOffset[i]; j < childOffset[i + 1]; ++j) {
+                    int child = children[j];
+                    value *= marks[child] == mark ? values[child] 
+                                                  : priorValues[child];
+                }
+
+                values[i] = value;
+            } else if (nodeType[i] == SUM) {
+                double value = 0.0;
+
+                for (int j = childOffset[i]; j < childOffset[i + 1]; ++j) {
+                    int child = children[j];
+                    value += marks[child] == mark ? values[child] 
+                                                  : priorValues[child];
+                }
+
+                values[i] = value;
+            } else {
+                // A zeroed indicator.
+                values[i] = 0.0;
+            }
+        }
+
+        return marks[root] == mark ? values[root] : priorValues[root];
+    }
+
+    /**
+     * Marks the indicators zeroed by the evidence and their ancestors, and
+     * lists them in the workspace.
+     *
+     * @param states    the states of the network nodes.
+     * @param workspace the workspace of the evaluation.
+     * @param limit     the number of edges to follow, up and down, before 
+     *                  giving up.
+     * @return the number of the nodes listed, or -1 if listing and 
+     *         reevaluating them follows more than {@code limit} edges.
+     */
+    private int collectAffectedNodes(byte[] states, 
+                                     Workspace workspace,
+                                     long limit) {
+        int mark = workspace.nextMark();
+        int[] marks = workspace.marks;
+        int[] affected = workspace.affected;
+        int size = 0;
+        long edges = 0L;
+
+        for (int i = 0; i < states.length; ++i) {
+            if (states[i] == UNOBSERVED) {
+                continue;
+            }
+
+            int indicator = indicators[2 * i + 1 - states[i]];
+
+            if (marks[indicator] != mark) {
+                marks[indicator] = mark;
+                affected[size++] = indicator;
+            }
+        }
+
+        // The list doubles as the stack of the nodes to visit.
+        for (int k = 0; k < size; ++k) {
+            int node = affected[k];
+            edges += parentOffset[node + 1] - parentOffset[node] +
+                     childOffset[node + 1] - childOffset[node];
+
+            if (edges > limit) {
+                // Leave no node with a value of its own.
+                workspace.nextMark();
+                return -1;
+            }
+
+            for (int j = parentOffset[node]; j < parentOffset[node + 1]; ++j) {
+                int parent = parents[j];
+
+                if (marks[parent] != mark) {
+                    marks[parent] = mark;
+                    affected[size++] = parent;
+                }
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Computes the value of each circuit node bottom-up.
+     *
+     * @param states the states of the network nodes.
+     * @param values the array for the node values.
+     */
+    private void evaluate(byte[] states, double[] values) {
+        for (int i = 0; i < nodeType.length; ++i) {
+            if (nodeType[i] == CONSTANT || nodeType[i] == PARAMETER) {
+                values[i] = leafValue[i];
+            }
+        }
+
+        for (int i = 0; i < states.length; ++i) {
+            values[indicators[2 * i]]     = states[i] == 1 ? 0.0 : 1.0;
+            values[indicators[2 * i + 1]] = states[i] == 0 ? 0.0 : 1.0;
+        }
+
+        for (int i = 0; i < nodeType.length; ++i) {
+            if (nodeType[i] == PRODUCT) {
+                double value = 1.0;
+
+                for (int j = childOffset[i]; j < childOffset[i + 1]; ++j) {
+                    value *= values[children[j]];
+                }
+
+                values[i] = value;
+            } else if (nodeType[i] == SUM) {
+                double value = 0.0;
+
+                for (int j = childOffset[i]; j < childOffset[i + 1]; ++j) {
+                    value += values[children[j]];
+                }
+
+                values[i] = value;
+            }
+        }
+    }
+
+    /**
+     * Computes the partial derivative of the root with respect to each
+     * circuit node top-down. The derivative of a product child is the
+     * product of its siblings, computed from prefix and suffix products so
+     * that zero siblings need no special care.
+     *
+     * @param values      the node values computed by {@code evaluate}.
+     * @param derivatives the array for the derivatives.
+     */
+    private void differentiate(double[] values, double[] derivatives) {
+        double[] prefix = new double[maximumFanIn + 1];
+
+        derivatives[root] = 1.0;
+
+        for (int i = root; i >= 0; --i) {
+            double derivative = derivatives[i];
+
+            if (derivative == 0.0) {
+                continue;
+            }
+
+            int start = childOffset[i];
+            int end = childOffset[i + 1];
+
+            if (nodeType[i] == SUM) {
+                for (int j = start; j < end; ++j) {
+                    derivatives[children[j]] += derivative;
+                }
+            } else if (nodeType[i] == PRODUCT) {
+                prefix[0] = 1.0;
+
+                for (int j = start; j < end; ++j) {
+                    prefix[j - start + 1] =
+                            prefix[j - start] * values[children[j]];
+                }
+
+                double suffix = 1.0;
+
+                for (int j = end - 1; j >= start; --j) {
+                    derivatives[children[j]] +=
+                            derivative * prefix[j - start] * suffix;
+                    suffix *= values[children[j]];
+                }
+            }
+        }
+    }
+
+    /**
+     * The arrays of an evaluation under evidence. A node holds a value of 
+     * its own if its mark equals the mark of the evaluation, and the value 
+     * without evidence otherwise, so that the arrays need no clearing.
+     */
+    private static final class Workspace {
+
+        final double[] values;
+        final int[] marks;
+        final int[] affected;
+        int mark;
+
+        Workspace(int numberOfNodes) {
+            this.values = new double[numberOfNodes];
+            this.marks = new int[numberOfNodes];
+            this.affected = new int[numberOfNodes];
+        }
+
+        int nextMark() {
+            if (++mark == 0) {
+                Arrays.fill(marks, 0);
+                mark = 1;
+            }
+
+            return mark;
+        }
+    }
+}
@@ -0,0 +1,758 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class compiles a Bayes network into an arithmetic circuit. Two
+ * strategies are available, and the one predicting the smaller circuit is
+ * used.
+ * <p>
+ * The first one is variable elimination carried out symbolically: instead of
+ * numbers, the factor tables hold circuit nodes, and multiplying and summing
+ * out factors creates product and sum nodes. Its cost is exponential in the
+ * size of the largest cluster of variables met during the elimination.
+ * <p>
+ * The second one sweeps the levels of the network like the classifier, but
+ * merges all partial states that agree on the <i>frontier</i> nodes, that is,
+ * the visited nodes with unvisited children, into a single circuit node. It
+ * exploits the fact that a node with an "off" parent is "off", so that only
+ * the frontier configurations reachable under this rule get built.
+ * <p>
+ * The conditional probability table of a node with parents
+ * <tt>u<sub>1</sub>, ..., u<sub>k</sub></tt> is a function of whether all the
+ * parents are on. Instead of a table of size <tt>2<sup>k + 1</sup></tt>, it is
+ * expressed as a chain of auxiliary variables
+ * <tt>c<sub>j</sub> = c<sub>j - 1</sub> and u<sub>j</sub></tt> followed by a
+ * table over <tt>c<sub>k</sub></tt> and the node, so that no initial factor
+ * has more than three variables.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+final class ArithmeticCircuitCompiler {
+
+    /**
+     * The maximum number of variables involved in a single elimination step.
+     */
+    static final int MAXIMUM_CLUSTER_SIZE = 24;
+
+    /**
+     * The approximate number of bytes per circuit node: its type, value,
+     * derivative, child offset and two child indices, its parent offset and
+     * two parent indices, its value without evidence, and its value, mark
+     * and list entry in the workspace of a query.
+     */
+    static final long BYTES_PER_NODE = 
+            1L + 8L + 8L + 4L + 8L + 4L + 8L + 8L + 16L;
+
+    private static final class Factor {
+
+        /**
+         * The variables of this factor. The state of {@code scope[k]} is the
+         * bit {@code k} of the table index.
+         */
+        final int[] scope;
+
+        /**
+         * The index of the network node whose probability table this factor
+         * is, or -1 if this factor encodes an auxiliary conjunction.
+         */
+        final int tableNode;
+
+        /**
+         * Maps each assignment of the scope to a circuit node.
+         */
+        int[] table;
+
+        boolean alive = true;
+
+        Factor(int[] scope, int tableNode) {
+            this.scope = scope;
+            this.tableNode = tableNode;
+        }
+    }
+
+    /**
+     * The maximum number of frontier configurations per level for the sweep
+     * strategy.
+     */
+    private static final int MAXIMUM_FRONTIER_CONFIGURATIONS = 1 << 18;
+
+    /**
+     * The maximum number of frontier nodes whose states fit in a key.
+     */
+    private static final int MAXIMUM_FRONTIER_WIDTH = Long.SIZE - 1;
+
+    /**
+     * The maximum number of frontier nodes varying at a single level of the
+     * sweep strategy.
+     */
+    private static final int MAXIMUM_VARYING_FRONTIER_NODES = 20;
+
+    /**
+     * The maximum number of inner nodes the sweep strategy may build.
+     */
+    private static final long MAXIMUM_SWEEP_NODES = 1L << 27;
+
+    private final IndexedNetwork network;
+    private final int numberOfVariables;
+    private final List<Factor> initialFactors = new ArrayList<>();
+    private final EliminationOrder eliminationOrder;
+
+    /**
+     * The number of circuit nodes the sweep strategy would build, or 
+     * infinity if the frontier grows too wide.
+     */
+    private final double sweepSize;
+
+    /**
+     * The number of inner nodes counted by the last sweep.
+     */
+    private long sweepNodeCount;
+
+    // The circuit under construction.
+    private byte[]   nodeType      = new byte[1024];
+    private int[]    childOffset   = new int[1025];
+    private int[]    children      = new int[2048];
+    private double[] leafValue     = new double[1024];
+    private int      numberOfNodes = 0;
+    private int      numberOfEdges = 0;
+
+    ArithmeticCircuitCompiler(IndexedNetwork network) {
+        this.network = network;
+
+        int variable = network.getNumberOfNodes();
+
+        for (int node = 0; node < network.getNumberOfNodes(); ++node) {
+            int[] parents = network.getParents(node);
+
+            if (parents.length == 0) {
+                initialFactors.add(new Factor(new int[]{ node }, node));
+            } else if (parents.length == 1) {
+                initialFactors.add(
+                        new Factor(new int[]{ parents[0], node }, node));
+            } else {
+                int conjunction = parents[0];
+
+                for (int j = 1; j < parents.length; ++j) {
+                    int next = variable++;
+                    initialFactors.add(
+                            new Factor(new int[]{ conjunction,
+                                                  parents[j],
+                                                  next }, -1));
+                    conjunction = next;
+                }
+
+                initialFactors.add(
+                        new Factor(new int[]{ conjunction, node }, node));
+            }
+        }
+
+        this.numberOfVariables = variable;
+
+        List<int[]> scopes = new ArrayList<>(initialFactors.size());
+
+        for (Factor factor : initialFactors) {
+            scopes.add(factor.scope);
+        }
+
+        this.eliminationOrder = new EliminationOrder(numberOfVariables,
+                                                     scopes);
+
+        double sweepSize = Double.POSITIVE_INFINITY;
+
+        if (sweep(null, null) >= 0) {
+            sweepSize = sweepNodeCount + 7.0 * network.getNumberOfNodes();
+        }
+
+        this.sweepSize = sweepSize;
+    }
+
+    /**
+     * Returns the number of variables involved in the largest elimination
+     * step.
+     *
+     * @return the maximum cluster size.
+     */
+    int getMaximumClusterSize() {
+        return eliminationOrder.getMaximumClusterSize();
+    }
+
+    /**
+     * Returns {@code true} if the circuit can be compiled by any of the 
+     * strategies.
+     *
+     * @return whether the circuit is feasible.
+     */
+    boolean isFeasible() {
+        return getMaximumClusterSize() <= MAXIMUM_CLUSTER_SIZE ||
+               !Double.isInfinite(sweepSize);
+    }
+
+    /**
+     * Returns the estimated number of nodes in the circuit. For the
+     * elimination strategy, this is the total size of the tables built during
+     * elimination, for the sweep strategy the exact number of nodes before
+     * folding the constants.
+     *
+     * @return the estimated circuit size.
+     */
+    double getEstimatedSize() {
+        return Math.min(getEliminationSize(), sweepSize);
+    }
+
+    private double getEliminationSize() {
+        if (getMaximumClusterSize() > MAXIMUM_CLUSTER_SIZE) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        return eliminationOrder.getCost() + 6.0 * network.getNumberOfNodes();
+    }
+
+    /**
+     * Builds the circuit.
+     *
+     * @return the arithmetic circuit.
+     */
+    ArithmeticCircuit compile() {
+        if (!isFeasible()) {
+            throw new IllegalStateException(
+                    "The network is too large for an arithmetic circuit: " +
+                    "an elimination step involves " + 
+                    getMaximumClusterSize() + " variables, while at most " +
+                    MAXIMUM_CLUSTER_SIZE + " are supported, and the " + 
+                    "frontier of the network is too wide.");
+        }
+
+        int nodes = network.getNumberOfNodes();
+        int[] indicators = new int[2 * nodes];
+        int[] parameters = new int[2 * nodes];
+        int[] weighted   = new int[2 * nodes];
+        int root;
+        int[] order = null;
+
+        createLeaves(indicators, parameters, weighted);
+
+        if (sweepSize < getEliminationSize()) {
+            root = sweep(indicators, weighted);
+        } else {
+            root = eliminateAll(indicators, weighted);
+            order = Arrays.stream(eliminationOrder.getOrder())
+                          .filter(variable -> variable < nodes)
+                          .toArray();
+        }
+
+        childOffset[numberOfNodes] = numberOfEdges;
+
+        return new ArithmeticCircuit(network,
+                                     Arrays.copyOf(nodeType, numberOfNodes),
+                                     Arrays.copyOf(childOffset,
+                                                   numberOfNodes + 1),
+                                     Arrays.copyOf(children, numberOfEdges),
+                                     Arrays.copyOf(leafValue, numberOfNodes),
+                                     indicators,
+                                     parameters,
+                                     root,
+                                     order);
+    }
+
+    /**
+     * Creates the constant leaves 0 and 1 at indices 0 and 1, the indicator
+     * and parameter leaves of each node, and the products of indicators and 
+     * parameters.
+     *
+     * @param indicators the array for the indicator leaves.
+     * @param parameters the array for the parameter leaves.
+     * @param weighted   the array for the products.
+     */
+    private void createLeaves(int[] indicators, 
+                              int[] parameters, 
+                              int[] weighted) {
+        addLeaf(ArithmeticCircuit.CONSTANT, 0.0);
+        addLeaf(ArithmeticCircuit.CONSTANT, 1.0);
+
+        for (int node = 0; node < network.getNumberOfNodes(); ++node) {
+            double probability = network.getProbability(node);
+
+            indicators[2 * node] = addLeaf(ArithmeticCircuit.INDICATOR, 0.0);
+            indicators[2 * node + 1] =
+                    addLeaf(ArithmeticCircuit.INDICATOR, 1.0);
+            parameters[2 * node] =
+                    addLeaf(ArithmeticCircuit.PARAMETER, 1.0 - probability);
+            parameters[2 * node + 1] =
+                    addLeaf(ArithmeticCircuit.PARAMETER, probability);
+            weighted[2 * node] =
+                    addProduct(new int[]{ indicators[2 * node],
+                                          parameters[2 * node] }, 2);
+            weighted[2 * node + 1] =
+                    addProduct(new int[]{ indicators[2 * node + 1],
+                                          parameters[2 * node + 1] }, 2);
+        }
+    }
+
+    /**
+     * Implements the elimination strategy.
+     *
+     * @param indicators the indicator leaves.
+     * @param weighted   the products of indicators and parameters.
+     * @return the root of the circuit.
+     */
+    private int eliminateAll(int[] indicators, int[] weighted) {
+        int zero = 0;
+        int one = 1;
+
+        List<List<Factor>> factorsOf = new ArrayList<>(numberOfVariables);
+
+        for (int i = 0; i < numberOfVariables; ++i) {
+            factorsOf.add(new ArrayList<>(2));
+        }
+
+        for (Factor factor : initialFactors) {
+            factor.table = createInitialTable(factor,
+                                              zero,
+                                              one,
+                                              indicators,
+                                              weighted);
+
+            for (int variable : factor.scope) {
+                factorsOf.get(variable).add(factor);
+            }
+        }
+
+        List<Factor> constantFactors = new ArrayList<>();
+
+        for (int variable : eliminationOrder.getOrder()) {
+            Factor factor = eliminate(variable, factorsOf);
+
+            if (factor.scope.length == 0) {
+                constantFactors.add(factor);
+            } else {
+                for (int other : factor.scope) {
+                    factorsOf.get(other).add(factor);
+                }
+            }
+        }
+
+        int[] rootChildren = new int[constantFactors.size()];
+        int count = 0;
+
+        for (Factor factor : constantFactors) {
+            rootChildren[count++] = factor.table[0];
+        }
+
+        return addProduct(rootChildren, count);
+    }
+
+    /**
+     * Implements the sweep strategy. Each frontier configuration of a level
+     * maps to the circuit node summing the weights of all partial states
+     * leading to it. Unlike the classifier, a node with all parents on is
+     * branched on even if its probability is 0 or 1, so that the circuit
+     * remains differentiable with respect to its probability.
+     * <p>
+     * If {@code indicators} is {@code null}, no circuit is built and only the
+     * inner nodes are counted into {@code sweepNodeCount}.
+     *
+     * @param indicators the indicator leaves, or {@code null}.
+     * @param weighted   the products of indicators and parameters.
+     * @return the root of the circuit, or -1 if the frontier grows too wide.
+     */
+    private int sweep(int[] indicators, int[] weighted) {
+        boolean build = indicators != null;
+        boolean[] on = new boolean[network.getNumberOfNodes()];
+        int[] freeSum = new int[network.getNumberOfNodes()];
+        Map<Long, Integer> configurationMap = new HashMap<>();
+        int[] frontier = new int[0];
+        int[] baseChildren = new int[network.getNumberOfNodes() + 1];
+        int[] productChildren = new int[MAXIMUM_VARYING_FRONTIER_NODES + 1];
+        long nodeCount = 0L;
+
+        configurationMap.put(0L, 1);
+
+        for (int level = 0; level < network.getNumberOfLevels(); ++level) {
+            int[] nextFrontier =
+                    StateCountEstimator.computeFrontier(network,
+                                                        frontier,
+                                                        level);
+
+            if (nextFrontier.length > MAXIMUM_FRONTIER_WIDTH) {
+                return -1;
+            }
+
+            int start = network.getLevelStart(level);
+            int end = network.getLevelEnd(level);
+            int[] varying = new int[end - start];
+            Map<Long, IntList> termMap = new HashMap<>();
+
+            if (build) {
+                for (int i = start; i < end; ++i) {
+                    freeSum[i] = addSum(new int[]{ weighted[2 * i],
+                                                   weighted[2 * i + 1] }, 2);
+                }
+            }
+
+            for (Map.Entry<Long, Integer> entry
+                    : configurationMap.entrySet()) {
+                unpack(entry.getKey(), frontier, on);
+
+                int baseCount = 0;
+                int enumerated = 0;
+
+                baseChildren[baseCount++] = entry.getValue();
+
+                for (int i = start; i < end; ++i) {
+                    on[i] = false;
+
+                    if (someParentIsOff(i, on)) {
+                        baseChildren[baseCount++] = 
+                                build ? indicators[2 * i] : 0;
+                    } else if (network.getLastChildLevel(i) > level) {
+                        varying[enumerated++] = i;
+                    } else {
+                        // Nobody below depends on this node, so both its
+                        // states are summed right away.
+                        baseChildren[baseCount++] = freeSum[i];
+                    }
+                }
+
+                if (enumerated > MAXIMUM_VARYING_FRONTIER_NODES) {
+                    return -1;
+                }
+
+                nodeCount += 1 + (1 << enumerated);
+
+                if (nodeCount > MAXIMUM_SWEEP_NODES) {
+                    return -1;
+                }
+
+                productChildren[0] = build ? addProduct(baseChildren,
+                                                        baseCount) : 0;
+
+                for (int combination = 0;
+                         combination < (1 << enumerated);
+                         ++combination) {
+                    for (int j = 0; j < enumerated; ++j) {
+                        int state = (combination >>> j) & 1;
+                        on[varying[j]] = state == 1;
+                        productChildren[j + 1] = 
+                                build ? weighted[2 * varying[j] + state] : 0;
+                    }
+
+                    IntList terms = 
+                            termMap.computeIfAbsent(pack(nextFrontier, on),
+                                                    (key) -> new IntList());
+
+                    if (build) {
+                        terms.add(addProduct(productChildren, 
+                                             enumerated + 1));
+                    }
+                }
+
+                if (termMap.size() > MAXIMUM_FRONTIER_CONFIGURATIONS) {
+                    return -1;
+                }
+            }
+
+            configurationMap = new HashMap<>(2 * termMap.size());
+            nodeCount += termMap.size();
+
+            for (Map.Entry<Long, IntList> entry : termMap.entrySet()) {
+                IntList terms = entry.getValue();
+                configurationMap.put(entry.getKey(),
+                                     build ? addSum(terms.array, terms.size)
+                                           : 0);
+            }
+
+            frontier = nextFrontier;
+        }
+
+        sweepNodeCount = nodeCount;
+        // After the last level the frontier is empty.
+        return build ? configurationMap.get(0L) : 0;
+    }
+
+    /**
+     * A growable list of primitive integers.
+     */
+    private static final class IntList {
+
+        int[] array = new int[2];
+        int size;
+
+        void add(int value) {
+            if (size == array.length) {
+                array = Arrays.copyOf(array, 2 * size);
+            }
+
+            array[size++] = value;
+        }
+    }
+
+    private boolean someParentIsOff(int node, boolean[] on) {
+        for (int parent : network.getParents(node)) {
+            if (!on[parent]) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static long pack(int[] frontier, boolean[] on) {
+        long key = 0L;
+
+        for (int i = 0; i < frontier.length; ++i) {
+            if (on[frontier[i]]) {
+                key |= 1L << i;
+            }
+        }
+
+        return key;
+    }
+
+    private static void unpack(long key, int[] frontier, boolean[] on) {
+        for (int i = 0; i < frontier.length; ++i) {
+            on[frontier[i]] = ((key >>> i) & 1L) != 0L;
+        }
+    }
+
+    private int[] createInitialTable(Factor factor,
+                                     int zero,
+                                     int one,
+                                     int[] indicators,
+                                     int[] weighted) {
+        if (factor.tableNode < 0) {
+            // The auxiliary variable is the conjunction of the other two.
+            int[] table = new int[8];
+
+            for (int index = 0; index < 8; ++index) {
+                int x = index & 1;
+                int y = (index >>> 1) & 1;
+                int c = (index >>> 2) & 1;
+                table[index] = c == (x & y) ? one : zero;
+            }
+
+            return table;
+        }
+
+        int node = factor.tableNode;
+
+        if (factor.scope.length == 1) {
+            return new int[]{ weighted[2 * node], weighted[2 * node + 1] };
+        }
+
+        // The bit 0 tells whether all parents are on, the bit 1 is the state
+        // of the node. If some parent is off, the node is off for sure.
+        return new int[]{
+            indicators[2 * node],
+            weighted[2 * node],
+            zero,
+            weighted[2 * node + 1]
+        };
+    }
+
+    /**
+     * Multiplies all the live factors mentioning {@code variable}, and sums
+     * the variable out of the product.
+     *
+     * @param variable  the variable to eliminate.
+     * @param factorsOf the lists of factors of each variable.
+     * @return the resulting factor.
+     */
+    private Factor eliminate(int variable, List<List<Factor>> factorsOf) {
+        List<Factor> involved = new ArrayList<>();
+
+        for (Factor factor : factorsOf.get(variable)) {
+            if (factor.alive) {
+                factor.alive = false;
+                involved.add(factor);
+            }
+        }
+
+        factorsOf.set(variable, null);
+
+        // The eliminated variable goes to the bit 0 of the union scope.
+        int[] union = new int[MAXIMUM_CLUSTER_SIZE + 1];
+        int unionSize = 1;
+        union[0] = variable;
+
+        for (Factor factor : involved) {
+            for (int other : factor.scope) {
+                if (indexOf(union, unionSize, other) < 0) {
+                    union[unionSize++] = other;
+                }
+            }
+        }
+
+        // positions[f][k] is the bit of the union assignment holding the
+        // state of the k-th variable of the factor f.
+        int[][] positions = new int[involved.size()][];
+
+        for (int f = 0; f < involved.size(); ++f) {
+            int[] scope = involved.get(f).scope;
+            positions[f] = new int[scope.length];
+
+            for (int k = 0; k < scope.length; ++k) {
+                positions[f][k] = indexOf(union, unionSize, scope[k]);
+            }
+        }
+
+        int[] table = new int[1 << (unionSize - 1)];
+        int[] productChildren = new int[involved.size()];
+        int[] sumChildren = new int[2];
+
+        for (int assignment = 0; assignment < table.length; ++assignment) {
+            for (int state = 0; state < 2; ++state) {
+                int full = (assignment << 1) | state;
+
+                for (int f = 0; f < involved.size(); ++f) {
+                    int[] factorPositions = positions[f];
+                    int index = 0;
+
+                    for (int k = 0; k < factorPositions.length; ++k) {
+                        index |= ((full >>> factorPositions[k]) & 1) << k;
+                    }
+
+                    productChildren[f] = involved.get(f).table[index];
+                }
+
+                sumChildren[state] = addProduct(productChildren,
+                                                involved.size());
+            }
+
+            table[assignment] = addSum(sumChildren, 2);
+        }
+
+        Factor result = new Factor(Arrays.copyOfRange(union, 1, unionSize),
+                                   -1);
+        result.table = table;
+        return result;
+    }
+
+    private static int indexOf(int[] array, int size, int value) {
+        for (int i = 0; i < size; ++i) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private int addLeaf(byte type, double value) {
+        ensureNodeCapacity();
+        nodeType[numberOfNodes] = type;
+        leafValue[numberOfNodes] = value;
+        childOffset[numberOfNodes] = numberOfEdges;
+        return numberOfNodes++;
+    }
+
+    /**
+     * Adds a product node folding the constants: a zero factor makes the
+     * product zero, and unit factors are dropped.
+     *
+     * @param factors the array of factor nodes.
+     * @param count   the number of factors in the array.
+     * @return the product node.
+     */
+    private int addProduct(int[] factors, int count) {
+        int nonUnitCount = 0;
+        int nonUnit = 1;
+
+        for (int i = 0; i < count; ++i) {
+            if (isConstant(factors[i], 0.0)) {
+                return 0;
+            }
+
+            if (!isConstant(factors[i], 1.0)) {
+                ++nonUnitCount;
+                nonUnit = factors[i];
+            }
+        }
+
+        if (nonUnitCount <= 1) {
+            // Either all factors are units, or there is exactly one other.
+            return nonUnit;
+        }
+
+        ensureNodeCapacity();
+        ensureEdgeCapacity(nonUnitCount);
+        nodeType[numberOfNodes] = ArithmeticCircuit.PRODUCT;
+        childOffset[numberOfNodes] = numberOfEdges;
+
+        for (int i = 0; i < count; ++i) {
+            if (!isConstant(factors[i], 1.0)) {
+                children[numberOfEdges++] = factors[i];
+            }
+        }
+
+        return numberOfNodes++;
+    }
+
+    /**
+     * Adds a sum node dropping the zero terms.
+     *
+     * @param terms the array of term nodes.
+     * @param count the number of terms in the array.
+     * @return the sum node.
+     */
+    private int addSum(int[] terms, int count) {
+        int nonZeroCount = 0;
+        int nonZero = 0;
+
+        for (int i = 0; i < count; ++i) {
+            if (!isConstant(terms[i], 0.0)) {
+                ++nonZeroCount;
+                nonZero = terms[i];
+            }
+        }
+
+        if (nonZeroCount <= 1) {
+            return nonZero;
+        }
+
+        ensureNodeCapacity();
+        ensureEdgeCapacity(nonZeroCount);
+        nodeType[numberOfNodes] = ArithmeticCircuit.SUM;
+        childOffset[numberOfNodes] = numberOfEdges;
+
+        for (int i = 0; i < count; ++i) {
+            if (!isConstant(terms[i], 0.0)) {
+                children[numberOfEdges++] = terms[i];
+            }
+        }
+
+        return numberOfNodes++;
+    }
+
+    private boolean isConstant(int node, double value) {
+        return nodeType[node] == ArithmeticCircuit.CONSTANT &&
+               leafValue[node] == value;
+    }
+
+    private void ensureNodeCapacity() {
+        if (numberOfNodes + 1 < nodeType.length) {
+            return;
+        }
+
+        int capacity = 2 * nodeType.length;
+        nodeType    = Arrays.copyOf(nodeType, capacity);
+        childOffset = Arrays.copyOf(childOffset, capacity + 1);
+        leafValue   = Arrays.copyOf(leafValue, capacity);
+    }
+
+    private void ensureEdgeCapacity(int additional) {
+        if (numberOfEdges + additional <= children.length) {
+            return;
+        }
+
+        children = Arrays.copyOf(children,
+                                 Math.max(2 * children.length,
+                                          numberOfEdges + additional));
+    }
+}
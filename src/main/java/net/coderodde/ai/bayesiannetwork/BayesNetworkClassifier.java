@@ -1,14 +1,8 @@
 package net.coderodde.ai.bayesiannetwork;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
 
 /**
  * This class implements the binary Bayes network classifier.
@@ -18,12 +12,76 @@ import java.util.TreeSet;
  */
 public class BayesNetworkClassifier {
 
-    private final List<DirectedGraphNode>           network;
-    private final ProbabilityMap<DirectedGraphNode> probabilityMap;
-    private final Map<DirectedGraphNode, Boolean>   onoffMap;
-    private final ClassificationResult              result;
-    private final Set<DirectedGraphNode>            visited;
-    private final List<DirectedGraphNode>           tuple;
+    /**
+     * The number of steps of the enumeration between the progress reports,
+     * minus one.
+     */
+    private static final int PROGRESS_MASK = (1 << 12) - 1;
+
+    private final IndexedNetwork       network;
+    private final CompilationOptions.Storage storage;
+    private final double               minimumStateProbability;
+    private final int                  maximumNumberOfStates;
+    private final int                  stateLimit;
+    private final long                 memoryLimit;
+    private final int                  statesWithinMemoryLimit;
+    private final long                 timeLimit;
+    private ClassificationResult       result;
+    private StateTable                 stateTable;
+    private CompilationProgress        progress;
+    private double                     discardedProbability;
+    private double                     recordedProbability;
+
+    // The statistics of the enumeration.
+    private final long[]               levelVisits;
+    private final long[]               skippedNodes;
+    private long                       combinations;
+    private long                       droppedCombinations;
+    private int                        maximumDepth;
+    private final long                 validationNanos;
+    private long                       enumerationStart;
+    private long                       enumerationNanos;
+    private long                       resultNanos;
+
+    /**
+     * The current state of each node, indexed as in {@code network}.
+     */
+    private final boolean[] on;
+
+    /**
+     * The nodes of the level {@code d} whose state may vary on the current
+     * path are stored at {@code varying[network.getLevelStart(d)]}, 
+     * {@code varying[network.getLevelStart(d) + 1]}, ...
+     */
+    private final int[] varying;
+
+    /**
+     * {@code varyingCount[d]} is the number of varying nodes at the level 
+     * {@code d} on the current path.
+     */
+    private final int[] varyingCount;
+
+    /**
+     * {@code onFactor[i]} and {@code offFactor[i]} are the probabilities of
+     * the node {@code varying[i]} being "on" and "off", respectively.
+     */
+    private final double[] onFactor;
+    private final double[] offFactor;
+
+    /**
+     * Holds the prefix products of the factors of the varying nodes under 
+     * the current combination. At the level {@code d}, the product of the
+     * factors of the varying nodes preceding {@code varying[i]} is stored at
+     * {@code prefixProbability[i + d]}, so that each level occupies 
+     * {@code varyingCount[d] + 1} slots.
+     */
+    private final double[] prefixProbability;
+
+    /**
+     * {@code levelProbability[d]} is the accumulated probability upon 
+     * entering the level {@code d}.
+     */
+    private final double[] levelProbability;
 
     /**
      * Performs the actual classification task.
@@ -35,10 +93,132 @@ public class BayesNetworkClassifier {
     public static ClassificationResult 
         classify(List<DirectedGraphNode> network,
                  ProbabilityMap<DirectedGraphNode> probabilityMap) {
-        BayesNetworkClassifier bnc = 
-                new BayesNetworkClassifier(network, probabilityMap);
+        return classify(network, probabilityMap, new CompilationOptions());
+    }
 
-        return bnc.classify();
+    /**
+     * Performs the classification task under the given compilation options.
+     * The probability mass of the states dropped due to pruning is recorded
+     * in the returned result.
+     * 
+     * @param network        the list of (some) nodes of a network to classify.
+     * @param probabilityMap the map mapping each node to its probability.
+     * @param options        the compilation options.
+     * @return the data structure that facilitates queries.
+     */
+    public static ClassificationResult 
+        classify(List<DirectedGraphNode> network,
+                 ProbabilityMap<DirectedGraphNode> probabilityMap,
+                 CompilationOptions options) {
+        return prepare(network, probabilityMap, options)
+                .classify(new CompilationProgress());
+    }
+
+    /**
+     * Prepares the classification of a network under the given compilation
+     * options. The network and the options are read right away, so that they
+     * may be modified while the classification runs, possibly in another 
+     * thread.
+     * 
+     * @param network        the list of (some) nodes of a network to classify.
+     * @param probabilityMap the map mapping each node to its probability.
+     * @param options        the compilation options.
+     * @return the classifier ready to run.
+     */
+    public static BayesNetworkClassifier 
+        prepare(List<DirectedGraphNode> network,
+                ProbabilityMap<DirectedGraphNode> probabilityMap,
+                CompilationOptions options) {
+        return new BayesNetworkClassifier(network, probabilityMap, options);
+    }
+
+    /**
+     * Performs the classification task prepared by {@link #prepare(List, 
+     * ProbabilityMap, CompilationOptions) prepare}, reporting the progress 
+     * periodically. The classification stops with a 
+     * {@link CancellationException} soon after the progress is cancelled.
+     * 
+     * @param progress the progress to report to.
+     * @return the data structure that facilitates queries.
+     */
+    public ClassificationResult classify(CompilationProgress progress) {
+        Objects.requireNonNull(progress, "The progress is null.");
+
+        if (stateTable != null) {
+            throw new IllegalStateException("The classifier has run already.");
+        }
+
+        Object event = CompilationEvents.beginCompilation();
+        this.progress = progress;
+        this.stateTable = createStateTable(storage, 
+                                           network.getNumberOfNodes());
+        this.result = new ClassificationResult(network.getNodeList(), 
+                                               stateTable);
+
+        try {
+            ClassificationResult classificationResult = classify();
+            finish(CompilationProgress.Status.FINISHED, event);
+            return classificationResult;
+        } catch (CancellationException ex) {
+            stateTable.release();
+            finish(CompilationProgress.Status.CANCELLED, event);
+            throw ex;
+        } catch (RuntimeException | Error ex) {
+            // Do not leave the off-heap buffers of a partial result to the
+            // garbage collector.
+            stateTable.release();
+            finish(CompilationProgress.Status.FAILED, event);
+            throw ex;
+        }
+    }
+
+    /**
+     * Finishes the progress and the event of the classification with its
+     * statistics.
+     */
+    private void finish(CompilationProgress.Status status, Object event) {
+        if (enumerationNanos == 0L && enumerationStart != 0L) {
+            // Stopped during the enumeration.
+            enumerationNanos = System.nanoTime() - enumerationStart;
+        }
+
+        CompilationStatistics statistics = getStatistics();
+        progress.finish(status, statistics);
+        CompilationEvents.endCompilation(event, status, statistics);
+    }
+
+    private CompilationStatistics getStatistics() {
+        int numberOfNodes = network.getNumberOfNodes();
+        int numberOfLevels = network.getNumberOfLevels();
+        int[] levelSizes = new int[numberOfLevels];
+
+        for (int level = 0; level < numberOfLevels; ++level) {
+            levelSizes[level] = network.getLevelEnd(level) - 
+                                network.getLevelStart(level);
+        }
+
+        // The arrays allocated by the constructor.
+        long workingBytes = 
+                (long) numberOfNodes * (1 + 4 + 8 + 8 + 8) +
+                (long) numberOfLevels * (4 + 8 + 8 + 8) + 8;
+
+        return new CompilationStatistics(
+                numberOfNodes,
+                result.getNumberOfStates(),
+                levelVisits.clone(),
+                skippedNodes.clone(),
+                levelSizes,
+                combinations,
+                droppedCombinations,
+                maximumDepth,
+                CompilationPlanner.estimateStateBytes(
+                        result.getNumberOfStates(), 
+                        numberOfNodes, 
+                        storage),
+                workingBytes,
+                validationNanos,
+                enumerationNanos,
+                resultNanos);
     }
 
     /**
@@ -46,267 +226,337 @@ public class BayesNetworkClassifier {
      * 
      * @param network        the list of (some) nodes in the Bayes network.
      * @param probabilityMap the map mapping each node to its probability.
+     * @param options        the compilation options.
      */
     private BayesNetworkClassifier(
             List<DirectedGraphNode> network,
-            ProbabilityMap<DirectedGraphNode> probabilityMap) {
+            ProbabilityMap<DirectedGraphNode> probabilityMap,
+            CompilationOptions options) {
+        Object event = CompilationEvents.beginPhase("validation");
+        long validationStart = System.nanoTime();
         Objects.requireNonNull(network, "The input network is null.");
         Objects.requireNonNull(probabilityMap, 
                                "The input probability map is null.");
+        Objects.requireNonNull(options, "The compilation options is null.");
 
         checkNetworkNotEmpty(network);
         network = Utils.findEntireGraph(network.get(0));
         checkNetworkIsAcyclic(network);
         checkProbabilityMap(probabilityMap, network);
 
-        this.network = network;
-        this.probabilityMap = probabilityMap;
-        this.onoffMap = new HashMap<>();
-
-        for (DirectedGraphNode node : network) {
-            onoffMap.put(node, Boolean.FALSE);
-        }
-
-        this.result = new ClassificationResult();
-        this.visited = new HashSet<>(network.size());
-        this.tuple = new ArrayList<>(network.size());
+        this.network = new IndexedNetwork(network, probabilityMap);
+        this.storage = options.getStorage();
+        this.minimumStateProbability = options.getMinimumStateProbability();
+        this.maximumNumberOfStates = options.getMaximumNumberOfStates();
+        this.stateLimit = options.getStateLimit();
+        this.memoryLimit = options.getMemoryLimit();
+        this.timeLimit = options.getTimeLimit();
+
+        int numberOfNodes  = this.network.getNumberOfNodes();
+        int numberOfLevels = this.network.getNumberOfLevels();
+
+        this.statesWithinMemoryLimit = 
+                countStatesWithin(memoryLimit, numberOfNodes, storage);
+
+        this.on = new boolean[numberOfNodes];
+        this.varying = new int[numberOfNodes];
+        this.varyingCount = new int[numberOfLevels];
+        this.onFactor = new double[numberOfNodes];
+        this.offFactor = new double[numberOfNodes];
+        this.prefixProbability = new double[numberOfNodes + numberOfLevels];
+        this.levelProbability = new double[numberOfLevels + 1];
+        this.levelVisits = new long[numberOfLevels];
+        this.skippedNodes = new long[numberOfLevels];
+        this.validationNanos = System.nanoTime() - validationStart;
+        CompilationEvents.endPhase(event);
     }
 
     /**
-     * Implements the actual classification.
+     * Implements the actual compilation from a Bayesian network to the list of
+     * system states. This algorithm builds a tree whose leafs are all possible 
+     * system states, yet it prunes the search by skipping the nodes whose state
+     * cannot vary, thus implementing "branch-and-bound" technique. The tree is
+     * traversed depth first using an explicit stack of levels so that the 
+     * depth of the network is not limited by the depth of the call stack.
      * 
      * @return the classification result structure.
      */
     private ClassificationResult classify() {
-        classify(getRootSet(network), 1.0f);
-        result.setNodeList(tuple);
+        int numberOfLevels = network.getNumberOfLevels();
+        int depth = 0;
+        boolean entering = true;
+        int steps = 0;
+
+        Object event = CompilationEvents.beginPhase("enumeration");
+        enumerationStart = System.nanoTime();
+        levelProbability[0] = 1.0;
+
+        while (depth >= 0) {
+            if ((++steps & PROGRESS_MASK) == 0) {
+                reportProgress();
+            }
+
+            if (!entering) {
+                // Returned from the level below, move to the next combination
+                // of the current level.
+                if (descend(depth, false)) {
+                    ++depth;
+                    maximumDepth = Math.max(maximumDepth, depth);
+                    entering = true;
+                } else {
+                    --depth;
+                }
+
+                continue;
+            }
+
+            if (result.getNumberOfStates() >= maximumNumberOfStates) {
+                // The state budget is exhausted, drop the entire branch.
+                discardedProbability += levelProbability[depth];
+                --depth;
+                entering = false;
+                continue;
+            }
+
+            if (depth == numberOfLevels) {
+                // Record the tuple and its probability as a new system state.
+                inferSystemState(levelProbability[depth]);
+                --depth;
+                entering = false;
+                continue;
+            }
+
+            // Fix the nodes whose on/off status cannot vary, namely the nodes
+            // whose probability is 0 or whose some parents are off, or nodes 
+            // with no off parents and probability 1.0.
+            loadVaryingNodes(depth);
+
+            if (descend(depth, true)) {
+                ++depth;
+                maximumDepth = Math.max(maximumDepth, depth);
+            } else {
+                --depth;
+                entering = false;
+            }
+        }
+
+        enumerationNanos = System.nanoTime() - enumerationStart;
+        CompilationEvents.endPhase(event);
+        event = CompilationEvents.beginPhase("result");
+        long resultStart = System.nanoTime();
+        stateTable.finish();
+        result.setDiscardedProbabilityMass(discardedProbability);
+        reportProgress();
+        resultNanos = System.nanoTime() - resultStart;
+        CompilationEvents.endPhase(event);
         return result;
     }
 
     /**
-     * Returns the set of nodes that have no parents.
-     * 
-     * @param network the Bayes network to process.
-     * @return the set of root nodes.
+     * Reports the number of the states recorded and the probability mass 
+     * explored so far, which is that of the recorded and the dropped states,
+     * and stops if cancelled or out of time.
      */
-    private Set<DirectedGraphNode> getRootSet(List<DirectedGraphNode> network) {
-        Set<DirectedGraphNode> set = new TreeSet<>();
-        network.stream().filter((node) -> (isIndependent(node)))
-                        .forEach((node) -> { set.add(node); });
-        return set;
-    }
+    private void reportProgress() {
+        progress.update(result.getNumberOfStates(), 
+                        recordedProbability + discardedProbability);
 
-    /**
-     * Returns {@code true} if the input node has a parent whose current state 
-     * is "off".
-     * 
-     * @param node the node to check.
-     * @return {@code true} if the input node has a turned off parent.
-     */
-    private boolean nodeHasOffParent(DirectedGraphNode node) {
-        if (node.parents()
-                .stream()
-                .anyMatch((parent) -> (onoffMap.get(parent)
-                                               .equals(Boolean.FALSE)))) {
-            return true;
+        if (progress.isCancelled()) {
+            throw new CancellationException("The compilation was cancelled.");
         }
 
-        return false;
+        if (progress.getDuration() > timeLimit) {
+            throw new IllegalStateException(
+                    "The compilation exceeded the time limit of " + 
+                    timeLimit + " milliseconds after " + 
+                    result.getNumberOfStates() + " states.");
+        }
     }
 
-    private void inferSystemState(double probability) {
-        Map<DirectedGraphNode, Boolean> variableMap = new HashMap<>();
+    /**
+     * Checks that one more state may be recorded within the limits.
+     */
+    private void checkLimits() {
+        int numberOfStates = result.getNumberOfStates();
 
-        tuple.stream().forEach((node) -> {
-            variableMap.put(node, onoffMap.get(node));
-        });
+        if (numberOfStates == stateLimit) {
+            throw new IllegalStateException(
+                    "The compilation exceeded the limit of " + stateLimit +
+                    " states.");
+        }
 
-        result.addSystemState(new SystemState(variableMap, 
-                                              result, 
-                                              probability));
-    }
-    
-    private void pruneLevelSet(Set<DirectedGraphNode> levelSet) {
-        Iterator<DirectedGraphNode> iterator = levelSet.iterator();
-
-        // Remove the nodes from 'levelSet' whose some parents are not yet
-        // processed. We will get to them in deeper recursion depth.
-        outer:
-        while (iterator.hasNext()) {
-            for (DirectedGraphNode parent : iterator.next().parents()) {
-                if (!visited.contains(parent)) {
-                    iterator.remove();
-                    continue outer;
-                }
-            }
+        if (numberOfStates == statesWithinMemoryLimit) {
+            throw new IllegalStateException(
+                    "The compilation exceeded the memory limit of " + 
+                    memoryLimit + " bytes after " + numberOfStates + 
+                    " states.");
         }
     }
-    
-    private Set<DirectedGraphNode> 
-        constructSkipSet(Set<DirectedGraphNode> levelSet) {
-        Set<DirectedGraphNode> skipSet = new HashSet<>(levelSet.size());
-        
-        levelSet.stream().forEach((node) -> {
-            if (nodeHasOffParent(node) || probabilityMap.get(node) == 0.0) {
-                onoffMap.put(node, Boolean.FALSE);
-                skipSet.add(node);
-            } else if (probabilityMap.get(node) == 1.0) {
-                onoffMap.put(node, Boolean.TRUE);
-                skipSet.add(node);
-            }
-        });
-        
-        return skipSet;
-    }
-    
-    private DirectedGraphNode[] 
-        constructVaryingNodeArray(Set<DirectedGraphNode> levelSet,
-                                  Set<DirectedGraphNode> skipSet) {
-        DirectedGraphNode[] nodeArray = new DirectedGraphNode[levelSet.size() -
-                                                               skipSet.size()];
-
-        int i = 0;
-
-        // Add the level to visited set and load the node at current level that
-        // can vary.
-        for (DirectedGraphNode node : levelSet) {
-            if (!skipSet.contains(node)) {
-                nodeArray[i++] = node;
-            }
 
-            visited.add(node);
-
-            if (tuple.size() < visited.size()) {
-                tuple.add(node);
+    /**
+     * Returns the largest number of states whose estimated size is within a 
+     * memory limit.
+     * 
+     * @param memoryLimit   the memory limit in bytes.
+     * @param numberOfNodes the number of nodes in the network.
+     * @param storage       the storage of the states.
+     * @return the number of states, or {@code Integer.MAX_VALUE} if all the
+     *         states fit.
+     */
+    private static int countStatesWithin(long memoryLimit,
+                                         int numberOfNodes,
+                                         CompilationOptions.Storage storage) {
+        int low = 0;
+        int high = Integer.MAX_VALUE;
+
+        while (low < high) {
+            int middle = (int) (((long) low + high + 1) >>> 1);
+
+            if (CompilationPlanner.estimateStateBytes(middle, 
+                                                      numberOfNodes, 
+                                                      storage) 
+                    <= memoryLimit) {
+                low = middle;
+            } else {
+                high = middle - 1;
             }
         }
-        
-        return nodeArray;
-    }
-        
-    private Set<DirectedGraphNode> 
-        createNextLevelSet(Set<DirectedGraphNode> levelSet) {
-        Set<DirectedGraphNode> nextLevelSet = new TreeSet<>();
-        
-        // Compute the next node level.
-        levelSet.stream().forEach((node) -> {
-            node.children().stream().forEach((child) -> {
-                nextLevelSet.add(child);
-            });
-        });
-        
-        return nextLevelSet;
-    }
-        
-    private void cleanUpLevel(Set<DirectedGraphNode> levelSet) {
-        levelSet.stream().forEach((node) -> {
-            visited.remove(node);
-        });
-    }
-        
-    private void recur(DirectedGraphNode[] nodeArray, 
-                       Set<DirectedGraphNode> nextLevelSet, 
-                       double probability) {
-        // Recur.
-        boolean doInit = true;
-
-        // For each combination of variable state nodes, recur.
-        while (getNextCombination(nodeArray, doInit)) {
-            doInit = false;
-
-            classify(nextLevelSet,
-                     probability * computeProbability(nodeArray));
-        }
+
+        return low;
     }
-    
+
     /**
-     * Implements the actual compilation from a Bayesian network to the list of
-     * system states. This algorithm builds a tree whose leafs are all possible 
-     * system states, yet it prunes the search by skipping the nodes whose state
-     * cannot vary, thus implementing "branch-and-bound" technique.
+     * Finds the next combination of the varying nodes at level {@code depth}
+     * that is probable enough, and computes the probability of entering the
+     * next level with it.
      * 
-     * @param levelSet    the set of nodes on current level.
-     * @param probability the accumulated probability.
+     * @param depth the index of the level.
+     * @param first whether to start from the first combination.
+     * @return {@code true} if a combination was found.
      */
-    private void classify(Set<DirectedGraphNode> levelSet,
-                          double probability) {
-        if (levelSet.isEmpty()) {
-            // End the recursion, record the tuple and its probability as a new
-            // system state.
-            inferSystemState(probability);
-            return;
+    private boolean descend(int depth, boolean first) {
+        boolean hasCombination = first || getNextCombination(depth);
+
+        while (hasCombination) {
+            ++combinations;
+            double combinationProbability =
+                    levelProbability[depth] * computeProbability(depth);
+
+            if (combinationProbability >= minimumStateProbability) {
+                levelProbability[depth + 1] = combinationProbability;
+                return true;
+            }
+
+            // All the states below this branch are too improbable.
+            discardedProbability += combinationProbability;
+            ++droppedCombinations;
+            hasCombination = getNextCombination(depth);
         }
-        
-        // Remove the nodes from 'levelSet' whose some parents are not yet
-        // processed. We will get to them in deeper recursion depth.
-        pruneLevelSet(levelSet);
-
-        // Set of nodes whose on/off status cannot vary, namely the nodes whose
-        // probability is 0 or whose some parents are off, or nodes with no off
-        // parents and probability 1.0.
-        Set<DirectedGraphNode> skipSet = constructSkipSet(levelSet);
-
-        // Create the array of nodes whose state may vary.
-        DirectedGraphNode[] nodeArray = constructVaryingNodeArray(levelSet,
-                                                                  skipSet);
-        // Find out the next level set.
-        Set<DirectedGraphNode> nextLevelSet = createNextLevelSet(levelSet);
-
-        // For each combination of variable state nodes, recur.
-        recur(nodeArray, nextLevelSet, probability);
-        
-        // Clean up the state for further recursion.
-        cleanUpLevel(levelSet);        
+
+        return false;
     }
 
     /**
-     * Computes the probability of configuration consisting of nodes in 
-     * {@code nodeArray}.
+     * Applies the skip rules to the nodes at the level {@code depth}, and 
+     * collects the nodes whose state may vary turning them all off.
      * 
-     * @param nodeArray the array of nodes whose probabilities to accumulate.
-     * @return the probability value.
+     * @param depth the index of the level.
      */
-    private double computeProbability(DirectedGraphNode[] nodeArray) {
-        double p = 1.0;
+    private void loadVaryingNodes(int depth) {
+        int start = network.getLevelStart(depth);
+        int count = 0;
+
+        for (int i = start; i < network.getLevelEnd(depth); ++i) {
+            double probability = network.getProbability(i);
 
-        for (DirectedGraphNode node : nodeArray) {
-            if (onoffMap.get(node).equals(Boolean.TRUE)) {
-                p *= probabilityMap.get(node);
+            if (nodeHasOffParent(i) || probability == 0.0) {
+                on[i] = false;
+            } else if (probability == 1.0) {
+                on[i] = true;
             } else {
-                p *= 1.0 - probabilityMap.get(node);
+                on[i] = false;
+                varying[start + count] = i;
+                onFactor[start + count] = probability;
+                offFactor[start + count] = 1.0 - probability;
+                ++count;
             }
         }
 
-        return p;
+        varyingCount[depth] = count;
+        ++levelVisits[depth];
+        skippedNodes[depth] += network.getLevelEnd(depth) - start - count;
+
+        // All the varying nodes are "off" in the first combination.
+        prefixProbability[depth + start] = 1.0;
+
+        for (int i = start; i < start + count; ++i) {
+            prefixProbability[depth + i + 1] = 
+                    prefixProbability[depth + i] * offFactor[i];
+        }
     }
 
     /**
-     * Generates the next combination of states for nodes in {@code nodes}.
+     * Returns {@code true} if the input node has a parent whose current state 
+     * is "off".
      * 
-     * @param nodes  the array of nodes for which we want to generate all 
-     *               possible states.
-     * @param doInit indicate whether the states should be all initialized to 
-     *               "off".
-     * @return {@code false} if upon entry to this method all states in 
-     *         {@code nodes} is "on", which indicates there is no more state
-     *         combinations.
+     * @param node the index of the node to check.
+     * @return {@code true} if the input node has a turned off parent.
      */
-    private boolean getNextCombination(DirectedGraphNode[] nodes, 
-                                       boolean doInit) {
-        if (doInit) {
-            for (DirectedGraphNode node : nodes) {
-                onoffMap.put(node, Boolean.FALSE);
+    private boolean nodeHasOffParent(int node) {
+        for (int parent : network.getParents(node)) {
+            if (!on[parent]) {
+                return true;
             }
-
-            return true;
         }
 
-        for (int i = nodes.length - 1; i >= 0; --i) {
-            if (onoffMap.get(nodes[i]).equals(Boolean.FALSE)) {
-                onoffMap.put(nodes[i], Boolean.TRUE);
+        return false;
+    }
+
+    private void inferSystemState(double probability) {
+        checkLimits();
+        stateTable.add(on, probability);
+        recordedProbability += probability;
+    }
+
+    /**
+     * Returns the probability of configuration consisting of the varying
+     * nodes at level {@code depth}. This is the last prefix product of the
+     * level, which is kept up to date by {@code getNextCombination}.
+     * 
+     * @param depth the index of the level.
+     * @return the probability value.
+     */
+    private double computeProbability(int depth) {
+        return prefixProbability[network.getLevelStart(depth) + depth + 
+                                 varyingCount[depth]];
+    }
 
-                for (++i; i < nodes.length; ++i) {
-                    onoffMap.put(nodes[i], Boolean.FALSE);
+    /**
+     * Generates the next combination of states for the varying nodes at level
+     * {@code depth}, the last node flipping most frequently. Only the prefix
+     * products from the node turned on onwards are recomputed. Since the 
+     * number of nodes turned off after it is amortized constant, so is the 
+     * work per combination.
+     * 
+     * @param depth the index of the level.
+     * @return {@code false} if upon entry to this method all the varying 
+     *         nodes are "on", which indicates there is no more state
+     *         combinations.
+     */
+    private boolean getNextCombination(int depth) {
+        int start = network.getLevelStart(depth);
+        int end = start + varyingCount[depth];
+
+        for (int i = end - 1; i >= start; --i) {
+            if (!on[varying[i]]) {
+                on[varying[i]] = true;
+                prefixProbability[depth + i + 1] = 
+                        prefixProbability[depth + i] * onFactor[i];
+
+                for (++i; i < end; ++i) {
+                    on[varying[i]] = false;
+                    prefixProbability[depth + i + 1] = 
+                            prefixProbability[depth + i] * offFactor[i];
                 }
 
                 return true;
@@ -316,6 +566,20 @@ public class BayesNetworkClassifier {
         return false;
     }
 
+    private static StateTable createStateTable(CompilationOptions.Storage storage,
+                                               int numberOfNodes) {
+        switch (storage) {
+            case OFF_HEAP:
+                return BufferStateTable.allocateDirect(numberOfNodes);
+
+            case COMPRESSED:
+                return new ColumnarStateTable(numberOfNodes);
+
+            default:
+                return new HeapStateTable(numberOfNodes);
+        }
+    }
+
     private static void checkNetworkNotEmpty(List<DirectedGraphNode> network) {
         if (network.isEmpty()) {
             throw new IllegalArgumentException("The input network is empty.");
@@ -339,8 +603,4 @@ public class BayesNetworkClassifier {
             }
         }
     }
-
-    private static boolean isIndependent(DirectedGraphNode node) {
-        return node.parents().isEmpty();
-    }
 }
@@ -0,0 +1,906 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * This class imports networks from the BIF and XMLBIF formats used by other
+ * Bayes network tools. The XMLBIF files are read with a streaming XML parser,
+ * and the BIF files with a small lexer of their own.
+ * <p>
+ * This program supports only binary variables whose "on" state has the
+ * probability {@code p} when all their parents are on, and zero when any of
+ * them is off. Each variable must thus have two outcomes, and its conditional
+ * probability table must give the "on" outcome the probability zero in every
+ * row with some parent off. The "on" outcome is the one named "true", "yes",
+ * "on", "t", "y", "1" or "present", regardless of the case, and the first
+ * outcome if none of them is so named. The variables that do not fit are
+ * reported, and nothing gets imported then.
+ * <p>
+ * The variable names that are not valid node identifiers are renamed, with
+ * the invalid characters replaced by underscores.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class BifImporter {
+
+    /**
+     * The largest probability considered zero, for the tools writing
+     * probabilities with rounding errors.
+     */
+    private static final double ZERO_TOLERANCE = 1e-9;
+
+    /**
+     * The largest difference from one of the sum of a table row.
+     */
+    private static final double SUM_TOLERANCE = 1e-6;
+
+    private static final Set<String> ON_OUTCOMES =
+            new HashSet<>(Arrays.asList("true", "yes", "on", "t", "y", "1",
+                                        "present"));
+
+    private static final class Variable {
+
+        final String name;
+        final String nodeName;
+        final List<String> outcomes;
+
+        List<String> parents;
+
+        /**
+         * The conditional probabilities with the rows in the order of the
+         * parent configurations, the last parent varying fastest, and the
+         * outcomes of the variable within each row.
+         */
+        double[] table;
+
+        Variable(String name, String nodeName, List<String> outcomes) {
+            this.name = name;
+            this.nodeName = nodeName;
+            this.outcomes = outcomes;
+        }
+    }
+
+    private final BulkNetworkLoader loader;
+    private final Map<String, Variable> variableMap = new LinkedHashMap<>();
+    private final Map<String, String> nodeNameMap = new HashMap<>();
+    private final List<String> renamings = new ArrayList<>();
+
+    public BifImporter(Map<String, DirectedGraphNode> nodeMap,
+                       ProbabilityMap<DirectedGraphNode> probabilityMap) {
+        this.loader = new BulkNetworkLoader(nodeMap, probabilityMap);
+    }
+
+    /**
+     * Imports a network file into the network. The format is recognized by
+     * the content: XMLBIF files start with {@code <}.
+     *
+     * @param path the path of the file.
+     * @return {@code true} if the network was imported.
+     * @throws IOException if reading fails.
+     */
+    public boolean load(Path path) throws IOException {
+        try (InputStream stream =
+                new BufferedInputStream(Files.newInputStream(path))) {
+            if (startsWithTag(stream)) {
+                readXmlBif(stream);
+            } else {
+                readBif(new BufferedReader(
+                        new InputStreamReader(stream, 
+                                              StandardCharsets.UTF_8)));
+            }
+        } catch (IllegalArgumentException ex) {
+            loader.reportError(ex.getMessage());
+        }
+
+        if (loader.getNumberOfErrors() == 0) {
+            convert();
+        }
+
+        return loader.finish();
+    }
+
+    public int getNumberOfLoadedNodes() {
+        return loader.getNumberOfLoadedNodes();
+    }
+
+    public int getNumberOfLoadedArcs() {
+        return loader.getNumberOfLoadedArcs();
+    }
+
+    public int getNumberOfErrors() {
+        return loader.getNumberOfErrors();
+    }
+
+    public List<String> getErrors() {
+        return loader.getErrors();
+    }
+
+    /**
+     * Returns the messages telling the variables renamed to valid node
+     * identifiers.
+     *
+     * @return the renaming messages.
+     */
+    public List<String> getRenamings() {
+        return Collections.unmodifiableList(renamings);
+    }
+
+    private static boolean startsWithTag(InputStream stream)
+            throws IOException {
+        stream.mark(1 << 12);
+
+        try {
+            int c;
+
+            do {
+                c = stream.read();
+            } while (c != -1 &&
+                     (CommandLexer.isWhitespace((char) c) || c == 0xEF ||
+                      c == 0xBB || c == 0xBF)); // Skip a UTF-8 byte order mark.
+
+            return c == '<';
+        } finally {
+            stream.reset();
+        }
+    }
+
+    private void readXmlBif(InputStream stream) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+                            false);
+
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(stream);
+
+            try {
+                readXmlBif(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException ex) {
+            throw new IllegalArgumentException(
+                    "Malformed XMLBIF: " + ex.getMessage());
+        }
+    }
+
+    private void readXmlBif(XMLStreamReader reader)
+            throws XMLStreamException {
+        List<String[]> definitions = new ArrayList<>();
+        List<String> definitionTables = new ArrayList<>();
+        String variableName = null;
+        List<String> outcomes = null;
+        List<String> given = null;
+        String forName = null;
+        String table = null;
+        boolean inVariable = false;
+        boolean inDefinition = false;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String element = 
+                        reader.getLocalName().toUpperCase(Locale.ROOT);
+
+                switch (element) {
+                    case "VARIABLE":
+                        inVariable = true;
+                        variableName = null;
+                        outcomes = new ArrayList<>();
+                        break;
+
+                    case "DEFINITION":
+                    case "PROBABILITY":
+                        inDefinition = true;
+                        forName = null;
+                        given = new ArrayList<>();
+                        table = null;
+                        break;
+
+                    case "NAME":
+                        if (inVariable) {
+                            variableName = reader.getElementText().trim();
+                        }
+
+                        break;
+
+                    case "OUTCOME":
+                    case "VALUE":
+                        if (inVariable) {
+                            outcomes.add(reader.getElementText().trim());
+                        }
+
+                        break;
+
+                    case "FOR":
+                        if (inDefinition) {
+                            forName = reader.getElementText().trim();
+                        }
+
+                        break;
+
+                    case "GIVEN":
+                        if (inDefinition) {
+                            given.add(reader.getElementText().trim());
+                        }
+
+                        break;
+
+                    case "TABLE":
+                        if (inDefinition) {
+                            table = reader.getElementText();
+                        }
+
+                        break;
+
+                    default:
+                        // PROPERTY and other elements carry nothing needed.
+                        break;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String element = 
+                        reader.getLocalName().toUpperCase(Locale.ROOT);
+
+                if (element.equals("VARIABLE") && inVariable) {
+                    inVariable = false;
+
+                    if (variableName == null) {
+                        throw new IllegalArgumentException(
+                                "A variable has no name.");
+                    }
+
+                    declareVariable(variableName, outcomes);
+                } else if ((element.equals("DEFINITION") ||
+                            element.equals("PROBABILITY")) && inDefinition) {
+                    inDefinition = false;
+
+                    if (forName == null || table == null) {
+                        throw new IllegalArgumentException(
+                                "A definition lacks its FOR or TABLE.");
+                    }
+
+                    given.add(0, forName);
+                    definitions.add(given.toArray(new String[given.size()]));
+                    definitionTables.add(table);
+                }
+            }
+        }
+
+        // The definitions may precede the variables they refer to.
+        for (int i = 0; i < definitions.size(); ++i) {
+            String[] names = definitions.get(i);
+            Variable variable = getVariable(names[0]);
+            List<String> parents =
+                    Arrays.asList(names).subList(1, names.length);
+            double[] numbers = parseNumbers(definitionTables.get(i));
+            checkTableSize(variable, parents, numbers.length);
+
+            // XMLBIF lists the outcomes of the variable fastest, as stored.
+            variable.parents = parents;
+            variable.table = numbers;
+        }
+    }
+
+    private void readBif(Reader reader) throws IOException {
+        BifLexer lexer = new BifLexer(reader);
+        String token;
+
+        while ((token = lexer.next()) != null) {
+            switch (token) {
+                case "network":
+                    lexer.skipTo("{");
+                    lexer.skipBlock();
+                    break;
+
+                case "variable":
+                    readBifVariable(lexer);
+                    break;
+
+                case "probability":
+                    readBifProbability(lexer);
+                    break;
+
+                default:
+                    throw lexer.error("Unexpected \"" + token + "\".");
+            }
+        }
+    }
+
+    private void readBifVariable(BifLexer lexer) throws IOException {
+        String name = lexer.nextWord();
+        List<String> outcomes = null;
+        lexer.expect("{");
+
+        while (true) {
+            String token = lexer.nextNonNull();
+
+            if (token.equals("}")) {
+                break;
+            } else if (token.equals("type")) {
+                lexer.expect("discrete");
+                lexer.expect("[");
+                lexer.nextWord();
+                lexer.expect("]");
+                lexer.expect("{");
+                outcomes = lexer.readList("}");
+                lexer.expect(";");
+            } else if (token.equals("property")) {
+                lexer.skipTo(";");
+            } else {
+                throw lexer.error("Unexpected \"" + token + "\".");
+            }
+        }
+
+        if (outcomes == null) {
+            throw lexer.error("The variable \"" + name + "\" has no type.");
+        }
+
+        declareVariable(name, outcomes);
+    }
+
+    private void readBifProbability(BifLexer lexer) throws IOException {
+        lexer.expect("(");
+        Variable variable = getVariable(lexer.nextWord());
+        List<String> parents = new ArrayList<>();
+        String token = lexer.nextNonNull();
+
+        if (token.equals("|")) {
+            parents = lexer.readList(")");
+        } else if (!token.equals(")")) {
+            throw lexer.error("Expected \")\".");
+        }
+
+        int numberOfOutcomes = variable.outcomes.size();
+        int numberOfConfigurations = 1;
+        List<Variable> parentVariables = new ArrayList<>();
+
+        for (String parent : parents) {
+            Variable parentVariable = getVariable(parent);
+            parentVariables.add(parentVariable);
+            numberOfConfigurations *= parentVariable.outcomes.size();
+        }
+
+        double[] table = new double[numberOfConfigurations * numberOfOutcomes];
+        double[] defaultRow = null;
+        Arrays.fill(table, Double.NaN);
+        lexer.expect("{");
+
+        while (!(token = lexer.nextNonNull()).equals("}")) {
+            switch (token) {
+                case "table": {
+                    double[] numbers = lexer.readNumbers();
+                    checkTableSize(variable, parents, numbers.length);
+
+                    // BIF lists the outcomes of the variable slowest.
+                    for (int configuration = 0;
+                             configuration < numberOfConfigurations;
+                             ++configuration) {
+                        for (int outcome = 0;
+                                 outcome < numberOfOutcomes;
+                                 ++outcome) {
+                            table[configuration * numberOfOutcomes +
+                                  outcome] =
+                                    numbers[outcome * numberOfConfigurations +
+                                            configuration];
+                        }
+                    }
+
+                    break;
+                }
+
+                case "default":
+                    defaultRow = lexer.readNumbers();
+                    checkRowSize(lexer, variable, defaultRow);
+                    break;
+
+                case "property":
+                    lexer.skipTo(";");
+                    break;
+
+                case "(": {
+                    List<String> values = lexer.readList(")");
+
+                    if (values.size() != parents.size()) {
+                        throw lexer.error("Expected " + parents.size() +
+                                          " parent values.");
+                    }
+
+                    int configuration = 0;
+
+                    for (int i = 0; i < values.size(); ++i) {
+                        Variable parent = parentVariables.get(i);
+                        int outcome = parent.outcomes.indexOf(values.get(i));
+
+                        if (outcome < 0) {
+                            throw lexer.error(
+                                    "\"" + values.get(i) + "\" is no " +
+                                    "outcome of \"" + parent.name + "\".");
+                        }
+
+                        configuration = configuration *
+                                        parent.outcomes.size() + outcome;
+                    }
+
+                    double[] row = lexer.readNumbers();
+                    checkRowSize(lexer, variable, row);
+                    System.arraycopy(row,
+                                     0,
+                                     table,
+                                     configuration * numberOfOutcomes,
+                                     numberOfOutcomes);
+                    break;
+                }
+
+                default:
+                    throw lexer.error("Unexpected \"" + token + "\".");
+            }
+        }
+
+        for (int configuration = 0;
+                 configuration < numberOfConfigurations;
+                 ++configuration) {
+            int offset = configuration * numberOfOutcomes;
+
+            if (Double.isNaN(table[offset])) {
+                if (defaultRow == null) {
+                    throw lexer.error("The table of \"" + variable.name +
+                                      "\" is incomplete.");
+                }
+
+                System.arraycopy(defaultRow, 0, table, offset,
+                                 numberOfOutcomes);
+            }
+        }
+
+        variable.parents = parents;
+        variable.table = table;
+    }
+
+    private void declareVariable(String name, List<String> outcomes) {
+        if (variableMap.containsKey(name)) {
+            throw new IllegalArgumentException(
+                    "The variable \"" + name + "\" is declared twice.");
+        }
+
+        String nodeName = toIdentifier(name);
+        String other = nodeNameMap.put(nodeName, name);
+
+        if (other != null) {
+            throw new IllegalArgumentException(
+                    "The variables \"" + other + "\" and \"" + name +
+                    "\" would both be named \"" + nodeName + "\".");
+        }
+
+        if (!nodeName.equals(name)) {
+            renamings.add("Renamed \"" + name + "\" to \"" + nodeName +
+                          "\".");
+        }
+
+        variableMap.put(name, new Variable(name, nodeName, outcomes));
+    }
+
+    private Variable getVariable(String name) {
+        Variable variable = variableMap.get(name);
+
+        if (variable == null) {
+            throw new IllegalArgumentException(
+                    "No variable \"" + name + "\".");
+        }
+
+        return variable;
+    }
+
+    private void checkTableSize(Variable variable,
+                                List<String> parents,
+                                int size) {
+        long expectedSize = variable.outcomes.size();
+
+        for (String parent : parents) {
+            expectedSize *= getVariable(parent).outcomes.size();
+        }
+
+        if (size != expectedSize) {
+            throw new IllegalArgumentException(
+                    "The table of \"" + variable.name + "\" has " + size +
+                    " entries instead of " + expectedSize + ".");
+        }
+    }
+
+    private static void checkRowSize(BifLexer lexer,
+                                     Variable variable,
+                                     double[] row) {
+        if (row.length != variable.outcomes.size()) {
+            throw lexer.error("Expected " + variable.outcomes.size() +
+                              " probabilities.");
+        }
+    }
+
+    /**
+     * Converts the variables to nodes, checking that their tables fit this
+     * program's model.
+     */
+    private void convert() {
+        for (Variable variable : variableMap.values()) {
+            if (variable.outcomes.size() != 2) {
+                loader.reportError(
+                        "\"" + variable.name + "\" has " +
+                        variable.outcomes.size() + " outcomes, but only " +
+                        "binary variables are supported.");
+                continue;
+            }
+
+            if (variable.table == null) {
+                loader.reportError("\"" + variable.name + "\" has no " +
+                                   "probability table.");
+                continue;
+            }
+
+            Double probability = convertTable(variable);
+
+            if (probability != null) {
+                loader.addNode(variable.nodeName, probability);
+
+                for (String parent : variable.parents) {
+                    loader.addArc(variableMap.get(parent).nodeName,
+                                  variable.nodeName);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the probability of the variable being on given all its parents
+     * on, or {@code null} if the table does not fit the model.
+     */
+    private Double convertTable(Variable variable) {
+        int on = getOnOutcome(variable.outcomes);
+        int allOnConfiguration = 0;
+
+        for (String parent : variable.parents) {
+            List<String> outcomes = variableMap.get(parent).outcomes;
+
+            if (outcomes.size() != 2) {
+                // Reported for the parent.
+                return null;
+            }
+
+            allOnConfiguration = 2 * allOnConfiguration +
+                                 getOnOutcome(outcomes);
+        }
+
+        double[] table = variable.table;
+        double probability = 0.0;
+
+        for (int configuration = 0;
+                 configuration < table.length / 2;
+                 ++configuration) {
+            double onProbability = table[2 * configuration + on];
+            double offProbability = table[2 * configuration + 1 - on];
+
+            if (!(Math.abs(onProbability + offProbability - 1.0)
+                    <= SUM_TOLERANCE) ||
+                    onProbability < 0.0 || offProbability < 0.0) {
+                loader.reportError(
+                        "The row of \"" + variable.name + "\" given " +
+                        describe(variable, configuration) + " is not a " +
+                        "probability distribution.");
+                return null;
+            }
+
+            if (configuration == allOnConfiguration) {
+                probability = Math.min(1.0, onProbability);
+            } else if (onProbability > ZERO_TOLERANCE) {
+                loader.reportError(
+                        "P(" + variable.name + " = " +
+                        variable.outcomes.get(on) + " | " +
+                        describe(variable, configuration) + ") is " +
+                        onProbability + ", but it must be 0 when a parent " +
+                        "is off.");
+                return null;
+            }
+        }
+
+        return probability;
+    }
+
+    /**
+     * Describes a configuration of the parents of a variable.
+     */
+    private String describe(Variable variable, int configuration) {
+        if (variable.parents.isEmpty()) {
+            return "no parents";
+        }
+
+        String[] parts = new String[variable.parents.size()];
+
+        for (int i = parts.length - 1; i >= 0; --i) {
+            Variable parent = variableMap.get(variable.parents.get(i));
+            parts[i] = parent.name + " = " +
+                       parent.outcomes.get(configuration % 2);
+            configuration /= 2;
+        }
+
+        return String.join(", ", parts);
+    }
+
+    private static int getOnOutcome(List<String> outcomes) {
+        for (int i = 0; i < outcomes.size(); ++i) {
+            String outcome = outcomes.get(i).toLowerCase(Locale.ROOT);
+
+            if (ON_OUTCOMES.contains(outcome)) {
+                return i;
+            }
+        }
+
+        return 0;
+    }
+
+    private static String toIdentifier(String name) {
+        StringBuilder sb = new StringBuilder(name.length() + 1);
+
+        if (name.isEmpty() || 
+                !Character.isJavaIdentifierStart(name.charAt(0))) {
+            sb.append('_');
+        }
+
+        for (int i = 0; i < name.length(); ++i) {
+            char c = name.charAt(i);
+            sb.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+
+        return sb.toString();
+    }
+
+    private static double[] parseNumbers(String text) {
+        double[] numbers = new double[8];
+        int count = 0;
+        int index = 0;
+
+        while (true) {
+            while (index < text.length() &&
+                    CommandLexer.isWhitespace(text.charAt(index))) {
+                ++index;
+            }
+
+            if (index == text.length()) {
+                return Arrays.copyOf(numbers, count);
+            }
+
+            int start = index;
+
+            while (index < text.length() &&
+                    !CommandLexer.isWhitespace(text.charAt(index))) {
+                ++index;
+            }
+
+            if (count == numbers.length) {
+                numbers = Arrays.copyOf(numbers, 2 * count);
+            }
+
+            numbers[count++] = parseNumber(text.substring(start, index));
+        }
+    }
+
+    private static double parseNumber(String text) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(
+                    "\"" + text + "\" is not a number.");
+        }
+    }
+
+    /**
+     * Splits a BIF file into words and the punctuation characters, skipping
+     * the comments.
+     */
+    private static final class BifLexer {
+
+        private static final String PUNCTUATION = "{}()[];,|";
+
+        private final Reader reader;
+        private final StringBuilder word = new StringBuilder();
+        private int peeked = -2;
+        private int lineNumber = 1;
+
+        BifLexer(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Returns the next token, or {@code null} at the end of the file.
+         */
+        String next() throws IOException {
+            int c = skipWhitespaceAndComments();
+
+            if (c == -1) {
+                return null;
+            }
+
+            if (PUNCTUATION.indexOf(c) >= 0) {
+                return String.valueOf((char) c);
+            }
+
+            word.setLength(0);
+
+            if (c == '"') {
+                // A quoted string, in property values.
+                while ((c = read()) != -1 && c != '"') {
+                    word.append((char) c);
+                }
+
+                return word.toString();
+            }
+
+            word.append((char) c);
+
+            while ((c = peek()) != -1 &&
+                    !CommandLexer.isWhitespace((char) c) &&
+                    PUNCTUATION.indexOf(c) < 0 && c != '"') {
+                word.append((char) read());
+            }
+
+            return word.toString();
+        }
+
+        String nextNonNull() throws IOException {
+            String token = next();
+
+            if (token == null) {
+                throw error("Unexpected end of file.");
+            }
+
+            return token;
+        }
+
+        String nextWord() throws IOException {
+            String token = nextNonNull();
+
+            if (token.length() == 1 && PUNCTUATION.contains(token)) {
+                throw error("Expected a name instead of \"" + token + "\".");
+            }
+
+            return token;
+        }
+
+        void expect(String expected) throws IOException {
+            String token = nextNonNull();
+
+            if (!token.equals(expected)) {
+                throw error("Expected \"" + expected + "\" instead of \"" +
+                            token + "\".");
+            }
+        }
+
+        /**
+         * Reads the words up to the closing token, separated by commas or
+         * whitespace.
+         */
+        List<String> readList(String closing) throws IOException {
+            List<String> list = new ArrayList<>();
+            String token;
+
+            while (!(token = nextNonNull()).equals(closing)) {
+                if (!token.equals(",")) {
+                    list.add(token);
+                }
+            }
+
+            return list;
+        }
+
+        double[] readNumbers() throws IOException {
+            List<String> list = readList(";");
+            double[] numbers = new double[list.size()];
+
+            for (int i = 0; i < numbers.length; ++i) {
+                try {
+                    numbers[i] = parseNumber(list.get(i));
+                } catch (IllegalArgumentException ex) {
+                    throw error(ex.getMessage());
+                }
+            }
+
+            return numbers;
+        }
+
+        void skipTo(String closing) throws IOException {
+            while (!nextNonNull().equals(closing)) {
+            }
+        }
+
+        /**
+         * Skips the tokens up to the brace closing an opened one.
+         */
+        void skipBlock() throws IOException {
+            int depth = 1;
+
+            while (depth > 0) {
+                String token = nextNonNull();
+
+                if (token.equals("{")) {
+                    ++depth;
+                } else if (token.equals("}")) {
+                    --depth;
+                }
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(
+                    "Line " + lineNumber + ": " + message);
+        }
+
+        private int skipWhitespaceAndComments() throws IOException {
+            while (true) {
+                int c = read();
+
+                if (c == -1 || !CommandLexer.isWhitespace((char) c) &&
+                               c != '/') {
+                    return c;
+                }
+
+                if (c == '/') {
+                    if (peek() == '/') {
+                        while ((c = read()) != -1 && c != '\n') {
+                        }
+                    } else if (peek() == '*') {
+                        read();
+                        int previous = 0;
+
+                        while ((c = read()) != -1 &&
+                                !(previous == '*' && c == '/')) {
+                            previous = c;
+                        }
+                    } else {
+                        return c;
+                    }
+                }
+            }
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = reader.read();
+            }
+
+            return peeked;
+        }
+
+        private int read() throws IOException {
+            int c = peek();
+            peeked = -2;
+
+            if (c == '\n') {
+                ++lineNumber;
+            }
+
+            return c;
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * This class stores the system states in byte buffers outside of the Java
+ * heap. A single buffer is limited to 2 GiB, so the states are split into
+ * segments of {@code statesPerSegment} states each, with the words and the
+ * probabilities of a segment in separate buffers.
+ * <p>
+ * When the buffers are mapped from a snapshot file, the queries scan the
+ * file contents directly, and the operating system keeps the touched pages in
+ * its page cache, where they are shared by all processes mapping the same
+ * file. When the buffers are direct, the compilation appends the states to
+ * them segment by segment, so that the garbage collector never has to trace
+ * or copy the states.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+final class BufferStateTable extends StateTable {
+
+    private static final int MAXIMUM_SEGMENT_BYTES = 1 << 30;
+
+    /**
+     * The number of states in a segment of a direct table. Small enough not
+     * to waste much memory on small networks.
+     */
+    private static final int DIRECT_SEGMENT_STATES = 1 << 14;
+
+    private final int statesPerSegment;
+    private final boolean writable;
+    private int numberOfStates;
+    private ByteBuffer[] wordSegments;
+    private ByteBuffer[] probabilitySegments;
+
+    private BufferStateTable(int numberOfNodes,
+                             int numberOfStates,
+                             int statesPerSegment,
+                             boolean writable,
+                             ByteBuffer[] wordSegments,
+                             ByteBuffer[] probabilitySegments) {
+        super(numberOfNodes);
+        this.numberOfStates = numberOfStates;
+        this.statesPerSegment = statesPerSegment;
+        this.writable = writable;
+        this.wordSegments = wordSegments;
+        this.probabilitySegments = probabilitySegments;
+    }
+
+    /**
+     * Creates an empty table allocating direct buffers as the states are
+     * added.
+     *
+     * @param numberOfNodes the number of nodes in the network.
+     * @return the direct state table.
+     */
+    static BufferStateTable allocateDirect(int numberOfNodes) {
+        return new BufferStateTable(numberOfNodes,
+                                    0,
+                                    DIRECT_SEGMENT_STATES,
+                                    true,
+                                    new ByteBuffer[0],
+                                    new ByteBuffer[0]);
+    }
+
+    /**
+     * Maps the state table of a snapshot file into memory. The words of all
+     * states start at {@code offset}, and the probabilities follow them.
+     *
+     * @param channel        the channel of the snapshot file.
+     * @param offset         the offset of the state words in the file.
+     * @param numberOfNodes  the number of nodes in the network.
+     * @param numberOfStates the number of states.
+     * @return the mapped state table.
+     * @throws IOException if the mapping fails.
+     */
+    static BufferStateTable map(FileChannel channel,
+                                long offset,
+                                int numberOfNodes,
+                                int numberOfStates) throws IOException {
+        long stateBytes = (long) getWordsPerState(numberOfNodes) * Long.BYTES;
+        int statesPerSegment = (int) (MAXIMUM_SEGMENT_BYTES / stateBytes);
+        int numberOfSegments =
+                (numberOfStates + statesPerSegment - 1) / statesPerSegment;
+        ByteBuffer[] wordSegments = new ByteBuffer[numberOfSegments];
+        ByteBuffer[] probabilitySegments = new ByteBuffer[numberOfSegments];
+        long probabilityOffset = offset + numberOfStates * stateBytes;
+
+        for (int segment = 0; segment < numberOfSegments; ++segment) {
+            long firstState = (long) segment * statesPerSegment;
+            int count = (int) Math.min(statesPerSegment,
+                                       numberOfStates - firstState);
+
+            wordSegments[segment] =
+                    channel.map(FileChannel.MapMode.READ_ONLY,
+                                offset + firstState * stateBytes,
+                                count * stateBytes);
+            probabilitySegments[segment] =
+                    channel.map(FileChannel.MapMode.READ_ONLY,
+                                probabilityOffset + firstState * Double.BYTES,
+                                (long) count * Double.BYTES);
+        }
+
+        return new BufferStateTable(numberOfNodes,
+                                    numberOfStates,
+                                    statesPerSegment,
+                                    false,
+                                    wordSegments,
+                                    probabilitySegments);
+    }
+
+    @Override
+    void add(boolean[] on, double probability) {
+        if (!writable) {
+            throw new IllegalStateException("The state table is read-only.");
+        }
+
+        int segment = numberOfStates / statesPerSegment;
+        int index = numberOfStates % statesPerSegment;
+        int wordsPerState = getWordsPerState();
+
+        if (segment == wordSegments.length) {
+            wordSegments = Arrays.copyOf(wordSegments, segment + 1);
+            probabilitySegments = Arrays.copyOf(probabilitySegments,
+                                                segment + 1);
+            wordSegments[segment] =
+                    ByteBuffer.allocateDirect(statesPerSegment *
+                                              wordsPerState * Long.BYTES);
+            probabilitySegments[segment] =
+                    ByteBuffer.allocateDirect(statesPerSegment *
+                                              Double.BYTES);
+        }
+
+        ByteBuffer words = wordSegments[segment];
+        int offset = index * wordsPerState * Long.BYTES;
+
+        for (int i = 0; i < wordsPerState; ++i) {
+            long word = 0L;
+            int end = Math.min(Long.SIZE, getNumberOfNodes() - i * Long.SIZE);
+
+            for (int bit = 0; bit < end; ++bit) {
+                if (on[i * Long.SIZE + bit]) {
+                    word |= 1L << bit;
+                }
+            }
+
+            words.putLong(offset + i * Long.BYTES, word);
+        }
+
+        probabilitySegments[segment].putDouble(index * Double.BYTES,
+                                               probability);
+        ++numberOfStates;
+    }
+
+    /**
+     * Releases the buffers right away. The mapped buffers get unmapped, and
+     * the direct buffers return their memory to the operating system.
+     */
+    @Override
+    void release() {
+        ByteBuffer[] wordSegments = this.wordSegments;
+        ByteBuffer[] probabilitySegments = this.probabilitySegments;
+
+        // Any later access fails on the empty arrays instead of touching
+        // freed memory.
+        this.wordSegments = new ByteBuffer[0];
+        this.probabilitySegments = new ByteBuffer[0];
+        this.numberOfStates = 0;
+
+        for (ByteBuffer segment : wordSegments) {
+            BufferReleaser.release(segment);
+        }
+
+        for (ByteBuffer segment : probabilitySegments) {
+            BufferReleaser.release(segment);
+        }
+    }
+
+    @Override
+    int getNumberOfStates() {
+        return numberOfStates;
+    }
+
+    @Override
+    double getProbability(int state) {
+        return probabilitySegments[state / statesPerSegment]
+                .getDouble((state % statesPerSegment) * Double.BYTES);
+    }
+
+    @Override
+    boolean isOn(int state, int node) {
+        int index = (state % statesPerSegment) * getWordsPerState() +
+                    (node >>> 6);
+        long word = wordSegments[state / statesPerSegment]
+                .getLong(index * Long.BYTES);
+        return (word & (1L << node)) != 0L;
+    }
+
+    @Override
+    double getSumOfProbabilities() {
+        double sum = 0.0;
+
+        for (int segment = 0; segment < probabilitySegments.length; ++segment) {
+            ByteBuffer probabilities = probabilitySegments[segment];
+            int count = getSegmentSize(segment);
+
+            for (int i = 0; i < count; ++i) {
+                sum += probabilities.getDouble(i * Double.BYTES);
+            }
+        }
+
+        return sum;
+    }
+
+    @Override
+    double[] computeProbabilitySums(long[] aprioriOnMask,
+                                    long[] aprioriOffMask,
+                                    long[] posterioriOnMask,
+                                    long[] posterioriOffMask) {
+        int wordsPerState = getWordsPerState();
+        double aprioriProbability = 0.0;
+        double posterioriProbability = 0.0;
+
+        for (int segment = 0; segment < wordSegments.length; ++segment) {
+            ByteBuffer words = wordSegments[segment];
+            ByteBuffer probabilities = probabilitySegments[segment];
+            int count = getSegmentSize(segment);
+
+            for (int state = 0, offset = 0;
+                     state < count;
+                     ++state, offset += wordsPerState * Long.BYTES) {
+                boolean apriori = true;
+                boolean posteriori = true;
+
+                for (int i = 0; i < wordsPerState && apriori; ++i) {
+                    long word = words.getLong(offset + i * Long.BYTES);
+                    apriori = matches(word,
+                                      aprioriOnMask[i],
+                                      aprioriOffMask[i]);
+                    posteriori &= matches(word,
+                                          posterioriOnMask[i],
+                                          posterioriOffMask[i]);
+                }
+
+                if (apriori) {
+                    double probability =
+                            probabilities.getDouble(state * Double.BYTES);
+                    aprioriProbability += probability;
+
+                    if (posteriori) {
+                        posterioriProbability += probability;
+                    }
+                }
+            }
+        }
+
+        return new double[]{ posterioriProbability, aprioriProbability };
+    }
+
+    @Override
+    void writeWords(WritableByteChannel channel) throws IOException {
+        for (int segment = 0; segment < wordSegments.length; ++segment) {
+            ByteBuffer buffer = wordSegments[segment].duplicate();
+            buffer.limit(getSegmentSize(segment) *
+                         getWordsPerState() * Long.BYTES);
+            ResultSnapshot.writeFully(channel, buffer);
+        }
+    }
+
+    @Override
+    void writeProbabilities(WritableByteChannel channel) throws IOException {
+        for (int segment = 0; segment < probabilitySegments.length; ++segment) {
+            ByteBuffer buffer = probabilitySegments[segment].duplicate();
+            buffer.limit(getSegmentSize(segment) * Double.BYTES);
+            ResultSnapshot.writeFully(channel, buffer);
+        }
+    }
+
+    private int getSegmentSize(int segment) {
+        return Math.min(statesPerSegment,
+                        numberOfStates - segment * statesPerSegment);
+    }
+
+    /**
+     * Frees direct and mapped buffers. The Java SE API offers no way to do
+     * so, so this uses the internal cleaner of the buffers, located by
+     * reflection. If it is not accessible, the buffers are left to the
+     * garbage collector.
+     */
+    private static final class BufferReleaser {
+
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+
+            try {
+                // Java 9 and later.
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                unsafe = field.get(null);
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner",
+                                                      ByteBuffer.class);
+            } catch (ReflectiveOperationException | RuntimeException ex) {
+                unsafe = null;
+                invokeCleaner = null;
+            }
+
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        static void release(ByteBuffer buffer) {
+            if (!buffer.isDirect()) {
+                return;
+            }
+
+            try {
+                if (INVOKE_CLEANER != null) {
+                    INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                } else {
+                    // Java 8.
+                    Method cleanerMethod =
+                            buffer.getClass().getMethod("cleaner");
+                    cleanerMethod.setAccessible(true);
+                    Object cleaner = cleanerMethod.invoke(buffer);
+
+                    if (cleaner != null) {
+                        cleaner.getClass().getMethod("clean").invoke(cleaner);
+                    }
+                }
+            } catch (ReflectiveOperationException | RuntimeException ex) {
+                // Leave the buffer to the garbage collector.
+            }
+        }
+    }
+}
@@ -0,0 +1,500 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class loads large network scripts consisting of {@code new} and
+ * {@code connect} commands only. Unlike feeding the lines one by one to the
+ * REPL, it streams the script through its own tokenizer, prints nothing per
+ * line, and validates the network once at the end: a {@code connect} may
+ * refer to a node declared further down the script, and the loaded network is
+ * checked for cycles as a whole. If any line is erroneous, the network is left
+ * intact. The importers of other network formats add their nodes and arcs
+ * through the same validation.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class BulkNetworkLoader {
+
+    /**
+     * The maximum number of error messages to keep.
+     */
+    private static final int MAXIMUM_ERRORS = 20;
+
+    private final Map<String, DirectedGraphNode> nodeMap;
+    private final ProbabilityMap<DirectedGraphNode> probabilityMap;
+
+    // The tokenizer state.
+    private final char[] buffer = new char[1 << 16];
+    private int bufferPosition;
+    private int bufferLimit;
+    private char[] line = new char[256];
+    private int[] tokenStart = new int[8];
+    private int[] tokenEnd = new int[8];
+    private int numberOfTokens;
+    private int lineNumber;
+
+    // The script contents. The nodes are identified by their indices in
+    // nodeNames.
+    private final Map<String, Integer> nodeIndexMap = new HashMap<>();
+    private final List<String> nodeNames = new ArrayList<>();
+    private double[] probabilities = new double[16];
+    private int[] firstLines = new int[16];
+    private int[] tails = new int[16];
+    private int[] heads = new int[16];
+    private int numberOfArcs;
+
+    private final List<String> errors = new ArrayList<>();
+    private boolean finished;
+    private int numberOfErrors;
+    private int numberOfLoadedNodes;
+    private int numberOfLoadedArcs;
+
+    public BulkNetworkLoader(Map<String, DirectedGraphNode> nodeMap,
+                             ProbabilityMap<DirectedGraphNode> probabilityMap) {
+        this.nodeMap = nodeMap;
+        this.probabilityMap = probabilityMap;
+    }
+
+    /**
+     * Loads a script into the network. Can be called only once.
+     *
+     * @param reader the reader of the script.
+     * @return {@code true} if the script was valid and got loaded.
+     * @throws IOException if reading fails.
+     */
+    public boolean load(Reader reader) throws IOException {
+        if (lineNumber > 0) {
+            throw new IllegalStateException("The loader is already used.");
+        }
+
+        while (readLine(reader)) {
+            parseLine();
+        }
+
+        return finish();
+    }
+
+    /**
+     * Declares a node as the {@code new} command does. The importers of other
+     * network formats use this instead of {@link #load(Reader)}.
+     *
+     * @param name        the name of the node.
+     * @param probability the probability of the node.
+     */
+    public void addNode(String name, double probability) {
+        if (!Utils.isValidIdentifier(name)) {
+            reportError("\"" + name + "\" is a bad node identifier.");
+        } else if (!(probability >= 0.0 && probability <= 1.0)) {
+            reportError("The probability " + probability + " of \"" + name +
+                        "\" is not within [0, 1].");
+        } else {
+            int node = getNodeIndex(name);
+            probabilities[node] = probability;
+        }
+    }
+
+    /**
+     * Adds an arc as the {@code connect} command does.
+     *
+     * @param tailName the name of the tail node.
+     * @param headName the name of the head node.
+     */
+    public void addArc(String tailName, String headName) {
+        if (tailName.equals(headName)) {
+            reportError("Self-loops not allowed.");
+        } else {
+            addArc(getNodeIndex(tailName), getNodeIndex(headName));
+        }
+    }
+
+    /**
+     * Records an error found by the caller, which prevents the network from
+     * being loaded.
+     *
+     * @param message the error message.
+     */
+    public void reportError(String message) {
+        reportError(lineNumber, message);
+    }
+
+    /**
+     * Validates the nodes and arcs added so far, and adds them to the network
+     * unless some error has been found. Can be called only once.
+     *
+     * @return {@code true} if the nodes and arcs got loaded.
+     */
+    public boolean finish() {
+        if (finished) {
+            throw new IllegalStateException("The loader is already used.");
+        }
+
+        finished = true;
+        checkNodesExist();
+
+        if (numberOfErrors == 0) {
+            checkAcyclic();
+        }
+
+        if (numberOfErrors > 0) {
+            return false;
+        }
+
+        apply();
+        return true;
+    }
+
+    public int getNumberOfLoadedNodes() {
+        return numberOfLoadedNodes;
+    }
+
+    public int getNumberOfLoadedArcs() {
+        return numberOfLoadedArcs;
+    }
+
+    public int getNumberOfErrors() {
+        return numberOfErrors;
+    }
+
+    /**
+     * Returns the first error messages: the ones of the single lines in
+     * the order of the lines, followed by the ones of the final validation.
+     *
+     * @return the error messages.
+     */
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    private void parseLine() {
+        if (numberOfTokens == 0) {
+            return;
+        }
+
+        if (tokenEquals(0, "new")) {
+            if (numberOfTokens != 3) {
+                reportError(
+                        "The proper format is \"new <node> <probability>\".");
+                return;
+            }
+
+            String name = getIdentifier(1);
+
+            if (name == null) {
+                return;
+            }
+
+            double probability;
+
+            try {
+                probability = Utils.parseProbability(getToken(2));
+            } catch (IllegalArgumentException ex) {
+                reportError(ex.getMessage());
+                return;
+            }
+
+            // Resolve the index first, since it may grow the array.
+            int node = getNodeIndex(name);
+            probabilities[node] = probability;
+        } else if (tokenEquals(0, "connect")) {
+            if (numberOfTokens != 4 || !tokenEquals(2, "to")) {
+                reportError("The proper format is " +
+                            "\"connect <tail_node> to <head_node>\".");
+                return;
+            }
+
+            String tailName = getIdentifier(1);
+            String headName = getIdentifier(3);
+
+            if (tailName == null || headName == null) {
+                return;
+            }
+
+            addArc(tailName, headName);
+        } else {
+            reportError("Only 'new' and 'connect' are allowed in bulk mode.");
+        }
+    }
+
+    private void checkNodesExist() {
+        for (int node = 0; node < nodeNames.size(); ++node) {
+            if (Double.isNaN(probabilities[node]) &&
+                    !nodeMap.containsKey(nodeNames.get(node))) {
+                reportError(firstLines[node],
+                            "No node with name \"" + nodeNames.get(node) +
+                            "\".");
+            }
+        }
+    }
+
+    /**
+     * Checks that the loaded arcs together with the arcs already in the
+     * network form no cycle, by sorting the nodes topologically.
+     */
+    private void checkAcyclic() {
+        int numberOfScriptArcs = numberOfArcs;
+
+        // Only the existing nodes reachable from the script may be on a
+        // cycle through a loaded arc.
+        Deque<DirectedGraphNode> queue = new ArrayDeque<>();
+
+        for (String name : new ArrayList<>(nodeNames)) {
+            DirectedGraphNode node = nodeMap.get(name);
+
+            if (node != null) {
+                queue.add(node);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            DirectedGraphNode node = queue.remove();
+            int tail = nodeIndexMap.get(node.getName());
+
+            for (DirectedGraphNode child : node.children()) {
+                boolean visited = nodeIndexMap.containsKey(child.getName());
+                addArc(tail, getNodeIndex(child.getName()));
+
+                if (!visited) {
+                    queue.add(child);
+                }
+            }
+        }
+
+        int numberOfNodes = nodeNames.size();
+        int[] inDegree = new int[numberOfNodes];
+        int[] childStart = new int[numberOfNodes + 1];
+
+        for (int arc = 0; arc < numberOfArcs; ++arc) {
+            ++inDegree[heads[arc]];
+            ++childStart[tails[arc] + 1];
+        }
+
+        for (int node = 0; node < numberOfNodes; ++node) {
+            childStart[node + 1] += childStart[node];
+        }
+
+        int[] children = new int[numberOfArcs];
+        int[] fill = Arrays.copyOf(childStart, numberOfNodes);
+
+        for (int arc = 0; arc < numberOfArcs; ++arc) {
+            children[fill[tails[arc]]++] = heads[arc];
+        }
+
+        int[] stack = new int[numberOfNodes];
+        int size = 0;
+
+        for (int node = 0; node < numberOfNodes; ++node) {
+            if (inDegree[node] == 0) {
+                stack[size++] = node;
+            }
+        }
+
+        int numberOfSortedNodes = 0;
+
+        while (size > 0) {
+            int node = stack[--size];
+            ++numberOfSortedNodes;
+
+            for (int i = childStart[node]; i < childStart[node + 1]; ++i) {
+                if (--inDegree[children[i]] == 0) {
+                    stack[size++] = children[i];
+                }
+            }
+        }
+
+        numberOfArcs = numberOfScriptArcs;
+
+        if (numberOfSortedNodes < numberOfNodes) {
+            reportError(0, "The loaded arcs create a cycle.");
+        }
+    }
+
+    private void apply() {
+        DirectedGraphNode[] nodes = new DirectedGraphNode[nodeNames.size()];
+
+        for (int i = 0; i < nodes.length; ++i) {
+            String name = nodeNames.get(i);
+            DirectedGraphNode node = nodeMap.get(name);
+
+            if (node == null) {
+                node = new DirectedGraphNode(name, probabilities[i]);
+                nodeMap.put(name, node);
+            }
+
+            if (!Double.isNaN(probabilities[i])) {
+                probabilityMap.put(node, probabilities[i]);
+                ++numberOfLoadedNodes;
+            }
+
+            nodes[i] = node;
+        }
+
+        for (int arc = 0; arc < numberOfArcs; ++arc) {
+            DirectedGraphNode tail = nodes[tails[arc]];
+            DirectedGraphNode head = nodes[heads[arc]];
+
+            if (!tail.hasChild(head)) {
+                tail.addChild(head);
+                ++numberOfLoadedArcs;
+            }
+        }
+    }
+
+    private int getNodeIndex(String name) {
+        Integer index = nodeIndexMap.get(name);
+
+        if (index != null) {
+            return index;
+        }
+
+        int node = nodeNames.size();
+
+        if (node == probabilities.length) {
+            probabilities = Arrays.copyOf(probabilities, 2 * node);
+            firstLines = Arrays.copyOf(firstLines, 2 * node);
+        }
+
+        nodeIndexMap.put(name, node);
+        nodeNames.add(name);
+        probabilities[node] = Double.NaN;
+        firstLines[node] = lineNumber;
+        return node;
+    }
+
+    private void addArc(int tail, int head) {
+        if (numberOfArcs == tails.length) {
+            tails = Arrays.copyOf(tails, 2 * numberOfArcs);
+            heads = Arrays.copyOf(heads, 2 * numberOfArcs);
+        }
+
+        tails[numberOfArcs] = tail;
+        heads[numberOfArcs] = head;
+        ++numberOfArcs;
+    }
+
+    private void reportError(int line, String message) {
+        if (++numberOfErrors <= MAXIMUM_ERRORS) {
+            errors.add(line > 0 ? "Line " + line + ": " + message : message);
+        }
+    }
+
+    /**
+     * Reads the next line of the script and splits it into tokens. The tokens
+     * after a token starting with the comment text are dropped.
+     *
+     * @param reader the reader of the script.
+     * @return {@code false} if the script has ended.
+     * @throws IOException if reading fails.
+     */
+    private boolean readLine(Reader reader) throws IOException {
+        int length = 0;
+        boolean read = false;
+        boolean inToken = false;
+        boolean comment = false;
+        numberOfTokens = 0;
+
+        while (true) {
+            if (bufferPosition == bufferLimit) {
+                bufferLimit = reader.read(buffer);
+                bufferPosition = 0;
+
+                if (bufferLimit <= 0) {
+                    bufferLimit = 0;
+                    break;
+                }
+            }
+
+            char c = buffer[bufferPosition++];
+            read = true;
+
+            if (c == '\n') {
+                break;
+            }
+
+            if (comment) {
+                continue;
+            }
+
+            if (CommandLexer.isWhitespace(c)) {
+                inToken = false;
+                continue;
+            }
+
+            if (!inToken) {
+                if (c == App.COMMENT_BEGIN_TEXT.charAt(0)) {
+                    comment = true;
+                    continue;
+                }
+
+                if (numberOfTokens == tokenStart.length) {
+                    tokenStart = Arrays.copyOf(tokenStart, 2 * numberOfTokens);
+                    tokenEnd = Arrays.copyOf(tokenEnd, 2 * numberOfTokens);
+                }
+
+                tokenStart[numberOfTokens++] = length;
+                inToken = true;
+            }
+
+            if (length == line.length) {
+                line = Arrays.copyOf(line, 2 * length);
+            }
+
+            line[length++] = c;
+            tokenEnd[numberOfTokens - 1] = length;
+        }
+
+        if (read) {
+            ++lineNumber;
+        }
+
+        return read;
+    }
+
+    private boolean tokenEquals(int token, String text) {
+        int length = tokenEnd[token] - tokenStart[token];
+
+        if (length != text.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < length; ++i) {
+            if (line[tokenStart[token] + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private String getToken(int token) {
+        return new String(line,
+                          tokenStart[token],
+                          tokenEnd[token] - tokenStart[token]);
+    }
+
+    /**
+     * Returns the token as a node name, reporting an error if it is not a
+     * valid identifier.
+     */
+    private String getIdentifier(int token) {
+        String name = getToken(token);
+
+        if (!Utils.isValidIdentifier(name)) {
+            reportError("\"" + name + "\" is a bad node identifier.");
+            return null;
+        }
+
+        return name;
+    }
+}
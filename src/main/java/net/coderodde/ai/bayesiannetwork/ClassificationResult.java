@@ -1,10 +1,14 @@
 package net.coderodde.ai.bayesiannetwork;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class implements the classification result of the Bayes network.
@@ -14,8 +18,36 @@ import java.util.Objects;
  */
 public class ClassificationResult {
 
-    private final List<SystemState> systemStateList = new ArrayList<>();
-    private List<DirectedGraphNode> nodeList;
+    private final StateTable stateTable;
+    private final List<DirectedGraphNode> nodeList;
+
+    /**
+     * Maps each node to its bit index in the state table.
+     */
+    private final Map<DirectedGraphNode, Integer> indexMap;
+
+    /**
+     * The total probability of the states dropped by pruning during the
+     * compilation.
+     */
+    private double discardedProbabilityMass;
+
+    /**
+     * The number of holders of this result. The memory of the state table is
+     * freed when the last holder releases the result.
+     */
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    ClassificationResult(List<DirectedGraphNode> nodeList, 
+                         StateTable stateTable) {
+        this.nodeList = nodeList;
+        this.stateTable = stateTable;
+        this.indexMap = new HashMap<>(2 * nodeList.size());
+
+        for (int i = 0; i < nodeList.size(); ++i) {
+            indexMap.put(nodeList.get(i), i);
+        }
+    }
 
     /**
      * Computes the probability of posteriori variables given the apriori
@@ -29,41 +61,121 @@ public class ClassificationResult {
      */
     public double query(Map<DirectedGraphNode, Boolean> posterioriVariableMap,
                         Map<DirectedGraphNode, Boolean> aprioriVariableMap) {
-        Objects.requireNonNull(posterioriVariableMap, 
-                               "The posteriori variable map is null.");
-        Objects.requireNonNull(aprioriVariableMap,
-                               "The apriori variable map is null.");
+        return computeProbability(computeProbabilitySums(posterioriVariableMap, 
+                                                         aprioriVariableMap));
+    }
 
-        if (mapKeyIntersect(posterioriVariableMap, aprioriVariableMap)) {
-            throw new IllegalArgumentException(
-                    "Posteriori and apriori variable lists have a common " +
-                     "variable.");
-        }
+    /**
+     * Computes the interval that is guaranteed to contain the exact answer to
+     * the query, taking into account the probability mass discarded during
+     * the compilation. If no states were discarded, both bounds equal the 
+     * value returned by 
+     * {@link #query(java.util.Map, java.util.Map) query}.
+     * 
+     * @param posterioriVariableMap a map mapping each posteriori variable to 
+     *                              its state.
+     * @param aprioriVariableMap    a map mapping each apriori variable to its
+     *                              state.
+     * @return the two-element array holding the lower and upper bound.
+     */
+    public double[] queryBounds(
+            Map<DirectedGraphNode, Boolean> posterioriVariableMap,
+            Map<DirectedGraphNode, Boolean> aprioriVariableMap) {
+        return computeBounds(computeProbabilitySums(posterioriVariableMap,
+                                                    aprioriVariableMap));
+    }
 
-        Map<DirectedGraphNode, Boolean> combinedVariableMap = 
-                new HashMap<>(posterioriVariableMap);
+    /**
+     * Computes both the probability returned by 
+     * {@link #query(java.util.Map, java.util.Map) query} and the interval
+     * returned by {@link #queryBounds(java.util.Map, java.util.Map) 
+     * queryBounds}, scanning the states only once.
+     * 
+     * @param posterioriVariableMap a map mapping each posteriori variable to 
+     *                              its state.
+     * @param aprioriVariableMap    a map mapping each apriori variable to its
+     *                              state.
+     * @return the three-element array holding the probability, the lower 
+     *         bound and the upper bound.
+     */
+    public double[] queryWithBounds(
+            Map<DirectedGraphNode, Boolean> posterioriVariableMap,
+            Map<DirectedGraphNode, Boolean> aprioriVariableMap) {
+        double[] sums = computeProbabilitySums(posterioriVariableMap,
+                                               aprioriVariableMap);
+        double[] bounds = computeBounds(sums);
+        return new double[]{ computeProbability(sums), bounds[0], bounds[1] };
+    }
 
-        combinedVariableMap.putAll(aprioriVariableMap);
+    private static double computeProbability(double[] sums) {
+        double posterioriProbability = sums[0];
+        double aprioriProbability    = sums[1];
 
-        double aprioriProbability    = 0.0;
-        double posterioriProbability = 0.0;
+        return aprioriProbability == 0.0 ? 0.0 : posterioriProbability / 
+                                                 aprioriProbability;
+    }
 
-        for (SystemState state : systemStateList) {
-            if (state.stateContainsSubstate(aprioriVariableMap)) {
-                aprioriProbability += state.getProbability();
+    private double[] computeBounds(double[] sums) {
+        double posterioriProbability = sums[0];
+        double aprioriProbability    = sums[1] + discardedProbabilityMass;
 
-                if (state.stateContainsSubstate(combinedVariableMap)) {
-                    posterioriProbability += state.getProbability();
-                }
+        if (aprioriProbability == 0.0) {
+            return new double[]{ 0.0, 0.0 };
+        }
+
+        // The discarded mass may all belong or not belong to the posteriori
+        // event, yet it cannot belong to it without belonging to the apriori
+        // event as well.
+        return new double[]{ 
+            posterioriProbability / aprioriProbability,
+            Math.min(1.0, (posterioriProbability + discardedProbabilityMass) / 
+                          aprioriProbability)
+        };
+    }
+
+    /**
+     * Adds a holder to this result, unless the result is released already.
+     * 
+     * @return {@code true} if the result may be queried until released by 
+     *         the new holder.
+     */
+    boolean retain() {
+        while (true) {
+            int count = references.get();
+
+            if (count == 0) {
+                return false;
+            }
+
+            if (references.compareAndSet(count, count + 1)) {
+                return true;
             }
         }
+    }
 
-        return aprioriProbability == 0.0 ? 0.0 : posterioriProbability / 
-                                                 aprioriProbability;
+    /**
+     * Removes a holder from this result. When the last holder is removed, 
+     * frees the memory held by this result outside of the Java heap without
+     * waiting for the garbage collector. The holder must not query this 
+     * result afterwards.
+     */
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            stateTable.release();
+        }
     }
 
-    void setNodeList(List<DirectedGraphNode> nodeList) {
-        this.nodeList = nodeList;
+    /**
+     * Returns the total probability of the states dropped by the pruning.
+     * 
+     * @return the discarded probability mass.
+     */
+    public double getDiscardedProbabilityMass() {
+        return discardedProbabilityMass;
+    }
+
+    void setDiscardedProbabilityMass(double discardedProbabilityMass) {
+        this.discardedProbabilityMass = discardedProbabilityMass;
     }
 
     /**
@@ -73,51 +185,229 @@ public class ClassificationResult {
      * @return the sum of probabilities.
      */
     public double getSumOfProbabilities() {
-        double probability = 0.0;
-
-        probability = systemStateList.stream()
-                                      .map((state) -> state.getProbability())
-                                      .reduce(probability, 
-                                             (accumulator, _item) -> 
-                                                     accumulator + _item);
-
-        return probability;
+        return stateTable.getSumOfProbabilities();
     }
 
     public int getNumberOfStates() {
-        return systemStateList.size();
+        return stateTable.getNumberOfStates();
     }
 
     @Override
     public String toString() {
-        StringBuilder sb = new StringBuilder("(");
-        int i = 0;
+        StringWriter writer = new StringWriter();
+
+        try {
+            writeStates(writer, 0, getNumberOfStates());
+        } catch (IOException ex) {
+            // A StringWriter does not throw.
+            throw new IllegalStateException(ex);
+        }
 
-        for (DirectedGraphNode node : nodeList) {
-            sb.append(node.getName());
+        return writer.toString();
+    }
+
+    /**
+     * Writes the header line and the states {@code offset} to 
+     * {@code offset + limit - 1} in the format of {@link #toString()}, 
+     * without building the whole text in memory.
+     * 
+     * @param writer the writer to write to.
+     * @param offset the index of the first state to write.
+     * @param limit  the maximum number of states to write.
+     * @throws IOException if writing fails.
+     */
+    public void writeStates(Writer writer, int offset, int limit) 
+            throws IOException {
+        checkNotNegative(offset, "offset");
+        checkNotNegative(limit, "limit");
+        StateListFormatter formatter = 
+                new StateListFormatter(nodeList, stateTable);
+        int end = (int) Math.min((long) offset + limit, getNumberOfStates());
+        formatter.writeHeader(writer);
+
+        for (int state = offset; state < end; ++state) {
+            formatter.writeState(writer, state);
+        }
+    }
+
+    /**
+     * Writes the header line and the {@code k} most probable states in the
+     * order of decreasing probability. The states with equal probabilities
+     * are written in their order in the list.
+     * 
+     * @param writer the writer to write to.
+     * @param k      the number of states to write.
+     * @throws IOException if writing fails.
+     */
+    public void writeMostProbableStates(Writer writer, int k) 
+            throws IOException {
+        checkNotNegative(k, "k");
+        StateListFormatter formatter = 
+                new StateListFormatter(nodeList, stateTable);
+        int[] states = findMostProbableStates(Math.min(k, getNumberOfStates()));
+        formatter.writeHeader(writer);
+
+        for (int state : states) {
+            formatter.writeState(writer, state);
+        }
+    }
+
+    List<DirectedGraphNode> getNodeList() {
+        return nodeList;
+    }
+
+    /**
+     * Counts the states matching the apriori variables, and the states 
+     * matching both the apriori and the posteriori variables, that is, the 
+     * states whose probabilities a query sums up.
+     * 
+     * @param posterioriVariableMap the posteriori variable map.
+     * @param aprioriVariableMap    the apriori variable map.
+     * @return the two-element array holding the posteriori and apriori 
+     *         counts.
+     */
+    int[] countMatchingStates(
+            Map<DirectedGraphNode, Boolean> posterioriVariableMap,
+            Map<DirectedGraphNode, Boolean> aprioriVariableMap) {
+        int[] aprioriConditions = loadConditions(aprioriVariableMap);
+        int[] posterioriConditions = loadConditions(posterioriVariableMap);
+        int[] counts = new int[2];
 
-            if (i < nodeList.size() - 1) {
-                sb.append(", ");
+        if (aprioriConditions == null) {
+            return counts;
+        }
+
+        for (int state = 0; state < getNumberOfStates(); ++state) {
+            if (matches(state, aprioriConditions)) {
+                ++counts[1];
+
+                if (posterioriConditions != null && 
+                        matches(state, posterioriConditions)) {
+                    ++counts[0];
+                }
             }
+        }
+
+        return counts;
+    }
+
+    StateTable getStateTable() {
+        return stateTable;
+    }
 
-            ++i;
+    /**
+     * Computes the probability of the combined variables and the probability
+     * of the apriori variables over all recorded states.
+     * 
+     * @param posterioriVariableMap the posteriori variable map.
+     * @param aprioriVariableMap    the apriori variable map.
+     * @return the two-element array holding the posteriori and apriori sums.
+     */
+    private double[] computeProbabilitySums(
+            Map<DirectedGraphNode, Boolean> posterioriVariableMap,
+            Map<DirectedGraphNode, Boolean> aprioriVariableMap) {
+        Objects.requireNonNull(posterioriVariableMap, 
+                               "The posteriori variable map is null.");
+        Objects.requireNonNull(aprioriVariableMap,
+                               "The apriori variable map is null.");
+
+        if (mapKeyIntersect(posterioriVariableMap, aprioriVariableMap)) {
+            throw new IllegalArgumentException(
+                    "Posteriori and apriori variable lists have a common " +
+                     "variable.");
         }
 
-        sb.append(")\n");
+        int words = stateTable.getWordsPerState();
+        long[] aprioriOnMask     = new long[words];
+        long[] aprioriOffMask    = new long[words];
+        long[] posterioriOnMask  = new long[words];
+        long[] posterioriOffMask = new long[words];
 
-        systemStateList.stream().forEach((state) -> {
-            sb.append(state).append('\n');
-        });
+        if (!loadMasks(aprioriVariableMap, aprioriOnMask, aprioriOffMask) ||
+            !loadMasks(posterioriVariableMap, 
+                       posterioriOnMask, 
+                       posterioriOffMask)) {
+            return new double[]{ 0.0, 0.0 };
+        }
 
-        return sb.toString();
+        return stateTable.computeProbabilitySums(aprioriOnMask,
+                                                 aprioriOffMask,
+                                                 posterioriOnMask,
+                                                 posterioriOffMask);
     }
 
-    void addSystemState(SystemState state) {
-        systemStateList.add(state);
+    /**
+     * Converts a variable map into the bit masks of the nodes required to be
+     * on and off. A node outside of this result is off in every state.
+     * 
+     * @param variableMap the variable map.
+     * @param onMask      the mask for the nodes required to be on.
+     * @param offMask     the mask for the nodes required to be off.
+     * @return {@code false} if no state can match the variable map.
+     */
+    private boolean loadMasks(Map<DirectedGraphNode, Boolean> variableMap,
+                              long[] onMask,
+                              long[] offMask) {
+        for (Map.Entry<DirectedGraphNode, Boolean> entry 
+                : variableMap.entrySet()) {
+            Integer index = indexMap.get(entry.getKey());
+
+            if (index == null) {
+                if (entry.getValue()) {
+                    return false;
+                }
+
+                continue;
+            }
+
+            long[] mask = entry.getValue() ? onMask : offMask;
+            mask[index >>> 6] |= 1L << index;
+        }
+
+        return true;
     }
 
-    List<DirectedGraphNode> getNodeList() {
-        return nodeList;
+    /**
+     * Converts a variable map into the conditions on the nodes of the states,
+     * each being the index of a node shifted left by one bit, plus one if 
+     * the node must be on. A node outside of this result is off in every 
+     * state.
+     * 
+     * @param variableMap the variable map.
+     * @return the conditions, or {@code null} if no state can match the 
+     *         variable map.
+     */
+    private int[] loadConditions(Map<DirectedGraphNode, Boolean> variableMap) {
+        int[] conditions = new int[variableMap.size()];
+        int size = 0;
+
+        for (Map.Entry<DirectedGraphNode, Boolean> entry 
+                : variableMap.entrySet()) {
+            Integer index = indexMap.get(entry.getKey());
+
+            if (index == null) {
+                if (entry.getValue()) {
+                    return null;
+                }
+
+                continue;
+            }
+
+            conditions[size++] = (index << 1) | (entry.getValue() ? 1 : 0);
+        }
+
+        return Arrays.copyOf(conditions, size);
+    }
+
+    private boolean matches(int state, int[] conditions) {
+        for (int condition : conditions) {
+            if (stateTable.isOn(state, condition >>> 1) != 
+                    ((condition & 1) == 1)) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     /**
@@ -129,6 +419,103 @@ public class ClassificationResult {
      * @param map2 the second map.
      * @return {@code true} if maps share at least one common key.
      */
+    /**
+     * Finds the most probable states by keeping the best ones seen so far in
+     * a binary min-heap, whose root is the worst of them.
+     * 
+     * @param k the number of states to find.
+     * @return the states in the order of decreasing probability.
+     */
+    private int[] findMostProbableStates(int k) {
+        int[] heap = new int[k];
+        int size = 0;
+
+        for (int state = 0; state < getNumberOfStates() && k > 0; ++state) {
+            if (size < k) {
+                heap[size] = state;
+                siftUp(heap, size++);
+            } else if (isBetter(state, heap[0])) {
+                heap[0] = state;
+                siftDown(heap, 0, size);
+            }
+        }
+
+        // Remove the worst state until the heap is empty, filling the array
+        // from the back.
+        for (int last = size - 1; last > 0; --last) {
+            int worst = heap[0];
+            heap[0] = heap[last];
+            heap[last] = worst;
+            siftDown(heap, 0, last);
+        }
+
+        return heap;
+    }
+
+    /**
+     * Checks whether a state precedes another one in the order of decreasing
+     * probability.
+     */
+    private boolean isBetter(int state1, int state2) {
+        double probability1 = stateTable.getProbability(state1);
+        double probability2 = stateTable.getProbability(state2);
+
+        if (probability1 != probability2) {
+            return probability1 > probability2;
+        }
+
+        return state1 < state2;
+    }
+
+    private void siftUp(int[] heap, int index) {
+        int state = heap[index];
+
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+
+            if (!isBetter(heap[parent], state)) {
+                break;
+            }
+
+            heap[index] = heap[parent];
+            index = parent;
+        }
+
+        heap[index] = state;
+    }
+
+    private void siftDown(int[] heap, int index, int size) {
+        int state = heap[index];
+
+        while (true) {
+            int child = 2 * index + 1;
+
+            if (child >= size) {
+                break;
+            }
+
+            if (child + 1 < size && isBetter(heap[child], heap[child + 1])) {
+                ++child;
+            }
+
+            if (!isBetter(state, heap[child])) {
+                break;
+            }
+
+            heap[index] = heap[child];
+            index = child;
+        }
+
+        heap[index] = state;
+    }
+
+    private static void checkNotNegative(int value, String name) {
+        if (value < 0) {
+            throw new IllegalArgumentException(
+                    "The " + name + " is negative: " + value + ".");
+        }
+    }
+
     private static <K, V> boolean mapKeyIntersect(Map<K, V> map1, 
                                                   Map<K, V> map2) {
         Map<K, V> smallerMap;
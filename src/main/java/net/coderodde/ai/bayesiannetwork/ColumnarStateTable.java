@@ -0,0 +1,785 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class stores the system states column by column: for each node, the
+ * set of the states in which the node is on is kept as a compressed bitmap.
+ * The states are split into chunks of 65536, and the part of a column within
+ * a chunk is stored in the smallest of three containers, as in Roaring
+ * bitmaps:
+ * <ul>
+ *   <li>an array of the sorted positions of the "on" states,</li>
+ *   <li>a plain bitmap,</li>
+ *   <li>a list of runs of consecutive "on" states.</li>
+ * </ul>
+ * A chunk in which the node is never on has no container at all. Since a node
+ * with an "off" parent is off, and the enumeration order keeps the states
+ * with the same ancestors together, most columns are short runs or empty.
+ * <p>
+ * The queries are evaluated on the containers directly: the states of a
+ * chunk matching a query are found by intersecting the containers of the
+ * queried nodes into a single bitmap of the chunk, and no column is ever
+ * decompressed. The state probabilities, which take few distinct values, are
+ * stored as indices into a dictionary of the distinct values.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+final class ColumnarStateTable extends StateTable {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_WORDS = CHUNK_SIZE / Long.SIZE;
+
+    /**
+     * The approximate number of bytes taken by a container object and its
+     * array apart from the elements.
+     */
+    private static final int CONTAINER_OVERHEAD_BYTES = 40;
+
+    private static final byte ARRAY  = 0;
+    private static final byte BITMAP = 1;
+    private static final byte RUN    = 2;
+
+    private static final class Container {
+
+        final byte type;
+
+        /**
+         * The positions of the "on" states for an array container, or the
+         * pairs of the first position and the length minus one of the runs
+         * for a run container. The values are unsigned.
+         */
+        final short[] values;
+
+        /**
+         * The bits of a bitmap container.
+         */
+        final long[] bits;
+
+        Container(byte type, short[] values, long[] bits) {
+            this.type = type;
+            this.values = values;
+            this.bits = bits;
+        }
+
+        long getNumberOfBytes() {
+            return CONTAINER_OVERHEAD_BYTES +
+                   (type == BITMAP ? 8L * bits.length : 2L * values.length);
+        }
+    }
+
+    /**
+     * {@code columns[node][chunk]} is the container of the node within the
+     * chunk, or {@code null} if the node is off in all states of the chunk.
+     */
+    private Container[][] columns;
+    private int numberOfChunks;
+    private int numberOfStates;
+
+    /**
+     * The bits of the chunk being filled, one bitmap per node. Discarded by
+     * {@link #finish()}.
+     */
+    private long[][] chunkBits;
+
+    // The probabilities while filling the table, replaced by the dictionary
+    // encoding by finish().
+    private double[] probabilities = new double[16];
+    private double[] dictionary;
+    private byte[] byteCodes;
+    private short[] shortCodes;
+
+    ColumnarStateTable(int numberOfNodes) {
+        super(numberOfNodes);
+        this.columns = new Container[numberOfNodes][4];
+        this.chunkBits = new long[numberOfNodes][CHUNK_WORDS];
+    }
+
+    @Override
+    void add(boolean[] on, double probability) {
+        if (chunkBits == null) {
+            throw new IllegalStateException("The state table is finished.");
+        }
+
+        int position = numberOfStates & (CHUNK_SIZE - 1);
+
+        if (position == 0 && numberOfStates > 0) {
+            sealChunk(CHUNK_SIZE);
+        }
+
+        for (int node = 0; node < getNumberOfNodes(); ++node) {
+            if (on[node]) {
+                chunkBits[node][position >>> 6] |= 1L << position;
+            }
+        }
+
+        if (numberOfStates == probabilities.length) {
+            probabilities = Arrays.copyOf(probabilities,
+                                          2 * probabilities.length);
+        }
+
+        probabilities[numberOfStates++] = probability;
+    }
+
+    /**
+     * Compresses the last chunk and the probabilities. No states may be
+     * added afterwards.
+     */
+    @Override
+    void finish() {
+        if (chunkBits == null) {
+            return;
+        }
+
+        if (numberOfStates > numberOfChunks * CHUNK_SIZE) {
+            sealChunk(numberOfStates - numberOfChunks * CHUNK_SIZE);
+        }
+
+        chunkBits = null;
+
+        for (int node = 0; node < columns.length; ++node) {
+            columns[node] = Arrays.copyOf(columns[node], numberOfChunks);
+        }
+
+        encodeProbabilities();
+    }
+
+    @Override
+    int getNumberOfStates() {
+        return numberOfStates;
+    }
+
+    @Override
+    double getProbability(int state) {
+        if (byteCodes != null) {
+            return dictionary[byteCodes[state] & 0xff];
+        }
+
+        if (shortCodes != null) {
+            return dictionary[shortCodes[state] & 0xffff];
+        }
+
+        return probabilities[state];
+    }
+
+    @Override
+    boolean isOn(int state, int node) {
+        Container container = columns[node][state >>> CHUNK_BITS];
+        int position = state & (CHUNK_SIZE - 1);
+
+        if (container == null) {
+            return false;
+        }
+
+        switch (container.type) {
+            case BITMAP:
+                return (container.bits[position >>> 6] & (1L << position))
+                        != 0L;
+
+            case ARRAY:
+                return contains(container.values, position);
+
+            default:
+                return findRun(container.values, position) >= 0;
+        }
+    }
+
+    @Override
+    double getSumOfProbabilities() {
+        double sum = 0.0;
+
+        for (int state = 0; state < numberOfStates; ++state) {
+            sum += getProbability(state);
+        }
+
+        return sum;
+    }
+
+    @Override
+    double[] computeProbabilitySums(long[] aprioriOnMask,
+                                    long[] aprioriOffMask,
+                                    long[] posterioriOnMask,
+                                    long[] posterioriOffMask) {
+        int[] aprioriOn = toNodes(aprioriOnMask);
+        int[] aprioriOff = toNodes(aprioriOffMask);
+        int[] posterioriOn = toNodes(posterioriOnMask);
+        int[] posterioriOff = toNodes(posterioriOffMask);
+        long[] aprioriBits = new long[CHUNK_WORDS];
+        long[] posterioriBits = new long[CHUNK_WORDS];
+        long[] keep = new long[CHUNK_WORDS];
+        double aprioriProbability = 0.0;
+        double posterioriProbability = 0.0;
+
+        for (int chunk = 0; chunk < numberOfChunks; ++chunk) {
+            int size = Math.min(CHUNK_SIZE,
+                                numberOfStates - chunk * CHUNK_SIZE);
+            int words = (size + Long.SIZE - 1) / Long.SIZE;
+
+            if (!select(chunk, size, aprioriOn, aprioriOff,
+                        aprioriBits, keep)) {
+                continue;
+            }
+
+            aprioriProbability += sumProbabilities(chunk, aprioriBits, words);
+            System.arraycopy(aprioriBits, 0, posterioriBits, 0, words);
+
+            if (restrict(chunk, words, posterioriOn, posterioriOff,
+                         posterioriBits, keep)) {
+                posterioriProbability +=
+                        sumProbabilities(chunk, posterioriBits, words);
+            }
+        }
+
+        return new double[]{ posterioriProbability, aprioriProbability };
+    }
+
+    @Override
+    void writeWords(WritableByteChannel channel) throws IOException {
+        int wordsPerState = getWordsPerState();
+
+        for (int chunk = 0; chunk < numberOfChunks; ++chunk) {
+            int size = Math.min(CHUNK_SIZE,
+                                numberOfStates - chunk * CHUNK_SIZE);
+            long[] words = new long[size * wordsPerState];
+
+            for (int node = 0; node < columns.length; ++node) {
+                Container container = columns[node][chunk];
+
+                if (container != null) {
+                    setStateBits(container, words, wordsPerState, node);
+                }
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(words.length * Long.BYTES);
+            buffer.asLongBuffer().put(words);
+            ResultSnapshot.writeFully(channel, buffer);
+        }
+    }
+
+    @Override
+    void writeProbabilities(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE * Double.BYTES);
+
+        for (int state = 0; state < numberOfStates; state += CHUNK_SIZE) {
+            int count = Math.min(CHUNK_SIZE, numberOfStates - state);
+            buffer.clear();
+
+            for (int i = 0; i < count; ++i) {
+                buffer.putDouble(getProbability(state + i));
+            }
+
+            buffer.flip();
+            ResultSnapshot.writeFully(channel, buffer);
+        }
+    }
+
+    /**
+     * Returns the number of bytes taken by the compressed columns and the
+     * probabilities.
+     *
+     * @return the size of this table in bytes.
+     */
+    long getNumberOfBytes() {
+        long bytes = 0L;
+
+        for (Container[] column : columns) {
+            bytes += 8L * column.length;
+
+            for (Container container : column) {
+                if (container != null) {
+                    bytes += container.getNumberOfBytes();
+                }
+            }
+        }
+
+        if (byteCodes != null) {
+            bytes += byteCodes.length + 8L * dictionary.length;
+        } else if (shortCodes != null) {
+            bytes += 2L * shortCodes.length + 8L * dictionary.length;
+        } else {
+            bytes += 8L * probabilities.length;
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Computes the states of the chunk matching the given nodes.
+     *
+     * @param chunk  the chunk index.
+     * @param size   the number of states in the chunk.
+     * @param onNodes  the nodes that must be on.
+     * @param offNodes the nodes that must be off.
+     * @param bits   the bitmap for the matching states.
+     * @param keep   a scratch bitmap.
+     * @return {@code false} if no state of the chunk matches.
+     */
+    private boolean select(int chunk,
+                           int size,
+                           int[] onNodes,
+                           int[] offNodes,
+                           long[] bits,
+                           long[] keep) {
+        for (int node : onNodes) {
+            if (columns[node][chunk] == null) {
+                return false;
+            }
+        }
+
+        int words = (size + Long.SIZE - 1) / Long.SIZE;
+        Arrays.fill(bits, 0, words, -1L);
+
+        if (size % Long.SIZE != 0) {
+            bits[words - 1] = (1L << size) - 1L;
+        }
+
+        return restrict(chunk, words, onNodes, offNodes, bits, keep);
+    }
+
+    /**
+     * Removes from {@code bits} the states not matching the given nodes.
+     *
+     * @return {@code false} if no state remains.
+     */
+    private boolean restrict(int chunk,
+                             int words,
+                             int[] onNodes,
+                             int[] offNodes,
+                             long[] bits,
+                             long[] keep) {
+        for (int node : onNodes) {
+            Container container = columns[node][chunk];
+
+            if (container == null) {
+                return false;
+            }
+
+            and(container, bits, words, keep);
+        }
+
+        for (int node : offNodes) {
+            Container container = columns[node][chunk];
+
+            if (container != null) {
+                andNot(container, bits, words);
+            }
+        }
+
+        for (int i = 0; i < words; ++i) {
+            if (bits[i] != 0L) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static void and(Container container,
+                            long[] bits,
+                            int words,
+                            long[] keep) {
+        switch (container.type) {
+            case BITMAP:
+                for (int i = 0; i < words; ++i) {
+                    bits[i] &= container.bits[i];
+                }
+
+                break;
+
+            case ARRAY:
+                Arrays.fill(keep, 0, words, 0L);
+
+                for (short value : container.values) {
+                    int position = value & 0xffff;
+                    keep[position >>> 6] |= 1L << position;
+                }
+
+                for (int i = 0; i < words; ++i) {
+                    bits[i] &= keep[i];
+                }
+
+                break;
+
+            default:
+                short[] runs = container.values;
+                int end = 0;
+
+                for (int i = 0; i < runs.length; i += 2) {
+                    int start = runs[i] & 0xffff;
+                    clearRange(bits, end, start);
+                    end = start + (runs[i + 1] & 0xffff) + 1;
+                }
+
+                clearRange(bits, end, words * Long.SIZE);
+        }
+    }
+
+    private static void andNot(Container container, long[] bits, int words) {
+        switch (container.type) {
+            case BITMAP:
+                for (int i = 0; i < words; ++i) {
+                    bits[i] &= ~container.bits[i];
+                }
+
+                break;
+
+            case ARRAY:
+                for (short value : container.values) {
+                    int position = value & 0xffff;
+                    bits[position >>> 6] &= ~(1L << position);
+                }
+
+                break;
+
+            default:
+                short[] runs = container.values;
+
+                for (int i = 0; i < runs.length; i += 2) {
+                    int start = runs[i] & 0xffff;
+                    clearRange(bits, start, start + (runs[i + 1] & 0xffff) + 1);
+                }
+        }
+    }
+
+    /**
+     * Clears the bits {@code from, from + 1, ..., to - 1}.
+     */
+    private static void clearRange(long[] bits, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+
+        if (firstWord == lastWord) {
+            bits[firstWord] &= ~(firstMask & lastMask);
+            return;
+        }
+
+        bits[firstWord] &= ~firstMask;
+
+        for (int i = firstWord + 1; i < lastWord; ++i) {
+            bits[i] = 0L;
+        }
+
+        bits[lastWord] &= ~lastMask;
+    }
+
+    private double sumProbabilities(int chunk, long[] bits, int words) {
+        int base = chunk * CHUNK_SIZE;
+        double sum = 0.0;
+
+        for (int i = 0; i < words; ++i) {
+            long word = bits[i];
+
+            while (word != 0L) {
+                sum += getProbability(base + i * Long.SIZE +
+                                      Long.numberOfTrailingZeros(word));
+                word &= word - 1L;
+            }
+        }
+
+        return sum;
+    }
+
+    /**
+     * Compresses the bits of the chunk being filled into containers.
+     *
+     * @param size the number of states in the chunk.
+     */
+    private void sealChunk(int size) {
+        int words = (size + Long.SIZE - 1) / Long.SIZE;
+
+        for (int node = 0; node < columns.length; ++node) {
+            if (numberOfChunks == columns[node].length) {
+                columns[node] = Arrays.copyOf(columns[node],
+                                              2 * numberOfChunks);
+            }
+
+            columns[node][numberOfChunks] =
+                    createContainer(chunkBits[node], words);
+            Arrays.fill(chunkBits[node], 0L);
+        }
+
+        ++numberOfChunks;
+    }
+
+    private static Container createContainer(long[] bits, int words) {
+        int cardinality = 0;
+        int numberOfRuns = 0;
+        long previous = 0L;
+
+        for (int i = 0; i < words; ++i) {
+            long word = bits[i];
+            cardinality += Long.bitCount(word);
+            // A run starts at each "on" bit whose predecessor is off.
+            numberOfRuns += Long.bitCount(word &
+                                          ~((word << 1) | (previous >>> 63)));
+            previous = word;
+        }
+
+        if (cardinality == 0) {
+            return null;
+        }
+
+        long arrayBytes = 2L * cardinality;
+        long bitmapBytes = 8L * words;
+        long runBytes = 4L * numberOfRuns;
+
+        if (runBytes <= arrayBytes && runBytes <= bitmapBytes) {
+            short[] runs = new short[2 * numberOfRuns];
+            int count = 0;
+            int position = 0;
+            int end = words * Long.SIZE;
+
+            while (position < end) {
+                position = nextSetBit(bits, position, end);
+
+                if (position < 0) {
+                    break;
+                }
+
+                int runEnd = nextClearBit(bits, position, end);
+                runs[count++] = (short) position;
+                runs[count++] = (short) (runEnd - position - 1);
+                position = runEnd;
+            }
+
+            return new Container(RUN, runs, null);
+        }
+
+        if (arrayBytes <= bitmapBytes) {
+            short[] values = new short[cardinality];
+            int count = 0;
+
+            for (int i = 0; i < words; ++i) {
+                long word = bits[i];
+
+                while (word != 0L) {
+                    values[count++] =
+                            (short) (i * Long.SIZE +
+                                     Long.numberOfTrailingZeros(word));
+                    word &= word - 1L;
+                }
+            }
+
+            return new Container(ARRAY, values, null);
+        }
+
+        return new Container(BITMAP, null, Arrays.copyOf(bits, words));
+    }
+
+    private static int nextSetBit(long[] bits, int from, int end) {
+        int i = from >>> 6;
+        long word = bits[i] & (-1L << from);
+
+        while (true) {
+            if (word != 0L) {
+                int position = i * Long.SIZE +
+                               Long.numberOfTrailingZeros(word);
+                return position < end ? position : -1;
+            }
+
+            if (++i == (end + Long.SIZE - 1) / Long.SIZE) {
+                return -1;
+            }
+
+            word = bits[i];
+        }
+    }
+
+    private static int nextClearBit(long[] bits, int from, int end) {
+        int i = from >>> 6;
+        long word = ~bits[i] & (-1L << from);
+
+        while (true) {
+            if (word != 0L) {
+                return Math.min(end,
+                                i * Long.SIZE +
+                                Long.numberOfTrailingZeros(word));
+            }
+
+            if (++i == (end + Long.SIZE - 1) / Long.SIZE) {
+                return end;
+            }
+
+            word = ~bits[i];
+        }
+    }
+
+    /**
+     * Checks whether an array container holds the position. The values are
+     * sorted as unsigned numbers, so {@code Arrays.binarySearch} does not
+     * apply.
+     */
+    private static boolean contains(short[] values, int position) {
+        int low = 0;
+        int high = values.length - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = values[middle] & 0xffff;
+
+            if (value < position) {
+                low = middle + 1;
+            } else if (value > position) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Finds the run containing the position.
+     *
+     * @param runs     the runs of a run container.
+     * @param position the position.
+     * @return the index of the run, or -1 if no run contains the position.
+     */
+    private static int findRun(short[] runs, int position) {
+        int low = 0;
+        int high = runs.length / 2 - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int start = runs[2 * middle] & 0xffff;
+
+            if (start > position) {
+                high = middle - 1;
+            } else if (start + (runs[2 * middle + 1] & 0xffff) < position) {
+                low = middle + 1;
+            } else {
+                return middle;
+            }
+        }
+
+        return -1;
+    }
+
+    private static void setStateBits(Container container,
+                                     long[] words,
+                                     int wordsPerState,
+                                     int node) {
+        long bit = 1L << node;
+        int offset = node >>> 6;
+
+        switch (container.type) {
+            case BITMAP:
+                for (int i = 0; i < container.bits.length; ++i) {
+                    long word = container.bits[i];
+
+                    while (word != 0L) {
+                        int position = i * Long.SIZE +
+                                       Long.numberOfTrailingZeros(word);
+                        words[position * wordsPerState + offset] |= bit;
+                        word &= word - 1L;
+                    }
+                }
+
+                break;
+
+            case ARRAY:
+                for (short value : container.values) {
+                    words[(value & 0xffff) * wordsPerState + offset] |= bit;
+                }
+
+                break;
+
+            default:
+                short[] runs = container.values;
+
+                for (int i = 0; i < runs.length; i += 2) {
+                    int start = runs[i] & 0xffff;
+                    int end = start + (runs[i + 1] & 0xffff);
+
+                    for (int position = start; position <= end; ++position) {
+                        words[position * wordsPerState + offset] |= bit;
+                    }
+                }
+        }
+    }
+
+    /**
+     * Replaces the probability array with indices into the dictionary of the
+     * distinct probabilities, if there are at most 65536 of them.
+     */
+    private void encodeProbabilities() {
+        Map<Long, Integer> codeMap = new HashMap<>();
+
+        for (int state = 0; state < numberOfStates; ++state) {
+            Long key = Double.doubleToLongBits(probabilities[state]);
+
+            if (!codeMap.containsKey(key)) {
+                if (codeMap.size() == 1 << Short.SIZE) {
+                    probabilities = Arrays.copyOf(probabilities,
+                                                  numberOfStates);
+                    return;
+                }
+
+                codeMap.put(key, codeMap.size());
+            }
+        }
+
+        dictionary = new double[codeMap.size()];
+
+        for (Map.Entry<Long, Integer> entry : codeMap.entrySet()) {
+            dictionary[entry.getValue()] =
+                    Double.longBitsToDouble(entry.getKey());
+        }
+
+        if (dictionary.length <= 1 << Byte.SIZE) {
+            byteCodes = new byte[numberOfStates];
+
+            for (int state = 0; state < numberOfStates; ++state) {
+                byteCodes[state] = (byte) (int) codeMap.get(
+                        Double.doubleToLongBits(probabilities[state]));
+            }
+        } else {
+            shortCodes = new short[numberOfStates];
+
+            for (int state = 0; state < numberOfStates; ++state) {
+                shortCodes[state] = (short) (int) codeMap.get(
+                        Double.doubleToLongBits(probabilities[state]));
+            }
+        }
+
+        probabilities = null;
+    }
+
+    private static int[] toNodes(long[] mask) {
+        int count = 0;
+
+        for (long word : mask) {
+            count += Long.bitCount(word);
+        }
+
+        int[] nodes = new int[count];
+        count = 0;
+
+        for (int i = 0; i < mask.length; ++i) {
+            long word = mask[i];
+
+            while (word != 0L) {
+                nodes[count++] = i * Long.SIZE +
+                                 Long.numberOfTrailingZeros(word);
+                word &= word - 1L;
+            }
+        }
+
+        return nodes;
+    }
+}
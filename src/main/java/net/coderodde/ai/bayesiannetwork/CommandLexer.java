@@ -0,0 +1,188 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.util.Arrays;
+
+/**
+ * This class splits a command into whitespace delimited tokens. Instead of
+ * creating a string per token, it records where each token starts and ends in
+ * the command text, and the commands compare and read the tokens in place. A
+ * lexer is meant to be reset for each command, reusing its arrays, so that
+ * lexing a command allocates nothing.
+ * <p>
+ * The whitespace characters are the ones of the regular expression
+ * {@code \s}, so that the tokens are the same as the ones given by
+ * {@code String.split("\\s+")}, bar the leading empty token.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class CommandLexer {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private String text = "";
+    private int[] tokenStart = new int[INITIAL_CAPACITY];
+    private int[] tokenEnd = new int[INITIAL_CAPACITY];
+    private int numberOfTokens;
+
+    /**
+     * Splits a new command into tokens.
+     *
+     * @param text the command text.
+     * @return this lexer.
+     */
+    public CommandLexer reset(String text) {
+        this.text = text;
+        this.numberOfTokens = 0;
+        int length = text.length();
+        int index = 0;
+
+        while (true) {
+            while (index < length && isWhitespace(text.charAt(index))) {
+                ++index;
+            }
+
+            if (index == length) {
+                return this;
+            }
+
+            if (numberOfTokens == tokenStart.length) {
+                tokenStart = Arrays.copyOf(tokenStart, 2 * numberOfTokens);
+                tokenEnd = Arrays.copyOf(tokenEnd, 2 * numberOfTokens);
+            }
+
+            tokenStart[numberOfTokens] = index;
+
+            while (index < length && !isWhitespace(text.charAt(index))) {
+                ++index;
+            }
+
+            tokenEnd[numberOfTokens++] = index;
+        }
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int size() {
+        return numberOfTokens;
+    }
+
+    public int getTokenStart(int token) {
+        checkToken(token);
+        return tokenStart[token];
+    }
+
+    public int getTokenEnd(int token) {
+        checkToken(token);
+        return tokenEnd[token];
+    }
+
+    public int getTokenLength(int token) {
+        checkToken(token);
+        return tokenEnd[token] - tokenStart[token];
+    }
+
+    /**
+     * Checks whether a token equals the given text.
+     *
+     * @param token the token index.
+     * @param other the text to compare with.
+     * @return {@code true} if the token equals {@code other}.
+     */
+    public boolean tokenEquals(int token, String other) {
+        checkToken(token);
+        int length = tokenEnd[token] - tokenStart[token];
+        return length == other.length() &&
+               text.regionMatches(tokenStart[token], other, 0, length);
+    }
+
+    /**
+     * Checks whether a token starts with the given text.
+     *
+     * @param token  the token index.
+     * @param prefix the prefix.
+     * @return {@code true} if the token starts with {@code prefix}.
+     */
+    public boolean tokenStartsWith(int token, String prefix) {
+        checkToken(token);
+        return tokenEnd[token] - tokenStart[token] >= prefix.length() &&
+               text.startsWith(prefix, tokenStart[token]);
+    }
+
+    /**
+     * Checks whether a token starts a comment, which ends the command.
+     *
+     * @param token the token index.
+     * @return {@code true} if the token starts a comment.
+     */
+    public boolean isComment(int token) {
+        return tokenStartsWith(token, App.COMMENT_BEGIN_TEXT);
+    }
+
+    /**
+     * Computes the hash code of a token, equal to the hash code of the token
+     * as a string.
+     *
+     * @param token the token index.
+     * @return the hash code of the token.
+     */
+    public int hashToken(int token) {
+        checkToken(token);
+        int hash = 0;
+
+        for (int i = tokenStart[token]; i < tokenEnd[token]; ++i) {
+            hash = 31 * hash + text.charAt(i);
+        }
+
+        return hash;
+    }
+
+    /**
+     * Returns a token as a string. Unlike the other methods, this allocates.
+     *
+     * @param token the token index.
+     * @return the token text.
+     */
+    public String getToken(int token) {
+        checkToken(token);
+        return text.substring(tokenStart[token], tokenEnd[token]);
+    }
+
+    /**
+     * Returns all the tokens as strings.
+     *
+     * @return the token array.
+     */
+    public String[] toArray() {
+        String[] tokens = new String[numberOfTokens];
+
+        for (int i = 0; i < numberOfTokens; ++i) {
+            tokens[i] = getToken(i);
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Checks whether a character is a whitespace character in the sense of
+     * the regular expression {@code \s}.
+     *
+     * @param c the character to check.
+     * @return {@code true} if {@code c} is whitespace.
+     */
+    public static boolean isWhitespace(char c) {
+        return c == ' '  || c == '\t' || c == '\n' ||
+               c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private void checkToken(int token) {
+        if (token < 0 || token >= numberOfTokens) {
+            throw new IndexOutOfBoundsException(
+                    "Token index " + token + " is out of range [0, " +
+                    numberOfTokens + ").");
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package net.coderodde.ai.bayesiannetwork;
+
+/**
+ * This class maps command keywords to the commands. Unlike a hash map keyed by
+ * strings, it is looked up with a token of a {@link CommandLexer}: the hash
+ * code is computed over the characters of the token in place, and the
+ * keywords are compared with the token without creating a string of it. The
+ * table is an open addressing table with linear probing, kept at most half
+ * full.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+final class CommandTable {
+
+    private String[] keywords = new String[32];
+    private AbstractExecutableCommand[] commands =
+            new AbstractExecutableCommand[32];
+    private int size;
+
+    /**
+     * Maps a keyword to a command, replacing the previous command of the
+     * keyword if any.
+     *
+     * @param keyword the command keyword.
+     * @param command the command.
+     */
+    void put(String keyword, AbstractExecutableCommand command) {
+        if (2 * (size + 1) > keywords.length) {
+            resize();
+        }
+
+        int slot = findSlot(keyword, keyword.hashCode());
+
+        if (keywords[slot] == null) {
+            keywords[slot] = keyword;
+            ++size;
+        }
+
+        commands[slot] = command;
+    }
+
+    /**
+     * Returns the command whose keyword equals a token.
+     *
+     * @param lexer the lexer holding the token.
+     * @param token the token index.
+     * @return the command, or {@code null} if the token is no keyword.
+     */
+    AbstractExecutableCommand get(CommandLexer lexer, int token) {
+        int mask = keywords.length - 1;
+        int slot = mix(lexer.hashToken(token)) & mask;
+
+        while (keywords[slot] != null) {
+            if (lexer.tokenEquals(token, keywords[slot])) {
+                return commands[slot];
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return null;
+    }
+
+    private int findSlot(String keyword, int hash) {
+        int mask = keywords.length - 1;
+        int slot = mix(hash) & mask;
+
+        while (keywords[slot] != null && !keywords[slot].equals(keyword)) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private void resize() {
+        String[] oldKeywords = keywords;
+        AbstractExecutableCommand[] oldCommands = commands;
+        keywords = new String[2 * oldKeywords.length];
+        commands = new AbstractExecutableCommand[2 * oldKeywords.length];
+
+        for (int i = 0; i < oldKeywords.length; ++i) {
+            if (oldKeywords[i] != null) {
+                int slot = findSlot(oldKeywords[i], oldKeywords[i].hashCode());
+                keywords[slot] = oldKeywords[i];
+                commands[slot] = oldCommands[i];
+            }
+        }
+    }
+
+    /**
+     * Spreads the higher bits of a string hash code to the lower ones, which
+     * select the slot.
+     */
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,71 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * This Flight Recorder event spans an enumeration of the system states, from 
+ * the start of the enumeration until its result is built or it stops, and 
+ * carries the statistics of the enumeration. Used only through 
+ * {@link CompilationEvents}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+@Name("net.coderodde.ai.bayesiannetwork.Compilation")
+@Label("Compilation")
+@Category({"Bayesian Network", "Compilation"})
+@Description("An enumeration of the system states of a network.")
+final class CompilationEvent extends Event {
+
+    @Label("Status")
+    String status;
+
+    @Label("Nodes")
+    int nodes;
+
+    @Label("Levels")
+    int levels;
+
+    @Label("States")
+    int states;
+
+    @Label("Node Visits")
+    long nodeVisits;
+
+    @Label("Skipped Nodes")
+    @Description("The nodes whose state was fixed by an off parent or " + 
+                 "a probability of 0 or 1.")
+    long skippedNodes;
+
+    @Label("Combinations")
+    long combinations;
+
+    @Label("Dropped Combinations")
+    long droppedCombinations;
+
+    @Label("Maximum Depth")
+    int maximumDepth;
+
+    @Label("Estimated State Size")
+    @DataAmount
+    long estimatedStateBytes;
+
+    @Label("Validation Time")
+    @Timespan
+    long validationTime;
+
+    @Label("Enumeration Time")
+    @Timespan
+    long enumerationTime;
+
+    @Label("Result Time")
+    @Timespan
+    long resultTime;
+}
@@ -0,0 +1,128 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * This class emits the Flight Recorder events of the enumeration. The event
+ * classes are loaded only once the Flight Recorder has been started, since 
+ * loading the first event class sets up the recorder, which takes a while, 
+ * and the runtimes without the recorder have no event classes at all. The 
+ * events are passed around as plain objects, {@code null} when not 
+ * recorded.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+final class CompilationEvents {
+
+    private static final boolean AVAILABLE = isAvailable();
+
+    private CompilationEvents() {}
+
+    /**
+     * Begins an event spanning a phase of the enumeration.
+     * 
+     * @param phase the name of the phase.
+     * @return the event, or {@code null} if not recorded.
+     */
+    static Object beginPhase(String phase) {
+        if (!isRecording()) {
+            return null;
+        }
+
+        CompilationPhaseEvent event = new CompilationPhaseEvent();
+
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends and commits an event begun by {@link #beginPhase(String)}.
+     * 
+     * @param event the event, or {@code null}.
+     */
+    static void endPhase(Object event) {
+        if (event != null) {
+            ((CompilationPhaseEvent) event).commit();
+        }
+    }
+
+    /**
+     * Begins an event spanning an enumeration.
+     * 
+     * @return the event, or {@code null} if not recorded.
+     */
+    static Object beginCompilation() {
+        if (!isRecording()) {
+            return null;
+        }
+
+        CompilationEvent event = new CompilationEvent();
+
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends and commits an event begun by {@link #beginCompilation()} with the
+     * statistics of the enumeration.
+     * 
+     * @param event      the event, or {@code null}.
+     * @param status     the status the enumeration ended with.
+     * @param statistics the statistics of the enumeration.
+     */
+    static void endCompilation(Object event,
+                               CompilationProgress.Status status,
+                               CompilationStatistics statistics) {
+        if (event == null) {
+            return;
+        }
+
+        CompilationEvent compilationEvent = (CompilationEvent) event;
+        compilationEvent.end();
+
+        if (!compilationEvent.shouldCommit()) {
+            return;
+        }
+
+        compilationEvent.status = status.name();
+        compilationEvent.nodes = statistics.getNumberOfNodes();
+        compilationEvent.levels = statistics.getNumberOfLevels();
+        compilationEvent.states = statistics.getNumberOfStates();
+        compilationEvent.nodeVisits = statistics.getNodeVisits();
+        compilationEvent.skippedNodes = statistics.getSkippedNodes();
+        compilationEvent.combinations = statistics.getCombinations();
+        compilationEvent.droppedCombinations = 
+                statistics.getDroppedCombinations();
+        compilationEvent.maximumDepth = statistics.getMaximumDepth();
+        compilationEvent.estimatedStateBytes = 
+                statistics.getEstimatedStateBytes();
+        compilationEvent.validationTime = statistics.getValidationNanos();
+        compilationEvent.enumerationTime = statistics.getEnumerationNanos();
+        compilationEvent.resultTime = statistics.getResultNanos();
+        compilationEvent.commit();
+    }
+
+    private static boolean isRecording() {
+        return AVAILABLE && FlightRecorder.isInitialized();
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.FlightRecorder");
+            return true;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.util.Objects;
+
+/**
+ * This class holds the options controlling the compilation of a Bayes network
+ * into the list of system states.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class CompilationOptions {
+
+    /**
+     * Lists the places the enumerated system states may be stored in.
+     */
+    public enum Storage {
+
+        /**
+         * Arrays on the Java heap.
+         */
+        HEAP,
+
+        /**
+         * Direct buffers outside of the Java heap, which are not scanned by
+         * the garbage collector and are released explicitly.
+         */
+        OFF_HEAP,
+
+        /**
+         * Compressed bitmaps of the node columns on the Java heap, which
+         * take far less memory at the price of slower compilation.
+         */
+        COMPRESSED
+    }
+
+    /**
+     * Any branch of the enumeration whose accumulated probability falls below
+     * this value is dropped. Zero disables the pruning.
+     */
+    private double minimumStateProbability = 0.0;
+
+    /**
+     * The maximum number of system states to record. After reaching this
+     * amount, all further states are dropped.
+     */
+    private int maximumNumberOfStates = Integer.MAX_VALUE;
+
+    /**
+     * The engine to compile with, or {@code null} for letting the planner
+     * choose.
+     */
+    private CompilationPlan.Engine engine;
+
+    /**
+     * Where to store the enumerated system states.
+     */
+    private Storage storage = Storage.HEAP;
+
+    /**
+     * The maximum number of states a compilation may record before it is
+     * aborted. Unlike {@link #maximumNumberOfStates}, which drops the further
+     * states, this protects the host from a network larger than intended.
+     */
+    private int stateLimit = Integer.MAX_VALUE;
+
+    /**
+     * The maximum estimated number of bytes the states of a compilation may 
+     * take before it is aborted.
+     */
+    private long memoryLimit = Long.MAX_VALUE;
+
+    /**
+     * The maximum number of milliseconds a compilation may run before it is
+     * aborted.
+     */
+    private long timeLimit = Long.MAX_VALUE;
+
+    public double getMinimumStateProbability() {
+        return minimumStateProbability;
+    }
+
+    public void setMinimumStateProbability(double minimumStateProbability) {
+        if (Double.isNaN(minimumStateProbability)) {
+            throw new IllegalArgumentException(
+                    "The minimum state probability is NaN.");
+        }
+
+        if (minimumStateProbability < 0.0 || minimumStateProbability > 1.0) {
+            throw new IllegalArgumentException(
+                    "The minimum state probability " +
+                    minimumStateProbability + " is not within [0, 1].");
+        }
+
+        this.minimumStateProbability = minimumStateProbability;
+    }
+
+    public int getMaximumNumberOfStates() {
+        return maximumNumberOfStates;
+    }
+
+    public void setMaximumNumberOfStates(int maximumNumberOfStates) {
+        if (maximumNumberOfStates < 1) {
+            throw new IllegalArgumentException(
+                    "The maximum number of states must be at least 1, was " +
+                    maximumNumberOfStates + ".");
+        }
+
+        this.maximumNumberOfStates = maximumNumberOfStates;
+    }
+
+    /**
+     * Returns the engine to compile with.
+     *
+     * @return the engine, or {@code null} if the planner chooses it.
+     */
+    public CompilationPlan.Engine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Sets the engine to compile with.
+     *
+     * @param engine the engine, or {@code null} for letting the planner
+     *               choose.
+     */
+    public void setEngine(CompilationPlan.Engine engine) {
+        if (engine == CompilationPlan.Engine.NONE) {
+            throw new IllegalArgumentException(
+                    "Cannot compile with no engine.");
+        }
+
+        this.engine = engine;
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public void setStorage(Storage storage) {
+        this.storage = Objects.requireNonNull(storage, "The storage is null.");
+    }
+
+    public int getStateLimit() {
+        return stateLimit;
+    }
+
+    /**
+     * Sets the number of states after which the compilation is aborted.
+     *
+     * @param stateLimit the limit, or {@code Integer.MAX_VALUE} for none.
+     */
+    public void setStateLimit(int stateLimit) {
+        if (stateLimit < 1) {
+            throw new IllegalArgumentException(
+                    "The state limit must be at least 1, was " + 
+                    stateLimit + ".");
+        }
+
+        this.stateLimit = stateLimit;
+    }
+
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    /**
+     * Sets the estimated number of bytes of the states after which the 
+     * compilation is aborted.
+     *
+     * @param memoryLimit the limit, or {@code Long.MAX_VALUE} for none.
+     */
+    public void setMemoryLimit(long memoryLimit) {
+        if (memoryLimit < 1L) {
+            throw new IllegalArgumentException(
+                    "The memory limit must be at least 1 byte, was " + 
+                    memoryLimit + ".");
+        }
+
+        this.memoryLimit = memoryLimit;
+    }
+
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * Sets the number of milliseconds after which the compilation is aborted.
+     *
+     * @param timeLimit the limit, or {@code Long.MAX_VALUE} for none.
+     */
+    public void setTimeLimit(long timeLimit) {
+        if (timeLimit < 1L) {
+            throw new IllegalArgumentException(
+                    "The time limit must be at least 1 millisecond, was " + 
+                    timeLimit + ".");
+        }
+
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * Returns {@code true} if any of the limits is in effect.
+     *
+     * @return {@code true} if the compilation may be aborted.
+     */
+    public boolean isLimited() {
+        return stateLimit < Integer.MAX_VALUE
+                || memoryLimit < Long.MAX_VALUE
+                || timeLimit < Long.MAX_VALUE;
+    }
+
+    /**
+     * Removes all the limits.
+     */
+    public void removeLimits() {
+        stateLimit = Integer.MAX_VALUE;
+        memoryLimit = Long.MAX_VALUE;
+        timeLimit = Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns {@code true} if any of the pruning options is in effect.
+     *
+     * @return {@code true} if the compilation may drop states.
+     */
+    public boolean isPruning() {
+        return minimumStateProbability > 0.0
+                || maximumNumberOfStates < Integer.MAX_VALUE;
+    }
+
+    /**
+     * Turns off all the pruning.
+     */
+    public void disablePruning() {
+        minimumStateProbability = 0.0;
+        maximumNumberOfStates = Integer.MAX_VALUE;
+    }
+}
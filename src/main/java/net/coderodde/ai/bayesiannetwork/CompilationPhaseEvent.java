@@ -0,0 +1,26 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This Flight Recorder event spans a phase of enumerating the system states:
+ * the validation of the network, the enumeration itself or the building of 
+ * the result. Used only through {@link CompilationEvents}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+@Name("net.coderodde.ai.bayesiannetwork.CompilationPhase")
+@Label("Compilation Phase")
+@Category({"Bayesian Network", "Compilation"})
+@Description("A phase of enumerating the system states of a network.")
+final class CompilationPhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+}
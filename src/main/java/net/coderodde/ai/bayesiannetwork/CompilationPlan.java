@@ -0,0 +1,262 @@
+package net.coderodde.ai.bayesiannetwork;
+
+/**
+ * This class describes how a network is going to be compiled and what it is
+ * predicted to cost.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class CompilationPlan {
+
+    /**
+     * Lists the engines a network may be compiled with.
+     */
+    public enum Engine {
+
+        /**
+         * Enumerates all system states.
+         */
+        ENUMERATION,
+
+        /**
+         * Compiles an arithmetic circuit.
+         */
+        CIRCUIT,
+
+        /**
+         * No engine is able to compile the network within the available
+         * resources.
+         */
+        NONE
+    }
+
+    private final Engine engine;
+    private final double numberOfStates;
+    private final double numberOfRecordedStates;
+    private final boolean exact;
+    private final double numberOfSteps;
+    private final long estimatedBytes;
+    private final boolean offHeap;
+    private final int circuitClusterSize;
+    private final double estimatedCircuitSize;
+    private final long estimatedCircuitBytes;
+    private final long availableBytes;
+    private final long availableOffHeapBytes;
+    private final boolean enumerationFeasible;
+    private final boolean circuitFeasible;
+
+    CompilationPlan(Engine engine,
+                    double numberOfStates,
+                    double numberOfRecordedStates,
+                    boolean exact,
+                    double numberOfSteps,
+                    long estimatedBytes,
+                    boolean offHeap,
+                    int circuitClusterSize,
+                    double estimatedCircuitSize,
+                    long estimatedCircuitBytes,
+                    long availableBytes,
+                    long availableOffHeapBytes,
+                    boolean enumerationFeasible,
+                    boolean circuitFeasible) {
+        this.engine = engine;
+        this.numberOfStates = numberOfStates;
+        this.numberOfRecordedStates = numberOfRecordedStates;
+        this.exact = exact;
+        this.numberOfSteps = numberOfSteps;
+        this.estimatedBytes = estimatedBytes;
+        this.offHeap = offHeap;
+        this.circuitClusterSize = circuitClusterSize;
+        this.estimatedCircuitSize = estimatedCircuitSize;
+        this.estimatedCircuitBytes = estimatedCircuitBytes;
+        this.availableBytes = availableBytes;
+        this.availableOffHeapBytes = availableOffHeapBytes;
+        this.enumerationFeasible = enumerationFeasible;
+        this.circuitFeasible = circuitFeasible;
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Returns the number of all possible system states of the network.
+     * 
+     * @return the number of states.
+     */
+    public double getNumberOfStates() {
+        return numberOfStates;
+    }
+
+    /**
+     * Returns the upper bound on the number of system states the compilation
+     * would record when taking the pruning into account.
+     * 
+     * @return the number of recorded states.
+     */
+    public double getNumberOfRecordedStates() {
+        return numberOfRecordedStates;
+    }
+
+    /**
+     * Returns {@code true} if the number of states is exact, and 
+     * {@code false} if it is estimated.
+     * 
+     * @return whether the state count is exact.
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Returns the number of nodes in the enumeration tree, which is
+     * proportional to the compilation time.
+     * 
+     * @return the number of enumeration steps.
+     */
+    public double getNumberOfSteps() {
+        return numberOfSteps;
+    }
+
+    /**
+     * Returns the estimated number of bytes taken by the enumerated states.
+     * 
+     * @return the estimated size of the state list.
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Returns {@code true} if the states are going to be stored outside of
+     * the heap.
+     * 
+     * @return whether the storage is off-heap.
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Returns the number of variables involved in the largest elimination 
+     * step of the circuit compilation.
+     * 
+     * @return the largest cluster size.
+     */
+    public int getCircuitClusterSize() {
+        return circuitClusterSize;
+    }
+
+    /**
+     * Returns the estimated number of nodes in the arithmetic circuit, which
+     * is also proportional to the time of a single query against it.
+     * 
+     * @return the estimated circuit size.
+     */
+    public double getEstimatedCircuitSize() {
+        return estimatedCircuitSize;
+    }
+
+    public long getEstimatedCircuitBytes() {
+        return estimatedCircuitBytes;
+    }
+
+    /**
+     * Returns {@code true} if the states can be enumerated within the 
+     * available heap or off-heap memory.
+     * 
+     * @return whether enumeration is feasible.
+     */
+    public boolean isEnumerationFeasible() {
+        return enumerationFeasible;
+    }
+
+    /**
+     * Returns {@code true} if the arithmetic circuit can be compiled within
+     * the available heap.
+     * 
+     * @return whether the circuit is feasible.
+     */
+    public boolean isCircuitFeasible() {
+        return circuitFeasible;
+    }
+
+    public long getAvailableBytes() {
+        return availableBytes;
+    }
+
+    public long getAvailableOffHeapBytes() {
+        return availableOffHeapBytes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("Engine: ")
+          .append(engine.name().toLowerCase())
+          .append('\n')
+          .append("Number of states: ")
+          .append(formatCount(numberOfStates))
+          .append(exact ? " (exact)" : " (estimated)")
+          .append('\n');
+
+        if (numberOfRecordedStates < numberOfStates) {
+            sb.append("Recorded states after pruning: at most ")
+              .append(formatCount(numberOfRecordedStates))
+              .append('\n');
+        }
+
+        sb.append("Enumeration steps: ")
+          .append(formatCount(numberOfSteps))
+          .append('\n')
+          .append("Enumeration memory: ")
+          .append(formatBytes(estimatedBytes))
+          .append(offHeap ? " off-heap\n" : "\n")
+          .append("Circuit size: ")
+          .append(formatCount(estimatedCircuitSize))
+          .append(" nodes (largest cluster: ")
+          .append(circuitClusterSize)
+          .append(" variables)\n")
+          .append("Circuit memory: ")
+          .append(formatBytes(estimatedCircuitBytes))
+          .append('\n')
+          .append("Available memory: ")
+          .append(formatBytes(availableBytes));
+
+        if (offHeap) {
+            sb.append('\n')
+              .append("Available off-heap memory: ")
+              .append(formatBytes(availableOffHeapBytes));
+        }
+
+        return sb.toString();
+    }
+
+    private static String formatCount(double count) {
+        if (count < 1e15) {
+            return Long.toString(Math.round(count));
+        }
+
+        return String.format("%.3e", count);
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024L) {
+            return bytes + " B";
+        }
+
+        String units = "KMGTPE";
+        double value = bytes;
+        int unit = -1;
+
+        while (value >= 1024.0 && unit < units.length() - 1) {
+            value /= 1024.0;
+            ++unit;
+        }
+
+        return String.format("%.1f %ciB", value, units.charAt(unit));
+    }
+}
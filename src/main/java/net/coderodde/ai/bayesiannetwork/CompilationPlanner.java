@@ -0,0 +1,275 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class predicts the cost of compiling a network before doing so, and
+ * chooses the engine for the compilation.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class CompilationPlanner {
+
+    /**
+     * The state arrays on the heap double their capacity when full, so up to
+     * half of them may be unused.
+     */
+    private static final double HEAP_GROWTH_FACTOR = 2.0;
+
+    /**
+     * The compressed storage keeps an uncompressed bitmap of the current
+     * chunk of 65536 states for each node.
+     */
+    private static final int COMPRESSED_CHUNK_BYTES = 8192;
+
+    private static final String MAXIMUM_DIRECT_MEMORY_OPTION = 
+            "-XX:MaxDirectMemorySize=";
+
+    /**
+     * The approximate number of heap bytes per arithmetic circuit node while
+     * compiling it: the circuit itself plus the factor tables.
+     */
+    private static final long BYTES_PER_CIRCUIT_NODE = 
+            ArithmeticCircuitCompiler.BYTES_PER_NODE + 4L;
+
+    /**
+     * The time a query takes per estimated circuit node, relative to the 
+     * time the enumeration engine takes per word of a recorded state. A 
+     * query evaluates the circuit twice, and each evaluation follows several
+     * edges per node, although the evaluation under evidence touching only a
+     * small part of the circuit is much cheaper. Measured on mega.txt.
+     */
+    private static final double QUERY_COST_PER_CIRCUIT_NODE = 2.0;
+
+    /**
+     * The fraction of free heap the compilation may use.
+     */
+    private static final double HEAP_USAGE_FACTOR = 0.8;
+
+    private CompilationPlanner() {}
+
+    /**
+     * Counts or estimates the system states of the network and chooses the
+     * engine to compile it with.
+     * 
+     * @param network        the list of nodes of a connected network.
+     * @param probabilityMap the map mapping each node to its probability.
+     * @param options        the compilation options.
+     * @return the compilation plan.
+     */
+    public static CompilationPlan plan(
+            List<DirectedGraphNode> network,
+            ProbabilityMap<DirectedGraphNode> probabilityMap,
+            CompilationOptions options) {
+        Objects.requireNonNull(network, "The input network is null.");
+        Objects.requireNonNull(probabilityMap, 
+                               "The input probability map is null.");
+        Objects.requireNonNull(options, "The compilation options is null.");
+
+        if (network.isEmpty()) {
+            throw new IllegalArgumentException("The input network is empty.");
+        }
+
+        if (!Utils.graphIsAcyclic(network.get(0))) {
+            throw new IllegalArgumentException(
+                    "The current network contains cycles.");
+        }
+
+        IndexedNetwork indexedNetwork = 
+                new IndexedNetwork(Utils.findEntireGraph(network.get(0)),
+                                   probabilityMap);
+        StateCountEstimator estimator = 
+                new StateCountEstimator(indexedNetwork);
+
+        double numberOfStates = estimator.getNumberOfStates();
+
+        // Pruning bounds the number of recorded states: each of them has 
+        // probability at least the threshold, and they sum to at most one.
+        double recordedStates = numberOfStates;
+
+        if (options.getMaximumNumberOfStates() < Integer.MAX_VALUE) {
+            recordedStates = Math.min(recordedStates,
+                                      options.getMaximumNumberOfStates());
+        }
+
+        if (options.getMinimumStateProbability() > 0.0) {
+            recordedStates = 
+                    Math.min(recordedStates, 
+                             Math.floor(1.0 / 
+                                        options.getMinimumStateProbability()));
+        }
+
+        int numberOfNodes = indexedNetwork.getNumberOfNodes();
+        boolean offHeap = 
+                options.getStorage() == CompilationOptions.Storage.OFF_HEAP;
+        long estimatedBytes = estimateStateBytes(recordedStates,
+                                                 numberOfNodes,
+                                                 options.getStorage());
+        long availableBytes = getAvailableHeapBytes();
+        long availableOffHeapBytes = getAvailableOffHeapBytes();
+        long budget = (long) (availableBytes * HEAP_USAGE_FACTOR);
+        long stateBudget = offHeap ?
+                (long) (availableOffHeapBytes * HEAP_USAGE_FACTOR) : 
+                budget;
+
+        ArithmeticCircuitCompiler circuitCompiler = 
+                new ArithmeticCircuitCompiler(indexedNetwork);
+        double circuitSize = circuitCompiler.getEstimatedSize();
+        long circuitBytes = 
+                toBytes(circuitSize * BYTES_PER_CIRCUIT_NODE);
+
+        boolean enumerationFeasible = estimatedBytes <= stateBudget;
+        boolean circuitFeasible = 
+                circuitCompiler.isFeasible() && circuitBytes <= budget;
+
+        CompilationPlan.Engine engine = options.getEngine();
+
+        if (engine == null) {
+            // Both engines answer a query in time linear in the size of their
+            // data structure, so prefer the one answering faster.
+            double enumerationQueryCost = 
+                    recordedStates * 
+                    StateTable.getWordsPerState(numberOfNodes);
+            double circuitQueryCost = 
+                    circuitSize * QUERY_COST_PER_CIRCUIT_NODE;
+
+            if (enumerationFeasible && 
+                    (!circuitFeasible || 
+                     enumerationQueryCost <= circuitQueryCost)) {
+                engine = CompilationPlan.Engine.ENUMERATION;
+            } else if (circuitFeasible) {
+                engine = CompilationPlan.Engine.CIRCUIT;
+            } else {
+                engine = CompilationPlan.Engine.NONE;
+            }
+        } else if (engine == CompilationPlan.Engine.ENUMERATION && 
+                   !enumerationFeasible) {
+            engine = CompilationPlan.Engine.NONE;
+        } else if (engine == CompilationPlan.Engine.CIRCUIT &&
+                   !circuitFeasible) {
+            engine = CompilationPlan.Engine.NONE;
+        }
+
+        return new CompilationPlan(engine,
+                                   numberOfStates,
+                                   recordedStates,
+                                   estimator.isExact(),
+                                   estimator.getNumberOfSteps(),
+                                   estimatedBytes,
+                                   offHeap,
+                                   circuitCompiler.getMaximumClusterSize(),
+                                   circuitSize,
+                                   circuitBytes,
+                                   availableBytes,
+                                   availableOffHeapBytes,
+                                   enumerationFeasible,
+                                   circuitFeasible);
+    }
+
+    /**
+     * Estimates the peak number of bytes taken by the recorded states while
+     * compiling.
+     * 
+     * @param recordedStates the number of states recorded.
+     * @param numberOfNodes  the number of nodes in the network.
+     * @param storage        the storage of the states.
+     * @return the estimated number of bytes.
+     */
+    static long estimateStateBytes(double recordedStates,
+                                   int numberOfNodes,
+                                   CompilationOptions.Storage storage) {
+        if (storage == CompilationOptions.Storage.COMPRESSED) {
+            // A compressed column never takes more than one bit per state, 
+            // but the probabilities are encoded only after the compilation.
+            return toBytes(recordedStates * 
+                           (Double.BYTES * HEAP_GROWTH_FACTOR + 
+                            (numberOfNodes + Byte.SIZE - 1) / Byte.SIZE) +
+                           (double) numberOfNodes * COMPRESSED_CHUNK_BYTES);
+        }
+
+        // Each state takes its bit-packed words and its probability.
+        long bytesPerState = 
+                StateTable.getWordsPerState(numberOfNodes) * Long.BYTES + 
+                Double.BYTES;
+        return toBytes(recordedStates * bytesPerState * 
+                       (storage == CompilationOptions.Storage.OFF_HEAP ? 
+                               1.0 : HEAP_GROWTH_FACTOR));
+    }
+
+    private static long toBytes(double bytes) {
+        return bytes >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) bytes;
+    }
+
+    private static long getAvailableHeapBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.maxMemory() - 
+              (runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    /**
+     * Returns the number of bytes that may still be allocated in direct 
+     * buffers. The limit is given by {@code -XX:MaxDirectMemorySize}, and
+     * defaults to the maximum heap size.
+     * 
+     * @return the available off-heap bytes.
+     */
+    private static long getAvailableOffHeapBytes() {
+        long maximum = Runtime.getRuntime().maxMemory();
+
+        for (String argument 
+                : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argument.startsWith(MAXIMUM_DIRECT_MEMORY_OPTION)) {
+                maximum = parseSize(argument.substring(
+                        MAXIMUM_DIRECT_MEMORY_OPTION.length()), maximum);
+            }
+        }
+
+        long used = 0L;
+
+        for (BufferPoolMXBean pool 
+                : ManagementFactory.getPlatformMXBeans(
+                        BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                used += pool.getMemoryUsed();
+            }
+        }
+
+        return Math.max(0L, maximum - used);
+    }
+
+    /**
+     * Parses a JVM memory size such as {@code 512m}.
+     * 
+     * @param size         the size text.
+     * @param defaultValue the value to return if the text cannot be parsed.
+     * @return the number of bytes.
+     */
+    private static long parseSize(String size, long defaultValue) {
+        if (size.isEmpty()) {
+            return defaultValue;
+        }
+
+        long multiplier = 1L;
+
+        switch (Character.toLowerCase(size.charAt(size.length() - 1))) {
+            case 'k': multiplier = 1L << 10; break;
+            case 'm': multiplier = 1L << 20; break;
+            case 'g': multiplier = 1L << 30; break;
+            case 't': multiplier = 1L << 40; break;
+        }
+
+        try {
+            return Long.parseLong(multiplier == 1L ? 
+                                  size : 
+                                  size.substring(0, size.length() - 1))
+                    * multiplier;
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.util.Locale;
+
+/**
+ * This class tracks the progress of a compilation, possibly running in
+ * another thread: the number of the states recorded so far and the fraction
+ * of the probability mass explored, that is, the total probability of the
+ * states recorded or dropped. A compilation stops soon after its progress is
+ * cancelled. Once over, the progress holds the statistics of the compilation.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class CompilationProgress {
+
+    /**
+     * The status of a compilation.
+     */
+    public enum Status {
+        RUNNING,
+        FINISHED,
+        CANCELLED,
+        FAILED
+    }
+
+    private final long startTime = System.currentTimeMillis();
+    private volatile long endTime;
+    private volatile Status status = Status.RUNNING;
+    private volatile boolean cancelled;
+    private volatile int numberOfStates;
+    private volatile double exploredProbabilityMass;
+    private volatile CompilationStatistics statistics;
+
+    /**
+     * Requests the compilation to stop.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getNumberOfStates() {
+        return numberOfStates;
+    }
+
+    /**
+     * Returns the fraction of the probability mass of all the states that has
+     * been explored so far.
+     *
+     * @return a value between 0 and 1.
+     */
+    public double getExploredProbabilityMass() {
+        return exploredProbabilityMass;
+    }
+
+    /**
+     * Returns the number of milliseconds the compilation has run, or ran if
+     * it is over.
+     *
+     * @return the duration of the compilation.
+     */
+    public long getDuration() {
+        return (status == Status.RUNNING ? System.currentTimeMillis()
+                                         : endTime) - startTime;
+    }
+
+    /**
+     * Returns the statistics of the compilation.
+     * 
+     * @return the statistics, or {@code null} if the compilation is running.
+     */
+    public CompilationStatistics getStatistics() {
+        return statistics;
+    }
+
+    void update(int numberOfStates, double exploredProbabilityMass) {
+        this.numberOfStates = numberOfStates;
+        this.exploredProbabilityMass = Math.min(1.0, exploredProbabilityMass);
+    }
+
+    void finish(Status status, CompilationStatistics statistics) {
+        endTime = System.currentTimeMillis();
+        this.statistics = statistics;
+        this.status = status;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                             "%s: %d states, %.2f%% of the probability " +
+                             "mass explored, %d milliseconds.",
+                             describe(status),
+                             numberOfStates,
+                             100.0 * exploredProbabilityMass,
+                             getDuration());
+    }
+
+    private static String describe(Status status) {
+        switch (status) {
+            case RUNNING:
+                return "Compiling";
+
+            case FINISHED:
+                return "Compiled";
+
+            case CANCELLED:
+                return "Cancelled";
+
+            default:
+                return "Failed";
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * This class holds the counters and the timings recorded by an enumeration
+ * of the system states, for finding out why a network compiles slowly. A
+ * level of the network is visited each time the enumeration enters it with
+ * a combination of the levels above: its nodes are then either skipped, as
+ * their state is fixed by an off parent or a probability of 0 or 1, or
+ * varied through all their combinations.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class CompilationStatistics {
+
+    private final int numberOfNodes;
+    private final int numberOfStates;
+    private final long[] levelVisits;
+    private final long[] skippedNodes;
+    private final int[] levelSizes;
+    private final long combinations;
+    private final long droppedCombinations;
+    private final int maximumDepth;
+    private final long estimatedStateBytes;
+    private final long workingBytes;
+    private final long validationNanos;
+    private final long enumerationNanos;
+    private final long resultNanos;
+
+    CompilationStatistics(int numberOfNodes,
+                          int numberOfStates,
+                          long[] levelVisits,
+                          long[] skippedNodes,
+                          int[] levelSizes,
+                          long combinations,
+                          long droppedCombinations,
+                          int maximumDepth,
+                          long estimatedStateBytes,
+                          long workingBytes,
+                          long validationNanos,
+                          long enumerationNanos,
+                          long resultNanos) {
+        this.numberOfNodes = numberOfNodes;
+        this.numberOfStates = numberOfStates;
+        this.levelVisits = levelVisits;
+        this.skippedNodes = skippedNodes;
+        this.levelSizes = levelSizes;
+        this.combinations = combinations;
+        this.droppedCombinations = droppedCombinations;
+        this.maximumDepth = maximumDepth;
+        this.estimatedStateBytes = estimatedStateBytes;
+        this.workingBytes = workingBytes;
+        this.validationNanos = validationNanos;
+        this.enumerationNanos = enumerationNanos;
+        this.resultNanos = resultNanos;
+    }
+
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    public int getNumberOfLevels() {
+        return levelSizes.length;
+    }
+
+    public int getNumberOfStates() {
+        return numberOfStates;
+    }
+
+    /**
+     * Returns the number of nodes of a level.
+     *
+     * @param level the index of the level.
+     * @return the number of nodes.
+     */
+    public int getLevelSize(int level) {
+        return levelSizes[level];
+    }
+
+    /**
+     * Returns the number of times the enumeration entered a level.
+     *
+     * @param level the index of the level.
+     * @return the number of visits.
+     */
+    public long getLevelVisits(int level) {
+        return levelVisits[level];
+    }
+
+    /**
+     * Returns the number of nodes skipped at the visits of a level.
+     *
+     * @param level the index of the level.
+     * @return the number of skipped nodes.
+     */
+    public long getSkippedNodes(int level) {
+        return skippedNodes[level];
+    }
+
+    /**
+     * Returns the number of nodes looked at over all the level visits.
+     *
+     * @return the number of node visits.
+     */
+    public long getNodeVisits() {
+        long visits = 0L;
+
+        for (int level = 0; level < levelSizes.length; ++level) {
+            visits += levelVisits[level] * levelSizes[level];
+        }
+
+        return visits;
+    }
+
+    /**
+     * Returns the number of nodes skipped over all the level visits.
+     *
+     * @return the number of skipped nodes.
+     */
+    public long getSkippedNodes() {
+        return Arrays.stream(skippedNodes).sum();
+    }
+
+    /**
+     * Returns the number of combinations of varying nodes enumerated over
+     * all the levels.
+     *
+     * @return the number of combinations.
+     */
+    public long getCombinations() {
+        return combinations;
+    }
+
+    /**
+     * Returns the number of combinations dropped as too improbable.
+     *
+     * @return the number of dropped combinations.
+     */
+    public long getDroppedCombinations() {
+        return droppedCombinations;
+    }
+
+    /**
+     * Returns the largest number of levels the enumeration has been into at
+     * once, the explicit counterpart of the recursion depth.
+     *
+     * @return the maximum depth.
+     */
+    public int getMaximumDepth() {
+        return maximumDepth;
+    }
+
+    /**
+     * Returns the estimated peak number of bytes taken by the states.
+     *
+     * @return the estimated number of bytes.
+     */
+    public long getEstimatedStateBytes() {
+        return estimatedStateBytes;
+    }
+
+    /**
+     * Returns the number of bytes of the arrays the enumeration works in.
+     *
+     * @return the number of bytes.
+     */
+    public long getWorkingBytes() {
+        return workingBytes;
+    }
+
+    /**
+     * Returns the nanoseconds spent checking and indexing the network.
+     *
+     * @return the duration of the validation.
+     */
+    public long getValidationNanos() {
+        return validationNanos;
+    }
+
+    public long getEnumerationNanos() {
+        return enumerationNanos;
+    }
+
+    /**
+     * Returns the nanoseconds spent completing the state table after the
+     * enumeration, which is when the compressed storage encodes its columns.
+     *
+     * @return the duration of building the result.
+     */
+    public long getResultNanos() {
+        return resultNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("Nodes: ")
+          .append(numberOfNodes)
+          .append(" in ")
+          .append(levelSizes.length)
+          .append(" levels\n")
+          .append("States: ")
+          .append(numberOfStates)
+          .append('\n')
+          .append("Node visits: ")
+          .append(getNodeVisits())
+          .append(" (skipped: ")
+          .append(getSkippedNodes())
+          .append(")\n")
+          .append("Combinations: ")
+          .append(combinations)
+          .append(" (dropped: ")
+          .append(droppedCombinations)
+          .append(")\n")
+          .append("Maximum depth: ")
+          .append(maximumDepth)
+          .append('\n')
+          .append("State memory: ")
+          .append(CompilationPlan.formatBytes(estimatedStateBytes))
+          .append(" (estimated)\n")
+          .append("Working memory: ")
+          .append(CompilationPlan.formatBytes(workingBytes))
+          .append('\n')
+          .append("Validation: ")
+          .append(formatNanos(validationNanos))
+          .append('\n')
+          .append("Enumeration: ")
+          .append(formatNanos(enumerationNanos))
+          .append('\n')
+          .append("Result: ")
+          .append(formatNanos(resultNanos));
+
+        return sb.toString();
+    }
+
+    private static String formatNanos(long nanos) {
+        return String.format(Locale.ROOT, "%.3f milliseconds", nanos / 1e6);
+    }
+}
@@ -0,0 +1,649 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * This class keeps a write-ahead journal of the commands modifying a network,
+ * together with periodic snapshots of the network, in a directory. After a
+ * crash the network is recovered by loading the last snapshot and repeating
+ * the commands journaled after it.
+ * <p>
+ * The directory holds the following files, all in big-endian byte order:
+ * <pre>
+ * snapshot      int    magic number "BNQN"
+ *               int    format version
+ *               long   generation
+ *               int    1 if the file result-&lt;generation&gt; belongs to the
+ *                      snapshot, 0 otherwise
+ *               double minimum state probability
+ *               int    maximum number of states
+ *               int    engine ordinal, -1 if chosen by the planner
+ *               int    storage ordinal
+ *               int    number of nodes n
+ *               int    length of the node section in bytes
+ *               the node section as in {@link ResultSnapshot}
+ *               int    CRC-32 of all the above
+ *
+ * journal       int    magic number "BNQJ"
+ *               int    format version
+ *               long   generation of the snapshot the journal continues
+ *               records: int length, int CRC-32, UTF-8 command text
+ *
+ * result-&lt;g&gt;    the compiled result written by {@link ResultSnapshot}
+ * </pre>
+ * The records are collected into a buffer, and the buffer is written and
+ * forced to the disk as a group: when it fills up, when asked to, or by a
+ * background thread every {@value #GROUP_COMMIT_MILLIS} milliseconds. A
+ * script of edits thus costs a disk flush per group, not per command, and an
+ * edit typed in by the user reaches the disk within the interval.
+ * <p>
+ * A checkpoint writes a new snapshot of the next generation and starts an
+ * empty journal for it. Both are written under temporary names and renamed,
+ * so a crash in between leaves either the previous snapshot with its
+ * journal, or the new snapshot with a journal of an older generation, which
+ * is ignored. A record torn by a crash fails its checksum, and the journal is
+ * truncated before it.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class EditJournal {
+
+    private static final int SNAPSHOT_MAGIC = 0x424E514E;
+    private static final int JOURNAL_MAGIC = 0x424E514A;
+    private static final int VERSION = 1;
+    private static final int JOURNAL_HEADER_BYTES = 2 * Integer.BYTES +
+                                                    Long.BYTES;
+    private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+
+    private static final String SNAPSHOT_FILE_NAME = "snapshot";
+    private static final String JOURNAL_FILE_NAME = "journal";
+    private static final String RESULT_FILE_PREFIX = "result-";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /**
+     * The size of the buffer collecting the records.
+     */
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    /**
+     * The interval of writing the buffered records in the background.
+     */
+    static final long GROUP_COMMIT_MILLIS = 100L;
+
+    /**
+     * The journal is due for a checkpoint when it grows larger than the last
+     * snapshot, but not before it has this many bytes, so that the cost of
+     * the snapshots stays proportional to the journaled edits.
+     */
+    private static final long MINIMUM_CHECKPOINT_BYTES = 1L << 20;
+
+    private final Path directory;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private FileChannel channel;
+    private long generation;
+    private long snapshotBytes;
+    private long journalBytes;
+    private int numberOfRecords;
+
+    /**
+     * The thread writing the buffered records periodically.
+     */
+    private Thread flusher;
+
+    /**
+     * The failure of the last background write, reported to the next caller.
+     */
+    private IOException flushFailure;
+
+    private EditJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the number of records journaled after the last snapshot.
+     *
+     * @return the number of records.
+     */
+    public synchronized int getNumberOfRecords() {
+        return numberOfRecords;
+    }
+
+    /**
+     * Returns the number of bytes journaled after the last snapshot,
+     * including the records not yet written.
+     *
+     * @return the number of bytes.
+     */
+    public synchronized long getNumberOfBytes() {
+        return journalBytes;
+    }
+
+    /**
+     * Opens the journal in a directory creating the directory if needed, and
+     * reads the network saved in it.
+     *
+     * @param directory the journal directory.
+     * @return the recovered state.
+     * @throws IOException if the files cannot be read or are malformed.
+     */
+    public static Recovery open(Path directory) throws IOException {
+        Objects.requireNonNull(directory, "The directory is null.");
+        Files.createDirectories(directory);
+
+        EditJournal journal = new EditJournal(directory);
+        Path snapshotPath = directory.resolve(SNAPSHOT_FILE_NAME);
+        Path journalPath = directory.resolve(JOURNAL_FILE_NAME);
+
+        if (!Files.exists(snapshotPath)) {
+            if (Files.exists(journalPath)) {
+                throw new IOException("The journal has no snapshot.");
+            }
+
+            // A new journal. The first checkpoint creates the files.
+            return new Recovery(journal);
+        }
+
+        Recovery recovery = new Recovery(journal);
+        journal.readSnapshot(snapshotPath, recovery);
+        List<String> records = Files.exists(journalPath) ?
+                               journal.readRecords(journalPath) : null;
+
+        if (records == null) {
+            // The journal is missing or precedes the snapshot, which
+            // already includes it.
+            records = Collections.emptyList();
+            journal.startJournal();
+        } else {
+            journal.channel = FileChannel.open(journalPath,
+                                               StandardOpenOption.WRITE);
+            journal.channel.position(journal.channel.size());
+            journal.startFlusher();
+        }
+
+        recovery.records = records;
+        return recovery;
+    }
+
+    /**
+     * Appends a command to the journal. The command is written with the
+     * rest of its group.
+     *
+     * @param command the text of the command.
+     * @throws IOException if writing a full group fails.
+     */
+    public synchronized void append(String command) throws IOException {
+        checkFlushFailure();
+        byte[] bytes = command.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        int recordBytes = RECORD_HEADER_BYTES + bytes.length;
+
+        if (buffer.remaining() < recordBytes) {
+            flush();
+        }
+
+        if (recordBytes > buffer.capacity()) {
+            ByteBuffer record = ByteBuffer.allocate(recordBytes);
+            record.putInt(bytes.length)
+                  .putInt((int) crc.getValue())
+                  .put(bytes)
+                  .flip();
+            ResultSnapshot.writeFully(channel, record);
+            channel.force(false);
+        } else {
+            buffer.putInt(bytes.length)
+                  .putInt((int) crc.getValue())
+                  .put(bytes);
+        }
+
+        journalBytes += recordBytes;
+        ++numberOfRecords;
+    }
+
+    /**
+     * Writes the buffered records and forces them to the disk.
+     *
+     * @throws IOException if writing fails.
+     */
+    public synchronized void flush() throws IOException {
+        checkFlushFailure();
+
+        if (buffer.position() == 0) {
+            return;
+        }
+
+        buffer.flip();
+        ResultSnapshot.writeFully(channel, buffer);
+        buffer.clear();
+        channel.force(false);
+    }
+
+    /**
+     * Returns {@code true} if the journal has grown large enough for being
+     * replaced by a snapshot.
+     *
+     * @return {@code true} if a checkpoint is due.
+     */
+    public synchronized boolean isCheckpointDue() {
+        return journalBytes >= Math.max(MINIMUM_CHECKPOINT_BYTES,
+                                        snapshotBytes);
+    }
+
+    /**
+     * Writes a snapshot of a network and starts an empty journal after it.
+     *
+     * @param nodeList       the nodes of the network.
+     * @param probabilityMap the probability map of the network.
+     * @param options        the compilation options.
+     * @param result         the result compiled from the network with the
+     *                       options, or {@code null} if there is none.
+     * @throws IOException if writing fails.
+     */
+    public synchronized void checkpoint(
+            List<DirectedGraphNode> nodeList,
+            ProbabilityMap<DirectedGraphNode> probabilityMap,
+            CompilationOptions options,
+            ClassificationResult result) throws IOException {
+        if (channel != null) {
+            flush();
+        }
+
+        long nextGeneration = generation + 1;
+
+        if (result != null) {
+            ResultSnapshot.save(resultPath(nextGeneration),
+                                result,
+                                probabilityMap,
+                                options);
+        }
+
+        ByteBuffer nodeSection = ResultSnapshot.encodeNodes(nodeList,
+                                                            probabilityMap);
+        int nodeSectionBytes = nodeSection.remaining();
+        ByteBuffer snapshot = ByteBuffer.allocate(
+                6 * Integer.BYTES + Long.BYTES + Double.BYTES +
+                2 * Integer.BYTES + nodeSectionBytes + Integer.BYTES);
+        CompilationPlan.Engine engine = options.getEngine();
+
+        snapshot.putInt(SNAPSHOT_MAGIC)
+                .putInt(VERSION)
+                .putLong(nextGeneration)
+                .putInt(result != null ? 1 : 0)
+                .putDouble(options.getMinimumStateProbability())
+                .putInt(options.getMaximumNumberOfStates())
+                .putInt(engine == null ? -1 : engine.ordinal())
+                .putInt(options.getStorage().ordinal())
+                .putInt(nodeList.size())
+                .putInt(nodeSectionBytes)
+                .put(nodeSection);
+
+        CRC32 crc = new CRC32();
+        crc.update(snapshot.array(), 0, snapshot.position());
+        snapshot.putInt((int) crc.getValue()).flip();
+
+        writeAtomically(directory.resolve(SNAPSHOT_FILE_NAME), snapshot);
+
+        // The new snapshot is in place, so the journal after the previous
+        // one is obsolete.
+        long previousGeneration = generation;
+        generation = nextGeneration;
+        snapshotBytes = snapshot.limit();
+        startJournal();
+        Files.deleteIfExists(resultPath(previousGeneration));
+    }
+
+    /**
+     * Writes the buffered records and closes the journal.
+     *
+     * @throws IOException if writing fails.
+     */
+    public void close() throws IOException {
+        Thread thread;
+
+        synchronized (this) {
+            thread = flusher;
+            flusher = null;
+        }
+
+        if (thread != null) {
+            thread.interrupt();
+
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized (this) {
+            if (channel == null) {
+                return;
+            }
+
+            try {
+                flush();
+            } finally {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    private void checkFlushFailure() throws IOException {
+        if (flushFailure != null) {
+            IOException failure = flushFailure;
+            flushFailure = null;
+            throw failure;
+        }
+    }
+
+    /**
+     * Starts the thread writing the buffered records periodically.
+     */
+    private void startFlusher() {
+        flusher = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(GROUP_COMMIT_MILLIS);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+
+                synchronized (this) {
+                    if (channel == null || flushFailure != null) {
+                        continue;
+                    }
+
+                    try {
+                        flush();
+                    } catch (IOException ex) {
+                        flushFailure = ex;
+                    }
+                }
+            }
+        }, "journal-flusher");
+
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    private Path resultPath(long generation) {
+        return directory.resolve(RESULT_FILE_PREFIX + generation);
+    }
+
+    private void startJournal() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_BYTES);
+        header.putInt(JOURNAL_MAGIC)
+              .putInt(VERSION)
+              .putLong(generation)
+              .flip();
+
+        Path journalPath = directory.resolve(JOURNAL_FILE_NAME);
+        writeAtomically(journalPath, header);
+        channel = FileChannel.open(journalPath, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        journalBytes = 0L;
+        numberOfRecords = 0;
+
+        if (flusher == null) {
+            startFlusher();
+        }
+    }
+
+    private static void writeAtomically(Path path, ByteBuffer content)
+            throws IOException {
+        Path temporaryPath =
+                path.resolveSibling(path.getFileName() + TEMPORARY_SUFFIX);
+
+        try (FileChannel channel = FileChannel.open(
+                temporaryPath,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ResultSnapshot.writeFully(channel, content);
+            channel.force(true);
+        } catch (IOException ex) {
+            Files.deleteIfExists(temporaryPath);
+            throw ex;
+        }
+
+        ResultSnapshot.moveAtomically(temporaryPath, path);
+    }
+
+    private void readSnapshot(Path path, Recovery recovery)
+            throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer snapshot = ByteBuffer.wrap(bytes);
+
+        try {
+            if (snapshot.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a journal snapshot.");
+            }
+
+            int version = snapshot.getInt();
+
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " +
+                                      version + ".");
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length - Integer.BYTES);
+
+            if (ByteBuffer.wrap(bytes, bytes.length - Integer.BYTES,
+                                Integer.BYTES).getInt() !=
+                    (int) crc.getValue()) {
+                throw new IOException("The snapshot checksum does not " +
+                                      "match.");
+            }
+
+            generation = snapshot.getLong();
+            boolean hasResult = snapshot.getInt() != 0;
+            recovery.minimumStateProbability = snapshot.getDouble();
+            recovery.maximumNumberOfStates = snapshot.getInt();
+            int engine = snapshot.getInt();
+            int storage = snapshot.getInt();
+            int numberOfNodes = snapshot.getInt();
+            int nodeSectionBytes = snapshot.getInt();
+            CompilationPlan.Engine[] engines =
+                    CompilationPlan.Engine.values();
+            CompilationOptions.Storage[] storages =
+                    CompilationOptions.Storage.values();
+
+            if (generation < 1 ||
+                    engine < -1 || engine >= engines.length ||
+                    storage < 0 || storage >= storages.length ||
+                    numberOfNodes < 0 ||
+                    nodeSectionBytes != snapshot.remaining() -
+                                        Integer.BYTES) {
+                throw new IOException("Corrupted snapshot header.");
+            }
+
+            recovery.engine = engine < 0 ? null : engines[engine];
+            recovery.storage = storages[storage];
+            recovery.nodeList =
+                    ResultSnapshot.decodeNodes(snapshot.slice(),
+                                               numberOfNodes,
+                                               recovery.probabilityMap);
+
+            if (hasResult) {
+                recovery.resultPath = resultPath(generation);
+            }
+        } catch (RuntimeException ex) {
+            // Thrown by the buffer on overrun.
+            throw new IOException("Corrupted snapshot.", ex);
+        }
+
+        snapshotBytes = bytes.length;
+    }
+
+    /**
+     * Reads the records of the journal, truncating the journal before the
+     * first record torn by a crash.
+     *
+     * @param path the path of the journal.
+     * @return the commands in the records, or {@code null} if the journal
+     *         is older than the snapshot.
+     * @throws IOException if reading fails or the journal is malformed.
+     */
+    private List<String> readRecords(Path path) throws IOException {
+        ByteBuffer journal = ByteBuffer.wrap(Files.readAllBytes(path));
+
+        if (journal.remaining() < JOURNAL_HEADER_BYTES ||
+                journal.getInt() != JOURNAL_MAGIC ||
+                journal.getInt() != VERSION) {
+            throw new IOException("Not a journal of a supported version.");
+        }
+
+        long journalGeneration = journal.getLong();
+
+        if (journalGeneration < generation) {
+            return null;
+        }
+
+        if (journalGeneration > generation) {
+            throw new IOException("The journal of generation " +
+                                  journalGeneration + " has no snapshot.");
+        }
+
+        List<String> records = new ArrayList<>();
+        CRC32 crc = new CRC32();
+
+        while (journal.remaining() >= RECORD_HEADER_BYTES) {
+            int length = journal.getInt();
+            int checksum = journal.getInt();
+
+            if (length < 0 || length > journal.remaining()) {
+                break;
+            }
+
+            crc.reset();
+            crc.update(journal.array(), journal.position(), length);
+
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            records.add(new String(journal.array(),
+                                   journal.position(),
+                                   length,
+                                   StandardCharsets.UTF_8));
+            journal.position(journal.position() + length);
+            journalBytes += RECORD_HEADER_BYTES + length;
+        }
+
+        numberOfRecords = records.size();
+        long validBytes = JOURNAL_HEADER_BYTES + journalBytes;
+
+        if (validBytes < journal.limit()) {
+            try (FileChannel truncated =
+                    FileChannel.open(path, StandardOpenOption.WRITE)) {
+                truncated.truncate(validBytes);
+                truncated.force(true);
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * This class holds the state read from a journal directory: the network
+     * and the options of the snapshot, the commands to repeat after it, and
+     * the journal for continuing.
+     */
+    public static final class Recovery {
+
+        private final EditJournal journal;
+        private final ProbabilityMap<DirectedGraphNode> probabilityMap =
+                new ProbabilityMap<>();
+        private List<DirectedGraphNode> nodeList;
+        private List<String> records = Collections.emptyList();
+        private Path resultPath;
+        private double minimumStateProbability;
+        private int maximumNumberOfStates = Integer.MAX_VALUE;
+        private CompilationPlan.Engine engine;
+        private CompilationOptions.Storage storage;
+
+        private Recovery(EditJournal journal) {
+            this.journal = journal;
+        }
+
+        public EditJournal getJournal() {
+            return journal;
+        }
+
+        /**
+         * Returns {@code true} if the directory held no journal.
+         *
+         * @return {@code true} if the journal is new.
+         */
+        public boolean isNew() {
+            return nodeList == null;
+        }
+
+        public List<DirectedGraphNode> getNodeList() {
+            return nodeList;
+        }
+
+        public ProbabilityMap<DirectedGraphNode> getProbabilityMap() {
+            return probabilityMap;
+        }
+
+        /**
+         * Returns the commands journaled after the snapshot.
+         *
+         * @return the command list.
+         */
+        public List<String> getRecords() {
+            return records;
+        }
+
+        /**
+         * Returns the path of the result compiled from the network of the
+         * snapshot.
+         *
+         * @return the path, or {@code null} if the snapshot has no result.
+         */
+        public Path getResultPath() {
+            return resultPath;
+        }
+
+        /**
+         * Restores the compilation options of the snapshot.
+         *
+         * @param options the options to restore.
+         */
+        public void restoreOptions(CompilationOptions options) {
+            options.disablePruning();
+            options.setMinimumStateProbability(minimumStateProbability);
+            options.setMaximumNumberOfStates(maximumNumberOfStates);
+            options.setEngine(engine);
+            options.setStorage(storage);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * This class computes an order for eliminating the variables of a set of
+ * factors using the greedy minimum degree heuristic on the interaction graph,
+ * in which two variables are adjacent if they appear in a common factor.
+ * Eliminating a variable connects all its neighbors to each other.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+final class EliminationOrder {
+
+    /**
+     * The variables in elimination order.
+     */
+    private final int[] order;
+
+    /**
+     * The size of the largest set of variables involved in a single
+     * elimination step, that is, the eliminated variable and its neighbors.
+     */
+    private final int maximumClusterSize;
+
+    /**
+     * The sum of the table sizes of all elimination steps.
+     */
+    private final double cost;
+
+    /**
+     * Computes the elimination order.
+     *
+     * @param numberOfVariables the number of variables.
+     * @param scopes            the variable scopes of the factors.
+     */
+    EliminationOrder(int numberOfVariables, List<int[]> scopes) {
+        List<Set<Integer>> neighbors = new ArrayList<>(numberOfVariables);
+
+        for (int i = 0; i < numberOfVariables; ++i) {
+            neighbors.add(new HashSet<>());
+        }
+
+        for (int[] scope : scopes) {
+            for (int a : scope) {
+                for (int b : scope) {
+                    if (a != b) {
+                        neighbors.get(a).add(b);
+                    }
+                }
+            }
+        }
+
+        // Each entry is {degree, variable}. Entries get stale as degrees
+        // change, and are skipped when polled.
+        PriorityQueue<int[]> queue =
+                new PriorityQueue<>(Math.max(1, numberOfVariables),
+                                    (a, b) -> a[0] != b[0] ?
+                                              Integer.compare(a[0], b[0]) :
+                                              Integer.compare(a[1], b[1]));
+        boolean[] eliminated = new boolean[numberOfVariables];
+        int maximumClusterSize = 0;
+        double cost = 0.0;
+
+        for (int i = 0; i < numberOfVariables; ++i) {
+            queue.add(new int[]{ neighbors.get(i).size(), i });
+        }
+
+        this.order = new int[numberOfVariables];
+        int index = 0;
+
+        while (!queue.isEmpty()) {
+            int[] entry = queue.poll();
+            int variable = entry[1];
+
+            if (eliminated[variable] ||
+                    entry[0] != neighbors.get(variable).size()) {
+                continue;
+            }
+
+            eliminated[variable] = true;
+            order[index++] = variable;
+
+            Set<Integer> variableNeighbors = neighbors.get(variable);
+            maximumClusterSize = Math.max(maximumClusterSize,
+                                          variableNeighbors.size() + 1);
+            cost += Math.pow(2.0, variableNeighbors.size() + 1);
+
+            for (int neighbor : variableNeighbors) {
+                Set<Integer> neighborSet = neighbors.get(neighbor);
+                neighborSet.remove(variable);
+
+                for (int other : variableNeighbors) {
+                    if (other != neighbor) {
+                        neighborSet.add(other);
+                    }
+                }
+
+                queue.add(new int[]{ neighborSet.size(), neighbor });
+            }
+
+            neighbors.set(variable, null);
+        }
+
+        this.maximumClusterSize = maximumClusterSize;
+        this.cost = cost;
+    }
+
+    int[] getOrder() {
+        return order;
+    }
+
+    int getMaximumClusterSize() {
+        return maximumClusterSize;
+    }
+
+    double getCost() {
+        return cost;
+    }
+}
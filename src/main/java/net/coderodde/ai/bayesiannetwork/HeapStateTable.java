@@ -0,0 +1,156 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * This class stores the system states in growable arrays on the Java heap.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+final class HeapStateTable extends StateTable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The size of the buffer for writing the arrays to a channel.
+     */
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private long[] words;
+    private double[] probabilities;
+    private int numberOfStates;
+
+    HeapStateTable(int numberOfNodes) {
+        this(numberOfNodes,
+             new long[INITIAL_CAPACITY * getWordsPerState(numberOfNodes)],
+             new double[INITIAL_CAPACITY],
+             0);
+    }
+
+    HeapStateTable(int numberOfNodes,
+                   long[] words,
+                   double[] probabilities,
+                   int numberOfStates) {
+        super(numberOfNodes);
+        this.words = words;
+        this.probabilities = probabilities;
+        this.numberOfStates = numberOfStates;
+    }
+
+    @Override
+    void add(boolean[] on, double probability) {
+        int wordsPerState = getWordsPerState();
+
+        if (numberOfStates == probabilities.length) {
+            int capacity = 2 * probabilities.length;
+            probabilities = Arrays.copyOf(probabilities, capacity);
+            words = Arrays.copyOf(words, capacity * wordsPerState);
+        }
+
+        int offset = numberOfStates * wordsPerState;
+
+        for (int i = 0; i < getNumberOfNodes(); ++i) {
+            if (on[i]) {
+                words[offset + (i >>> 6)] |= 1L << i;
+            }
+        }
+
+        probabilities[numberOfStates++] = probability;
+    }
+
+    @Override
+    int getNumberOfStates() {
+        return numberOfStates;
+    }
+
+    @Override
+    double getProbability(int state) {
+        return probabilities[state];
+    }
+
+    @Override
+    boolean isOn(int state, int node) {
+        return (words[state * getWordsPerState() + (node >>> 6)] &
+                (1L << node)) != 0L;
+    }
+
+    @Override
+    double getSumOfProbabilities() {
+        double sum = 0.0;
+
+        for (int state = 0; state < numberOfStates; ++state) {
+            sum += probabilities[state];
+        }
+
+        return sum;
+    }
+
+    @Override
+    double[] computeProbabilitySums(long[] aprioriOnMask,
+                                    long[] aprioriOffMask,
+                                    long[] posterioriOnMask,
+                                    long[] posterioriOffMask) {
+        int wordsPerState = getWordsPerState();
+        double aprioriProbability = 0.0;
+        double posterioriProbability = 0.0;
+
+        for (int state = 0, offset = 0;
+                 state < numberOfStates;
+                 ++state, offset += wordsPerState) {
+            boolean apriori = true;
+            boolean posteriori = true;
+
+            for (int i = 0; i < wordsPerState && apriori; ++i) {
+                long word = words[offset + i];
+                apriori = matches(word, aprioriOnMask[i], aprioriOffMask[i]);
+                posteriori &= matches(word,
+                                      posterioriOnMask[i],
+                                      posterioriOffMask[i]);
+            }
+
+            if (apriori) {
+                aprioriProbability += probabilities[state];
+
+                if (posteriori) {
+                    posterioriProbability += probabilities[state];
+                }
+            }
+        }
+
+        return new double[]{ posterioriProbability, aprioriProbability };
+    }
+
+    @Override
+    void writeWords(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        int length = numberOfStates * getWordsPerState();
+        int chunk = BUFFER_BYTES / Long.BYTES;
+
+        for (int offset = 0; offset < length; offset += chunk) {
+            int count = Math.min(chunk, length - offset);
+            buffer.clear();
+            buffer.asLongBuffer().put(words, offset, count);
+            buffer.limit(count * Long.BYTES);
+            ResultSnapshot.writeFully(channel, buffer);
+        }
+    }
+
+    @Override
+    void writeProbabilities(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        int chunk = BUFFER_BYTES / Double.BYTES;
+
+        for (int offset = 0; offset < numberOfStates; offset += chunk) {
+            int count = Math.min(chunk, numberOfStates - offset);
+            buffer.clear();
+            buffer.asDoubleBuffer().put(probabilities, offset, count);
+            buffer.limit(count * Double.BYTES);
+            ResultSnapshot.writeFully(channel, buffer);
+        }
+    }
+}
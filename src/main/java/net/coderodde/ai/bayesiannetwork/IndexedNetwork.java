@@ -0,0 +1,184 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * This class lays out a Bayes network in primitive arrays. The nodes are
+ * indexed in the order the classifier visits them: the network is split into
+ * levels, the first level consisting of the root nodes, and each next level
+ * consisting of the children of the previous level whose all parents are
+ * already visited. Within a level, the nodes are sorted by their names.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+final class IndexedNetwork {
+
+    /**
+     * The nodes in visiting order.
+     */
+    private final DirectedGraphNode[] nodes;
+
+    /**
+     * The probabilities of the nodes indexed as in {@code nodes}.
+     */
+    private final double[] probabilities;
+
+    /**
+     * The nodes of the level {@code d} occupy the indices
+     * {@code levelOffsets[d], ..., levelOffsets[d + 1] - 1}.
+     */
+    private final int[] levelOffsets;
+
+    /**
+     * {@code parents[i]} holds the indices of the parents of the node
+     * {@code i}.
+     */
+    private final int[][] parents;
+
+    /**
+     * {@code lastChildLevel[i]} is the deepest level holding a child of the
+     * node {@code i}, or the level of the node itself if it has no children.
+     */
+    private final int[] lastChildLevel;
+
+    /**
+     * Builds the indexed representation of a network.
+     *
+     * @param network        the list of all nodes of a connected network.
+     * @param probabilityMap the map mapping each node to its probability.
+     */
+    IndexedNetwork(List<DirectedGraphNode> network,
+                   ProbabilityMap<DirectedGraphNode> probabilityMap) {
+        List<DirectedGraphNode> nodeList = new ArrayList<>(network.size());
+        List<Integer> offsetList = new ArrayList<>();
+        Set<DirectedGraphNode> visited = new HashSet<>(network.size());
+        Set<DirectedGraphNode> levelSet = new TreeSet<>();
+
+        network.stream().filter((node) -> (node.parents().isEmpty()))
+                        .forEach((node) -> { levelSet.add(node); });
+
+        while (!levelSet.isEmpty()) {
+            Iterator<DirectedGraphNode> iterator = levelSet.iterator();
+
+            // Remove the nodes whose some parents are not yet visited. We will
+            // get to them at deeper levels.
+            outer:
+            while (iterator.hasNext()) {
+                for (DirectedGraphNode parent : iterator.next().parents()) {
+                    if (!visited.contains(parent)) {
+                        iterator.remove();
+                        continue outer;
+                    }
+                }
+            }
+
+            offsetList.add(nodeList.size());
+            nodeList.addAll(levelSet);
+            visited.addAll(levelSet);
+
+            Set<DirectedGraphNode> nextLevelSet = new TreeSet<>();
+
+            for (DirectedGraphNode node : levelSet) {
+                nextLevelSet.addAll(node.children());
+            }
+
+            levelSet.clear();
+            levelSet.addAll(nextLevelSet);
+        }
+
+        offsetList.add(nodeList.size());
+
+        int nodeCount = nodeList.size();
+        Map<DirectedGraphNode, Integer> indexMap = new HashMap<>(nodeCount);
+
+        this.nodes = nodeList.toArray(new DirectedGraphNode[nodeCount]);
+        this.probabilities = new double[nodeCount];
+        this.levelOffsets = new int[offsetList.size()];
+        this.parents = new int[nodeCount][];
+        this.lastChildLevel = new int[nodeCount];
+
+        for (int i = 0; i < levelOffsets.length; ++i) {
+            levelOffsets[i] = offsetList.get(i);
+        }
+
+        for (int i = 0; i < nodeCount; ++i) {
+            indexMap.put(nodes[i], i);
+            probabilities[i] = probabilityMap.get(nodes[i]);
+        }
+
+        for (int level = 0; level < getNumberOfLevels(); ++level) {
+            for (int i = levelOffsets[level];
+                     i < levelOffsets[level + 1];
+                     ++i) {
+                Set<DirectedGraphNode> parentSet = nodes[i].parents();
+                int[] parentIndices = new int[parentSet.size()];
+                int j = 0;
+
+                for (DirectedGraphNode parent : parentSet) {
+                    int parentIndex = indexMap.get(parent);
+                    parentIndices[j++] = parentIndex;
+                    lastChildLevel[parentIndex] = level;
+                }
+
+                parents[i] = parentIndices;
+                lastChildLevel[i] = Math.max(lastChildLevel[i], level);
+            }
+        }
+    }
+
+    int getNumberOfNodes() {
+        return nodes.length;
+    }
+
+    int getNumberOfLevels() {
+        return levelOffsets.length - 1;
+    }
+
+    int getLevelStart(int level) {
+        return levelOffsets[level];
+    }
+
+    int getLevelEnd(int level) {
+        return levelOffsets[level + 1];
+    }
+
+    DirectedGraphNode getNode(int index) {
+        return nodes[index];
+    }
+
+    double getProbability(int index) {
+        return probabilities[index];
+    }
+
+    int[] getParents(int index) {
+        return parents[index];
+    }
+
+    int getLastChildLevel(int index) {
+        return lastChildLevel[index];
+    }
+
+    /**
+     * Returns the list of nodes in visiting order.
+     *
+     * @return the node list.
+     */
+    List<DirectedGraphNode> getNodeList() {
+        List<DirectedGraphNode> nodeList = new ArrayList<>(nodes.length);
+
+        for (DirectedGraphNode node : nodes) {
+            nodeList.add(node);
+        }
+
+        return nodeList;
+    }
+}
@@ -0,0 +1,158 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class counts durations in nanoseconds in buckets of a bounded relative
+ * width, after the HdrHistogram. The durations below
+ * {@code 2 * SUB_BUCKET_COUNT} nanoseconds are counted exactly, and each
+ * further power of two is split into {@code SUB_BUCKET_COUNT} buckets of
+ * equal width, so that a bucket is never wider than about 3 % of the
+ * durations it counts. Recording a duration is lock-free and allocates
+ * nothing, so that it may be done on every query from many threads.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+final class LatencyHistogram {
+
+    /**
+     * The base two logarithm of the number of buckets per power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The number of buckets covering all the non-negative {@code long}
+     * values.
+     */
+    private static final int NUMBER_OF_BUCKETS =
+            (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts =
+            new AtomicLongArray(NUMBER_OF_BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maximumNanos = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds, taken as zero if negative.
+     */
+    void record(long nanos) {
+        nanos = Math.max(0L, nanos);
+        counts.incrementAndGet(getBucket(nanos));
+        totalCount.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+
+        long maximum;
+
+        while ((maximum = maximumNanos.get()) < nanos &&
+                !maximumNanos.compareAndSet(maximum, nanos)) {
+            // Retry.
+        }
+    }
+
+    long getCount() {
+        return totalCount.get();
+    }
+
+    long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    long getMaximumNanos() {
+        return maximumNanos.get();
+    }
+
+    /**
+     * Returns the duration that the given fraction of the recorded durations
+     * do not exceed, rounded up to the end of its bucket.
+     *
+     * @param quantile the fraction between 0 and 1.
+     * @return the duration in nanoseconds, or zero if nothing is recorded.
+     */
+    long getQuantile(double quantile) {
+        long count = getCount();
+
+        if (count == 0L) {
+            return 0L;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil(quantile * count));
+        long seen = 0L;
+
+        for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; ++bucket) {
+            seen += counts.get(bucket);
+
+            if (seen >= rank) {
+                return Math.min(getHighestValue(bucket), getMaximumNanos());
+            }
+        }
+
+        // Recorded concurrently with this scan.
+        return getMaximumNanos();
+    }
+
+    /**
+     * Returns the number of the recorded durations of at most a given
+     * duration, counting whole buckets: a bucket is counted if its every
+     * duration is within the limit.
+     *
+     * @param nanos the limit in nanoseconds.
+     * @return the number of durations.
+     */
+    long getCountAtMost(long nanos) {
+        long count = 0L;
+
+        for (int bucket = 0;
+                bucket < NUMBER_OF_BUCKETS && getHighestValue(bucket) <= nanos;
+                ++bucket) {
+            count += counts.get(bucket);
+        }
+
+        return count;
+    }
+
+    /**
+     * Forgets all the recorded durations. The durations recorded
+     * concurrently may be forgotten in part.
+     */
+    void reset() {
+        for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; ++bucket) {
+            counts.set(bucket, 0L);
+        }
+
+        totalCount.set(0L);
+        totalNanos.set(0L);
+        maximumNanos.set(0L);
+    }
+
+    /**
+     * Returns the bucket of a duration. The durations below
+     * {@code 2 * SUB_BUCKET_COUNT} are their own buckets. The larger ones
+     * are shifted right until they fall into
+     * {@code [SUB_BUCKET_COUNT, 2 * SUB_BUCKET_COUNT)}, and the buckets of
+     * each shift follow those of the previous one.
+     */
+    private static int getBucket(long nanos) {
+        int shift = Math.max(0, Long.SIZE - 1 -
+                                Long.numberOfLeadingZeros(nanos) -
+                                SUB_BUCKET_BITS);
+        return (shift << SUB_BUCKET_BITS) + (int) (nanos >>> shift);
+    }
+
+    private static long getHighestValue(int bucket) {
+        if (bucket < 2 * SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+
+        int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+        long lowestValue = (long) (bucket - (shift << SUB_BUCKET_BITS))
+                           << shift;
+        return lowestValue + (1L << shift) - 1L;
+    }
+}
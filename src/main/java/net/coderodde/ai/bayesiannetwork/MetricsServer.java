@@ -0,0 +1,137 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * This class serves the query metrics in the Prometheus text format over
+ * HTTP on a local port, at the path {@code /metrics}. The requests are
+ * answered one at a time by a daemon thread, as the metrics are scraped only
+ * every few seconds, and the connection is closed after each answer.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class MetricsServer {
+
+    private static final String PATH = "/metrics";
+
+    private static final String CONTENT_TYPE =
+            "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * The milliseconds to wait for a client to send its request.
+     */
+    private static final int READ_TIMEOUT = 5000;
+
+    private final QueryMetrics metrics;
+    private final ServerSocket serverSocket;
+
+    /**
+     * Starts serving the metrics on the loopback address.
+     *
+     * @param metrics the metrics to serve.
+     * @param port    the port to listen to, or zero for any free port.
+     * @throws IOException if the port cannot be listened to.
+     */
+    public MetricsServer(QueryMetrics metrics, int port) throws IOException {
+        this.metrics = Objects.requireNonNull(metrics, "The metrics is null.");
+        this.serverSocket =
+                new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(this::serve, "metrics");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stops serving the metrics.
+     */
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException ex) {
+            // Closed anyway.
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "http://" + serverSocket.getInetAddress().getHostAddress() +
+               ":" + getPort() + PATH;
+    }
+
+    private void serve() {
+        while (true) {
+            try (Socket socket = serverSocket.accept()) {
+                socket.setSoTimeout(READ_TIMEOUT);
+                handleRequest(socket);
+            } catch (SocketException ex) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+            } catch (IOException ex) {
+                // The client went away.
+            }
+        }
+    }
+
+    private void handleRequest(Socket socket) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(),
+                                      StandardCharsets.US_ASCII));
+        String requestLine = reader.readLine();
+        String line;
+
+        while ((line = reader.readLine()) != null && !line.isEmpty()) {
+            // Skip the headers.
+        }
+
+        if (requestLine == null) {
+            return;
+        }
+
+        String[] tokens = requestLine.split(" ");
+        String status;
+        String body;
+
+        if (tokens.length < 2 ||
+                !(tokens[0].equals("GET") || tokens[0].equals("HEAD"))) {
+            status = "405 Method Not Allowed";
+            body = "Only GET is supported.\n";
+        } else if (!tokens[1].equals(PATH) &&
+                   !tokens[1].startsWith(PATH + "?")) {
+            status = "404 Not Found";
+            body = "The metrics are at " + PATH + ".\n";
+        } else {
+            status = "200 OK";
+            body = metrics.toPrometheusText();
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String header = "HTTP/1.1 " + status + "\r\n" +
+                        "Content-Type: " + CONTENT_TYPE + "\r\n" +
+                        "Content-Length: " + bytes.length + "\r\n" +
+                        "Connection: close\r\n\r\n";
+        OutputStream output = socket.getOutputStream();
+        output.write(header.getBytes(StandardCharsets.US_ASCII));
+
+        if (!tokens[0].equals("HEAD")) {
+            output.write(bytes);
+        }
+
+        output.flush();
+    }
+}
@@ -0,0 +1,426 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * This class generates random connected networks for scale and stress
+ * testing. The nodes are laid out in {@code depth} levels of nearly equal
+ * size, and each node beyond the first level gets between one and
+ * {@code maximumFanIn} parents: one in the previous level, so that the
+ * longest path has exactly {@code depth} nodes, and the rest anywhere before
+ * its level. A node gets at most {@code maximumFanOut} children, except that
+ * the roots left in separate components get an extra arc into the rest of
+ * the network. The probabilities are distributed uniformly within a range.
+ * <p>
+ * The same settings and seed always produce the same network, which is
+ * emitted as a script of {@code new} and {@code connect} commands or added
+ * to a network through a {@link BulkNetworkLoader}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class NetworkGenerator {
+
+    /**
+     * The number of random tries for finding an additional parent before
+     * giving up on it.
+     */
+    private static final int PARENT_TRIES = 8;
+
+    /**
+     * The probabilities are rounded to this many decimals, so that the
+     * scripts stay readable.
+     */
+    private static final double PROBABILITY_SCALE = 1e4;
+
+    private int numberOfNodes = 20;
+    private int depth = 4;
+    private int maximumFanIn = 3;
+    private int maximumFanOut = Integer.MAX_VALUE;
+    private double minimumProbability = 0.05;
+    private double maximumProbability = 0.95;
+    private long seed = 1L;
+    private String prefix = "n";
+
+    // The generated network.
+    private double[] probabilities;
+    private int[] fanIn;
+    private int[] fanOut;
+    private int[] component;
+    private int[] tails;
+    private int[] heads;
+    private int numberOfArcs;
+
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    public void setNumberOfNodes(int numberOfNodes) {
+        if (numberOfNodes < 1) {
+            throw new IllegalArgumentException(
+                    "The number of nodes must be at least 1, was " +
+                    numberOfNodes + ".");
+        }
+
+        this.numberOfNodes = numberOfNodes;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Sets the number of levels, that is, the number of nodes on the longest
+     * path of the network.
+     *
+     * @param depth the depth.
+     */
+    public void setDepth(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException(
+                    "The depth must be at least 1, was " + depth + ".");
+        }
+
+        this.depth = depth;
+    }
+
+    public int getMaximumFanIn() {
+        return maximumFanIn;
+    }
+
+    public void setMaximumFanIn(int maximumFanIn) {
+        if (maximumFanIn < 1) {
+            throw new IllegalArgumentException(
+                    "The maximum fan-in must be at least 1, was " +
+                    maximumFanIn + ".");
+        }
+
+        this.maximumFanIn = maximumFanIn;
+    }
+
+    public int getMaximumFanOut() {
+        return maximumFanOut;
+    }
+
+    public void setMaximumFanOut(int maximumFanOut) {
+        if (maximumFanOut < 1) {
+            throw new IllegalArgumentException(
+                    "The maximum fan-out must be at least 1, was " +
+                    maximumFanOut + ".");
+        }
+
+        this.maximumFanOut = maximumFanOut;
+    }
+
+    public double getMinimumProbability() {
+        return minimumProbability;
+    }
+
+    public double getMaximumProbability() {
+        return maximumProbability;
+    }
+
+    /**
+     * Sets the range the node probabilities are drawn from uniformly.
+     *
+     * @param minimumProbability the smallest probability.
+     * @param maximumProbability the largest probability.
+     */
+    public void setProbabilityRange(double minimumProbability,
+                                    double maximumProbability) {
+        if (!(0.0 <= minimumProbability &&
+              minimumProbability <= maximumProbability &&
+              maximumProbability <= 1.0)) {
+            throw new IllegalArgumentException(
+                    "The probability range [" + minimumProbability + ", " +
+                    maximumProbability + "] is not within [0, 1].");
+        }
+
+        this.minimumProbability = minimumProbability;
+        this.maximumProbability = maximumProbability;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Sets the prefix of the node names, which are the prefix followed by the
+     * index of the node.
+     *
+     * @param prefix the prefix.
+     */
+    public void setPrefix(String prefix) {
+        Objects.requireNonNull(prefix, "The prefix is null.");
+
+        if (!Utils.isValidIdentifier(prefix)) {
+            throw new IllegalArgumentException(
+                    "\"" + prefix + "\" is a bad node identifier.");
+        }
+
+        this.prefix = prefix;
+    }
+
+    /**
+     * Writes the network as a script of {@code new} and {@code connect}
+     * commands.
+     *
+     * @param writer the writer to write to.
+     * @throws IOException if writing fails.
+     */
+    public void writeScript(Writer writer) throws IOException {
+        generate();
+
+        for (int node = 0; node < numberOfNodes; ++node) {
+            writer.write("new " + prefix + node + " " +
+                         probabilities[node] + "\n");
+        }
+
+        for (int arc = 0; arc < numberOfArcs; ++arc) {
+            writer.write("connect " + prefix + tails[arc] +
+                         " to " + prefix + heads[arc] + "\n");
+        }
+    }
+
+    /**
+     * Adds the nodes and the arcs of the network to a loader. The caller
+     * {@link BulkNetworkLoader#finish() finishes} the loading.
+     *
+     * @param loader the loader.
+     */
+    public void addTo(BulkNetworkLoader loader) {
+        generate();
+
+        for (int node = 0; node < numberOfNodes; ++node) {
+            loader.addNode(prefix + node, probabilities[node]);
+        }
+
+        for (int arc = 0; arc < numberOfArcs; ++arc) {
+            loader.addArc(prefix + tails[arc], prefix + heads[arc]);
+        }
+    }
+
+    /**
+     * Returns the number of arcs of the network generated last.
+     *
+     * @return the number of arcs.
+     */
+    public int getNumberOfArcs() {
+        return numberOfArcs;
+    }
+
+    private void generate() {
+        if (depth > numberOfNodes) {
+            throw new IllegalArgumentException(
+                    "The depth " + depth + " exceeds the number of nodes " +
+                    numberOfNodes + ".");
+        }
+
+        if (depth == 1 && numberOfNodes > 1) {
+            throw new IllegalArgumentException(
+                    "A network of depth 1 with more than one node is not " +
+                    "connected.");
+        }
+
+        for (int level = 1; level < depth; ++level) {
+            if (getLevelSize(level) >
+                    (long) getLevelSize(level - 1) * maximumFanOut) {
+                throw new IllegalArgumentException(
+                        "The maximum fan-out " + maximumFanOut + " is too " +
+                        "small for " + numberOfNodes + " nodes in " +
+                        depth + " levels.");
+            }
+        }
+
+        Random random = new Random(seed);
+        probabilities = new double[numberOfNodes];
+        fanIn = new int[numberOfNodes];
+        fanOut = new int[numberOfNodes];
+        component = new int[numberOfNodes];
+        tails = new int[Math.max(16, numberOfNodes)];
+        heads = new int[tails.length];
+        numberOfArcs = 0;
+
+        for (int node = 0; node < numberOfNodes; ++node) {
+            double probability =
+                    minimumProbability +
+                    (maximumProbability - minimumProbability) *
+                    random.nextDouble();
+            probabilities[node] =
+                    Math.round(probability * PROBABILITY_SCALE) /
+                    PROBABILITY_SCALE;
+            component[node] = node;
+        }
+
+        for (int level = 1; level < depth; ++level) {
+            int previousBegin = getLevelBegin(level - 1);
+            int begin = getLevelBegin(level);
+            int end = getLevelBegin(level + 1);
+
+            // First the parent in the previous level for every node of the
+            // level, so that the additional parents cannot exhaust its
+            // fan-out.
+            int firstArc = numberOfArcs;
+
+            for (int node = begin; node < end; ++node) {
+                int parent = findParent(previousBegin, begin,
+                                        previousBegin +
+                                        random.nextInt(begin - previousBegin));
+                addArc(parent, node);
+            }
+
+            for (int node = begin; node < end; ++node) {
+                int numberOfParents =
+                        Math.min(begin, 1 + random.nextInt(maximumFanIn));
+
+                for (int i = 1; i < numberOfParents; ++i) {
+                    addRandomParent(node, 
+                                    tails[firstArc + node - begin], 
+                                    begin, 
+                                    random);
+                }
+            }
+        }
+
+        connectComponents(random);
+    }
+
+    /**
+     * Finds the first node with spare fan-out within a range, starting at a
+     * given node and wrapping around.
+     */
+    private int findParent(int begin, int end, int start) {
+        for (int node = start; node < end; ++node) {
+            if (fanOut[node] < maximumFanOut) {
+                return node;
+            }
+        }
+
+        for (int node = begin; node < start; ++node) {
+            if (fanOut[node] < maximumFanOut) {
+                return node;
+            }
+        }
+
+        throw new IllegalStateException("No parent with spare fan-out.");
+    }
+
+    private void addRandomParent(int node, 
+                                 int firstParent, 
+                                 int end, 
+                                 Random random) {
+        for (int tries = 0; tries < PARENT_TRIES; ++tries) {
+            int parent = random.nextInt(end);
+
+            if (fanOut[parent] < maximumFanOut && 
+                    parent != firstParent && 
+                    !hasArc(parent, node)) {
+                addArc(parent, node);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks whether an additional arc into a node exists. The additional 
+     * arcs into a node are added one after another, so only the last ones 
+     * are scanned.
+     */
+    private boolean hasArc(int tail, int head) {
+        for (int arc = numberOfArcs - 1;
+                arc >= 0 && heads[arc] == head;
+                --arc) {
+            if (tails[arc] == tail) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Connects each root left in another component than the first node of
+     * the second level to a node of that component beyond the first level.
+     * The arcs go from the first level onwards, so no cycle is created.
+     */
+    private void connectComponents(Random random) {
+        if (depth == 1) {
+            return;
+        }
+
+        int begin = getLevelBegin(1);
+        int main = find(begin);
+
+        for (int root = 0; root < begin; ++root) {
+            if (find(root) == main) {
+                continue;
+            }
+
+            int start = begin + random.nextInt(numberOfNodes - begin);
+            int head = -1;
+
+            // Prefer a node with spare fan-in.
+            for (int i = 0; i < numberOfNodes - begin; ++i) {
+                int node = start + i < numberOfNodes ?
+                           start + i :
+                           start + i - numberOfNodes + begin;
+
+                if (find(node) == main &&
+                        (head < 0 || fanIn[node] < maximumFanIn)) {
+                    head = node;
+
+                    if (fanIn[node] < maximumFanIn) {
+                        break;
+                    }
+                }
+            }
+
+            addArc(root, head);
+            main = find(main);
+        }
+    }
+
+    private void addArc(int tail, int head) {
+        if (numberOfArcs == tails.length) {
+            tails = Arrays.copyOf(tails, 2 * tails.length);
+            heads = Arrays.copyOf(heads, 2 * heads.length);
+        }
+
+        tails[numberOfArcs] = tail;
+        heads[numberOfArcs] = head;
+        ++numberOfArcs;
+        ++fanOut[tail];
+        ++fanIn[head];
+        component[find(tail)] = find(head);
+    }
+
+    private int find(int node) {
+        while (component[node] != node) {
+            component[node] = component[component[node]];
+            node = component[node];
+        }
+
+        return node;
+    }
+
+    private int getLevelBegin(int level) {
+        return (int) ((long) level * numberOfNodes / depth);
+    }
+
+    private int getLevelSize(int level) {
+        return getLevelBegin(level + 1) - getLevelBegin(level);
+    }
+}
@@ -0,0 +1,172 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class holds an immutable version of a compiled network: the nodes by
+ * their names as they were when compiled, and the structures answering the
+ * queries. The network itself keeps being edited in place, yet a version is
+ * never modified after publication, so the queries may read a version while
+ * the next one is being built.
+ * <p>
+ * The versions hold a reference to their classification result, passed on
+ * from a version to the next one as long as they share the result, and the
+ * readers acquire a reference of their own while querying a version. When a
+ * version is replaced by one without its result, the off-heap memory of the
+ * result is thus freed as soon as the last reader releases it.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+final class NetworkVersion {
+
+    /**
+     * The number of modifications of the network this version was compiled
+     * after.
+     */
+    private final long modificationCount;
+
+    private final Map<String, DirectedGraphNode> nodeMap;
+    private final ClassificationResult result;
+    private final ArithmeticCircuit circuit;
+    private final CompilationPlan.Engine engine;
+
+    /**
+     * Constructs a version holding the reference of the versions to the
+     * result.
+     */
+    private NetworkVersion(long modificationCount,
+                           Map<String, DirectedGraphNode> nodeMap,
+                           ClassificationResult result,
+                           ArithmeticCircuit circuit,
+                           CompilationPlan.Engine engine) {
+        this.modificationCount = modificationCount;
+        this.nodeMap = nodeMap;
+        this.result = result;
+        this.circuit = circuit;
+        this.engine = engine;
+    }
+
+    /**
+     * Creates a version of a network with nothing compiled yet.
+     *
+     * @param modificationCount the number of modifications of the network.
+     * @param nodeMap           the map mapping the node names to the nodes.
+     * @return the version.
+     */
+    static NetworkVersion of(long modificationCount,
+                             Map<String, DirectedGraphNode> nodeMap) {
+        return new NetworkVersion(
+                modificationCount,
+                Collections.unmodifiableMap(new HashMap<>(nodeMap)),
+                null,
+                null,
+                null);
+    }
+
+    long getModificationCount() {
+        return modificationCount;
+    }
+
+    Map<String, DirectedGraphNode> getNodeMap() {
+        return nodeMap;
+    }
+
+    ClassificationResult getResult() {
+        return result;
+    }
+
+    ArithmeticCircuit getCircuit() {
+        return circuit;
+    }
+
+    /**
+     * Returns the engine answering the queries.
+     *
+     * @return the engine, or {@code null} if not chosen yet.
+     */
+    CompilationPlan.Engine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Returns a version with a new result in place of the result of this
+     * version, taking over the reference to the new result.
+     *
+     * @param newResult the new result.
+     * @return the new version.
+     */
+    NetworkVersion withResult(ClassificationResult newResult) {
+        return new NetworkVersion(modificationCount,
+                                  nodeMap,
+                                  newResult,
+                                  circuit,
+                                  engine);
+    }
+
+    /**
+     * Returns a version with a new circuit in place of the circuit of this
+     * version.
+     *
+     * @param newCircuit the new circuit.
+     * @return the new version.
+     */
+    NetworkVersion withCircuit(ArithmeticCircuit newCircuit) {
+        return new NetworkVersion(modificationCount,
+                                  nodeMap,
+                                  result,
+                                  newCircuit,
+                                  engine);
+    }
+
+    /**
+     * Returns a version answering the queries with an engine.
+     *
+     * @param newEngine the engine.
+     * @return the new version.
+     */
+    NetworkVersion withEngine(CompilationPlan.Engine newEngine) {
+        return new NetworkVersion(modificationCount,
+                                  nodeMap,
+                                  result,
+                                  circuit,
+                                  newEngine);
+    }
+
+    /**
+     * Acquires a reference to this version for reading it.
+     *
+     * @return {@code true} if this version may be read until
+     *         {@link #release() released}, {@code false} if it has been
+     *         retired and freed meanwhile.
+     */
+    boolean acquire() {
+        return result == null || result.retain();
+    }
+
+    /**
+     * Releases a reference acquired for reading this version.
+     */
+    void release() {
+        if (result != null) {
+            result.release();
+        }
+    }
+
+    /**
+     * Retires this version replaced by another one. If the other version does
+     * not share the result of this one, releases the reference of the
+     * versions to the result.
+     *
+     * @param successor the version replacing this one, or {@code null}.
+     */
+    void retire(NetworkVersion successor) {
+        if (result != null &&
+                (successor == null || successor.result != result)) {
+            result.release();
+        }
+    }
+}
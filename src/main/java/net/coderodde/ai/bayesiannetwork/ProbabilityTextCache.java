@@ -0,0 +1,45 @@
+package net.coderodde.ai.bayesiannetwork;
+
+/**
+ * This class caches the texts of recently formatted probabilities. The
+ * probabilities of the system states are products of few node probabilities,
+ * so they take few distinct values, and formatting each of them once saves
+ * most of the cost of writing long state lists. The cache is direct-mapped:
+ * a probability may only be kept in the single slot its bits hash to.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+final class ProbabilityTextCache {
+
+    /**
+     * The base two logarithm of the number of the cached texts.
+     */
+    private static final int CACHE_BITS = 10;
+    private static final int CACHE_SIZE = 1 << CACHE_BITS;
+
+    private final long[] probabilityBits = new long[CACHE_SIZE];
+    private final String[] texts = new String[CACHE_SIZE];
+
+    /**
+     * Returns the text of a probability, as given by {@code Double.toString}.
+     *
+     * @param probability the probability.
+     * @return the text of the probability.
+     */
+    String toText(double probability) {
+        long bits = Double.doubleToRawLongBits(probability);
+        int slot = (int) (bits ^ (bits >>> 32)) * 0x9E3779B9 >>>
+                   (Integer.SIZE - CACHE_BITS);
+        String text = texts[slot];
+
+        if (text == null || probabilityBits[slot] != bits) {
+            text = Double.toString(probability);
+            texts[slot] = text;
+            probabilityBits[slot] = bits;
+        }
+
+        return text;
+    }
+}
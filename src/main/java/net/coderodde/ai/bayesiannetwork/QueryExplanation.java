@@ -0,0 +1,168 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class describes how a query was answered: the answer, the engine and
+ * the work it did, the size of the subnetwork relevant to the query, and the
+ * time spent in each step. The relevant subnetwork consists of the query and
+ * evidence nodes and their ancestors, the rest of the nodes being barren:
+ * they cannot change the answer, yet the engines evaluate the whole network.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class QueryExplanation {
+
+    /**
+     * The maximum number of nodes of the elimination order to describe.
+     */
+    private static final int MAXIMUM_ORDER_LENGTH = 20;
+
+    CompilationPlan.Engine engine;
+    boolean compiled;
+    double probability;
+    double[] bounds;
+    int numberOfNodes;
+    int numberOfRelevantNodes;
+
+    // The work of the enumeration engine.
+    int numberOfStates;
+    int numberOfMatchingStates;
+    int numberOfMatchingEvidenceStates;
+
+    // The work of the circuit engine.
+    int numberOfCircuitNodes;
+    int numberOfCircuitEdges;
+    long numberOfEvaluatedCircuitNodes;
+    double evidenceProbability;
+    List<DirectedGraphNode> eliminationOrder;
+
+    long prepareNanos;
+    long parseNanos;
+    long evaluateNanos;
+
+    QueryExplanation() {}
+
+    public CompilationPlan.Engine getEngine() {
+        return engine;
+    }
+
+    public double getProbability() {
+        return probability;
+    }
+
+    /**
+     * Returns the nanoseconds spent making sure the network is compiled,
+     * compiling it if needed.
+     *
+     * @return the duration of the preparation.
+     */
+    public long getPrepareNanos() {
+        return prepareNanos;
+    }
+
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    public long getEvaluateNanos() {
+        return evaluateNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("Answer: ")
+          .append(probability);
+
+        if (bounds != null) {
+            sb.append(" (error bound: [")
+              .append(bounds[0])
+              .append(", ")
+              .append(bounds[1])
+              .append("])");
+        }
+
+        sb.append('\n')
+          .append("Engine: ")
+          .append(engine.name().toLowerCase())
+          .append(compiled ? " (compiled already)\n"
+                           : " (compiled for the query)\n")
+          .append("Relevant subnetwork: ")
+          .append(numberOfRelevantNodes)
+          .append(" of ")
+          .append(numberOfNodes)
+          .append(" nodes\n");
+
+        if (engine == CompilationPlan.Engine.CIRCUIT) {
+            appendCircuitWork(sb);
+        } else {
+            sb.append("States scanned: ")
+              .append(numberOfStates)
+              .append(" in 1 pass (")
+              .append(numberOfMatchingEvidenceStates)
+              .append(" match the evidence, ")
+              .append(numberOfMatchingStates)
+              .append(" the query as well)\n");
+        }
+
+        sb.append("Prepare: ")
+          .append(formatNanos(prepareNanos))
+          .append('\n')
+          .append("Parse: ")
+          .append(formatNanos(parseNanos))
+          .append('\n')
+          .append("Evaluate: ")
+          .append(formatNanos(evaluateNanos));
+
+        return sb.toString();
+    }
+
+    private void appendCircuitWork(StringBuilder sb) {
+        // No second pass if the evidence is impossible.
+        int passes = evidenceProbability == 0.0 ? 1 : 2;
+
+        sb.append("Circuit: ")
+          .append(numberOfCircuitNodes)
+          .append(" nodes, ")
+          .append(numberOfCircuitEdges)
+          .append(eliminationOrder == null 
+                  ? " edges, built by sweeping the levels\n"
+                  : " edges, built by variable elimination\n")
+          .append("Circuit nodes evaluated: ")
+          .append(numberOfEvaluatedCircuitNodes)
+          .append(passes == 1 ? " in 1 pass\n" : " in 2 passes\n")
+          .append("Evidence probability: ")
+          .append(evidenceProbability)
+          .append('\n');
+
+        if (eliminationOrder == null) {
+            return;
+        }
+
+        sb.append("Elimination order: ");
+
+        int length = Math.min(eliminationOrder.size(), MAXIMUM_ORDER_LENGTH);
+
+        for (int i = 0; i < length; ++i) {
+            sb.append(i == 0 ? "" : ", ")
+              .append(eliminationOrder.get(i).getName());
+        }
+
+        if (length < eliminationOrder.size()) {
+            sb.append(", ... (")
+              .append(eliminationOrder.size() - length)
+              .append(" more)");
+        }
+
+        sb.append('\n');
+    }
+
+    private static String formatNanos(long nanos) {
+        return String.format(Locale.ROOT, "%.3f milliseconds", nanos / 1e6);
+    }
+}
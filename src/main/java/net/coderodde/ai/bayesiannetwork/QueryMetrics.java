@@ -0,0 +1,238 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class collects the metrics of the queries: the latency per engine in
+ * a {@link LatencyHistogram}, the number of the states scanned by the
+ * enumeration engine, the errors, and how often the compiled network was
+ * reused, which is a hit, or had to be compiled for the query, which is a
+ * miss. The metrics are written as text or in the Prometheus text exposition
+ * format. Recording allocates nothing and takes no locks.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class QueryMetrics {
+
+    /**
+     * The upper bounds of the buckets written to Prometheus, in seconds.
+     */
+    private static final double[] PROMETHEUS_BUCKETS = {
+        1e-6, 2.5e-6, 5e-6, 1e-5, 2.5e-5, 5e-5, 1e-4, 2.5e-4, 5e-4,
+        1e-3, 2.5e-3, 5e-3, 1e-2, 2.5e-2, 5e-2, 0.1, 0.25, 0.5, 1.0, 2.5,
+        5.0, 10.0
+    };
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+    private static final String[] QUANTILE_NAMES = 
+            { "p50", "p90", "p99", "p99.9" };
+
+    private final LatencyHistogram[] latencies =
+            new LatencyHistogram[CompilationPlan.Engine.values().length];
+    private final AtomicLong scannedStates = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong compiledHits = new AtomicLong();
+    private final AtomicLong compiledMisses = new AtomicLong();
+
+    public QueryMetrics() {
+        for (int i = 0; i < latencies.length; ++i) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Records an answered query.
+     *
+     * @param engine        the engine answering the query.
+     * @param nanos         the time taken by the query in nanoseconds.
+     * @param scannedStates the number of the states scanned.
+     */
+    void recordQuery(CompilationPlan.Engine engine,
+                     long nanos,
+                     long scannedStates) {
+        latencies[engine.ordinal()].record(nanos);
+        this.scannedStates.addAndGet(scannedStates);
+    }
+
+    void recordError() {
+        errors.incrementAndGet();
+    }
+
+    /**
+     * Records whether a query found the network compiled.
+     *
+     * @param hit {@code true} if the network was compiled already.
+     */
+    void recordCompiledVersion(boolean hit) {
+        (hit ? compiledHits : compiledMisses).incrementAndGet();
+    }
+
+    /**
+     * Returns the number of the queries answered.
+     *
+     * @return the number of queries.
+     */
+    public long getNumberOfQueries() {
+        long count = 0L;
+
+        for (LatencyHistogram histogram : latencies) {
+            count += histogram.getCount();
+        }
+
+        return count;
+    }
+
+    /**
+     * Forgets all the metrics.
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : latencies) {
+            histogram.reset();
+        }
+
+        scannedStates.set(0L);
+        errors.set(0L);
+        compiledHits.set(0L);
+        compiledMisses.set(0L);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("Queries: ")
+          .append(getNumberOfQueries())
+          .append(" (errors: ")
+          .append(errors.get())
+          .append(")\n")
+          .append("Compiled network: ")
+          .append(compiledHits.get())
+          .append(" hits, ")
+          .append(compiledMisses.get())
+          .append(" misses\n")
+          .append("States scanned: ")
+          .append(scannedStates.get());
+
+        for (CompilationPlan.Engine engine : CompilationPlan.Engine.values()) {
+            LatencyHistogram histogram = latencies[engine.ordinal()];
+
+            if (histogram.getCount() == 0L) {
+                continue;
+            }
+
+            sb.append('\n')
+              .append(engine.name().toLowerCase())
+              .append(": ")
+              .append(histogram.getCount())
+              .append(" queries, mean ")
+              .append(formatMicros(histogram.getTotalNanos() /
+                                   histogram.getCount()))
+              .append(", max ")
+              .append(formatMicros(histogram.getMaximumNanos()))
+              .append("\n ");
+
+            for (int i = 0; i < QUANTILES.length; ++i) {
+                sb.append(' ')
+                  .append(QUANTILE_NAMES[i])
+                  .append(' ')
+                  .append(formatMicros(histogram.getQuantile(QUANTILES[i])))
+                  .append(i < QUANTILES.length - 1 ? "," : "");
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns the metrics in the Prometheus text exposition format.
+     *
+     * @return the text of the metrics.
+     */
+    public String toPrometheusText() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("# HELP bayesnet_query_duration_seconds ")
+          .append("The time taken by the queries.\n")
+          .append("# TYPE bayesnet_query_duration_seconds histogram\n");
+
+        for (CompilationPlan.Engine engine : CompilationPlan.Engine.values()) {
+            LatencyHistogram histogram = latencies[engine.ordinal()];
+
+            if (histogram.getCount() == 0L) {
+                continue;
+            }
+
+            String label = "engine=\"" + engine.name().toLowerCase() + "\"";
+
+            for (double bound : PROMETHEUS_BUCKETS) {
+                sb.append("bayesnet_query_duration_seconds_bucket{")
+                  .append(label)
+                  .append(",le=\"")
+                  .append(bound)
+                  .append("\"} ")
+                  .append(histogram.getCountAtMost(
+                          (long) (bound * 1e9)))
+                  .append('\n');
+            }
+
+            sb.append("bayesnet_query_duration_seconds_bucket{")
+              .append(label)
+              .append(",le=\"+Inf\"} ")
+              .append(histogram.getCount())
+              .append('\n')
+              .append("bayesnet_query_duration_seconds_sum{")
+              .append(label)
+              .append("} ")
+              .append(histogram.getTotalNanos() / 1e9)
+              .append('\n')
+              .append("bayesnet_query_duration_seconds_count{")
+              .append(label)
+              .append("} ")
+              .append(histogram.getCount())
+              .append('\n');
+        }
+
+        appendCounter(sb,
+                      "bayesnet_query_errors_total",
+                      "The queries failed.",
+                      errors.get());
+        appendCounter(sb,
+                      "bayesnet_query_scanned_states_total",
+                      "The states scanned by the enumeration engine.",
+                      scannedStates.get());
+        appendCounter(sb,
+                      "bayesnet_query_compiled_hits_total",
+                      "The queries finding the network compiled.",
+                      compiledHits.get());
+        appendCounter(sb,
+                      "bayesnet_query_compiled_misses_total",
+                      "The queries compiling the network.",
+                      compiledMisses.get());
+        return sb.toString();
+    }
+
+    private static void appendCounter(StringBuilder sb,
+                                      String name,
+                                      String help,
+                                      long value) {
+        sb.append("# HELP ")
+          .append(name)
+          .append(' ')
+          .append(help)
+          .append('\n')
+          .append("# TYPE ")
+          .append(name)
+          .append(" counter\n")
+          .append(name)
+          .append(' ')
+          .append(value)
+          .append('\n');
+    }
+
+    private static String formatMicros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f us", nanos / 1e3);
+    }
+}
@@ -0,0 +1,152 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class answers the commands of the clients connecting to a local TCP
+ * port, so that many clients share a network compiled once. The protocol is
+ * line based: a client sends a command per line in UTF-8, and the server
+ * answers with the output of the command, errors included, followed by a
+ * line holding a single dot. No output line of a command is a single dot.
+ * The command 'quit' closes the connection.
+ * <p>
+ * Each connection is handled by a thread of its own: a virtual thread if the
+ * Java runtime has them, a platform thread otherwise. The commands print to
+ * {@code System.out} and {@code System.err}, which are replaced with
+ * {@link ThreadLocalOutputStream}s writing to the connection of the printing
+ * thread. The queries against the
+ * compiled network run concurrently, the rest of the commands one at a time,
+ * as arranged by {@link App#handleConcurrentCommand(String)}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class QueryServer {
+
+    /**
+     * The line ending the answer to a command.
+     */
+    private static final byte[] END_OF_ANSWER =
+            ".\n".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The size of the buffer for writing to a connection.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final App app;
+
+    public QueryServer(App app) {
+        this.app = Objects.requireNonNull(app, "The application is null.");
+    }
+
+    /**
+     * Accepts the connections on the loopback address until the process is
+     * terminated. Prints the port listened to, which is chosen by the system
+     * if {@code port} is zero.
+     *
+     * @param port the port to listen to.
+     * @throws IOException if the port cannot be listened to.
+     */
+    public void serve(int port) throws IOException {
+        ThreadLocalOutputStream out = 
+                ThreadLocalOutputStream.getStandardOutput();
+        ThreadLocalOutputStream err = 
+                ThreadLocalOutputStream.getStandardError();
+        PrintStream console = System.out;
+        ExecutorService executor = createExecutor();
+
+        try (ServerSocket serverSocket =
+                new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            console.println("Serving on " +
+                            serverSocket.getInetAddress().getHostAddress() +
+                            ":" + serverSocket.getLocalPort() + ".");
+            console.flush();
+
+            while (true) {
+                Socket socket = serverSocket.accept();
+                executor.execute(() -> handleConnection(socket, out, err));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void handleConnection(Socket socket,
+                                  ThreadLocalOutputStream out,
+                                  ThreadLocalOutputStream err) {
+        try (Socket connection = socket;
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(connection.getInputStream(),
+                                           StandardCharsets.UTF_8));
+             OutputStream output = new BufferedOutputStream(
+                     connection.getOutputStream(), BUFFER_SIZE)) {
+            out.setTarget(output);
+            err.setTarget(output);
+            String command;
+
+            while ((command = reader.readLine()) != null) {
+                if (command.equals("quit")) {
+                    System.out.println("Bye!");
+                    System.out.flush();
+                    output.write(END_OF_ANSWER);
+                    break;
+                }
+
+                if (!command.isEmpty() && !command.startsWith("#")) {
+                    try {
+                        app.handleConcurrentCommand(command);
+                    } catch (RuntimeException ex) {
+                        Utils.error(ex.toString());
+                    }
+                }
+
+                System.out.flush();
+                System.err.flush();
+                output.write(END_OF_ANSWER);
+                output.flush();
+            }
+        } catch (IOException ex) {
+            // The client went away.
+        } finally {
+            out.setTarget(null);
+            err.setTarget(null);
+        }
+    }
+
+    /**
+     * Creates the executor running a virtual thread per task if the runtime
+     * has virtual threads, and a platform thread per task otherwise. The
+     * executor is looked up reflectively, as virtual threads appeared only in
+     * Java 21.
+     *
+     * @return the executor for the connections.
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            Method method = Executors.class.getMethod(
+                    "newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool((runnable) -> {
+                Thread thread = new Thread(runnable, "query-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,455 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class saves a compiled network to a binary file and loads it back, so
+ * that the network need not be recompiled when the program restarts. The file
+ * holds the network definition and the state table of the classification
+ * result, both in big-endian byte order:
+ * <pre>
+ * int    magic number "BNQS"
+ * int    format version
+ * int    reserved, zero
+ * int    number of nodes n
+ * int    number of states m
+ * int    words per state w
+ * double discarded probability mass
+ * double minimum state probability of the compilation
+ * int    maximum number of states of the compilation
+ * int    length of the node section in bytes, a multiple of 8
+ * n x    node: int name length, UTF-8 name, double probability,
+ *              int number of children, int child indices
+ *        zero padding to the length of the node section
+ * m*w x  long state word
+ * m x    double state probability
+ * </pre>
+ * The nodes are in the order of the state bits. The state words and the
+ * probabilities are transferred in bulk through a {@link FileChannel}, and
+ * begin at an offset divisible by 8, so that they can also be mapped into
+ * memory and queried in place.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class ResultSnapshot {
+
+    private static final int MAGIC = 0x424E5153;
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 8 * Integer.BYTES +
+                                            2 * Double.BYTES;
+
+    /**
+     * The size of the buffer for reading the state table.
+     */
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final List<DirectedGraphNode> nodeList;
+    private final ProbabilityMap<DirectedGraphNode> probabilityMap;
+    private final ClassificationResult result;
+    private final double minimumStateProbability;
+    private final int maximumNumberOfStates;
+
+    private ResultSnapshot(List<DirectedGraphNode> nodeList,
+                           ProbabilityMap<DirectedGraphNode> probabilityMap,
+                           ClassificationResult result,
+                           double minimumStateProbability,
+                           int maximumNumberOfStates) {
+        this.nodeList = nodeList;
+        this.probabilityMap = probabilityMap;
+        this.result = result;
+        this.minimumStateProbability = minimumStateProbability;
+        this.maximumNumberOfStates = maximumNumberOfStates;
+    }
+
+    /**
+     * Returns the nodes of the network, connected as they were when saved.
+     *
+     * @return the node list.
+     */
+    public List<DirectedGraphNode> getNodeList() {
+        return nodeList;
+    }
+
+    public ProbabilityMap<DirectedGraphNode> getProbabilityMap() {
+        return probabilityMap;
+    }
+
+    public ClassificationResult getResult() {
+        return result;
+    }
+
+    /**
+     * Restores the pruning options the result was compiled with.
+     *
+     * @param options the options to restore.
+     */
+    public void restoreOptions(CompilationOptions options) {
+        options.disablePruning();
+        options.setMinimumStateProbability(minimumStateProbability);
+        options.setMaximumNumberOfStates(maximumNumberOfStates);
+    }
+
+    /**
+     * Writes the classification result and the network it was compiled from
+     * to a file. The file is written under a temporary name and then renamed,
+     * so that the processes that have mapped the previous version of the file
+     * keep reading it undisturbed.
+     *
+     * @param path           the path of the file.
+     * @param result         the classification result.
+     * @param probabilityMap the probability map of the network.
+     * @param options        the options the result was compiled with.
+     * @throws IOException if writing fails.
+     */
+    public static void save(Path path,
+                            ClassificationResult result,
+                            ProbabilityMap<DirectedGraphNode> probabilityMap,
+                            CompilationOptions options) throws IOException {
+        Objects.requireNonNull(path, "The path is null.");
+        Objects.requireNonNull(result, "The classification result is null.");
+        Objects.requireNonNull(probabilityMap,
+                               "The probability map is null.");
+        Objects.requireNonNull(options, "The compilation options is null.");
+
+        StateTable stateTable = result.getStateTable();
+        ByteBuffer nodeSection = encodeNodes(result.getNodeList(),
+                                             probabilityMap);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+        header.putInt(MAGIC)
+              .putInt(VERSION)
+              .putInt(0)
+              .putInt(stateTable.getNumberOfNodes())
+              .putInt(stateTable.getNumberOfStates())
+              .putInt(stateTable.getWordsPerState())
+              .putDouble(result.getDiscardedProbabilityMass())
+              .putDouble(options.getMinimumStateProbability())
+              .putInt(options.getMaximumNumberOfStates())
+              .putInt(nodeSection.remaining())
+              .flip();
+
+        Path temporaryPath = 
+                path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(
+                temporaryPath,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            writeFully(channel, header);
+            writeFully(channel, nodeSection);
+            stateTable.writeWords(channel);
+            stateTable.writeProbabilities(channel);
+        } catch (IOException ex) {
+            Files.deleteIfExists(temporaryPath);
+            throw ex;
+        }
+
+        moveAtomically(temporaryPath, path);
+    }
+
+    /**
+     * Renames a file replacing the target, atomically if the file system
+     * supports it.
+     *
+     * @param source the path of the file to rename.
+     * @param target the new path of the file.
+     * @throws IOException if renaming fails.
+     */
+    static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source,
+                       target,
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads a classification result and its network from a file written by
+     * {@link #save(Path, ClassificationResult, ProbabilityMap,
+     * CompilationOptions) save}.
+     *
+     * @param path the path of the file.
+     * @return the snapshot.
+     * @throws IOException if reading fails or the file is malformed.
+     */
+    public static ResultSnapshot open(Path path) throws IOException {
+        return open(path, false);
+    }
+
+    /**
+     * Reads a classification result and its network from a file written by
+     * {@link #save(Path, ClassificationResult, ProbabilityMap,
+     * CompilationOptions) save}. If {@code mapped} is {@code true}, the
+     * system states are not read into the heap, but mapped into memory, and
+     * the queries against the result read the file directly.
+     *
+     * @param path   the path of the file.
+     * @param mapped whether to map the states instead of reading them.
+     * @return the snapshot.
+     * @throws IOException if reading fails or the file is malformed.
+     */
+    public static ResultSnapshot open(Path path, boolean mapped)
+            throws IOException {
+        Objects.requireNonNull(path, "The path is null.");
+
+        try (FileChannel channel = FileChannel.open(path,
+                                                    StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, HEADER_BYTES);
+
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a snapshot file.");
+            }
+
+            int version = header.getInt();
+
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " +
+                                      version + ".");
+            }
+
+            header.getInt();
+
+            int numberOfNodes = header.getInt();
+            int numberOfStates = header.getInt();
+            int wordsPerState = header.getInt();
+            double discardedProbabilityMass = header.getDouble();
+            double minimumStateProbability = header.getDouble();
+            int maximumNumberOfStates = header.getInt();
+            int nodeSectionBytes = header.getInt();
+
+            if (numberOfNodes < 1 ||
+                    numberOfStates < 0 ||
+                    nodeSectionBytes < 0 ||
+                    nodeSectionBytes % Long.BYTES != 0 ||
+                    !(minimumStateProbability >= 0.0 &&
+                      minimumStateProbability <= 1.0) ||
+                    maximumNumberOfStates < 1 ||
+                    wordsPerState !=
+                    StateTable.getWordsPerState(numberOfNodes)) {
+                throw new IOException("Corrupted snapshot header.");
+            }
+
+            long expectedSize = (long) HEADER_BYTES + nodeSectionBytes +
+                                (long) numberOfStates * wordsPerState *
+                                Long.BYTES +
+                                (long) numberOfStates * Double.BYTES;
+
+            if (channel.size() != expectedSize) {
+                throw new IOException("The snapshot size is " +
+                                      channel.size() + " bytes, expected " +
+                                      expectedSize + " bytes.");
+            }
+
+            ProbabilityMap<DirectedGraphNode> probabilityMap =
+                    new ProbabilityMap<>();
+            List<DirectedGraphNode> nodeList =
+                    decodeNodes(readFully(channel, nodeSectionBytes),
+                                numberOfNodes,
+                                probabilityMap);
+            StateTable stateTable;
+
+            if (mapped) {
+                stateTable = BufferStateTable.map(channel,
+                                                  channel.position(),
+                                                  numberOfNodes,
+                                                  numberOfStates);
+            } else {
+                long[] words = readWords(channel,
+                                         numberOfStates * wordsPerState);
+                double[] probabilities = readDoubles(channel, numberOfStates);
+                stateTable = new HeapStateTable(numberOfNodes,
+                                                words,
+                                                probabilities,
+                                                numberOfStates);
+            }
+
+            ClassificationResult result =
+                    new ClassificationResult(nodeList, stateTable);
+
+            result.setDiscardedProbabilityMass(discardedProbabilityMass);
+
+            return new ResultSnapshot(nodeList,
+                                      probabilityMap,
+                                      result,
+                                      minimumStateProbability,
+                                      maximumNumberOfStates);
+        }
+    }
+
+    /**
+     * Encodes the nodes of a network, their probabilities and the arcs
+     * between them in the layout of the node section, padded to a multiple of
+     * 8 bytes.
+     *
+     * @param nodeList       the nodes of the network.
+     * @param probabilityMap the probability map of the network.
+     * @return the buffer holding the node section.
+     */
+    static ByteBuffer encodeNodes(
+            List<DirectedGraphNode> nodeList,
+            ProbabilityMap<DirectedGraphNode> probabilityMap) {
+        Map<DirectedGraphNode, Integer> indexMap =
+                new HashMap<>(2 * nodeList.size());
+        List<byte[]> names = new ArrayList<>(nodeList.size());
+        int bytes = 0;
+
+        for (DirectedGraphNode node : nodeList) {
+            indexMap.put(node, indexMap.size());
+            byte[] name = node.getName().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            bytes += Integer.BYTES + name.length + Double.BYTES +
+                     Integer.BYTES + Integer.BYTES * node.children().size();
+        }
+
+        // Pad so that the state words start at an offset divisible by 8.
+        bytes = (bytes + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+
+        for (int i = 0; i < nodeList.size(); ++i) {
+            DirectedGraphNode node = nodeList.get(i);
+
+            buffer.putInt(names.get(i).length)
+                  .put(names.get(i))
+                  .putDouble(probabilityMap.get(node))
+                  .putInt(node.children().size());
+
+            for (DirectedGraphNode child : node.children()) {
+                buffer.putInt(indexMap.get(child));
+            }
+        }
+
+        buffer.position(0);
+        return buffer;
+    }
+
+    /**
+     * Decodes the nodes written by {@link #encodeNodes(List, ProbabilityMap)
+     * encodeNodes}, connecting them and putting their probabilities to a
+     * map.
+     *
+     * @param buffer         the buffer holding the node section.
+     * @param numberOfNodes  the number of nodes in the section.
+     * @param probabilityMap the map to put the probabilities to.
+     * @return the nodes in the order of the section.
+     * @throws IOException if the section is malformed.
+     */
+    static List<DirectedGraphNode> decodeNodes(
+            ByteBuffer buffer,
+            int numberOfNodes,
+            ProbabilityMap<DirectedGraphNode> probabilityMap)
+            throws IOException {
+        List<DirectedGraphNode> nodeList = new ArrayList<>(numberOfNodes);
+        int[][] childIndices = new int[numberOfNodes][];
+
+        try {
+            for (int i = 0; i < numberOfNodes; ++i) {
+                byte[] nameBytes = new byte[buffer.getInt()];
+                buffer.get(nameBytes);
+                String name = new String(nameBytes, StandardCharsets.UTF_8);
+                double probability = buffer.getDouble();
+
+                if (!Utils.isValidIdentifier(name)) {
+                    throw new IOException("Bad node name \"" + name + "\".");
+                }
+
+                DirectedGraphNode node =
+                        new DirectedGraphNode(name, probability);
+                nodeList.add(node);
+                probabilityMap.put(node, probability);
+                childIndices[i] = new int[buffer.getInt()];
+
+                for (int j = 0; j < childIndices[i].length; ++j) {
+                    childIndices[i][j] = buffer.getInt();
+                }
+            }
+        } catch (RuntimeException ex) {
+            // Thrown by the buffer on overrun, or by the node on a bad
+            // probability.
+            throw new IOException("Corrupted node section.", ex);
+        }
+
+        for (int i = 0; i < numberOfNodes; ++i) {
+            for (int child : childIndices[i]) {
+                if (child < 0 || child >= numberOfNodes) {
+                    throw new IOException("Bad child index " + child + ".");
+                }
+
+                nodeList.get(i).addChild(nodeList.get(child));
+            }
+        }
+
+        return nodeList;
+    }
+
+    private static long[] readWords(FileChannel channel, int length)
+            throws IOException {
+        long[] words = new long[length];
+        int chunk = BUFFER_BYTES / Long.BYTES;
+
+        for (int offset = 0; offset < length; offset += chunk) {
+            int count = Math.min(chunk, length - offset);
+            readFully(channel, count * Long.BYTES)
+                    .asLongBuffer()
+                    .get(words, offset, count);
+        }
+
+        return words;
+    }
+
+    private static double[] readDoubles(FileChannel channel, int length)
+            throws IOException {
+        double[] values = new double[length];
+        int chunk = BUFFER_BYTES / Double.BYTES;
+
+        for (int offset = 0; offset < length; offset += chunk) {
+            int count = Math.min(chunk, length - offset);
+            readFully(channel, count * Double.BYTES)
+                    .asDoubleBuffer()
+                    .get(values, offset, count);
+        }
+
+        return values;
+    }
+
+    static void writeFully(WritableByteChannel channel, ByteBuffer buffer)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, int bytes)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of snapshot.");
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,366 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * This class counts the system states the classifier would produce for a
+ * network without actually enumerating them. The count is computed exactly
+ * by a dynamic program that sweeps the levels of the network keeping track of
+ * the states of the <i>frontier</i> nodes only, that is, the visited nodes
+ * that still have unvisited children. If the frontier grows too wide, the
+ * count is estimated by random probing of the enumeration tree (Knuth's
+ * estimator).
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+final class StateCountEstimator {
+
+    /**
+     * The maximum number of distinct frontier configurations the exact
+     * counting may keep track of.
+     */
+    private static final int MAXIMUM_FRONTIER_CONFIGURATIONS = 1 << 18;
+
+    /**
+     * The maximum number of nodes of a level whose combinations of states
+     * fit in the frontier configurations.
+     */
+    private static final int MAXIMUM_ENUMERATED_NODES = 
+            Integer.numberOfTrailingZeros(MAXIMUM_FRONTIER_CONFIGURATIONS);
+
+    /**
+     * The maximum number of frontier nodes whose states fit in a key.
+     */
+    private static final int MAXIMUM_FRONTIER_WIDTH = Long.SIZE - 1;
+
+    /**
+     * The number of random paths sampled by the estimator.
+     */
+    private static final int NUMBER_OF_PROBES = 2000;
+
+    /**
+     * The seed for the estimator so that the estimates are reproducible.
+     */
+    private static final long PROBE_SEED = 1618L;
+
+    private final IndexedNetwork network;
+
+    /**
+     * The states of the nodes during a sweep, indexed as in the network.
+     */
+    private final boolean[] on;
+
+    private double numberOfStates;
+    private double numberOfOnNodes;
+    private double numberOfSteps;
+    private boolean exact;
+
+    StateCountEstimator(IndexedNetwork network) {
+        this.network = network;
+        this.on = new boolean[network.getNumberOfNodes()];
+
+        if (!count()) {
+            estimate();
+        }
+    }
+
+    /**
+     * Returns the number of system states the classifier would produce.
+     *
+     * @return the number of states.
+     */
+    double getNumberOfStates() {
+        return numberOfStates;
+    }
+
+    /**
+     * Returns the sum of the numbers of "on" nodes over all system states.
+     *
+     * @return the total number of "on" nodes.
+     */
+    double getNumberOfOnNodes() {
+        return numberOfOnNodes;
+    }
+
+    /**
+     * Returns the number of nodes in the enumeration tree of the classifier,
+     * which is proportional to the work done by it.
+     *
+     * @return the number of enumeration steps.
+     */
+    double getNumberOfSteps() {
+        return numberOfSteps;
+    }
+
+    /**
+     * Returns {@code true} if the counts are exact and {@code false} if they
+     * are estimated.
+     *
+     * @return whether the counts are exact.
+     */
+    boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Counts the states exactly. Each entry in the configuration map maps
+     * the states of the current frontier nodes, packed in a {@code long}, to
+     * the number of partial states leading to it, and the total number of
+     * "on" nodes in them.
+     *
+     * @return {@code true} if the count succeeded, {@code false} if the
+     *         frontier grew too wide.
+     */
+    private boolean count() {
+        Map<Long, double[]> configurationMap = new HashMap<>();
+        int[] frontier = new int[0];
+        double steps = 1.0;
+
+        configurationMap.put(0L, new double[]{ 1.0, 0.0 });
+
+        for (int level = 0; level < network.getNumberOfLevels(); ++level) {
+            int[] nextFrontier = computeFrontier(network, frontier, level);
+
+            if (nextFrontier.length > MAXIMUM_FRONTIER_WIDTH) {
+                return false;
+            }
+
+            Map<Long, double[]> nextConfigurationMap = new HashMap<>();
+            int[] varying = new int[network.getLevelEnd(level) -
+                                    network.getLevelStart(level)];
+
+            for (Map.Entry<Long, double[]> entry
+                    : configurationMap.entrySet()) {
+                unpack(entry.getKey(), frontier);
+
+                double count = entry.getValue()[0];
+                double onCount = entry.getValue()[1];
+                int forcedOn = 0;
+                int freeVarying = 0;
+                int enumerated = 0;
+
+                for (int i = network.getLevelStart(level);
+                         i < network.getLevelEnd(level);
+                         ++i) {
+                    switch (classifyNode(i)) {
+                        case FORCED_OFF:
+                            on[i] = false;
+                            break;
+
+                        case FORCED_ON:
+                            on[i] = true;
+                            ++forcedOn;
+                            break;
+
+                        default:
+                            if (network.getLastChildLevel(i) > level) {
+                                varying[enumerated++] = i;
+                            } else {
+                                // Nobody below depends on this node, so we
+                                // only need to count its two states.
+                                on[i] = false;
+                                ++freeVarying;
+                            }
+                    }
+                }
+
+                // The enumerated nodes stay on the frontier, so each of their
+                // combinations leads to a configuration of its own.
+                if (enumerated > MAXIMUM_ENUMERATED_NODES) {
+                    return false;
+                }
+
+                double multiplier = Math.pow(2.0, freeVarying);
+
+                for (int combination = 0;
+                         combination < (1 << enumerated);
+                         ++combination) {
+                    for (int j = 0; j < enumerated; ++j) {
+                        on[varying[j]] = ((combination >>> j) & 1) != 0;
+                    }
+
+                    double newCount = count * multiplier;
+                    double newOnCount =
+                            onCount * multiplier
+                            + newCount * (forcedOn
+                                          + Integer.bitCount(combination)
+                                          + 0.5 * freeVarying);
+
+                    double[] accumulator =
+                            nextConfigurationMap.computeIfAbsent(
+                                    pack(nextFrontier),
+                                    (key) -> new double[2]);
+
+                    accumulator[0] += newCount;
+                    accumulator[1] += newOnCount;
+
+                    if (nextConfigurationMap.size() >
+                            MAXIMUM_FRONTIER_CONFIGURATIONS) {
+                        return false;
+                    }
+                }
+            }
+
+            configurationMap = nextConfigurationMap;
+            frontier = nextFrontier;
+            steps += sumColumn(configurationMap, 0);
+        }
+
+        numberOfStates = sumColumn(configurationMap, 0);
+        numberOfOnNodes = sumColumn(configurationMap, 1);
+        numberOfSteps = steps;
+        exact = true;
+        return true;
+    }
+
+    /**
+     * Estimates the counts by following random paths from the root of the
+     * enumeration tree to its leaves. The product of the branching factors
+     * along a path is an unbiased estimate of the number of leaves.
+     */
+    private void estimate() {
+        Random random = new Random(PROBE_SEED);
+        double totalStates = 0.0;
+        double totalOnNodes = 0.0;
+        double totalSteps = 0.0;
+
+        for (int probe = 0; probe < NUMBER_OF_PROBES; ++probe) {
+            double weight = 1.0;
+            double steps = 1.0;
+            int onNodes = 0;
+
+            for (int level = 0; level < network.getNumberOfLevels(); ++level) {
+                for (int i = network.getLevelStart(level);
+                         i < network.getLevelEnd(level);
+                         ++i) {
+                    switch (classifyNode(i)) {
+                        case FORCED_OFF:
+                            on[i] = false;
+                            break;
+
+                        case FORCED_ON:
+                            on[i] = true;
+                            break;
+
+                        default:
+                            on[i] = random.nextBoolean();
+                            weight *= 2.0;
+                    }
+
+                    if (on[i]) {
+                        ++onNodes;
+                    }
+                }
+
+                steps += weight;
+            }
+
+            totalStates += weight;
+            totalOnNodes += weight * onNodes;
+            totalSteps += steps;
+        }
+
+        numberOfStates = totalStates / NUMBER_OF_PROBES;
+        numberOfOnNodes = totalOnNodes / NUMBER_OF_PROBES;
+        numberOfSteps = totalSteps / NUMBER_OF_PROBES;
+        exact = false;
+    }
+
+    private enum NodeKind {
+        FORCED_OFF,
+        FORCED_ON,
+        VARYING
+    }
+
+    /**
+     * Applies the skip rules of the classifier to the node {@code index}
+     * given the states of its parents.
+     *
+     * @param index the index of the node.
+     * @return the kind of the node.
+     */
+    private NodeKind classifyNode(int index) {
+        for (int parent : network.getParents(index)) {
+            if (!on[parent]) {
+                return NodeKind.FORCED_OFF;
+            }
+        }
+
+        double probability = network.getProbability(index);
+
+        if (probability == 0.0) {
+            return NodeKind.FORCED_OFF;
+        }
+
+        if (probability == 1.0) {
+            return NodeKind.FORCED_ON;
+        }
+
+        return NodeKind.VARYING;
+    }
+
+    /**
+     * Returns the indices of the nodes that are visited after processing the
+     * level {@code level} and have children at deeper levels.
+     *
+     * @param network  the indexed network.
+     * @param frontier the frontier before processing the level.
+     * @param level    the level index.
+     * @return the frontier.
+     */
+    static int[] computeFrontier(IndexedNetwork network,
+                                 int[] frontier,
+                                 int level) {
+        int start = network.getLevelStart(level);
+        int end = network.getLevelEnd(level);
+        int[] nextFrontier = new int[frontier.length + end - start];
+        int size = 0;
+
+        for (int node : frontier) {
+            if (network.getLastChildLevel(node) > level) {
+                nextFrontier[size++] = node;
+            }
+        }
+
+        for (int node = start; node < end; ++node) {
+            if (network.getLastChildLevel(node) > level) {
+                nextFrontier[size++] = node;
+            }
+        }
+
+        return Arrays.copyOf(nextFrontier, size);
+    }
+
+    private long pack(int[] frontier) {
+        long key = 0L;
+
+        for (int i = 0; i < frontier.length; ++i) {
+            if (on[frontier[i]]) {
+                key |= 1L << i;
+            }
+        }
+
+        return key;
+    }
+
+    private void unpack(long key, int[] frontier) {
+        for (int i = 0; i < frontier.length; ++i) {
+            on[frontier[i]] = ((key >>> i) & 1L) != 0L;
+        }
+    }
+
+    private static double sumColumn(Map<Long, double[]> map, int column) {
+        double sum = 0.0;
+
+        for (double[] value : map.values()) {
+            sum += value[column];
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,218 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class exports the compiled joint distribution of a network for other
+ * tools. The states are encoded straight into a direct buffer, which is
+ * written to the file whenever it fills up, so the size of the export is not
+ * limited by the memory.
+ * <p>
+ * The CSV format has a header row with the node names followed by the column
+ * {@code probability}, and a row per state with 0 or 1 for each node and the
+ * probability of the state.
+ * <p>
+ * The binary format is little-endian, so that the tools on common hardware
+ * may map the records as arrays:
+ * <pre>
+ *   byte[4] magic "BNQE"
+ *   int     version
+ *   int     number of nodes n
+ *   int     number of states m
+ *   int     number of words per state w
+ *   n x { int name length, UTF-8 name bytes }
+ *   m x { w x long state words, double probability }
+ * </pre>
+ * The node with index {@code i} is the bit {@code i % 64} of the word
+ * {@code i / 64} of a state.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class StateExporter {
+
+    /**
+     * Lists the export formats.
+     */
+    public enum Format {
+        CSV,
+        BINARY
+    }
+
+    private static final byte[] MAGIC = { 'B', 'N', 'Q', 'E' };
+    private static final int VERSION = 1;
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private StateExporter() {}
+
+    /**
+     * Exports the states of a classification result to a file, replacing the
+     * file if it exists.
+     *
+     * @param result the classification result.
+     * @param path   the path of the file.
+     * @param format the format of the file.
+     * @return the number of bytes written.
+     * @throws IOException if writing fails.
+     */
+    public static long export(ClassificationResult result,
+                              Path path,
+                              Format format) throws IOException {
+        Objects.requireNonNull(result, "The classification result is null.");
+        Objects.requireNonNull(path, "The path is null.");
+        Objects.requireNonNull(format, "The format is null.");
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES)
+                                      .order(ByteOrder.LITTLE_ENDIAN);
+
+        try (FileChannel channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            Exporter exporter = new Exporter(result.getStateTable(),
+                                             channel,
+                                             buffer);
+
+            if (format == Format.CSV) {
+                exporter.writeCsv(result.getNodeList());
+            } else {
+                exporter.writeBinary(result.getNodeList());
+            }
+
+            return exporter.flush();
+        }
+    }
+
+    private static final class Exporter {
+
+        private final StateTable stateTable;
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long bytesWritten;
+
+        Exporter(StateTable stateTable,
+                 FileChannel channel,
+                 ByteBuffer buffer) {
+            this.stateTable = stateTable;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        void writeCsv(List<DirectedGraphNode> nodeList) throws IOException {
+            StringBuilder header = new StringBuilder();
+
+            for (DirectedGraphNode node : nodeList) {
+                header.append(node.getName()).append(',');
+            }
+
+            put(header.append("probability\n")
+                      .toString()
+                      .getBytes(StandardCharsets.UTF_8));
+
+            int numberOfNodes = stateTable.getNumberOfNodes();
+            ProbabilityTextCache probabilityTexts = new ProbabilityTextCache();
+
+            for (int state = 0; state < stateTable.getNumberOfStates();
+                    ++state) {
+                String probability =
+                        probabilityTexts.toText(
+                                stateTable.getProbability(state));
+                ensureRemaining(2 * numberOfNodes + probability.length() + 1);
+
+                for (int node = 0; node < numberOfNodes; ++node) {
+                    buffer.put(stateTable.isOn(state, node) ?
+                               (byte) '1' : (byte) '0');
+                    buffer.put((byte) ',');
+                }
+
+                // The text of a double is ASCII.
+                for (int i = 0; i < probability.length(); ++i) {
+                    buffer.put((byte) probability.charAt(i));
+                }
+
+                buffer.put((byte) '\n');
+            }
+        }
+
+        void writeBinary(List<DirectedGraphNode> nodeList)
+                throws IOException {
+            int wordsPerState = stateTable.getWordsPerState();
+            ensureRemaining(MAGIC.length + 4 * Integer.BYTES);
+            buffer.put(MAGIC)
+                  .putInt(VERSION)
+                  .putInt(stateTable.getNumberOfNodes())
+                  .putInt(stateTable.getNumberOfStates())
+                  .putInt(wordsPerState);
+
+            for (DirectedGraphNode node : nodeList) {
+                byte[] name = node.getName().getBytes(StandardCharsets.UTF_8);
+                ensureRemaining(Integer.BYTES);
+                buffer.putInt(name.length);
+                put(name);
+            }
+
+            int numberOfNodes = stateTable.getNumberOfNodes();
+            int recordBytes = wordsPerState * Long.BYTES + Double.BYTES;
+
+            for (int state = 0; state < stateTable.getNumberOfStates();
+                    ++state) {
+                ensureRemaining(recordBytes);
+
+                for (int word = 0; word < wordsPerState; ++word) {
+                    long bits = 0L;
+                    int end = Math.min(numberOfNodes, (word + 1) * Long.SIZE);
+
+                    for (int node = word * Long.SIZE; node < end; ++node) {
+                        if (stateTable.isOn(state, node)) {
+                            bits |= 1L << node;
+                        }
+                    }
+
+                    buffer.putLong(bits);
+                }
+
+                buffer.putDouble(stateTable.getProbability(state));
+            }
+        }
+
+        /**
+         * Writes the buffered bytes to the file.
+         *
+         * @return the total number of bytes written.
+         */
+        long flush() throws IOException {
+            buffer.flip();
+            bytesWritten += buffer.remaining();
+            ResultSnapshot.writeFully(channel, buffer);
+            buffer.clear();
+            return bytesWritten;
+        }
+
+        private void ensureRemaining(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void put(byte[] bytes) throws IOException {
+            int offset = 0;
+
+            while (offset < bytes.length) {
+                ensureRemaining(1);
+                int count = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, count);
+                offset += count;
+            }
+        }
+    }
+}
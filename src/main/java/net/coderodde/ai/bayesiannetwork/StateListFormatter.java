@@ -0,0 +1,82 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * This class writes the system states in the format of the 'list' command:
+ * a header line with the node names, and a line per state with the bit of
+ * each node right-aligned under its name, followed by the state probability.
+ * <p>
+ * All the lines of the states are equal apart from the bits and the
+ * probability, so the formatter fills a template line with the bits, and
+ * takes the text of the probability from a {@link ProbabilityTextCache}.
+ * Writing a state thus allocates nothing most of the time.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+final class StateListFormatter {
+
+    private final StateTable stateTable;
+    private final String header;
+
+    /**
+     * The line of a state without the probability, and the positions of the
+     * node bits in it.
+     */
+    private final char[] template;
+    private final int[] bitPositions;
+
+    private final ProbabilityTextCache probabilityTexts =
+            new ProbabilityTextCache();
+
+    StateListFormatter(List<DirectedGraphNode> nodeList,
+                       StateTable stateTable) {
+        this.stateTable = stateTable;
+
+        StringBuilder headerBuilder = new StringBuilder("(");
+        StringBuilder templateBuilder = new StringBuilder("(");
+        this.bitPositions = new int[nodeList.size()];
+
+        for (int node = 0; node < nodeList.size(); ++node) {
+            String name = nodeList.get(node).getName();
+
+            if (node > 0) {
+                headerBuilder.append(", ");
+                templateBuilder.append(", ");
+            }
+
+            headerBuilder.append(name);
+
+            // Right-align the bit under the node name.
+            for (int j = 1; j < name.length(); ++j) {
+                templateBuilder.append(' ');
+            }
+
+            bitPositions[node] = templateBuilder.length();
+            templateBuilder.append('0');
+        }
+
+        this.header = headerBuilder.append(")\n").toString();
+        this.template = templateBuilder.append("): ").toString().toCharArray();
+    }
+
+    void writeHeader(Writer writer) throws IOException {
+        writer.write(header);
+    }
+
+    void writeState(Writer writer, int state) throws IOException {
+        for (int node = 0; node < bitPositions.length; ++node) {
+            template[bitPositions[node]] =
+                    stateTable.isOn(state, node) ? '1' : '0';
+        }
+
+        writer.write(template);
+        writer.write(
+                probabilityTexts.toText(stateTable.getProbability(state)));
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,125 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * This class defines the storage of the system states of a compiled network.
+ * The state of each node is a single bit, and the bits of a system state are
+ * packed into {@code wordsPerState} consecutive {@code long} words: the node
+ * with index {@code i} is the bit {@code i % 64} of the word {@code i / 64}.
+ * The probabilities of the states are held separately in the same order.
+ * <p>
+ * The tables are filled by the compilation and never modified afterwards, so
+ * all the methods reading them may be called from several threads at once.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+abstract class StateTable {
+
+    private final int numberOfNodes;
+    private final int wordsPerState;
+
+    StateTable(int numberOfNodes) {
+        this.numberOfNodes = numberOfNodes;
+        this.wordsPerState = getWordsPerState(numberOfNodes);
+    }
+
+    /**
+     * Returns the number of words needed for storing the bits of a single
+     * state.
+     *
+     * @param numberOfNodes the number of nodes in the network.
+     * @return the number of words per state.
+     */
+    static int getWordsPerState(int numberOfNodes) {
+        return Math.max(1, (numberOfNodes + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    final int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    final int getWordsPerState() {
+        return wordsPerState;
+    }
+
+    /**
+     * Appends a system state.
+     *
+     * @param on          the states of the nodes.
+     * @param probability the probability of the system state.
+     */
+    abstract void add(boolean[] on, double probability);
+
+    /**
+     * Completes the table after the last state has been added. The tables
+     * building an intermediate form while the states are added convert it
+     * here.
+     */
+    void finish() {}
+
+    /**
+     * Frees the memory held by this table outside of the Java heap, if any,
+     * without waiting for the garbage collector. The table must not be used
+     * afterwards.
+     */
+    void release() {}
+
+    abstract int getNumberOfStates();
+
+    abstract double getProbability(int state);
+
+    abstract boolean isOn(int state, int node);
+
+    abstract double getSumOfProbabilities();
+
+    /**
+     * Sums the probabilities of the states matching the apriori masks, and
+     * of the states matching both the apriori and the posteriori masks. A
+     * state matches a pair of masks if all the nodes in the "on" mask are on
+     * and all the nodes in the "off" mask are off.
+     *
+     * @param aprioriOnMask     the nodes required on by the apriori event.
+     * @param aprioriOffMask    the nodes required off by the apriori event.
+     * @param posterioriOnMask  the nodes required on by the posteriori event.
+     * @param posterioriOffMask the nodes required off by the posteriori
+     *                          event.
+     * @return the two-element array holding the posteriori and apriori sums.
+     */
+    abstract double[] computeProbabilitySums(long[] aprioriOnMask,
+                                             long[] aprioriOffMask,
+                                             long[] posterioriOnMask,
+                                             long[] posterioriOffMask);
+
+    /**
+     * Writes the state words in big-endian byte order.
+     *
+     * @param channel the channel to write to.
+     * @throws IOException if writing fails.
+     */
+    abstract void writeWords(WritableByteChannel channel) throws IOException;
+
+    /**
+     * Writes the state probabilities in big-endian byte order.
+     *
+     * @param channel the channel to write to.
+     * @throws IOException if writing fails.
+     */
+    abstract void writeProbabilities(WritableByteChannel channel)
+            throws IOException;
+
+    /**
+     * Checks whether a state word matches a word of a pair of masks.
+     *
+     * @param word    the state word.
+     * @param onMask  the word of the "on" mask.
+     * @param offMask the word of the "off" mask.
+     * @return {@code true} if the word matches.
+     */
+    static boolean matches(long word, long onMask, long offMask) {
+        return (word & onMask) == onMask && (word & offMask) == 0L;
+    }
+}
@@ -0,0 +1,120 @@
+package net.coderodde.ai.bayesiannetwork;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+
+/**
+ * This class writes to the output stream set by the writing thread, or to a
+ * default stream if the thread has set none. Installed as
+ * {@code System.out} and {@code System.err}, it lets a thread redirect or
+ * silence the output of the commands it runs without affecting the output
+ * of the other threads.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+final class ThreadLocalOutputStream extends OutputStream {
+
+    /**
+     * The stream discarding everything written to it.
+     */
+    static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {}
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {}
+    };
+
+    private static ThreadLocalOutputStream standardOutput;
+    private static ThreadLocalOutputStream standardError;
+
+    private final ThreadLocal<OutputStream> target = new ThreadLocal<>();
+    private final OutputStream defaultTarget;
+
+    private ThreadLocalOutputStream(OutputStream defaultTarget) {
+        this.defaultTarget = defaultTarget;
+    }
+
+    /**
+     * Returns the stream behind {@code System.out}, replacing
+     * {@code System.out} and {@code System.err} once with streams writing
+     * to them by default.
+     *
+     * @return the stream of the standard output.
+     */
+    static synchronized ThreadLocalOutputStream getStandardOutput() {
+        install();
+        return standardOutput;
+    }
+
+    /**
+     * Returns the stream behind {@code System.err}, replacing
+     * {@code System.out} and {@code System.err} once with streams writing
+     * to them by default.
+     *
+     * @return the stream of the standard error.
+     */
+    static synchronized ThreadLocalOutputStream getStandardError() {
+        install();
+        return standardError;
+    }
+
+    private static void install() {
+        if (standardOutput != null) {
+            return;
+        }
+
+        standardOutput = new ThreadLocalOutputStream(System.out);
+        standardError = new ThreadLocalOutputStream(System.err);
+
+        try {
+            System.setOut(new PrintStream(standardOutput, false, "UTF-8"));
+            System.setErr(new PrintStream(standardError, false, "UTF-8"));
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException("No UTF-8.", ex);
+        }
+    }
+
+    /**
+     * Sets the stream the calling thread writes to.
+     *
+     * @param stream the stream, or {@code null} for the default stream.
+     * @return the stream set before, or {@code null} if none was.
+     */
+    OutputStream setTarget(OutputStream stream) {
+        OutputStream previous = target.get();
+
+        if (stream == null) {
+            target.remove();
+        } else {
+            target.set(stream);
+        }
+
+        return previous;
+    }
+
+    private OutputStream getTarget() {
+        OutputStream stream = target.get();
+        return stream != null ? stream : defaultTarget;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        getTarget().write(b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length)
+            throws IOException {
+        getTarget().write(bytes, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        getTarget().flush();
+    }
+}
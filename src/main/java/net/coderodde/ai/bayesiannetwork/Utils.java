@@ -69,52 +69,106 @@ public class Utils {
      */
     public static boolean graphIsAcyclic(DirectedGraphNode start) {
         List<DirectedGraphNode> nodeList = findEntireGraph(start);
-        Map<DirectedGraphNode, NodeColor> map = new HashMap<>();
+        int numberOfNodes = nodeList.size();
+        Map<DirectedGraphNode, Integer> indexMap = new HashMap<>(numberOfNodes);
 
-        nodeList.stream().forEach((node) -> {
-            map.put(node, NodeColor.WHITE);
-        });
+        for (int i = 0; i < numberOfNodes; ++i) {
+            indexMap.put(nodeList.get(i), i);
+        }
 
-        if (!nodeList.stream().noneMatch((node) -> (dfs(node, map)))) {
-            return false;
+        int[][] children = new int[numberOfNodes][];
+
+        for (int i = 0; i < numberOfNodes; ++i) {
+            Set<DirectedGraphNode> childSet = nodeList.get(i).children();
+            int[] childIndices = new int[childSet.size()];
+            int j = 0;
+
+            for (DirectedGraphNode child : childSet) {
+                childIndices[j++] = indexMap.get(child);
+            }
+
+            children[i] = childIndices;
+        }
+
+        byte[] colors = new byte[numberOfNodes];
+        int[] nodeStack = new int[numberOfNodes];
+        int[] childStack = new int[numberOfNodes];
+
+        for (int i = 0; i < numberOfNodes; ++i) {
+            if (colors[i] == WHITE 
+                    && dfs(i, children, colors, nodeStack, childStack)) {
+                return false;
+            }
         }
 
         return true;
     }
 
-    private enum NodeColor {
-        WHITE,
-        GRAY,
-        BLACK
-    }
+    /**
+     * The color of an unvisited node.
+     */
+    private static final byte WHITE = 0;
+
+    /**
+     * The color of a node whose descendants are being visited.
+     */
+    private static final byte GRAY = 1;
+
+    /**
+     * The color of a node whose all descendants are visited.
+     */
+    private static final byte BLACK = 2;
 
     /**
      * Implements the cycle detection algorithm, which is depth-first search.
+     * The search path is kept in an explicit stack so that the length of a
+     * path is not limited by the depth of the call stack.
      * 
-     * @param node the node to start the search from.
-     * @param map  the color map.
+     * @param node       the index of the node to start the search from.
+     * @param children   the arrays of child indices of each node.
+     * @param colors     the color of each node.
+     * @param nodeStack  the stack of nodes on the current path.
+     * @param childStack the index of the next child to visit for each node on
+     *                   the current path.
      * @return {@code true} if there is a cycle in the graph. {@code false} 
      *         otherwise.
      */
-    private static boolean dfs(DirectedGraphNode node, 
-                               Map<DirectedGraphNode, NodeColor> map) {
-        map.put(node, NodeColor.GRAY);
-
-        for (DirectedGraphNode child : node.children()) {
-            if (map.get(child).equals(NodeColor.WHITE)) {
-                // The color of 'child' is WHITE.
-                if (dfs(child, map)) {
-                    return true;
-                }
+    private static boolean dfs(int node,
+                               int[][] children,
+                               byte[] colors,
+                               int[] nodeStack,
+                               int[] childStack) {
+        int top = 0;
+
+        nodeStack[0] = node;
+        childStack[0] = 0;
+        colors[node] = GRAY;
+
+        while (top >= 0) {
+            int current = nodeStack[top];
+            int[] currentChildren = children[current];
+
+            if (childStack[top] == currentChildren.length) {
+                colors[current] = BLACK;
+                --top;
+                continue;
             }
 
-            if (map.get(child).equals(NodeColor.GRAY)) {
+            int child = currentChildren[childStack[top]++];
+
+            if (colors[child] == GRAY) {
                 // Found a cycle.
                 return true;
             }
+
+            if (colors[child] == WHITE) {
+                colors[child] = GRAY;
+                ++top;
+                nodeStack[top] = child;
+                childStack[top] = 0;
+            }
         }
 
-        map.put(node, NodeColor.BLACK);
         return false;
     }
     
@@ -0,0 +1,68 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import java.io.File;
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+
+/**
+ * Answers the queries of a file in parallel, printing the answers in the
+ * order of the queries.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class BatchExecutableCommand extends AbstractExecutableCommand {
+
+    private static final String BAD_FORMAT_MESSAGE =
+            "Bad format. Must be 'batch <FILE> [threads <n>]'.";
+
+    private final App app;
+
+    public BatchExecutableCommand(App app) {
+        this.app = app;
+    }
+
+    @Override
+    public void execute(String command) {
+        String[] tokens = splitToTokens(command.trim());
+        int numberOfTokens = tokens.length;
+
+        for (int i = 1; i < tokens.length; ++i) {
+            if (tokens[i].startsWith(COMMENT_BEGIN_TEXT)) {
+                numberOfTokens = i;
+                break;
+            }
+        }
+
+        if (numberOfTokens != 2 && numberOfTokens != 4) {
+            error(BAD_FORMAT_MESSAGE);
+            return;
+        }
+
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+
+        if (numberOfTokens == 4) {
+            if (!tokens[2].equals("threads")) {
+                error(BAD_FORMAT_MESSAGE);
+                return;
+            }
+
+            try {
+                numberOfThreads = Integer.parseInt(tokens[3]);
+            } catch (NumberFormatException ex) {
+                error("Bad number of threads: \"" + tokens[3] + "\".");
+                return;
+            }
+
+            if (numberOfThreads < 1) {
+                error("The number of threads must be at least 1.");
+                return;
+            }
+        }
+
+        app.answerQueryFile(new File(tokens[1]).toPath(), numberOfThreads);
+    }
+}
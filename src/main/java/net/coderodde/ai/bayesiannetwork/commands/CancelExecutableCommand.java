@@ -0,0 +1,33 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import net.coderodde.ai.bayesiannetwork.CompilationProgress;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+
+/**
+ * Stops the enumeration of the system states running in the background.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class CancelExecutableCommand extends AbstractExecutableCommand {
+
+    private final App app;
+
+    public CancelExecutableCommand(App app) {
+        this.app = app;
+    }
+
+    @Override
+    public void execute(String command) {
+        CompilationProgress progress = app.cancelCompilation();
+
+        if (progress == null) {
+            error("No compilation is running.");
+        } else {
+            System.out.println(progress);
+        }
+    }
+}
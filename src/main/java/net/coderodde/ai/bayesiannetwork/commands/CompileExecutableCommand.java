@@ -0,0 +1,54 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
+import net.coderodde.ai.bayesiannetwork.CompilationProgress;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+
+/**
+ * Starts enumerating the system states of the network in the background, or
+ * prints the progress of the enumeration.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class CompileExecutableCommand extends AbstractExecutableCommand {
+
+    private final App app;
+
+    public CompileExecutableCommand(App app) {
+        this.app = app;
+    }
+
+    @Override
+    public void execute(String command) {
+        String[] tokens = splitToTokens(command.trim());
+
+        if (tokens.length == 1 || tokens[1].startsWith(COMMENT_BEGIN_TEXT)) {
+            if (app.isCompiled()) {
+                System.out.println("The network is compiled already.");
+            } else if (app.startCompilation() && !app.isCompiled()) {
+                System.out.println(app.getCompilationProgress());
+            }
+
+            return;
+        }
+
+        if (!tokens[1].equals("status") ||
+                (tokens.length > 2 && 
+                 !tokens[2].startsWith(COMMENT_BEGIN_TEXT))) {
+            error("Bad format. Must be 'compile [status]'.");
+            return;
+        }
+
+        CompilationProgress progress = app.getCompilationProgress();
+
+        if (progress == null) {
+            System.out.println("No compilation has been started.");
+        } else {
+            System.out.println(progress);
+        }
+    }
+}
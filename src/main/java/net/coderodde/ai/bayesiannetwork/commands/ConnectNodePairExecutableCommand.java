@@ -2,6 +2,7 @@ package net.coderodde.ai.bayesiannetwork.commands;
 
 import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
 import net.coderodde.ai.bayesiannetwork.App;
+import net.coderodde.ai.bayesiannetwork.CommandLexer;
 import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
 import net.coderodde.ai.bayesiannetwork.DirectedGraphNode;
 import static net.coderodde.ai.bayesiannetwork.Utils.error;
@@ -24,29 +25,32 @@ public final class ConnectNodePairExecutableCommand
     
     @Override
     public void execute(String command) {
-        String[] tokens = splitToTokens(command);
-        
-    if (tokens.length < 4) {
+        execute(command, new CommandLexer().reset(command));
+    }
+    
+    @Override
+    public void execute(String command, CommandLexer tokens) {
+        if (tokens.size() < 4) {
             error("Missing required tokens. " + 
                     "The proper format is " + 
                     "\"connect <tail_node> to <head_node> [# Comment text.]\"");
             return;
         }
 
-        if (!tokens[2].equals("to")) {
+        if (!tokens.tokenEquals(2, "to")) {
             error("Format error. The proper format is " + 
                   "\"connect <tail_node> to <head_node> [# Comment text.]\"");
             return;
         }
         
-        if (tokens.length > 4 && !tokens[4].equals(COMMENT_BEGIN_TEXT)) {
+        if (tokens.size() > 4 && !tokens.tokenEquals(4, COMMENT_BEGIN_TEXT)) {
             error("Format error. The proper format is " + 
                   "\"connect <tail_node> to <head_node> # Comment text.\"");
             return;
         }
 
-        String tailNodeName = tokens[1];
-        String headNodeName = tokens[3];
+        String tailNodeName = tokens.getToken(1);
+        String headNodeName = tokens.getToken(3);
 
         if (!isValidIdentifier(tailNodeName)) {
             error("Bad tail node name: \"" + tailNodeName + "\".");
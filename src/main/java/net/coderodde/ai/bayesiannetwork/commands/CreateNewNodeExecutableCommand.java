@@ -1,9 +1,9 @@
 package net.coderodde.ai.bayesiannetwork.commands;
 
-import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
 import net.coderodde.ai.bayesiannetwork.DirectedGraphNode;
 import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
 import net.coderodde.ai.bayesiannetwork.App;
+import net.coderodde.ai.bayesiannetwork.CommandLexer;
 import static net.coderodde.ai.bayesiannetwork.Utils.error;
 import static net.coderodde.ai.bayesiannetwork.Utils.isValidIdentifier;
 import static net.coderodde.ai.bayesiannetwork.Utils.parseProbability;
@@ -19,26 +19,29 @@ extends AbstractExecutableCommand {
     
     @Override
     public void execute(String command) {
-        String[] tokens = splitToTokens(command);
-        
-        if (tokens.length < 3) {
+        execute(command, new CommandLexer().reset(command));
+    }
+    
+    @Override
+    public void execute(String command, CommandLexer tokens) {
+        if (tokens.size() < 3) {
             error("Cannot parse 'new' command.");
             return;
         }
         
-        if (tokens.length >= 4 && !tokens[3].startsWith(COMMENT_BEGIN_TEXT)) {
+        if (tokens.size() >= 4 && !tokens.isComment(3)) {
             error("Bad comment format.");
             return;
         }
     
-        String nodeName = tokens[1];
+        String nodeName = tokens.getToken(1);
         
         if (!isValidIdentifier(nodeName)) {
             error("\"" + nodeName + "\" is a bad node identifier.");
             return;
         }
         
-        String probabilityString = tokens[2];
+        String probabilityString = tokens.getToken(2);
         double probability;
         
         try {
@@ -58,5 +61,6 @@ extends AbstractExecutableCommand {
         }
         
         app.getProbabilityMap().put(node, probability);
+        app.setModificationState(true);
     }
 }
@@ -0,0 +1,65 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
+import net.coderodde.ai.bayesiannetwork.CompilationOptions;
+import net.coderodde.ai.bayesiannetwork.CompilationPlan;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+
+/**
+ * Selects the engine answering the queries.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class EngineExecutableCommand extends AbstractExecutableCommand {
+
+    private final App app;
+    
+    public EngineExecutableCommand(App app) {
+        this.app = app;
+    }
+    
+    @Override
+    public void execute(String command) {
+        String[] tokens = splitToTokens(command.trim());
+        CompilationOptions options = app.getCompilationOptions();
+        
+        if (tokens.length == 1 || tokens[1].startsWith(COMMENT_BEGIN_TEXT)) {
+            System.out.println("Engine: " + 
+                               (options.getEngine() == null ?
+                                "auto" : 
+                                options.getEngine().name().toLowerCase()));
+            return;
+        }
+        
+        if (tokens.length > 2 && !tokens[2].startsWith(COMMENT_BEGIN_TEXT)) {
+            error("Bad format. Must be 'engine [auto|enumeration|circuit]'.");
+            return;
+        }
+        
+        switch (tokens[1]) {
+            case "auto":
+                options.setEngine(null);
+                break;
+                
+            case "enumeration":
+                options.setEngine(CompilationPlan.Engine.ENUMERATION);
+                break;
+                
+            case "circuit":
+                options.setEngine(CompilationPlan.Engine.CIRCUIT);
+                break;
+                
+            default:
+                error("Unknown engine \"" + tokens[1] + "\". Must be one " +
+                      "of 'auto', 'enumeration' and 'circuit'.");
+                return;
+        }
+        
+        app.setModificationState(true);
+        System.out.println("Engine: " + tokens[1]);
+    }
+}
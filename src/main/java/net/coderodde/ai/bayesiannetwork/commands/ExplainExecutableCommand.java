@@ -0,0 +1,42 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import net.coderodde.ai.bayesiannetwork.QueryExplanation;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+
+/**
+ * Answers a query describing how it was answered.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class ExplainExecutableCommand 
+        extends AbstractExecutableCommand {
+
+    private static final String COMMAND_NAME = "explain";
+
+    private final App app;
+
+    public ExplainExecutableCommand(App app) {
+        this.app = app;
+    }
+
+    @Override
+    public void execute(String command) {
+        String query = command.trim().substring(COMMAND_NAME.length()).trim();
+
+        if (!query.startsWith("p(")) {
+            error("Bad format. Must be 'explain p(<variables> | " + 
+                  "<variables>)'.");
+            return;
+        }
+
+        QueryExplanation explanation = app.explainQuery(query);
+
+        if (explanation != null) {
+            System.out.println(explanation);
+        }
+    }
+}
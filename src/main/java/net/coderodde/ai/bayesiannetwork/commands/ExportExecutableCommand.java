@@ -0,0 +1,89 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import java.io.File;
+import java.io.IOException;
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
+import net.coderodde.ai.bayesiannetwork.ClassificationResult;
+import net.coderodde.ai.bayesiannetwork.StateExporter;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+
+/**
+ * Exports the compiled system states and their probabilities to a CSV or a 
+ * binary file, compiling the network first if needed.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class ExportExecutableCommand extends AbstractExecutableCommand {
+
+    private final App app;
+    
+    public ExportExecutableCommand(App app) {
+        this.app = app;
+    }
+    
+    @Override
+    public void execute(String command) {
+        String[] tokens = splitToTokens(command.trim());
+        int numberOfTokens = tokens.length;
+        
+        for (int i = 0; i < tokens.length; ++i) {
+            if (tokens[i].startsWith(COMMENT_BEGIN_TEXT)) {
+                numberOfTokens = i;
+                break;
+            }
+        }
+        
+        if (numberOfTokens < 2) {
+            error("No file specified.");
+            return;
+        } else if (numberOfTokens > 3) {
+            error("Too many tokens.");
+            return;
+        }
+        
+        StateExporter.Format format = StateExporter.Format.CSV;
+        
+        if (numberOfTokens == 3) {
+            switch (tokens[2]) {
+                case "csv":
+                    break;
+                    
+                case "bin":
+                    format = StateExporter.Format.BINARY;
+                    break;
+                    
+                default:
+                    error("Unknown format \"" + tokens[2] + "\". Must be " +
+                          "'csv' or 'bin'.");
+                    return;
+            }
+        }
+        
+        ClassificationResult result = app.getResult();
+        
+        if (result == null) {
+            return;
+        }
+        
+        String path = tokens[1];
+        
+        try {
+            long startTime = System.currentTimeMillis();
+            long bytes = StateExporter.export(result, 
+                                              new File(path).toPath(), 
+                                              format);
+            long endTime = System.currentTimeMillis();
+            
+            System.out.println("Exported " + result.getNumberOfStates() + 
+                               " states (" + bytes + " bytes) to \"" + path +
+                               "\" in " + (endTime - startTime) + 
+                               " milliseconds.");
+        } catch (IOException ex) {
+            error("Cannot write file \"" + path + "\": " + ex.getMessage());
+        }
+    }
+}
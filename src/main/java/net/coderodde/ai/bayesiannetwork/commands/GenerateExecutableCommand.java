@@ -0,0 +1,206 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
+import net.coderodde.ai.bayesiannetwork.BulkNetworkLoader;
+import net.coderodde.ai.bayesiannetwork.NetworkGenerator;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+import static net.coderodde.ai.bayesiannetwork.Utils.parseProbability;
+
+/**
+ * Generates a random network into the current one, or as a script into a
+ * file or the standard output.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class GenerateExecutableCommand
+        extends AbstractExecutableCommand {
+
+    /**
+     * The file name denoting the standard output.
+     */
+    private static final String STANDARD_OUTPUT = "-";
+
+    private static final String FORMAT =
+            "Bad format. Must be 'generate <nodes> [depth <d>] " +
+            "[fanin <k>] [fanout <k>] [probability <p>|<lo>..<hi>] " +
+            "[seed <s>] [prefix <name>] [into <file>]'.";
+
+    private final App app;
+
+    public GenerateExecutableCommand(App app) {
+        this.app = app;
+    }
+
+    @Override
+    public void execute(String command) {
+        String[] tokens = splitToTokens(command.trim());
+        int length = tokens.length;
+
+        for (int i = 1; i < tokens.length; ++i) {
+            if (tokens[i].startsWith(COMMENT_BEGIN_TEXT)) {
+                length = i;
+                break;
+            }
+        }
+
+        if (length % 2 != 0) {
+            error(FORMAT);
+            return;
+        }
+
+        NetworkGenerator generator = new NetworkGenerator();
+        String path = null;
+
+        try {
+            generator.setNumberOfNodes(parseInt(tokens[1], "number of nodes"));
+            generator.setDepth(Math.min(generator.getDepth(),
+                                        generator.getNumberOfNodes()));
+
+            for (int i = 2; i < length; i += 2) {
+                String value = tokens[i + 1];
+
+                switch (tokens[i]) {
+                    case "depth":
+                        generator.setDepth(parseInt(value, "depth"));
+                        break;
+
+                    case "fanin":
+                        generator.setMaximumFanIn(parseInt(value, "fan-in"));
+                        break;
+
+                    case "fanout":
+                        generator.setMaximumFanOut(parseInt(value, "fan-out"));
+                        break;
+
+                    case "probability":
+                        setProbabilityRange(generator, value);
+                        break;
+
+                    case "seed":
+                        generator.setSeed(parseLong(value));
+                        break;
+
+                    case "prefix":
+                        generator.setPrefix(value);
+                        break;
+
+                    case "into":
+                        path = value;
+                        break;
+
+                    default:
+                        error(FORMAT);
+                        return;
+                }
+            }
+        } catch (IllegalArgumentException ex) {
+            error(ex.getMessage());
+            return;
+        }
+
+        try {
+            if (path == null) {
+                load(generator);
+            } else {
+                write(generator, path);
+            }
+        } catch (IllegalArgumentException ex) {
+            error(ex.getMessage());
+        }
+    }
+
+    private void load(NetworkGenerator generator) {
+        long startTime = System.currentTimeMillis();
+        BulkNetworkLoader loader =
+                new BulkNetworkLoader(app.getNodeMap(),
+                                      app.getProbabilityMap());
+        generator.addTo(loader);
+
+        if (!loader.finish()) {
+            for (String message : loader.getErrors()) {
+                error(message);
+            }
+
+            error("Nothing was generated.");
+            return;
+        }
+
+        app.setModificationState(true);
+        System.out.println(
+                "Generated " + loader.getNumberOfLoadedNodes() + " nodes " +
+                "and " + loader.getNumberOfLoadedArcs() + " arcs in " +
+                (System.currentTimeMillis() - startTime) + " milliseconds.");
+    }
+
+    private static void write(NetworkGenerator generator, String path) {
+        if (path.equals(STANDARD_OUTPUT)) {
+            try {
+                Writer writer = new BufferedWriter(
+                        new OutputStreamWriter(System.out));
+                generator.writeScript(writer);
+                // Do not close System.out.
+                writer.flush();
+            } catch (IOException ex) {
+                error("Cannot write the script: " + ex.getMessage());
+            }
+
+            return;
+        }
+
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(path),
+                                       StandardCharsets.UTF_8))) {
+            generator.writeScript(writer);
+        } catch (IOException ex) {
+            error("Cannot write the script to \"" + path + "\": " +
+                  ex.getMessage());
+            return;
+        }
+
+        System.out.println(
+                "Wrote " + generator.getNumberOfNodes() + " nodes and " +
+                generator.getNumberOfArcs() + " arcs to \"" + path + "\".");
+    }
+
+    private static void setProbabilityRange(NetworkGenerator generator,
+                                            String text) {
+        int separator = text.indexOf("..");
+
+        if (separator < 0) {
+            double probability = parseProbability(text);
+            generator.setProbabilityRange(probability, probability);
+        } else {
+            generator.setProbabilityRange(
+                    parseProbability(text.substring(0, separator)),
+                    parseProbability(text.substring(separator + 2)));
+        }
+    }
+
+    private static int parseInt(String text, String name) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(
+                    "The " + name + " \"" + text + "\" is not an integer.");
+        }
+    }
+
+    private static long parseLong(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(
+                    "The seed \"" + text + "\" is not an integer.");
+        }
+    }
+}
@@ -41,6 +41,24 @@ public class HelpExecutableCommand extends AbstractExecutableCommand {
             System.out.println("  help <nodename>");
             System.out.println("  help p");
             System.out.println("  help print");
+            System.out.println("  help prune");
+            System.out.println("  help limit");
+            System.out.println("  help plan");
+            System.out.println("  help engine");
+            System.out.println("  help marginals");
+            System.out.println("  help save");
+            System.out.println("  help open");
+            System.out.println("  help storage");
+            System.out.println("  help export");
+            System.out.println("  help load-bif");
+            System.out.println("  help generate");
+            System.out.println("  help journal");
+            System.out.println("  help compile");
+            System.out.println("  help cancel");
+            System.out.println("  help stats");
+            System.out.println("  help metrics");
+            System.out.println("  help explain");
+            System.out.println("  help batch");
             System.out.println("  help quit");
             return;
         }
@@ -89,15 +107,26 @@ public class HelpExecutableCommand extends AbstractExecutableCommand {
             }
 
             case "load": {
-                System.out.println("\"load <PATH>\"");
+                System.out.println("\"load <PATH> [bulk]\"");
                 System.out.println(
-                        "Loads and executes commands from file <PATH>.");
+                        "Loads and executes commands from file <PATH>. " +
+                        "With 'bulk', the file may");
+                System.out.println(
+                        "contain only 'new' and 'connect' commands, which " +
+                        "are loaded quietly and");
+                System.out.println(
+                        "validated at the end; nothing is loaded if any " +
+                        "line is erroneous.");
                 break;
             }
             
             case "list": {
-                System.out.println("\"list\"");
-                System.out.println("Lists all the possible system states.");
+                System.out.println(
+                        "\"list [<OFFSET> <LIMIT> | top <K>]\"");
+                System.out.println("Lists all the possible system states, " +
+                                   "LIMIT states starting from the");
+                System.out.println("state with index OFFSET, or the K most " +
+                                   "probable states.");
                 break;
             }
 
@@ -137,6 +166,289 @@ public class HelpExecutableCommand extends AbstractExecutableCommand {
                 break;
             }
             
+            case "prune": {
+                System.out.println(
+                        "\"prune [<minProbability> [<maxStates>] | off]\"");
+                System.out.println(
+                        "Drops the states whose probability is below " + 
+                        "<minProbability> during compilation,");
+                System.out.println(
+                        "and stops recording states after <maxStates> " + 
+                        "of them. Queries report the error bound.");
+                System.out.println("EXAMPLE 1: prune 1e-6");
+                System.out.println("EXAMPLE 2: prune 0 100000");
+                System.out.println("EXAMPLE 3: prune off");
+                break;
+            }
+            
+            case "limit": {
+                System.out.println(
+                        "\"limit [states <count>|memory <bytes>|" + 
+                        "time <seconds>|off]\"");
+                System.out.println(
+                        "Aborts the compilations recording more than " + 
+                        "<count> states, whose states take");
+                System.out.println(
+                        "more than an estimated <bytes> (suffixed by k, m " + 
+                        "or g), or running longer than");
+                System.out.println(
+                        "<seconds>. 'none' removes a limit, and 'off' all " + 
+                        "of them. An aborted compilation");
+                System.out.println(
+                        "frees its states and leaves the network as it was.");
+                System.out.println("EXAMPLE 1: limit states 10000000");
+                System.out.println("EXAMPLE 2: limit memory 512m");
+                System.out.println("EXAMPLE 3: limit time 30");
+                break;
+            }
+            
+            case "plan": {
+                System.out.println("\"plan\"");
+                System.out.println(
+                        "Counts the states of the network without " + 
+                        "compiling it, and prints the chosen engine");
+                System.out.println("and the predicted cost of compilation.");
+                break;
+            }
+            
+            case "engine": {
+                System.out.println("\"engine [auto|enumeration|circuit]\"");
+                System.out.println(
+                        "Selects the engine answering the queries. " +
+                        "'enumeration' lists all system states,");
+                System.out.println(
+                        "'circuit' compiles an arithmetic circuit, and " + 
+                        "'auto' lets 'plan' choose.");
+                break;
+            }
+            
+            case "marginals": {
+                System.out.println("\"marginals [<evidenceVariables>]\"");
+                System.out.println(
+                        "Prints the probability of each node given the " +
+                        "evidence, and the derivative");
+                System.out.println(
+                        "of the probability of evidence with respect to " + 
+                        "the probability of each node.");
+                System.out.println("EXAMPLE: marginals not Moves, Battery");
+                break;
+            }
+            
+            case "save": {
+                System.out.println("\"save <file>\"");
+                System.out.println(
+                        "Compiles the network if needed, and saves it " + 
+                        "together with its system states");
+                System.out.println("to a binary file.");
+                break;
+            }
+            
+            case "open": {
+                System.out.println("\"open <file> [mapped]\"");
+                System.out.println(
+                        "Replaces the current network with the one saved " + 
+                        "in <file>, including its");
+                System.out.println("system states, so that no recompilation " +
+                                   "is needed. With 'mapped', the states are");
+                System.out.println(
+                        "mapped into memory instead of being read into the " +
+                        "heap, and are shared");
+                System.out.println(
+                        "with other processes mapping the same file.");
+                break;
+            }
+            
+            case "storage": {
+                System.out.println("\"storage [heap|offheap|compressed]\"");
+                System.out.println(
+                        "Selects where the system states are stored. " +
+                        "'offheap' keeps them in direct");
+                System.out.println(
+                        "buffers, which the garbage collector does not " + 
+                        "scan, and which are freed");
+                System.out.println("as soon as the network is recompiled. " +
+                                   "'compressed' keeps each node as a");
+                System.out.println(
+                        "compressed bitmap of the states it is on in, " +
+                        "which takes far less memory.");
+                break;
+            }
+            
+            case "load-bif": {
+                System.out.println("\"load-bif <FILE>\"");
+                System.out.println(
+                        "Imports a network from a BIF or an XMLBIF file. " +
+                        "Each variable must be binary,");
+                System.out.println(
+                        "and its \"on\" outcome must have probability 0 " +
+                        "whenever a parent is off.");
+                System.out.println(
+                        "The \"on\" outcome is the one named true, yes, " +
+                        "on, t, y, 1 or present, or the");
+                System.out.println(
+                        "first one. Nothing is imported if some variable " +
+                        "does not fit.");
+                break;
+            }
+
+            case "generate": {
+                System.out.println(
+                        "\"generate <nodes> [depth <d>] [fanin <k>] " +
+                        "[fanout <k>]");
+                System.out.println(
+                        "          [probability <p>|<lo>..<hi>] " +
+                        "[seed <s>] [prefix <name>] [into <FILE>]\"");
+                System.out.println(
+                        "Generates a random connected network of <nodes> " +
+                        "nodes named <name>0, <name>1");
+                System.out.println(
+                        "and so on, laid out in <d> levels. Each node " +
+                        "beyond the first level gets between");
+                System.out.println(
+                        "1 and <k> parents, and each node at most <k> " +
+                        "children. The probabilities are");
+                System.out.println(
+                        "<p>, or uniform within [<lo>, <hi>]. The same " +
+                        "seed gives the same network.");
+                System.out.println(
+                        "Adds the network to the current one, or writes " +
+                        "it as a script to FILE ('-' for");
+                System.out.println(
+                        "the standard output). The defaults are depth 4, " +
+                        "fanin 3, no fan-out limit,");
+                System.out.println(
+                        "probability 0.05..0.95, seed 1 and prefix n.");
+                System.out.println(
+                        "EXAMPLE: generate 100000 depth 50 fanin 4 " +
+                        "seed 7 into big.txt");
+                break;
+            }
+
+            case "journal": {
+                System.out.println("\"journal [<DIR>|checkpoint|off]\"");
+                System.out.println(
+                        "Journals the commands modifying the network into " +
+                        "DIR, with periodic snapshots of");
+                System.out.println(
+                        "the network. If DIR holds a journal, recovers the " +
+                        "network from it first.");
+                System.out.println(
+                        "'checkpoint' writes a snapshot now, including the " +
+                        "compiled states if they are");
+                System.out.println(
+                        "up to date, and 'off' stops journaling. Without " +
+                        "arguments, prints the status.");
+                break;
+            }
+            
+            case "compile": {
+                System.out.println("\"compile [status]\"");
+                System.out.println(
+                        "Starts enumerating the system states in the " +
+                        "background and returns at once. The");
+                System.out.println(
+                        "queries wait for the enumeration to finish. " +
+                        "'status' prints the number of the");
+                System.out.println(
+                        "states generated so far and the fraction of the " +
+                        "probability mass explored.");
+                break;
+            }
+
+            case "cancel": {
+                System.out.println("\"cancel\"");
+                System.out.println(
+                        "Stops the enumeration running in the background.");
+                break;
+            }
+
+            case "explain": {
+                System.out.println("\"explain p(<variables> | <variables>)\"");
+                System.out.println(
+                        "Answers the query and describes how: the engine " +
+                        "and whether the network had");
+                System.out.println(
+                        "to be compiled, the number of the query and " +
+                        "evidence nodes and their ancestors,");
+                System.out.println(
+                        "the states scanned or the circuit nodes evaluated " +
+                        "with the elimination order,");
+                System.out.println(
+                        "and the time spent preparing, parsing and " +
+                        "evaluating the query.");
+                break;
+            }
+
+            case "batch": {
+                System.out.println("\"batch <PATH> [threads <n>]\"");
+                System.out.println(
+                        "Answers the queries of file <PATH> by <n> threads, " +
+                        "by default one per");
+                System.out.println(
+                        "processor, and prints the answers in the order of " +
+                        "the queries. The file may");
+                System.out.println(
+                        "contain only queries, empty lines and comments; " +
+                        "the queries are parsed");
+                System.out.println(
+                        "before any is answered.");
+                break;
+            }
+
+            case "metrics": {
+                System.out.println(
+                        "\"metrics [prometheus|reset|serve <port>|off]\"");
+                System.out.println(
+                        "Prints the metrics of the queries answered: the " +
+                        "latency percentiles per engine,");
+                System.out.println(
+                        "the states scanned, the errors, and how many " +
+                        "queries found the network");
+                System.out.println(
+                        "compiled. 'prometheus' prints them in the " +
+                        "Prometheus text format, 'reset'");
+                System.out.println(
+                        "clears them, 'serve' serves them over HTTP at " +
+                        "http://127.0.0.1:<port>/metrics");
+                System.out.println(
+                        "(any free port if <port> is 0), and 'off' stops " +
+                        "serving them.");
+                break;
+            }
+
+            case "stats": {
+                System.out.println("\"stats [levels]\"");
+                System.out.println(
+                        "Prints the statistics of the last enumeration of " +
+                        "the system states: the nodes");
+                System.out.println(
+                        "visited and skipped, the combinations enumerated " +
+                        "and dropped, the maximum");
+                System.out.println(
+                        "depth, the memory estimates and the time of each " +
+                        "phase. 'levels' prints the");
+                System.out.println(
+                        "visits and the skipped nodes of each level. The " +
+                        "enumeration also emits the");
+                System.out.println(
+                        "Flight Recorder events " +
+                        "net.coderodde.ai.bayesiannetwork.Compilation and");
+                System.out.println(
+                        "net.coderodde.ai.bayesiannetwork.CompilationPhase.");
+                break;
+            }
+
+            case "export": {
+                System.out.println("\"export <FILE> [csv|bin]\"");
+                System.out.println(
+                        "Writes the system states and their " +
+                        "probabilities to FILE, as CSV (the default) or");
+                System.out.println(
+                        "as little-endian binary records of the state " +
+                        "words and the probability.");
+                break;
+            }
+            
             case "ls": {
                 System.out.println(
                         "Lists the contents of the current working directory.");
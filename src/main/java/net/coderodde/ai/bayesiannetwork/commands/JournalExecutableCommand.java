@@ -0,0 +1,114 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import java.io.File;
+import java.io.IOException;
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
+import net.coderodde.ai.bayesiannetwork.EditJournal;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+
+/**
+ * Controls the journal of the commands modifying the network: starts it in a
+ * directory recovering the network saved there, writes a snapshot, stops it,
+ * or prints its status.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class JournalExecutableCommand extends AbstractExecutableCommand {
+
+    private final App app;
+
+    public JournalExecutableCommand(App app) {
+        this.app = app;
+    }
+
+    @Override
+    public void execute(String command) {
+        String[] tokens = splitToTokens(command.trim());
+
+        if (tokens.length == 1 || tokens[1].startsWith(COMMENT_BEGIN_TEXT)) {
+            printStatus(app.getJournal());
+            return;
+        }
+
+        if (tokens.length > 2 && !tokens[2].startsWith(COMMENT_BEGIN_TEXT)) {
+            error("Bad format. Must be 'journal [<dir>|checkpoint|off]'.");
+            return;
+        }
+
+        switch (tokens[1]) {
+            case "off":
+                if (app.getJournal() != null) {
+                    app.closeJournal();
+                    System.out.println("Journaling is off.");
+                }
+
+                return;
+
+            case "checkpoint":
+                checkpoint();
+                return;
+
+            default:
+                open(tokens[1]);
+        }
+    }
+
+    private void checkpoint() {
+        EditJournal journal = app.getJournal();
+
+        if (journal == null) {
+            error("Journaling is off.");
+            return;
+        }
+
+        try {
+            app.checkpointJournal();
+            System.out.println("Wrote the snapshot of generation " +
+                               journal.getGeneration() + ".");
+        } catch (IOException ex) {
+            error("Cannot write the snapshot in \"" +
+                  journal.getDirectory() + "\": " + ex.getMessage());
+        }
+    }
+
+    private void open(String path) {
+        try {
+            long startTime = System.currentTimeMillis();
+            EditJournal.Recovery recovery =
+                    app.openJournal(new File(path).toPath());
+            long endTime = System.currentTimeMillis();
+
+            if (!recovery.isNew()) {
+                System.out.println("Recovered " +
+                                   app.getNodeMap().size() + " nodes " +
+                                   "and repeated " +
+                                   recovery.getRecords().size() +
+                                   " commands in " + (endTime - startTime) +
+                                   " milliseconds.");
+            }
+
+            System.out.println("Journaling into \"" + path + "\".");
+        } catch (IOException ex) {
+            error("Cannot open the journal in \"" + path + "\": " +
+                  ex.getMessage());
+        }
+    }
+
+    private static void printStatus(EditJournal journal) {
+        if (journal == null) {
+            System.out.println("Journaling is off.");
+            return;
+        }
+
+        System.out.println("Journal: \"" + journal.getDirectory() +
+                           "\", snapshot generation " +
+                           journal.getGeneration() + ", " +
+                           journal.getNumberOfRecords() + " records (" +
+                           journal.getNumberOfBytes() +
+                           " bytes) after the snapshot.");
+    }
+}
@@ -0,0 +1,181 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
+import net.coderodde.ai.bayesiannetwork.CompilationOptions;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+
+/**
+ * Sets the limits on the number of states, the memory and the time after 
+ * which a compilation is aborted.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class LimitExecutableCommand extends AbstractExecutableCommand {
+
+    private static final String NO_LIMIT = "none";
+
+    private final App app;
+    
+    public LimitExecutableCommand(App app) {
+        this.app = app;
+    }
+    
+    @Override
+    public void execute(String command) {
+        String[] tokens = splitToTokens(command.trim());
+        int length = tokens.length;
+        
+        for (int i = 1; i < tokens.length; ++i) {
+            if (tokens[i].startsWith(COMMENT_BEGIN_TEXT)) {
+                length = i;
+                break;
+            }
+        }
+        
+        CompilationOptions options = app.getCompilationOptions();
+        
+        if (length == 1) {
+            printLimits(options);
+            return;
+        }
+        
+        if (length == 2 && tokens[1].equals("off")) {
+            options.removeLimits();
+            printLimits(options);
+            return;
+        }
+        
+        if (length != 3) {
+            error("Bad format. Must be 'limit [states <count>|" + 
+                  "memory <bytes>|time <seconds>|off]'.");
+            return;
+        }
+        
+        boolean none = tokens[2].equals(NO_LIMIT);
+        
+        try {
+            switch (tokens[1]) {
+                case "states":
+                    options.setStateLimit(none ? Integer.MAX_VALUE : 
+                                                 parseCount(tokens[2]));
+                    break;
+                    
+                case "memory":
+                    options.setMemoryLimit(none ? Long.MAX_VALUE : 
+                                                  parseBytes(tokens[2]));
+                    break;
+                    
+                case "time":
+                    options.setTimeLimit(none ? Long.MAX_VALUE : 
+                                                parseMilliseconds(tokens[2]));
+                    break;
+                    
+                default:
+                    error("Unknown limit \"" + tokens[1] + "\". Must be " +
+                          "'states', 'memory' or 'time'.");
+                    return;
+            }
+        } catch (IllegalArgumentException ex) {
+            error(ex.getMessage());
+            return;
+        }
+        
+        // The limits guard the next compilations only, so the compiled
+        // states remain valid.
+        printLimits(options);
+    }
+    
+    private static int parseCount(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(
+                    "The state limit \"" + text + "\" is not an integer.");
+        }
+    }
+    
+    /**
+     * Parses a number of bytes, possibly followed by the binary unit 'k', 
+     * 'm' or 'g'.
+     */
+    private static long parseBytes(String text) {
+        String lowerCaseText = text.toLowerCase();
+        long unit = 1L;
+        
+        switch (lowerCaseText.isEmpty() ? ' ' : 
+                lowerCaseText.charAt(lowerCaseText.length() - 1)) {
+            case 'k':
+                unit = 1L << 10;
+                break;
+                
+            case 'm':
+                unit = 1L << 20;
+                break;
+                
+            case 'g':
+                unit = 1L << 30;
+                break;
+        }
+        
+        String digits = unit == 1L ? 
+                lowerCaseText : 
+                lowerCaseText.substring(0, lowerCaseText.length() - 1);
+        
+        try {
+            long bytes = Long.parseLong(digits);
+            
+            if (bytes > Long.MAX_VALUE / unit) {
+                throw new NumberFormatException();
+            }
+            
+            return bytes * unit;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(
+                    "The memory limit \"" + text + "\" is not a number of " +
+                    "bytes, kilobytes (k), megabytes (m) or gigabytes (g).");
+        }
+    }
+    
+    private static long parseMilliseconds(String text) {
+        double seconds;
+        
+        try {
+            seconds = Double.parseDouble(text);
+        } catch (NumberFormatException ex) {
+            seconds = Double.NaN;
+        }
+        
+        if (!(seconds > 0.0) || Double.isInfinite(seconds)) {
+            throw new IllegalArgumentException(
+                    "The time limit \"" + text + "\" is not a positive " + 
+                    "number of seconds.");
+        }
+        
+        return Math.max(1L, (long) (seconds * 1000.0));
+    }
+    
+    private static void printLimits(CompilationOptions options) {
+        if (!options.isLimited()) {
+            System.out.println("No limits.");
+            return;
+        }
+        
+        if (options.getStateLimit() < Integer.MAX_VALUE) {
+            System.out.println("State limit: " + options.getStateLimit());
+        }
+        
+        if (options.getMemoryLimit() < Long.MAX_VALUE) {
+            System.out.println("Memory limit: " + options.getMemoryLimit() + 
+                               " bytes");
+        }
+        
+        if (options.getTimeLimit() < Long.MAX_VALUE) {
+            System.out.println("Time limit: " + options.getTimeLimit() + 
+                               " milliseconds");
+        }
+    }
+}
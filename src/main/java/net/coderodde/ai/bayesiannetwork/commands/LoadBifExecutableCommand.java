@@ -0,0 +1,84 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import java.io.File;
+import java.io.IOException;
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
+import net.coderodde.ai.bayesiannetwork.BifImporter;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+
+/**
+ * Imports a network from a BIF or an XMLBIF file.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class LoadBifExecutableCommand extends AbstractExecutableCommand {
+
+    private final App app;
+    
+    public LoadBifExecutableCommand(App app) {
+        this.app = app;
+    }
+    
+    @Override
+    public boolean isRepeatable() {
+        return false;
+    }
+    
+    @Override
+    public void execute(String command) {
+        String[] tokens = splitToTokens(command.trim());
+        
+        if (tokens.length < 2) {
+            error("No file specified.");
+            return;
+        } else if (tokens.length > 2 && 
+                   !tokens[2].startsWith(COMMENT_BEGIN_TEXT)) {
+            error("Too many tokens.");
+            return;
+        }
+        
+        String path = tokens[1];
+        BifImporter importer = new BifImporter(app.getNodeMap(), 
+                                               app.getProbabilityMap());
+        long startTime = System.currentTimeMillis();
+        boolean loaded;
+        
+        try {
+            loaded = importer.load(new File(path).toPath());
+        } catch (IOException ex) {
+            error("Cannot access file \"" + path + "\".");
+            return;
+        }
+        
+        if (!loaded) {
+            for (String message : importer.getErrors()) {
+                error(message);
+            }
+            
+            int omitted = importer.getNumberOfErrors() - 
+                          importer.getErrors().size();
+            
+            if (omitted > 0) {
+                error("... and " + omitted + " more errors.");
+            }
+            
+            error("Nothing was loaded from \"" + path + "\".");
+            return;
+        }
+        
+        for (String message : importer.getRenamings()) {
+            System.out.println(message);
+        }
+        
+        app.setModificationState(true);
+        System.out.println(
+                "Loaded " + importer.getNumberOfLoadedNodes() + " nodes and " +
+                importer.getNumberOfLoadedArcs() + " arcs from \"" + path + 
+                "\" in " + (System.currentTimeMillis() - startTime) + 
+                " milliseconds.");
+    }
+}
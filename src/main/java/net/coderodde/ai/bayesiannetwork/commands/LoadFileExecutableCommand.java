@@ -1,11 +1,15 @@
 package net.coderodde.ai.bayesiannetwork.commands;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
 import net.coderodde.ai.bayesiannetwork.App;
+import net.coderodde.ai.bayesiannetwork.BulkNetworkLoader;
 import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
 import static net.coderodde.ai.bayesiannetwork.Utils.error;
 
@@ -23,6 +27,11 @@ public final class LoadFileExecutableCommand extends AbstractExecutableCommand {
         this.app = app;
     }
     
+    @Override
+    public boolean isRepeatable() {
+        return false;
+    }
+    
     @Override
     public void execute(String command) {
         String[] tokens = splitToTokens(command.trim());
@@ -30,13 +39,24 @@ public final class LoadFileExecutableCommand extends AbstractExecutableCommand {
         if (tokens.length < 2) {
             error("No file specified.");
             return;
-        } else if (tokens.length > 2 && !tokens[2].equals(COMMENT_BEGIN_TEXT)) {
+        }
+        
+        boolean bulk = tokens.length > 2 && tokens[2].equals("bulk");
+        int numberOfTokens = bulk ? 3 : 2;
+        
+        if (tokens.length > numberOfTokens && 
+                !tokens[numberOfTokens].equals(COMMENT_BEGIN_TEXT)) {
             error("Too many tokens.");
             return;
         }
         
         String path = tokens[1];
         
+        if (bulk) {
+            loadBulk(path);
+            return;
+        }
+        
         try {
             List<String> rows = Files.readAllLines(new File(path).toPath());
             
@@ -47,4 +67,44 @@ public final class LoadFileExecutableCommand extends AbstractExecutableCommand {
             error("Cannot access file \"" + path + "\".");
         }
     }
+    
+    private void loadBulk(String path) {
+        Path file = new File(path).toPath();
+        BulkNetworkLoader loader = 
+                new BulkNetworkLoader(app.getNodeMap(), 
+                                      app.getProbabilityMap());
+        long startTime = System.currentTimeMillis();
+        boolean loaded;
+        
+        try (BufferedReader reader = 
+                Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            loaded = loader.load(reader);
+        } catch (IOException ex) {
+            error("Cannot access file \"" + path + "\".");
+            return;
+        }
+        
+        if (!loaded) {
+            for (String message : loader.getErrors()) {
+                error(message);
+            }
+            
+            int omitted = loader.getNumberOfErrors() - 
+                          loader.getErrors().size();
+            
+            if (omitted > 0) {
+                error("... and " + omitted + " more errors.");
+            }
+            
+            error("Nothing was loaded from \"" + path + "\".");
+            return;
+        }
+        
+        app.setModificationState(true);
+        System.out.println(
+                "Loaded " + loader.getNumberOfLoadedNodes() + " nodes and " +
+                loader.getNumberOfLoadedArcs() + " arcs from \"" + path + 
+                "\" in " + (System.currentTimeMillis() - startTime) + 
+                " milliseconds.");
+    }
 }
@@ -0,0 +1,83 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import java.util.HashMap;
+import java.util.Map;
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import net.coderodde.ai.bayesiannetwork.ArithmeticCircuit;
+import net.coderodde.ai.bayesiannetwork.DirectedGraphNode;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+
+/**
+ * Prints the posterior probability of each node given the evidence, and the
+ * sensitivity of the probability of evidence to the probability of each node.
+ * Both are computed with a single pass over the arithmetic circuit.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class MarginalsExecutableCommand 
+        extends AbstractExecutableCommand {
+
+    private final App app;
+    
+    public MarginalsExecutableCommand(App app) {
+        this.app = app;
+    }
+    
+    @Override
+    public void execute(String command) {
+        String text = command.trim().substring("marginals".length()).trim();
+        int commentIndex = text.indexOf(App.COMMENT_BEGIN_TEXT);
+        
+        if (commentIndex >= 0) {
+            text = text.substring(0, commentIndex).trim();
+        }
+        
+        Map<DirectedGraphNode, Boolean> evidence = 
+                text.isEmpty() ? new HashMap<>() : app.loadVariableMap(text);
+        
+        if (evidence == null) {
+            return;
+        }
+        
+        ArithmeticCircuit circuit = app.getCircuit();
+        
+        if (circuit == null) {
+            return;
+        }
+        
+        Map<DirectedGraphNode, Double> marginals = 
+                circuit.computePosteriorMarginals(evidence);
+        
+        if (marginals.isEmpty()) {
+            error("The evidence is impossible.");
+            return;
+        }
+        
+        Map<DirectedGraphNode, Double> sensitivities = 
+                circuit.computeSensitivities(evidence);
+        int nameLength = "Node".length();
+        
+        for (DirectedGraphNode node : marginals.keySet()) {
+            nameLength = Math.max(nameLength, node.getName().length());
+        }
+        
+        System.out.println("P(evidence) = " + circuit.evaluate(evidence));
+        System.out.println(
+                String.format("%-" + nameLength + "s %-22s %s", 
+                              "Node", 
+                              "P(on | evidence)", 
+                              "dP(evidence) / dp"));
+        
+        for (Map.Entry<DirectedGraphNode, Double> entry 
+                : marginals.entrySet()) {
+            System.out.println(
+                    String.format("%-" + nameLength + "s %-22s %s",
+                                  entry.getKey().getName(),
+                                  entry.getValue(),
+                                  sensitivities.get(entry.getKey())));
+        }
+    }
+}
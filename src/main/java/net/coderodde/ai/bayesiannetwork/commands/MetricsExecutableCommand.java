@@ -0,0 +1,106 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import java.io.IOException;
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
+import net.coderodde.ai.bayesiannetwork.MetricsServer;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+
+/**
+ * Prints the query metrics as text or in the Prometheus format, resets them,
+ * or serves them over HTTP on a local port.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class MetricsExecutableCommand 
+        extends AbstractExecutableCommand {
+
+    private static final String FORMAT = 
+            "Bad format. Must be " + 
+            "'metrics [prometheus|reset|serve <port>|off]'.";
+
+    private final App app;
+
+    public MetricsExecutableCommand(App app) {
+        this.app = app;
+    }
+
+    @Override
+    public void execute(String command) {
+        String[] tokens = splitToTokens(command.trim());
+        int length = tokens.length;
+
+        for (int i = 1; i < tokens.length; ++i) {
+            if (tokens[i].startsWith(COMMENT_BEGIN_TEXT)) {
+                length = i;
+                break;
+            }
+        }
+
+        if (length == 1) {
+            System.out.println(app.getQueryMetrics());
+            return;
+        }
+
+        if (length != (tokens[1].equals("serve") ? 3 : 2)) {
+            error(FORMAT);
+            return;
+        }
+
+        switch (tokens[1]) {
+            case "prometheus":
+                System.out.print(app.getQueryMetrics().toPrometheusText());
+                return;
+
+            case "reset":
+                app.getQueryMetrics().reset();
+                System.out.println("The query metrics are reset.");
+                return;
+
+            case "serve":
+                serve(tokens[2]);
+                return;
+
+            case "off":
+                if (app.getMetricsServer() != null) {
+                    app.setMetricsServer(null);
+                    System.out.println("The query metrics are not served.");
+                }
+
+                return;
+
+            default:
+                error(FORMAT);
+        }
+    }
+
+    private void serve(String portText) {
+        int port;
+
+        try {
+            port = Integer.parseInt(portText);
+        } catch (NumberFormatException ex) {
+            port = -1;
+        }
+
+        if (port < 0 || port > 65535) {
+            error("Bad port \"" + portText + "\".");
+            return;
+        }
+
+        try {
+            // Free the port before listening to it again.
+            app.setMetricsServer(null);
+            MetricsServer server = 
+                    new MetricsServer(app.getQueryMetrics(), port);
+            app.setMetricsServer(server);
+            System.out.println("Serving the query metrics at " + server + 
+                               ".");
+        } catch (IOException ex) {
+            error("Cannot serve on port " + port + ": " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
+import net.coderodde.ai.bayesiannetwork.ResultSnapshot;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+
+/**
+ * Replaces the current network with the one in a binary file written by 
+ * {@code save}, together with its compiled system states, so that queries 
+ * can be answered without recompiling. With the {@code mapped} option the
+ * states are mapped into memory instead of being read into the heap.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class OpenExecutableCommand extends AbstractExecutableCommand {
+
+    private final App app;
+    
+    public OpenExecutableCommand(App app) {
+        this.app = app;
+    }
+    
+    @Override
+    public boolean isRepeatable() {
+        return false;
+    }
+    
+    @Override
+    public void execute(String command) {
+        String[] tokens = splitToTokens(command.trim());
+        
+        if (tokens.length < 2) {
+            error("No file specified.");
+            return;
+        }
+        
+        boolean mapped = false;
+        
+        if (tokens.length > 2 && !tokens[2].startsWith(COMMENT_BEGIN_TEXT)) {
+            if (!tokens[2].equals("mapped")) {
+                error("Bad format. Must be 'open <file> [mapped]'.");
+                return;
+            }
+            
+            mapped = true;
+            
+            if (tokens.length > 3 && 
+                    !tokens[3].startsWith(COMMENT_BEGIN_TEXT)) {
+                error("Too many tokens.");
+                return;
+            }
+        }
+        
+        String path = tokens[1];
+        
+        try {
+            long startTime = System.currentTimeMillis();
+            ResultSnapshot snapshot = 
+                    ResultSnapshot.open(new File(path).toPath(), mapped);
+            long endTime = System.currentTimeMillis();
+            
+            app.openSnapshot(snapshot);
+            System.out.println("Opened " + 
+                               snapshot.getResult().getNumberOfStates() + 
+                               " states " + (mapped ? "mapped " : "") +
+                               "from \"" + path + "\" in " + 
+                               (endTime - startTime) + " milliseconds.");
+        } catch (NoSuchFileException ex) {
+            error("File \"" + path + "\" is not found.");
+        } catch (IOException ex) {
+            error("Cannot open file \"" + path + "\": " + ex.getMessage());
+        }
+    }
+}
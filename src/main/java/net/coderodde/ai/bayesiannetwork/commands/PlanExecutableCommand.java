@@ -0,0 +1,60 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
+import net.coderodde.ai.bayesiannetwork.CompilationPlanner;
+import net.coderodde.ai.bayesiannetwork.DirectedGraphNode;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+import static net.coderodde.ai.bayesiannetwork.Utils.findEntireGraph;
+
+/**
+ * Prints the engine chosen for compiling the current network and the 
+ * predicted cost of the compilation.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class PlanExecutableCommand extends AbstractExecutableCommand {
+
+    private final App app;
+    
+    public PlanExecutableCommand(App app) {
+        this.app = app;
+    }
+    
+    @Override
+    public void execute(String command) {
+        String[] tokens = splitToTokens(command.trim());
+        
+        if (tokens.length > 1 && !tokens[1].startsWith(COMMENT_BEGIN_TEXT)) {
+            error("Bad format. Must be 'plan'.");
+            return;
+        }
+        
+        List<DirectedGraphNode> network = 
+                new ArrayList<>(app.getNodeMap().values());
+        
+        if (network.isEmpty()) {
+            error("You have no nodes.");
+            return;
+        }
+        
+        if (findEntireGraph(network.get(0)).size() < network.size()) {
+            error("The graph is not connected.");
+            return;
+        }
+        
+        try {
+            System.out.println(
+                    CompilationPlanner.plan(network, 
+                                            app.getProbabilityMap(),
+                                            app.getCompilationOptions()));
+        } catch (IllegalArgumentException ex) {
+            error(ex.getMessage());
+        }
+    }
+}
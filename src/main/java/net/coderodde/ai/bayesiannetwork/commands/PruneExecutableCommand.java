@@ -0,0 +1,108 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
+import net.coderodde.ai.bayesiannetwork.CompilationOptions;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+import static net.coderodde.ai.bayesiannetwork.Utils.parseProbability;
+
+/**
+ * Sets the thresholds for dropping improbable states during compilation.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class PruneExecutableCommand extends AbstractExecutableCommand {
+
+    private final App app;
+    
+    public PruneExecutableCommand(App app) {
+        this.app = app;
+    }
+    
+    @Override
+    public void execute(String command) {
+        String[] tokens = splitToTokens(command.trim());
+        int length = tokens.length;
+        
+        for (int i = 1; i < tokens.length; ++i) {
+            if (tokens[i].startsWith(COMMENT_BEGIN_TEXT)) {
+                length = i;
+                break;
+            }
+        }
+        
+        CompilationOptions options = app.getCompilationOptions();
+        
+        if (length == 1) {
+            printOptions(options);
+            return;
+        }
+        
+        if (length > 3) {
+            error("Bad format. Must be " + 
+                  "'prune <minProbability> [<maxStates>]' or 'prune off'.");
+            return;
+        }
+        
+        if (tokens[1].equals("off")) {
+            if (length != 2) {
+                error("Bad format. Must be 'prune off'.");
+                return;
+            }
+            
+            options.disablePruning();
+            app.setModificationState(true);
+            System.out.println("Pruning disabled.");
+            return;
+        }
+        
+        double minimumStateProbability;
+        int maximumNumberOfStates = Integer.MAX_VALUE;
+        
+        try {
+            minimumStateProbability = parseProbability(tokens[1]);
+        } catch (IllegalArgumentException ex) {
+            error(ex.getMessage());
+            return;
+        }
+        
+        if (length == 3) {
+            try {
+                maximumNumberOfStates = Integer.parseInt(tokens[2]);
+            } catch (NumberFormatException ex) {
+                error("The maximum number of states \"" + tokens[2] + 
+                      "\" is not an integer.");
+                return;
+            }
+        }
+        
+        try {
+            options.setMaximumNumberOfStates(maximumNumberOfStates);
+        } catch (IllegalArgumentException ex) {
+            error(ex.getMessage());
+            return;
+        }
+        
+        options.setMinimumStateProbability(minimumStateProbability);
+        app.setModificationState(true);
+        printOptions(options);
+    }
+    
+    private static void printOptions(CompilationOptions options) {
+        if (!options.isPruning()) {
+            System.out.println("Pruning is off.");
+            return;
+        }
+        
+        System.out.println("Minimum state probability: " + 
+                           options.getMinimumStateProbability());
+        
+        if (options.getMaximumNumberOfStates() < Integer.MAX_VALUE) {
+            System.out.println("Maximum number of states: " +
+                               options.getMaximumNumberOfStates());
+        }
+    }
+}
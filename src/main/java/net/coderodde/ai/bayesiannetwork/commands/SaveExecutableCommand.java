@@ -0,0 +1,64 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import java.io.File;
+import java.io.IOException;
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
+import net.coderodde.ai.bayesiannetwork.ClassificationResult;
+import net.coderodde.ai.bayesiannetwork.ResultSnapshot;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+
+/**
+ * Saves the current network together with its compiled system states to a 
+ * binary file, compiling the network first if needed.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class SaveExecutableCommand extends AbstractExecutableCommand {
+
+    private final App app;
+    
+    public SaveExecutableCommand(App app) {
+        this.app = app;
+    }
+    
+    @Override
+    public void execute(String command) {
+        String[] tokens = splitToTokens(command.trim());
+        
+        if (tokens.length < 2) {
+            error("No file specified.");
+            return;
+        } else if (tokens.length > 2 && 
+                   !tokens[2].startsWith(COMMENT_BEGIN_TEXT)) {
+            error("Too many tokens.");
+            return;
+        }
+        
+        ClassificationResult result = app.getResult();
+        
+        if (result == null) {
+            return;
+        }
+        
+        String path = tokens[1];
+        
+        try {
+            long startTime = System.currentTimeMillis();
+            ResultSnapshot.save(new File(path).toPath(), 
+                                result, 
+                                app.getProbabilityMap(), 
+                                app.getCompilationOptions());
+            long endTime = System.currentTimeMillis();
+            
+            System.out.println("Saved " + result.getNumberOfStates() + 
+                               " states to \"" + path + "\" in " + 
+                               (endTime - startTime) + " milliseconds.");
+        } catch (IOException ex) {
+            error("Cannot write file \"" + path + "\": " + ex.getMessage());
+        }
+    }
+}
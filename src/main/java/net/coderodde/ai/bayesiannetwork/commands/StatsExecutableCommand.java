@@ -0,0 +1,81 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
+import net.coderodde.ai.bayesiannetwork.CompilationProgress;
+import net.coderodde.ai.bayesiannetwork.CompilationStatistics;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+
+/**
+ * Prints the statistics of the last enumeration of the system states, as a 
+ * summary or per level.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class StatsExecutableCommand extends AbstractExecutableCommand {
+
+    private final App app;
+
+    public StatsExecutableCommand(App app) {
+        this.app = app;
+    }
+
+    @Override
+    public void execute(String command) {
+        String[] tokens = splitToTokens(command.trim());
+        boolean levels = false;
+
+        if (tokens.length > 1 && !tokens[1].startsWith(COMMENT_BEGIN_TEXT)) {
+            if (!tokens[1].equals("levels") ||
+                    (tokens.length > 2 && 
+                     !tokens[2].startsWith(COMMENT_BEGIN_TEXT))) {
+                error("Bad format. Must be 'stats [levels]'.");
+                return;
+            }
+
+            levels = true;
+        }
+
+        CompilationProgress progress = app.getCompilationProgress();
+
+        if (progress == null) {
+            System.out.println("No compilation has been started.");
+            return;
+        }
+
+        CompilationStatistics statistics = progress.getStatistics();
+
+        if (statistics == null) {
+            System.out.println(progress);
+            System.out.println(
+                    "The statistics are available once it is over.");
+            return;
+        }
+
+        if (progress.getStatus() != CompilationProgress.Status.FINISHED) {
+            System.out.println(progress);
+        }
+
+        if (levels) {
+            printLevels(statistics);
+        } else {
+            System.out.println(statistics);
+        }
+    }
+
+    private static void printLevels(CompilationStatistics statistics) {
+        System.out.printf("%5s %6s %14s %14s%n", 
+                          "Level", "Nodes", "Visits", "Skipped");
+
+        for (int level = 0; level < statistics.getNumberOfLevels(); ++level) {
+            System.out.printf("%5d %6d %14d %14d%n",
+                              level,
+                              statistics.getLevelSize(level),
+                              statistics.getLevelVisits(level),
+                              statistics.getSkippedNodes(level));
+        }
+    }
+}
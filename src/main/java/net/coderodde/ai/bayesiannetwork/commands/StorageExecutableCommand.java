@@ -0,0 +1,76 @@
+package net.coderodde.ai.bayesiannetwork.commands;
+
+import net.coderodde.ai.bayesiannetwork.AbstractExecutableCommand;
+import net.coderodde.ai.bayesiannetwork.App;
+import static net.coderodde.ai.bayesiannetwork.App.COMMENT_BEGIN_TEXT;
+import net.coderodde.ai.bayesiannetwork.CompilationOptions;
+import static net.coderodde.ai.bayesiannetwork.Utils.error;
+
+/**
+ * Selects where the enumerated system states are stored: on the Java heap, in
+ * direct buffers outside of it, or as compressed node columns on the heap.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6181 (Oct 18, 2026)
+ * @since 1.6181 (Oct 18, 2026)
+ */
+public final class StorageExecutableCommand extends AbstractExecutableCommand {
+
+    private final App app;
+    
+    public StorageExecutableCommand(App app) {
+        this.app = app;
+    }
+    
+    @Override
+    public void execute(String command) {
+        String[] tokens = splitToTokens(command.trim());
+        CompilationOptions options = app.getCompilationOptions();
+        
+        if (tokens.length == 1 || tokens[1].startsWith(COMMENT_BEGIN_TEXT)) {
+            System.out.println("Storage: " + toName(options.getStorage()));
+            return;
+        }
+        
+        if (tokens.length > 2 && !tokens[2].startsWith(COMMENT_BEGIN_TEXT)) {
+            error("Bad format. Must be 'storage [heap|offheap|compressed]'.");
+            return;
+        }
+        
+        switch (tokens[1]) {
+            case "heap":
+                options.setStorage(CompilationOptions.Storage.HEAP);
+                break;
+                
+            case "offheap":
+                options.setStorage(CompilationOptions.Storage.OFF_HEAP);
+                break;
+                
+            case "compressed":
+                options.setStorage(CompilationOptions.Storage.COMPRESSED);
+                break;
+                
+            default:
+                error("Unknown storage \"" + tokens[1] + "\". Must be " +
+                      "'heap', 'offheap' or 'compressed'.");
+                return;
+        }
+        
+        // The states get recompiled into the new storage on the next query.
+        app.setModificationState(true);
+        System.out.println("Storage: " + tokens[1]);
+    }
+    
+    private static String toName(CompilationOptions.Storage storage) {
+        switch (storage) {
+            case OFF_HEAP:
+                return "offheap";
+                
+            case COMPRESSED:
+                return "compressed";
+                
+            default:
+                return "heap";
+        }
+    }
+}